@@ -0,0 +1,39 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.closures.composite;
+
+import org.jmetis.kernel.closure.IUnaryPredicate;
+
+/**
+ * {@code AdaptiveUnaryAnyPredicate} is a {@link UnaryAnyPredicate} which
+ * evaluates first the components that return {@code true} most cheaply.
+ * 
+ * @see AdaptiveUnaryPredicateComposite
+ * @author era
+ */
+public class AdaptiveUnaryAnyPredicate<A> extends
+		AdaptiveUnaryPredicateComposite<A> {
+
+	/**
+	 * Constructs a new {@code AdaptiveUnaryAnyPredicate} instance with the
+	 * given {@code components}.
+	 * 
+	 * @param components
+	 *            the predicates to evaluate, initially in the given order
+	 */
+	public AdaptiveUnaryAnyPredicate(IUnaryPredicate<? super A>... components) {
+		super(true, components);
+	}
+
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.closures.composite;
+
+import org.jmetis.closures.core.ITotalPredicate;
+import org.jmetis.kernel.closure.IUnaryPredicate;
+
+/**
+ * {@code AdaptiveUnaryPredicateComposite} evaluates its components in the
+ * order which has decided the result fastest so far.
+ * <p>
+ * The components are evaluated until one returns the {@code decisiveResult},
+ * which is then returned. On average every 256th evaluation is a sample which
+ * measures how long each evaluated component takes and how often it is
+ * decisive. The samples are taken at random intervals, so that a periodic
+ * input does not bias them. After every 64 samples the components are ranked
+ * by their average time divided by their probability of being decisive, the
+ * cheapest first, and the statistics are halved so that the order follows a
+ * changing input. A single measurement counts at most eight times the average
+ * so far, or one microsecond, so that a pause of the thread does not distort
+ * the order.
+ * <p>
+ * A component which is not an {@link ITotalPredicate} is only evaluated after
+ * all the components given before it, since these may guard it, as in
+ * {@code notNull && length > 3}; only total components move ahead of the
+ * components given before them. The statistics are gathered without
+ * synchronization; concurrent evaluations may lose samples but always
+ * evaluate a complete order.
+ * 
+ * @author era
+ */
+public abstract class AdaptiveUnaryPredicateComposite<A> extends
+		UnaryPredicateComposite<A> {
+
+	private static final int SAMPLES_PER_REORDER = 64;
+
+	private static final long MINIMUM_LIMIT_NANOS = 1000;
+
+	private final boolean decisiveResult;
+
+	private final long[] nanos;
+
+	private final int[] evaluations;
+
+	private final int[] decisions;
+
+	private int countdown;
+
+	private int seed;
+
+	private int samples;
+
+	private volatile int[] indexes;
+
+	private volatile IUnaryPredicate<? super A>[] order;
+
+	/**
+	 * Constructs a new {@code AdaptiveUnaryPredicateComposite} instance with
+	 * the given {@code components}.
+	 * 
+	 * @param decisiveResult
+	 *            the result of a component which ends the evaluation
+	 * @param components
+	 *            the predicates to evaluate, initially in the given order
+	 */
+	protected AdaptiveUnaryPredicateComposite(boolean decisiveResult,
+			IUnaryPredicate<? super A>... components) {
+		super(components);
+		this.decisiveResult = decisiveResult;
+		this.nanos = new long[components.length];
+		this.evaluations = new int[components.length];
+		this.decisions = new int[components.length];
+		this.indexes = new int[components.length];
+		for (int i = 0; i < components.length; i++) {
+			this.indexes[i] = i;
+		}
+		this.order = components.clone();
+		this.seed = System.identityHashCode(this) | 1;
+		this.countdown = this.nextInterval();
+	}
+
+	/**
+	 * Returns the components in the order they are currently evaluated in.
+	 * 
+	 * @return a copy of the components
+	 */
+	@Override
+	public IUnaryPredicate<? super A>[] getComponents() {
+		return this.order.clone();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.kernel.closure.IUnaryPredicate#evaluate(java.lang.Object)
+	 */
+	public boolean evaluate(A argument) {
+		if (--this.countdown <= 0) {
+			return this.sample(argument);
+		}
+		for (IUnaryPredicate<? super A> p : this.order) {
+			if (p.evaluate(argument) == this.decisiveResult) {
+				return this.decisiveResult;
+			}
+		}
+		return !this.decisiveResult;
+	}
+
+	private boolean sample(A argument) {
+		this.countdown = this.nextInterval();
+		if (++this.samples >= AdaptiveUnaryPredicateComposite.SAMPLES_PER_REORDER) {
+			this.reorder();
+		}
+		for (int index : this.indexes) {
+			long limit = Math.max(
+					AdaptiveUnaryPredicateComposite.MINIMUM_LIMIT_NANOS,
+					this.evaluations[index] == 0 ? 0 : 8 * this.nanos[index]
+							/ this.evaluations[index]);
+			long start = System.nanoTime();
+			boolean decisive = this.components[index].evaluate(argument) == this.decisiveResult;
+			this.nanos[index] += Math.min(System.nanoTime() - start, limit);
+			this.evaluations[index]++;
+			if (decisive) {
+				this.decisions[index]++;
+				return this.decisiveResult;
+			}
+		}
+		return !this.decisiveResult;
+	}
+
+	/**
+	 * Returns a pseudo-random number of evaluations between 1 and 512 to the
+	 * next sample.
+	 */
+	private int nextInterval() {
+		int seed = this.seed;
+		seed ^= seed << 13;
+		seed ^= seed >>> 17;
+		seed ^= seed << 5;
+		this.seed = seed;
+		return 1 + (seed >>> 23);
+	}
+
+	private void reorder() {
+		int length = this.components.length;
+		double[] ranks = new double[length];
+		for (int i = 0; i < length; i++) {
+			// average time divided by the probability of being decisive, both
+			// estimated with one decisive and one other virtual evaluation
+			ranks[i] = (double) (this.nanos[i] + 1)
+					* (this.evaluations[i] + 2) / (this.evaluations[i] + 1)
+					/ (this.decisions[i] + 1);
+			this.nanos[i] >>= 1;
+			this.evaluations[i] >>= 1;
+			this.decisions[i] >>= 1;
+		}
+		this.samples = 0;
+		// repeatedly takes the cheapest component which may be evaluated next,
+		// which is any remaining total component or the first remaining one
+		boolean[] taken = new boolean[length];
+		int first = 0;
+		int[] indexes = new int[length];
+		for (int i = 0; i < length; i++) {
+			while (taken[first]) {
+				first++;
+			}
+			int best = first;
+			for (int j = first + 1; j < length; j++) {
+				if (!taken[j] && ranks[j] < ranks[best]
+						&& this.components[j] instanceof ITotalPredicate) {
+					best = j;
+				}
+			}
+			taken[best] = true;
+			indexes[i] = best;
+		}
+		IUnaryPredicate<? super A>[] order = this.components.clone();
+		for (int i = 0; i < length; i++) {
+			order[i] = this.components[indexes[i]];
+		}
+		this.indexes = indexes;
+		this.order = order;
+	}
+
+}
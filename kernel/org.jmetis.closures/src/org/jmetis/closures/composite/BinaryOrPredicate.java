@@ -34,6 +34,24 @@ public class BinaryOrPredicate<A1, A2> implements IBinaryPredicate<A1, A2> {
 		this.secondPredicate = secondPredicate;
 	}
 
+	/**
+	 * Returns the predicate evaluated first.
+	 * 
+	 * @return the predicate evaluated first
+	 */
+	public IBinaryPredicate<? super A1, ? super A2> getFirstPredicate() {
+		return this.firstPredicate;
+	}
+
+	/**
+	 * Returns the predicate evaluated second.
+	 * 
+	 * @return the predicate evaluated second
+	 */
+	public IBinaryPredicate<? super A1, ? super A2> getSecondPredicate() {
+		return this.secondPredicate;
+	}
+
 	/* (non-Javadoc)
 	 * @see org.jmetis.closures.IBinaryPredicate#evaluate(java.lang.Object, java.lang.Object)
 	 */
@@ -33,4 +33,13 @@ IBinaryPredicate<A1, A2> {
 		this.components = components;
 	}
 
+	/**
+	 * Returns the components in the order they are evaluated in.
+	 * 
+	 * @return a copy of the components
+	 */
+	public IBinaryPredicate<? super A1, ? super A2>[] getComponents() {
+		return this.components.clone();
+	}
+
 }
@@ -0,0 +1,527 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.closures.composite;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jmetis.closures.core.FalsePredicate;
+import org.jmetis.closures.core.TruePredicate;
+import org.jmetis.closures.decorator.BinaryNotPredicate;
+import org.jmetis.closures.decorator.TernaryNotPredicate;
+import org.jmetis.closures.decorator.UnaryNotPredicate;
+import org.jmetis.kernel.assertion.Assertions;
+import org.jmetis.kernel.closure.IBinaryPredicate;
+import org.jmetis.kernel.closure.ITernaryPredicate;
+import org.jmetis.kernel.closure.IUnaryPredicate;
+
+/**
+ * {@code PredicateOptimizer} rewrites a tree of composite and {@code Not}
+ * predicates into an equivalent one which evaluates faster:
+ * <ul>
+ * <li>nested conjunctions ({@code And} and {@code All}) and disjunctions (
+ * {@code Or} and {@code Any}) are flattened into a single composite,</li>
+ * <li>a component equal to an earlier component of the same composite is
+ * dropped,</li>
+ * <li>a {@link TruePredicate} or {@link FalsePredicate} component is either
+ * dropped or decides the whole composite,</li>
+ * <li>double negations are removed and a negated disjunction becomes a
+ * {@code None} composite.</li>
+ * </ul>
+ * The components keep their order, so an optimized composite stops at the
+ * same component as the original tree. Since dropped components are no
+ * longer evaluated, the components must be free of side effects.
+ * <p>
+ * Unary conjunctions and disjunctions may additionally be made adaptive,
+ * see {@link AdaptiveUnaryPredicateComposite}.
+ * 
+ * @author era
+ */
+public final class PredicateOptimizer {
+
+	private static final Algebra UNARY = new UnaryAlgebra(false);
+
+	private static final Algebra ADAPTIVE_UNARY = new UnaryAlgebra(true);
+
+	private static final Algebra BINARY = new BinaryAlgebra();
+
+	private static final Algebra TERNARY = new TernaryAlgebra();
+
+	/**
+	 * Restricted constructor.
+	 */
+	private PredicateOptimizer() {
+		super();
+	}
+
+	/**
+	 * Returns an optimized predicate equivalent to the given one.
+	 * 
+	 * @param predicate
+	 *            the predicate to optimize
+	 * @return the optimized predicate, which may be the given one
+	 */
+	public static <A> IUnaryPredicate<A> optimize(IUnaryPredicate<A> predicate) {
+		return PredicateOptimizer.optimize(predicate, false);
+	}
+
+	/**
+	 * Returns an optimized predicate equivalent to the given one.
+	 * 
+	 * @param predicate
+	 *            the predicate to optimize
+	 * @param adaptive
+	 *            whether conjunctions and disjunctions reorder their
+	 *            components by observed selectivity and cost
+	 * @return the optimized predicate, which may be the given one
+	 */
+	@SuppressWarnings("unchecked")
+	public static <A> IUnaryPredicate<A> optimize(
+			IUnaryPredicate<A> predicate, boolean adaptive) {
+		Assertions.mustNotBeNull("predicate", predicate); //$NON-NLS-1$
+		return (IUnaryPredicate<A>) (adaptive ? PredicateOptimizer.ADAPTIVE_UNARY
+				: PredicateOptimizer.UNARY).optimize(predicate);
+	}
+
+	/**
+	 * Returns an optimized predicate equivalent to the given one.
+	 * 
+	 * @param predicate
+	 *            the predicate to optimize
+	 * @return the optimized predicate, which may be the given one
+	 */
+	@SuppressWarnings("unchecked")
+	public static <A1, A2> IBinaryPredicate<A1, A2> optimize(
+			IBinaryPredicate<A1, A2> predicate) {
+		Assertions.mustNotBeNull("predicate", predicate); //$NON-NLS-1$
+		return (IBinaryPredicate<A1, A2>) PredicateOptimizer.BINARY
+				.optimize(predicate);
+	}
+
+	/**
+	 * Returns an optimized predicate equivalent to the given one.
+	 * 
+	 * @param predicate
+	 *            the predicate to optimize
+	 * @return the optimized predicate, which may be the given one
+	 */
+	@SuppressWarnings("unchecked")
+	public static <A1, A2, A3> ITernaryPredicate<A1, A2, A3> optimize(
+			ITernaryPredicate<A1, A2, A3> predicate) {
+		Assertions.mustNotBeNull("predicate", predicate); //$NON-NLS-1$
+		return (ITernaryPredicate<A1, A2, A3>) PredicateOptimizer.TERNARY
+				.optimize(predicate);
+	}
+
+	/**
+	 * {@code Algebra} implements the rewriting independent of the arity of
+	 * the predicates; its subclasses take apart and build the composites of
+	 * one arity.
+	 */
+	private abstract static class Algebra {
+
+		private final Object truePredicate = TruePredicate.getInstance();
+
+		private final Object falsePredicate = FalsePredicate.getInstance();
+
+		Algebra() {
+			super();
+		}
+
+		/**
+		 * Returns the components of a conjunction, or {@code null}.
+		 */
+		abstract Object[] conjunctionOf(Object predicate);
+
+		/**
+		 * Returns the components of a disjunction, or {@code null}.
+		 */
+		abstract Object[] disjunctionOf(Object predicate);
+
+		/**
+		 * Returns the components of a negated disjunction, or {@code null}.
+		 */
+		abstract Object[] noneOf(Object predicate);
+
+		/**
+		 * Returns the component of a negation, or {@code null}.
+		 */
+		abstract Object negationOf(Object predicate);
+
+		abstract Object conjunction(Object[] components);
+
+		abstract Object disjunction(Object[] components);
+
+		abstract Object none(Object[] components);
+
+		abstract Object negation(Object component);
+
+		Object optimize(Object predicate) {
+			Object[] components = this.conjunctionOf(predicate);
+			if (components != null) {
+				return this.junction(components, true);
+			}
+			components = this.disjunctionOf(predicate);
+			if (components != null) {
+				return this.junction(components, false);
+			}
+			components = this.noneOf(predicate);
+			if (components != null) {
+				return this.negate(this.junction(components, false));
+			}
+			Object component = this.negationOf(predicate);
+			if (component != null) {
+				return this.negate(this.optimize(component));
+			}
+			return predicate;
+		}
+
+		/**
+		 * Returns the negation of an optimized predicate.
+		 */
+		private Object negate(Object predicate) {
+			if (predicate == this.truePredicate) {
+				return this.falsePredicate;
+			}
+			if (predicate == this.falsePredicate) {
+				return this.truePredicate;
+			}
+			Object component = this.negationOf(predicate);
+			if (component != null) {
+				return component;
+			}
+			Object[] components = this.disjunctionOf(predicate);
+			if (components != null) {
+				return this.none(components);
+			}
+			components = this.noneOf(predicate);
+			if (components != null) {
+				return this.disjunction(components);
+			}
+			return this.negation(predicate);
+		}
+
+		private Object junction(Object[] components, boolean conjunctive) {
+			Object neutral = conjunctive ? this.truePredicate
+					: this.falsePredicate;
+			Object absorbing = conjunctive ? this.falsePredicate
+					: this.truePredicate;
+			List<Object> result = new ArrayList<Object>(components.length);
+			for (Object component : components) {
+				Object optimized = this.optimize(component);
+				Object[] nested = conjunctive ? this.conjunctionOf(optimized)
+						: this.disjunctionOf(optimized);
+				if (nested == null) {
+					nested = new Object[] { optimized };
+				}
+				for (Object each : nested) {
+					if (each == absorbing) {
+						return absorbing;
+					}
+					if (each != neutral && !result.contains(each)) {
+						result.add(each);
+					}
+				}
+			}
+			switch (result.size()) {
+			case 0:
+				return neutral;
+			case 1:
+				return result.get(0);
+			default:
+				Object[] array = result.toArray();
+				return conjunctive ? this.conjunction(array) : this
+						.disjunction(array);
+			}
+		}
+
+	}
+
+	/**
+	 * {@code UnaryAlgebra} takes apart and builds unary composites.
+	 */
+	@SuppressWarnings("unchecked")
+	private static final class UnaryAlgebra extends Algebra {
+
+		private final boolean adaptive;
+
+		UnaryAlgebra(boolean adaptive) {
+			super();
+			this.adaptive = adaptive;
+		}
+
+		private static IUnaryPredicate<Object>[] predicates(
+				Object[] components) {
+			IUnaryPredicate<Object>[] predicates = (IUnaryPredicate<Object>[]) new IUnaryPredicate<?>[components.length];
+			System.arraycopy(components, 0, predicates, 0, components.length);
+			return predicates;
+		}
+
+		@Override
+		Object[] conjunctionOf(Object predicate) {
+			if (predicate instanceof UnaryAllPredicate
+					|| predicate instanceof AdaptiveUnaryAllPredicate) {
+				return ((UnaryPredicateComposite<?>) predicate).getComponents();
+			}
+			if (predicate instanceof UnaryAndPredicate) {
+				UnaryAndPredicate<?> and = (UnaryAndPredicate<?>) predicate;
+				return new Object[] { and.getFirstPredicate(),
+						and.getSecondPredicate() };
+			}
+			return null;
+		}
+
+		@Override
+		Object[] disjunctionOf(Object predicate) {
+			if (predicate instanceof UnaryAnyPredicate
+					|| predicate instanceof AdaptiveUnaryAnyPredicate) {
+				return ((UnaryPredicateComposite<?>) predicate).getComponents();
+			}
+			if (predicate instanceof UnaryOrPredicate) {
+				UnaryOrPredicate<?> or = (UnaryOrPredicate<?>) predicate;
+				return new Object[] { or.getFirstPredicate(),
+						or.getSecondPredicate() };
+			}
+			return null;
+		}
+
+		@Override
+		Object[] noneOf(Object predicate) {
+			if (predicate instanceof UnaryNonePredicate) {
+				return ((UnaryNonePredicate<?>) predicate).getComponents();
+			}
+			return null;
+		}
+
+		@Override
+		Object negationOf(Object predicate) {
+			if (predicate instanceof UnaryNotPredicate) {
+				return ((UnaryNotPredicate<?>) predicate).getComponent();
+			}
+			return null;
+		}
+
+		@Override
+		Object conjunction(Object[] components) {
+			IUnaryPredicate<Object>[] predicates = UnaryAlgebra
+					.predicates(components);
+			if (this.adaptive) {
+				return new AdaptiveUnaryAllPredicate<Object>(predicates);
+			}
+			if (predicates.length == 2) {
+				return new UnaryAndPredicate<Object>(predicates[0],
+						predicates[1]);
+			}
+			return new UnaryAllPredicate<Object>(predicates);
+		}
+
+		@Override
+		Object disjunction(Object[] components) {
+			IUnaryPredicate<Object>[] predicates = UnaryAlgebra
+					.predicates(components);
+			if (this.adaptive) {
+				return new AdaptiveUnaryAnyPredicate<Object>(predicates);
+			}
+			if (predicates.length == 2) {
+				return new UnaryOrPredicate<Object>(predicates[0],
+						predicates[1]);
+			}
+			return new UnaryAnyPredicate<Object>(predicates);
+		}
+
+		@Override
+		Object none(Object[] components) {
+			return new UnaryNonePredicate<Object>(UnaryAlgebra
+					.predicates(components));
+		}
+
+		@Override
+		Object negation(Object component) {
+			return new UnaryNotPredicate<Object>(
+					(IUnaryPredicate<Object>) component);
+		}
+
+	}
+
+	/**
+	 * {@code BinaryAlgebra} takes apart and builds binary composites.
+	 */
+	@SuppressWarnings("unchecked")
+	private static final class BinaryAlgebra extends Algebra {
+
+		BinaryAlgebra() {
+			super();
+		}
+
+		private static IBinaryPredicate<Object, Object>[] predicates(
+				Object[] components) {
+			IBinaryPredicate<Object, Object>[] predicates = (IBinaryPredicate<Object, Object>[]) new IBinaryPredicate<?, ?>[components.length];
+			System.arraycopy(components, 0, predicates, 0, components.length);
+			return predicates;
+		}
+
+		@Override
+		Object[] conjunctionOf(Object predicate) {
+			if (predicate instanceof BinaryAllPredicate) {
+				return ((BinaryAllPredicate<?, ?>) predicate).getComponents();
+			}
+			if (predicate instanceof BinaryAndPredicate) {
+				BinaryAndPredicate<?, ?> and = (BinaryAndPredicate<?, ?>) predicate;
+				return new Object[] { and.getFirstPredicate(),
+						and.getSecondPredicate() };
+			}
+			return null;
+		}
+
+		@Override
+		Object[] disjunctionOf(Object predicate) {
+			if (predicate instanceof BinaryAnyPredicate) {
+				return ((BinaryAnyPredicate<?, ?>) predicate).getComponents();
+			}
+			if (predicate instanceof BinaryOrPredicate) {
+				BinaryOrPredicate<?, ?> or = (BinaryOrPredicate<?, ?>) predicate;
+				return new Object[] { or.getFirstPredicate(),
+						or.getSecondPredicate() };
+			}
+			return null;
+		}
+
+		@Override
+		Object[] noneOf(Object predicate) {
+			if (predicate instanceof BinaryNonePredicate) {
+				return ((BinaryNonePredicate<?, ?>) predicate).getComponents();
+			}
+			return null;
+		}
+
+		@Override
+		Object negationOf(Object predicate) {
+			if (predicate instanceof BinaryNotPredicate) {
+				return ((BinaryNotPredicate<?, ?>) predicate).getComponent();
+			}
+			return null;
+		}
+
+		@Override
+		Object conjunction(Object[] components) {
+			IBinaryPredicate<Object, Object>[] predicates = BinaryAlgebra
+					.predicates(components);
+			if (predicates.length == 2) {
+				return new BinaryAndPredicate<Object, Object>(predicates[0],
+						predicates[1]);
+			}
+			return new BinaryAllPredicate<Object, Object>(predicates);
+		}
+
+		@Override
+		Object disjunction(Object[] components) {
+			IBinaryPredicate<Object, Object>[] predicates = BinaryAlgebra
+					.predicates(components);
+			if (predicates.length == 2) {
+				return new BinaryOrPredicate<Object, Object>(predicates[0],
+						predicates[1]);
+			}
+			return new BinaryAnyPredicate<Object, Object>(predicates);
+		}
+
+		@Override
+		Object none(Object[] components) {
+			return new BinaryNonePredicate<Object, Object>(BinaryAlgebra
+					.predicates(components));
+		}
+
+		@Override
+		Object negation(Object component) {
+			return new BinaryNotPredicate<Object, Object>(
+					(IBinaryPredicate<Object, Object>) component);
+		}
+
+	}
+
+	/**
+	 * {@code TernaryAlgebra} takes apart and builds ternary composites.
+	 */
+	@SuppressWarnings("unchecked")
+	private static final class TernaryAlgebra extends Algebra {
+
+		TernaryAlgebra() {
+			super();
+		}
+
+		private static ITernaryPredicate<Object, Object, Object>[] predicates(
+				Object[] components) {
+			ITernaryPredicate<Object, Object, Object>[] predicates = (ITernaryPredicate<Object, Object, Object>[]) new ITernaryPredicate<?, ?, ?>[components.length];
+			System.arraycopy(components, 0, predicates, 0, components.length);
+			return predicates;
+		}
+
+		@Override
+		Object[] conjunctionOf(Object predicate) {
+			if (predicate instanceof TernaryAllPredicate) {
+				return ((TernaryAllPredicate<?, ?, ?>) predicate).getComponents();
+			}
+			return null;
+		}
+
+		@Override
+		Object[] disjunctionOf(Object predicate) {
+			if (predicate instanceof TernaryAnyPredicate) {
+				return ((TernaryAnyPredicate<?, ?, ?>) predicate).getComponents();
+			}
+			return null;
+		}
+
+		@Override
+		Object[] noneOf(Object predicate) {
+			if (predicate instanceof TernaryNonePredicate) {
+				return ((TernaryNonePredicate<?, ?, ?>) predicate).getComponents();
+			}
+			return null;
+		}
+
+		@Override
+		Object negationOf(Object predicate) {
+			if (predicate instanceof TernaryNotPredicate) {
+				return ((TernaryNotPredicate<?, ?, ?>) predicate).getComponent();
+			}
+			return null;
+		}
+
+		@Override
+		Object conjunction(Object[] components) {
+			return new TernaryAllPredicate<Object, Object, Object>(
+					TernaryAlgebra.predicates(components));
+		}
+
+		@Override
+		Object disjunction(Object[] components) {
+			return new TernaryAnyPredicate<Object, Object, Object>(
+					TernaryAlgebra.predicates(components));
+		}
+
+		@Override
+		Object none(Object[] components) {
+			return new TernaryNonePredicate<Object, Object, Object>(
+					TernaryAlgebra.predicates(components));
+		}
+
+		@Override
+		Object negation(Object component) {
+			return new TernaryNotPredicate<Object, Object, Object>(
+					(ITernaryPredicate<Object, Object, Object>) component);
+		}
+
+	}
+
+}
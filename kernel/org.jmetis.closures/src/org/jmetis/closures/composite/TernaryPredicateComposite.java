@@ -33,4 +33,13 @@ ITernaryPredicate<A1, A2, A3> {
 		this.components = components;
 	}
 
+	/**
+	 * Returns the components in the order they are evaluated in.
+	 * 
+	 * @return a copy of the components
+	 */
+	public ITernaryPredicate<? super A1, ? super A2, ? super A3>[] getComponents() {
+		return this.components.clone();
+	}
+
 }
@@ -35,6 +35,24 @@ public class UnaryAndPredicate<A> implements IUnaryPredicate<A> {
 		this.secondPredicate = secondPredicate;
 	}
 
+	/**
+	 * Returns the predicate evaluated first.
+	 * 
+	 * @return the predicate evaluated first
+	 */
+	public IUnaryPredicate<? super A> getFirstPredicate() {
+		return this.firstPredicate;
+	}
+
+	/**
+	 * Returns the predicate evaluated second.
+	 * 
+	 * @return the predicate evaluated second
+	 */
+	public IUnaryPredicate<? super A> getSecondPredicate() {
+		return this.secondPredicate;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -36,4 +36,13 @@ public abstract class UnaryPredicateComposite<A> implements IUnaryPredicate<A> {
 		this.components = components;
 	}
 
+	/**
+	 * Returns the components in the order they are evaluated in.
+	 * 
+	 * @return a copy of the components
+	 */
+	public IUnaryPredicate<? super A>[] getComponents() {
+		return this.components.clone();
+	}
+
 }
@@ -0,0 +1,73 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.closures.core;
+
+import org.jmetis.kernel.closure.IBinaryPredicate;
+import org.jmetis.kernel.closure.ITernaryPredicate;
+import org.jmetis.kernel.closure.IUnaryPredicate;
+
+/**
+ * {@code FalsePredicate} returns {@code false} for any arguments.
+ * 
+ * @author era
+ */
+public class FalsePredicate<A1, A2, A3> implements IUnaryPredicate<A1>,
+		IBinaryPredicate<A1, A2>, ITernaryPredicate<A1, A2, A3>,
+		ITotalPredicate {
+
+	private static final FalsePredicate<?, ?, ?> INSTANCE = new FalsePredicate<Object, Object, Object>();
+
+	/**
+	 * Restricted constructor.
+	 */
+	private FalsePredicate() {
+		super();
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <A1, A2, A3> FalsePredicate<A1, A2, A3> getInstance() {
+		return (FalsePredicate<A1, A2, A3>) FalsePredicate.INSTANCE;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.kernel.closure.IUnaryPredicate#evaluate(java.lang.Object)
+	 */
+	public boolean evaluate(A1 argument) {
+		return false;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.kernel.closure.IBinaryPredicate#evaluate(java.lang.Object,
+	 * java.lang.Object)
+	 */
+	public boolean evaluate(A1 firstArgument, A2 secondArgument) {
+		return false;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.kernel.closure.ITernaryPredicate#evaluate(java.lang.Object,
+	 * java.lang.Object, java.lang.Object)
+	 */
+	public boolean evaluate(A1 firstArgument, A2 secondArgument,
+			A3 thirdArgument) {
+		return false;
+	}
+
+}
@@ -0,0 +1,26 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.closures.core;
+
+/**
+ * {@code ITotalPredicate} marks a predicate which is free of side effects and
+ * returns a result for any arguments, so that a composite may evaluate it
+ * ahead of the components given before it.
+ * 
+ * @see org.jmetis.closures.composite.AdaptiveUnaryPredicateComposite
+ * @author era
+ */
+public interface ITotalPredicate {
+
+}
@@ -19,7 +19,8 @@ import org.jmetis.kernel.closure.IUnaryPredicate;
  * @author era
  *
  */
-public class IsInstanceofPredicate<A> implements IUnaryPredicate<A> {
+public class IsInstanceofPredicate<A> implements IUnaryPredicate<A>,
+		ITotalPredicate {
 
 	private final Class<?> expectedType;
 
@@ -38,4 +39,25 @@ public class IsInstanceofPredicate<A> implements IUnaryPredicate<A> {
 		return this.expectedType.isInstance(argument);
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object object) {
+		return object instanceof IsInstanceofPredicate<?>
+				&& this.expectedType == ((IsInstanceofPredicate<?>) object).expectedType;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return this.expectedType.hashCode();
+	}
+
 }
@@ -19,7 +19,8 @@ import org.jmetis.kernel.closure.IUnaryPredicate;
  * @author era
  * 
  */
-public class IsNotEqualPredicate<A> implements IUnaryPredicate<A> {
+public class IsNotEqualPredicate<A> implements IUnaryPredicate<A>,
+		ITotalPredicate {
 
 	private final A value;
 
@@ -35,4 +36,25 @@ public class IsNotEqualPredicate<A> implements IUnaryPredicate<A> {
 		return !this.value.equals(argument);
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object object) {
+		return object instanceof IsNotEqualPredicate<?>
+				&& this.value.equals(((IsNotEqualPredicate<?>) object).value);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return ~this.value.hashCode();
+	}
+
 }
@@ -21,7 +21,8 @@ import org.jmetis.kernel.closure.IUnaryPredicate;
  * @author era
  * 
  */
-public class IsNotNullPredicate<A> implements IUnaryPredicate<A> {
+public class IsNotNullPredicate<A> implements IUnaryPredicate<A>,
+		ITotalPredicate {
 
 	@SuppressWarnings("unchecked")
 	private static final IUnaryPredicate INSTANCE = new IsNotNullPredicate();
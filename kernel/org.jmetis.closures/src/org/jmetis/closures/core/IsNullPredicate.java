@@ -21,7 +21,7 @@ import org.jmetis.kernel.closure.IUnaryPredicate;
  * @author era
  * 
  */
-public class IsNullPredicate<A> implements IUnaryPredicate<A> {
+public class IsNullPredicate<A> implements IUnaryPredicate<A>, ITotalPredicate {
 
 	@SuppressWarnings("unchecked")
 	private static final IUnaryPredicate INSTANCE = new IsNullPredicate();
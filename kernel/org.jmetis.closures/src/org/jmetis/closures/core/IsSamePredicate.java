@@ -21,7 +21,7 @@ import org.jmetis.kernel.closure.IUnaryPredicate;
  * 
  * @author era
  */
-public class IsSamePredicate<A> implements IUnaryPredicate<A> {
+public class IsSamePredicate<A> implements IUnaryPredicate<A>, ITotalPredicate {
 
 	private final A value;
 
@@ -45,4 +45,25 @@ public class IsSamePredicate<A> implements IUnaryPredicate<A> {
 		return this.value == argument;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object object) {
+		return object instanceof IsSamePredicate<?>
+				&& this.value == ((IsSamePredicate<?>) object).value;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return System.identityHashCode(this.value);
+	}
+
 }
@@ -0,0 +1,73 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.closures.core;
+
+import org.jmetis.kernel.closure.IBinaryPredicate;
+import org.jmetis.kernel.closure.ITernaryPredicate;
+import org.jmetis.kernel.closure.IUnaryPredicate;
+
+/**
+ * {@code TruePredicate} returns {@code true} for any arguments.
+ * 
+ * @author era
+ */
+public class TruePredicate<A1, A2, A3> implements IUnaryPredicate<A1>,
+		IBinaryPredicate<A1, A2>, ITernaryPredicate<A1, A2, A3>,
+		ITotalPredicate {
+
+	private static final TruePredicate<?, ?, ?> INSTANCE = new TruePredicate<Object, Object, Object>();
+
+	/**
+	 * Restricted constructor.
+	 */
+	private TruePredicate() {
+		super();
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <A1, A2, A3> TruePredicate<A1, A2, A3> getInstance() {
+		return (TruePredicate<A1, A2, A3>) TruePredicate.INSTANCE;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.kernel.closure.IUnaryPredicate#evaluate(java.lang.Object)
+	 */
+	public boolean evaluate(A1 argument) {
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.kernel.closure.IBinaryPredicate#evaluate(java.lang.Object,
+	 * java.lang.Object)
+	 */
+	public boolean evaluate(A1 firstArgument, A2 secondArgument) {
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.kernel.closure.ITernaryPredicate#evaluate(java.lang.Object,
+	 * java.lang.Object, java.lang.Object)
+	 */
+	public boolean evaluate(A1 firstArgument, A2 secondArgument,
+			A3 thirdArgument) {
+		return true;
+	}
+
+}
@@ -32,6 +32,15 @@ IBinaryPredicate<A1, A2> {
 		this.component = component;
 	}
 
+	/**
+	 * Returns the decorated predicate.
+	 * 
+	 * @return the decorated predicate
+	 */
+	public IBinaryPredicate<A1, A2> getComponent() {
+		return this.component;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -32,6 +32,15 @@ ITernaryPredicate<A1, A2, A3> {
 		this.component = component;
 	}
 
+	/**
+	 * Returns the decorated predicate.
+	 * 
+	 * @return the decorated predicate
+	 */
+	public ITernaryPredicate<A1, A2, A3> getComponent() {
+		return this.component;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
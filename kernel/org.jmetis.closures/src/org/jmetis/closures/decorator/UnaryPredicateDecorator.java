@@ -31,6 +31,15 @@ public class UnaryPredicateDecorator<A> implements IUnaryPredicate<A> {
 		this.component = component;
 	}
 
+	/**
+	 * Returns the decorated predicate.
+	 * 
+	 * @return the decorated predicate
+	 */
+	public IUnaryPredicate<A> getComponent() {
+		return this.component;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
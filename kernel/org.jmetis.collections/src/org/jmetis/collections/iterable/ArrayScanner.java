@@ -0,0 +1,292 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.collections.iterable;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jmetis.kernel.closure.IUnaryFunction;
+import org.jmetis.kernel.closure.IUnaryPredicate;
+
+/**
+ * {@code ArrayScanner} implements the bulk operations of {@link ICollection}
+ * over the slots of an array, sequentially or with a
+ * {@link ParallelEvaluator}. The slots of a sparse array which are
+ * {@code null} are empty and skipped.
+ * 
+ * @author era
+ */
+final class ArrayScanner<E> {
+
+	/**
+	 * The number of elements between two checks whether a segment has been
+	 * stopped, minus one.
+	 */
+	private static final int STOP_CHECK_MASK = 0x3ff;
+
+	private final ParallelEvaluator parallelEvaluator;
+
+	private final Object[] slots;
+
+	private final int limit;
+
+	private final boolean sparse;
+
+	ArrayScanner(ParallelEvaluator parallelEvaluator, Object[] slots,
+			int limit, boolean sparse) {
+		super();
+		this.parallelEvaluator = parallelEvaluator;
+		this.slots = slots;
+		this.limit = limit;
+		this.sparse = sparse;
+	}
+
+	static IUnaryFunction<Object, Object> functionOf(
+			final OneArgumentObjectStrategy strategy) {
+		return new IUnaryFunction<Object, Object>() {
+
+			public Object evaluate(Object argument) {
+				return strategy.execute(argument);
+			}
+		};
+	}
+
+	static IUnaryFunction<Integer, Object> integerFunctionOf(
+			final OneArgumentIntegerStrategy strategy) {
+		return new IUnaryFunction<Integer, Object>() {
+
+			public Integer evaluate(Object argument) {
+				return Integer.valueOf(strategy.execute(argument));
+			}
+		};
+	}
+
+	private Object[] evaluate(ParallelEvaluator.Evaluation<?> evaluation) {
+		if (this.parallelEvaluator == null) {
+			return new Object[] { evaluation.evaluate(0, 0, this.limit) };
+		}
+		return this.parallelEvaluator.evaluate(evaluation, this.limit);
+	}
+
+	/**
+	 * Returns the index of a slot whose element answers {@code expected} to
+	 * the given {@code predicate}, or {@code -1} if there is none. If
+	 * {@code first} is {@code true} the lowest such index is returned.
+	 */
+	@SuppressWarnings("unchecked")
+	int indexOf(final IUnaryPredicate<? super E> predicate,
+			final boolean expected, final boolean first) {
+		Object[] results = this.evaluate(new ParallelEvaluator.Evaluation<Integer>() {
+
+			@Override
+			Integer evaluate(int segment, int from, int to) {
+				Object[] slots = ArrayScanner.this.slots;
+				boolean sparse = ArrayScanner.this.sparse;
+				for (int i = from; i < to; i++) {
+					if ((i & ArrayScanner.STOP_CHECK_MASK) == 0
+							&& this.isStopped(segment)) {
+						return null;
+					}
+					Object element = slots[i];
+					if ((element != null || !sparse)
+							&& predicate.evaluate((E) element) == expected) {
+						this.stopAfter(first ? segment : -1);
+						return Integer.valueOf(i);
+					}
+				}
+				return null;
+			}
+		});
+		for (Object result : results) {
+			if (result != null) {
+				return ((Integer) result).intValue();
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the number of elements which satisfy the given
+	 * {@code predicate}.
+	 */
+	@SuppressWarnings("unchecked")
+	int count(final IUnaryPredicate<? super E> predicate) {
+		Object[] results = this.evaluate(new ParallelEvaluator.Evaluation<Integer>() {
+
+			@Override
+			Integer evaluate(int segment, int from, int to) {
+				Object[] slots = ArrayScanner.this.slots;
+				boolean sparse = ArrayScanner.this.sparse;
+				int count = 0;
+				for (int i = from; i < to; i++) {
+					Object element = slots[i];
+					if ((element != null || !sparse)
+							&& predicate.evaluate((E) element)) {
+						count++;
+					}
+				}
+				return Integer.valueOf(count);
+			}
+		});
+		int count = 0;
+		for (Object result : results) {
+			count += ((Integer) result).intValue();
+		}
+		return count;
+	}
+
+	/**
+	 * Adds the result of the given {@code function} for each element which
+	 * answers {@code expected} to the {@code selector} to the given
+	 * {@code target} collection, in order. A {@code null} {@code selector}
+	 * selects every element and a {@code null} {@code function} answers the
+	 * element itself; results which do not satisfy the given
+	 * {@code resultSelector} are dropped.
+	 */
+	@SuppressWarnings("unchecked")
+	void collect(final IUnaryPredicate<? super E> selector,
+			final boolean expected, final IUnaryFunction<?, ? super E> function,
+			final IUnaryPredicate<? super E> resultSelector,
+			Collection<? super E> target) {
+		Object[] results = this.evaluate(new ParallelEvaluator.Evaluation<ArrayedList<E>>() {
+
+			@Override
+			ArrayedList<E> evaluate(int segment, int from, int to) {
+				Object[] slots = ArrayScanner.this.slots;
+				boolean sparse = ArrayScanner.this.sparse;
+				ArrayedList<E> results = new ArrayedList<E>();
+				for (int i = from; i < to; i++) {
+					Object element = slots[i];
+					if ((element != null || !sparse)
+							&& (selector == null || selector
+									.evaluate((E) element) == expected)) {
+						E result = function == null ? (E) element
+								: (E) function.evaluate((E) element);
+						if (resultSelector == null
+								|| resultSelector.evaluate(result)) {
+							results.add(result);
+						}
+					}
+				}
+				return results;
+			}
+		});
+		for (Object result : results) {
+			target.addAll((ArrayedList<E>) result);
+		}
+	}
+
+	/**
+	 * Groups the elements which satisfy the given {@code having} predicate by
+	 * the result of the given {@code keyFunction}, in order.
+	 */
+	@SuppressWarnings("unchecked")
+	<K> Map<K, ICollection<E>> groupBy(
+			final IUnaryFunction<? extends K, Object> keyFunction,
+			final IUnaryPredicate<? super E> having) {
+		Object[] results = this.evaluate(new ParallelEvaluator.Evaluation<Map<K, ICollection<E>>>() {
+
+			@Override
+			Map<K, ICollection<E>> evaluate(int segment, int from, int to) {
+				Object[] slots = ArrayScanner.this.slots;
+				boolean sparse = ArrayScanner.this.sparse;
+				Map<K, ICollection<E>> groups = new LinkedHashMap<K, ICollection<E>>();
+				for (int i = from; i < to; i++) {
+					Object element = slots[i];
+					if ((element != null || !sparse)
+							&& (having == null || having.evaluate((E) element))) {
+						K key = keyFunction.evaluate(element);
+						ICollection<E> group = groups.get(key);
+						if (group == null) {
+							group = new ArrayedList<E>();
+							groups.put(key, group);
+						}
+						group.add((E) element);
+					}
+				}
+				return groups;
+			}
+		});
+		Map<K, ICollection<E>> groups = (Map<K, ICollection<E>>) results[0];
+		for (int i = 1; i < results.length; i++) {
+			for (Map.Entry<K, ICollection<E>> entry : ((Map<K, ICollection<E>>) results[i])
+					.entrySet()) {
+				ICollection<E> group = groups.get(entry.getKey());
+				if (group == null) {
+					groups.put(entry.getKey(), entry.getValue());
+				} else {
+					group.addAll(entry.getValue());
+				}
+			}
+		}
+		return groups;
+	}
+
+	/**
+	 * Executes the given {@code predicate} on each element, in order, until
+	 * it returns {@code false}.
+	 */
+	@SuppressWarnings("unchecked")
+	void applyWhile(IUnaryPredicate<? super E> predicate) {
+		for (int i = 0; i < this.limit; i++) {
+			Object element = this.slots[i];
+			if ((element != null || !this.sparse)
+					&& !predicate.evaluate((E) element)) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Executes the given {@code strategy} on each element, in order, until it
+	 * returns {@code null}.
+	 */
+	void applyWhileNotNull(OneArgumentObjectStrategy strategy) {
+		for (int i = 0; i < this.limit; i++) {
+			Object element = this.slots[i];
+			if ((element != null || !this.sparse)
+					&& strategy.execute(element) == null) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Executes the given {@code strategy} on each element, in order.
+	 */
+	void apply(OneArgumentVoidStrategy strategy) {
+		for (int i = 0; i < this.limit; i++) {
+			Object element = this.slots[i];
+			if (element != null || !this.sparse) {
+				strategy.execute(element);
+			}
+		}
+	}
+
+	/**
+	 * Folds the elements, in order, into the given {@code initialValue}.
+	 */
+	Object injectInto(Object initialValue, TwoArgumentObjectStrategy strategy) {
+		Object value = initialValue;
+		for (int i = 0; i < this.limit; i++) {
+			Object element = this.slots[i];
+			if (element != null || !this.sparse) {
+				value = strategy.execute(value, element);
+			}
+		}
+		return value;
+	}
+
+}
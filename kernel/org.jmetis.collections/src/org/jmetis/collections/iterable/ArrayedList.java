@@ -0,0 +1,534 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.collections.iterable;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import org.jmetis.kernel.closure.IUnaryFunction;
+import org.jmetis.kernel.closure.IUnaryPredicate;
+
+/**
+ * {@code ArrayedList} is an array-backed {@link ICollection} which keeps its
+ * elements in insertion order and permits {@code null} elements.
+ * <p>
+ * The bulk operations run sequentially unless a {@link ParallelEvaluator} has
+ * been set, in which case they are evaluated in parallel once the receiver
+ * holds at least twice the evaluator's threshold. {@code allSatisfy},
+ * {@code anySatisfy}, {@code noneSatisfy} and {@code detect} stop all threads
+ * as soon as their result is known. The results of {@code select},
+ * {@code collect} and {@code groupBy} keep the receiver's order. The
+ * {@code apply} and {@code injectInto} operations always run sequentially, in
+ * order.
+ * 
+ * @author era
+ * @param <E>
+ */
+public class ArrayedList<E> extends AbstractList<E> implements ICollection<E>,
+		RandomAccess {
+
+	private static final Object[] EMPTY_ELEMENTS = {};
+
+	private static final int MINIMUM_CAPACITY = 10;
+
+	private Object[] elements;
+
+	private int size;
+
+	private ParallelEvaluator parallelEvaluator;
+
+	/**
+	 * Constructs a new empty {@code ArrayedList} instance.
+	 */
+	public ArrayedList() {
+		super();
+		this.elements = ArrayedList.EMPTY_ELEMENTS;
+	}
+
+	/**
+	 * Constructs a new empty {@code ArrayedList} instance with room for
+	 * {@code initialCapacity} elements.
+	 * 
+	 * @param initialCapacity
+	 *            the initial capacity
+	 */
+	public ArrayedList(int initialCapacity) {
+		super();
+		if (initialCapacity < 0) {
+			throw new IllegalArgumentException(Integer
+					.toString(initialCapacity));
+		}
+		this.elements = initialCapacity == 0 ? ArrayedList.EMPTY_ELEMENTS
+				: new Object[initialCapacity];
+	}
+
+	/**
+	 * Constructs a new {@code ArrayedList} instance containing the elements
+	 * of the given {@code collection}, in its iteration order.
+	 * 
+	 * @param collection
+	 *            the elements to add
+	 */
+	public ArrayedList(Collection<? extends E> collection) {
+		this(collection.size());
+		this.addAll(collection);
+	}
+
+	/**
+	 * Returns the {@link ParallelEvaluator} of the bulk operations.
+	 * 
+	 * @return the {@link ParallelEvaluator}, or {@code null} if the bulk
+	 *         operations run sequentially
+	 */
+	public ParallelEvaluator getParallelEvaluator() {
+		return this.parallelEvaluator;
+	}
+
+	/**
+	 * Sets the {@link ParallelEvaluator} of the bulk operations, which is
+	 * passed on to the collections they answer.
+	 * 
+	 * @param parallelEvaluator
+	 *            the {@link ParallelEvaluator}, or {@code null} to run the
+	 *            bulk operations sequentially
+	 */
+	public void setParallelEvaluator(ParallelEvaluator parallelEvaluator) {
+		this.parallelEvaluator = parallelEvaluator;
+	}
+
+	private ArrayScanner<E> scanner() {
+		return new ArrayScanner<E>(this.parallelEvaluator, this.elements,
+				this.size, false);
+	}
+
+	private <T> ArrayedList<T> newList() {
+		ArrayedList<T> list = new ArrayedList<T>();
+		list.parallelEvaluator = this.parallelEvaluator;
+		return list;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > this.elements.length) {
+			int newCapacity = Math.max(this.elements.length
+					+ (this.elements.length >> 1), ArrayedList.MINIMUM_CAPACITY);
+			Object[] elements = new Object[Math.max(newCapacity, capacity)];
+			System.arraycopy(this.elements, 0, elements, 0, this.size);
+			this.elements = elements;
+		}
+	}
+
+	private void checkIndex(int index, int size) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException(Integer.toString(index));
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractList#get(int)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public E get(int index) {
+		this.checkIndex(index, this.size);
+		return (E) this.elements[index];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractCollection#size()
+	 */
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractList#set(int, java.lang.Object)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public E set(int index, E element) {
+		this.checkIndex(index, this.size);
+		E oldElement = (E) this.elements[index];
+		this.elements[index] = element;
+		return oldElement;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractList#add(java.lang.Object)
+	 */
+	@Override
+	public boolean add(E element) {
+		this.modCount++;
+		this.ensureCapacity(this.size + 1);
+		this.elements[this.size++] = element;
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractList#add(int, java.lang.Object)
+	 */
+	@Override
+	public void add(int index, E element) {
+		this.checkIndex(index, this.size + 1);
+		this.modCount++;
+		this.ensureCapacity(this.size + 1);
+		System.arraycopy(this.elements, index, this.elements, index + 1,
+				this.size - index);
+		this.elements[index] = element;
+		this.size++;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractCollection#addAll(java.util.Collection)
+	 */
+	@Override
+	public boolean addAll(Collection<? extends E> collection) {
+		return this.addAll(this.size, collection);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractList#addAll(int, java.util.Collection)
+	 */
+	@Override
+	public boolean addAll(int index, Collection<? extends E> collection) {
+		this.checkIndex(index, this.size + 1);
+		Object[] elements = collection.toArray();
+		if (elements.length == 0) {
+			return false;
+		}
+		this.modCount++;
+		this.ensureCapacity(this.size + elements.length);
+		System.arraycopy(this.elements, index, this.elements, index
+				+ elements.length, this.size - index);
+		System.arraycopy(elements, 0, this.elements, index, elements.length);
+		this.size += elements.length;
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractList#remove(int)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public E remove(int index) {
+		this.checkIndex(index, this.size);
+		this.modCount++;
+		E oldElement = (E) this.elements[index];
+		System.arraycopy(this.elements, index + 1, this.elements, index,
+				this.size - index - 1);
+		this.elements[--this.size] = null;
+		return oldElement;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractList#removeRange(int, int)
+	 */
+	@Override
+	protected void removeRange(int fromIndex, int toIndex) {
+		this.modCount++;
+		System.arraycopy(this.elements, toIndex, this.elements, fromIndex,
+				this.size - toIndex);
+		int size = this.size - (toIndex - fromIndex);
+		for (int i = size; i < this.size; i++) {
+			this.elements[i] = null;
+		}
+		this.size = size;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractList#clear()
+	 */
+	@Override
+	public void clear() {
+		this.removeRange(0, this.size);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractList#indexOf(java.lang.Object)
+	 */
+	@Override
+	public int indexOf(Object element) {
+		for (int i = 0; i < this.size; i++) {
+			if (element == null ? this.elements[i] == null : element
+					.equals(this.elements[i])) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractCollection#toArray()
+	 */
+	@Override
+	public Object[] toArray() {
+		Object[] elements = new Object[this.size];
+		System.arraycopy(this.elements, 0, elements, 0, this.size);
+		return elements;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#allSatisfy(org.jmetis.kernel
+	 * .closure.IUnaryPredicate)
+	 */
+	public boolean allSatisfy(IUnaryPredicate<E> predicate) {
+		return this.scanner().indexOf(predicate, false, false) < 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#anySatisfy(org.jmetis.kernel
+	 * .closure.IUnaryPredicate)
+	 */
+	public boolean anySatisfy(IUnaryPredicate<E> predicate) {
+		return this.scanner().indexOf(predicate, true, false) >= 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#noneSatisfy(org.jmetis.kernel
+	 * .closure.IUnaryPredicate)
+	 */
+	public boolean noneSatisfy(IUnaryPredicate<E> strategy) {
+		return !this.anySatisfy(strategy);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#applyWhile(org.jmetis.kernel
+	 * .closure.IUnaryPredicate)
+	 */
+	public void applyWhile(IUnaryPredicate<E> predicate) {
+		this.scanner().applyWhile(predicate);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#applyWhileNotNull(org.jmetis
+	 * .collections.iterable.OneArgumentObjectStrategy)
+	 */
+	public void applyWhileNotNull(OneArgumentObjectStrategy strategy) {
+		this.scanner().applyWhileNotNull(strategy);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#apply(org.jmetis.collections
+	 * .iterable.OneArgumentVoidStrategy)
+	 */
+	public void apply(OneArgumentVoidStrategy strategy) {
+		this.scanner().apply(strategy);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#collect(org.jmetis.kernel
+	 * .closure.IUnaryFunction)
+	 */
+	public ArrayedList<E> collect(IUnaryFunction<E, E> function) {
+		ArrayedList<E> result = this.newList();
+		this.scanner().collect(null, true, function, null, result);
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#collectThenSelect(org.jmetis
+	 * .collections.iterable.OneArgumentObjectStrategy,
+	 * org.jmetis.kernel.closure.IUnaryPredicate)
+	 */
+	public ArrayedList<E> collectThenSelect(
+			OneArgumentObjectStrategy collectStrategy,
+			IUnaryPredicate<E> selectStrategy) {
+		ArrayedList<E> result = this.newList();
+		this.scanner().collect(null, true,
+				ArrayScanner.functionOf(collectStrategy), selectStrategy,
+				result);
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#count(org.jmetis.kernel.closure
+	 * .IUnaryPredicate)
+	 */
+	public int count(IUnaryPredicate<E> predicate) {
+		return this.scanner().count(predicate);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#detect(org.jmetis.kernel.
+	 * closure.IUnaryPredicate)
+	 */
+	public E detect(IUnaryPredicate<E> strategy) {
+		return this.detect(strategy, null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#detect(org.jmetis.kernel.
+	 * closure.IUnaryPredicate, java.lang.Object)
+	 */
+	@SuppressWarnings("unchecked")
+	public E detect(IUnaryPredicate<E> strategy, E defaultValue) {
+		int index = this.scanner().indexOf(strategy, true, true);
+		return index < 0 ? defaultValue : (E) this.elements[index];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#groupBy(org.jmetis.collections
+	 * .iterable.OneArgumentObjectStrategy)
+	 */
+	public Map<Object, ICollection<E>> groupBy(
+			OneArgumentObjectStrategy groupStrategy) {
+		return this.groupByHaving(groupStrategy, null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#groupByIntegerHaving(org.jmetis
+	 * .collections.iterable.OneArgumentIntegerStrategy,
+	 * org.jmetis.kernel.closure.IUnaryPredicate)
+	 */
+	public Map<Integer, ICollection<E>> groupByIntegerHaving(
+			OneArgumentIntegerStrategy groupStrategy,
+			IUnaryPredicate<E> havingStrategy) {
+		return this.scanner().groupBy(
+				ArrayScanner.integerFunctionOf(groupStrategy), havingStrategy);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#groupByHaving(org.jmetis.
+	 * collections.iterable.OneArgumentObjectStrategy,
+	 * org.jmetis.kernel.closure.IUnaryPredicate)
+	 */
+	public Map<Object, ICollection<E>> groupByHaving(
+			OneArgumentObjectStrategy groupStrategy,
+			IUnaryPredicate<E> havingStrategy) {
+		return this.scanner().groupBy(ArrayScanner.functionOf(groupStrategy),
+				havingStrategy);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.collections.iterable.ICollection#injectInto(java.lang.Object,
+	 * org.jmetis.collections.iterable.TwoArgumentObjectStrategy)
+	 */
+	public Object injectInto(Object initialValue,
+			TwoArgumentObjectStrategy strategy) {
+		return this.scanner().injectInto(initialValue, strategy);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#reject(org.jmetis.kernel.
+	 * closure.IUnaryPredicate)
+	 */
+	public ArrayedList<E> reject(IUnaryPredicate<E> strategy) {
+		ArrayedList<E> result = this.newList();
+		this.scanner().collect(strategy, false, null, null, result);
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#select(org.jmetis.kernel.
+	 * closure.IUnaryPredicate)
+	 */
+	public ArrayedList<E> select(IUnaryPredicate<E> strategy) {
+		ArrayedList<E> result = this.newList();
+		this.scanner().collect(strategy, true, null, null, result);
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#selectThenCollect(org.jmetis
+	 * .kernel.closure.IUnaryPredicate,
+	 * org.jmetis.collections.iterable.OneArgumentObjectStrategy)
+	 */
+	public ArrayedList<E> selectThenCollect(IUnaryPredicate<E> selectStrategy,
+			OneArgumentObjectStrategy collectStrategy) {
+		ArrayedList<E> result = this.newList();
+		this.scanner().collect(selectStrategy, true,
+				ArrayScanner.functionOf(collectStrategy), null, result);
+		return result;
+	}
+
+}
@@ -0,0 +1,603 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.collections.iterable;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.jmetis.kernel.assertion.Assertions;
+import org.jmetis.kernel.closure.IUnaryFunction;
+import org.jmetis.kernel.closure.IUnaryPredicate;
+
+/**
+ * {@code HashedSet} is an {@link ICollection} without duplicates which keeps
+ * its elements in a single open-addressed array with linear probing. The
+ * array's length is a power of two and at most half of it is used, so probe
+ * sequences stay short, and removed elements are closed up by shifting the
+ * following elements of their probe sequence back instead of leaving
+ * tombstones. {@code null} elements are not permitted.
+ * <p>
+ * The bulk operations scan the array directly and run in parallel once a
+ * {@link ParallelEvaluator} has been set and the array is large enough; see
+ * {@link ArrayedList}. {@code select} and {@code reject} answer a
+ * {@code HashedSet}, the other operations answer {@link ArrayedList}s since
+ * their results may contain duplicates.
+ * 
+ * @author era
+ * @param <E>
+ */
+public class HashedSet<E> extends AbstractSet<E> implements ICollection<E> {
+
+	private static final int MINIMUM_CAPACITY = 16;
+
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+	private Object[] table;
+
+	private int size;
+
+	private int modCount;
+
+	private ParallelEvaluator parallelEvaluator;
+
+	/**
+	 * Constructs a new empty {@code HashedSet} instance.
+	 */
+	public HashedSet() {
+		this(0);
+	}
+
+	/**
+	 * Constructs a new empty {@code HashedSet} instance with room for
+	 * {@code expectedSize} elements.
+	 * 
+	 * @param expectedSize
+	 *            the number of elements the receiver holds without growing
+	 */
+	public HashedSet(int expectedSize) {
+		super();
+		if (expectedSize < 0) {
+			throw new IllegalArgumentException(Integer.toString(expectedSize));
+		}
+		this.table = new Object[HashedSet.capacityFor(expectedSize)];
+	}
+
+	/**
+	 * Constructs a new {@code HashedSet} instance containing the elements of
+	 * the given {@code collection}.
+	 * 
+	 * @param collection
+	 *            the elements to add
+	 */
+	public HashedSet(Collection<? extends E> collection) {
+		this(collection.size());
+		this.addAll(collection);
+	}
+
+	private static int capacityFor(int expectedSize) {
+		int capacity = HashedSet.MINIMUM_CAPACITY;
+		while (capacity < HashedSet.MAXIMUM_CAPACITY
+				&& capacity >> 1 < expectedSize) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+	/**
+	 * Returns the {@link ParallelEvaluator} of the bulk operations.
+	 * 
+	 * @return the {@link ParallelEvaluator}, or {@code null} if the bulk
+	 *         operations run sequentially
+	 */
+	public ParallelEvaluator getParallelEvaluator() {
+		return this.parallelEvaluator;
+	}
+
+	/**
+	 * Sets the {@link ParallelEvaluator} of the bulk operations, which is
+	 * passed on to the collections they answer.
+	 * 
+	 * @param parallelEvaluator
+	 *            the {@link ParallelEvaluator}, or {@code null} to run the
+	 *            bulk operations sequentially
+	 */
+	public void setParallelEvaluator(ParallelEvaluator parallelEvaluator) {
+		this.parallelEvaluator = parallelEvaluator;
+	}
+
+	private ArrayScanner<E> scanner() {
+		return new ArrayScanner<E>(this.parallelEvaluator, this.table,
+				this.table.length, true);
+	}
+
+	private <T> ArrayedList<T> newList() {
+		ArrayedList<T> list = new ArrayedList<T>();
+		list.setParallelEvaluator(this.parallelEvaluator);
+		return list;
+	}
+
+	private HashedSet<E> newSet() {
+		HashedSet<E> set = new HashedSet<E>();
+		set.parallelEvaluator = this.parallelEvaluator;
+		return set;
+	}
+
+	/**
+	 * Returns the slot at which the probe sequence of the given
+	 * {@code element} starts.
+	 */
+	private int homeOf(Object element, int mask) {
+		int hash = element.hashCode() * 0x9e3779b9;
+		return (hash ^ hash >>> 16) & mask;
+	}
+
+	/**
+	 * Returns the slot holding the given {@code element}, or the empty slot
+	 * ending its probe sequence as {@code -(slot + 1)}.
+	 */
+	private int slotOf(Object element) {
+		Object[] table = this.table;
+		int mask = table.length - 1;
+		int slot = this.homeOf(element, mask);
+		Object candidate;
+		while ((candidate = table[slot]) != null) {
+			if (candidate == element || candidate.equals(element)) {
+				return slot;
+			}
+			slot = slot + 1 & mask;
+		}
+		return -(slot + 1);
+	}
+
+	private void resize(int capacity) {
+		Object[] oldTable = this.table;
+		Object[] table = new Object[capacity];
+		int mask = capacity - 1;
+		for (Object element : oldTable) {
+			if (element != null) {
+				int slot = this.homeOf(element, mask);
+				while (table[slot] != null) {
+					slot = slot + 1 & mask;
+				}
+				table[slot] = element;
+			}
+		}
+		this.table = table;
+	}
+
+	/**
+	 * Removes the element in the given {@code slot} and shifts the following
+	 * elements of the cluster back into the hole where their probe sequence
+	 * allows. Elements shifted from before the {@code position} of a
+	 * descending iteration to at or after it are added to {@code wrapped}.
+	 */
+	private void removeAt(int slot, int position, ArrayedList<Object> wrapped) {
+		Object[] table = this.table;
+		int mask = table.length - 1;
+		int hole = slot;
+		int next = slot;
+		Object element;
+		while ((element = table[next = next + 1 & mask]) != null) {
+			if ((next - this.homeOf(element, mask) & mask) >= (next - hole & mask)) {
+				if (wrapped != null && next < position && hole >= position) {
+					wrapped.add(element);
+				}
+				table[hole] = element;
+				hole = next;
+			}
+		}
+		table[hole] = null;
+		this.size--;
+		this.modCount++;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractCollection#add(java.lang.Object)
+	 */
+	@Override
+	public boolean add(E element) {
+		int slot = this.slotOf(Assertions.mustNotBeNull("element", element)); //$NON-NLS-1$
+		if (slot >= 0) {
+			return false;
+		}
+		this.table[-(slot + 1)] = element;
+		this.modCount++;
+		if (++this.size > this.table.length >> 1
+				&& this.table.length < HashedSet.MAXIMUM_CAPACITY) {
+			this.resize(this.table.length << 1);
+		}
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractCollection#contains(java.lang.Object)
+	 */
+	@Override
+	public boolean contains(Object element) {
+		return element != null && this.slotOf(element) >= 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractCollection#remove(java.lang.Object)
+	 */
+	@Override
+	public boolean remove(Object element) {
+		if (element != null) {
+			int slot = this.slotOf(element);
+			if (slot >= 0) {
+				this.removeAt(slot, -1, null);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractCollection#size()
+	 */
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractCollection#clear()
+	 */
+	@Override
+	public void clear() {
+		if (this.size > 0) {
+			Object[] table = this.table;
+			for (int i = 0; i < table.length; i++) {
+				table[i] = null;
+			}
+			this.size = 0;
+			this.modCount++;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractCollection#iterator()
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new SlotIterator();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#allSatisfy(org.jmetis.kernel
+	 * .closure.IUnaryPredicate)
+	 */
+	public boolean allSatisfy(IUnaryPredicate<E> predicate) {
+		return this.scanner().indexOf(predicate, false, false) < 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#anySatisfy(org.jmetis.kernel
+	 * .closure.IUnaryPredicate)
+	 */
+	public boolean anySatisfy(IUnaryPredicate<E> predicate) {
+		return this.scanner().indexOf(predicate, true, false) >= 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#noneSatisfy(org.jmetis.kernel
+	 * .closure.IUnaryPredicate)
+	 */
+	public boolean noneSatisfy(IUnaryPredicate<E> strategy) {
+		return !this.anySatisfy(strategy);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#applyWhile(org.jmetis.kernel
+	 * .closure.IUnaryPredicate)
+	 */
+	public void applyWhile(IUnaryPredicate<E> predicate) {
+		this.scanner().applyWhile(predicate);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#applyWhileNotNull(org.jmetis
+	 * .collections.iterable.OneArgumentObjectStrategy)
+	 */
+	public void applyWhileNotNull(OneArgumentObjectStrategy strategy) {
+		this.scanner().applyWhileNotNull(strategy);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#apply(org.jmetis.collections
+	 * .iterable.OneArgumentVoidStrategy)
+	 */
+	public void apply(OneArgumentVoidStrategy strategy) {
+		this.scanner().apply(strategy);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#collect(org.jmetis.kernel
+	 * .closure.IUnaryFunction)
+	 */
+	public ArrayedList<E> collect(IUnaryFunction<E, E> function) {
+		ArrayedList<E> result = this.newList();
+		this.scanner().collect(null, true, function, null, result);
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#collectThenSelect(org.jmetis
+	 * .collections.iterable.OneArgumentObjectStrategy,
+	 * org.jmetis.kernel.closure.IUnaryPredicate)
+	 */
+	public ArrayedList<E> collectThenSelect(
+			OneArgumentObjectStrategy collectStrategy,
+			IUnaryPredicate<E> selectStrategy) {
+		ArrayedList<E> result = this.newList();
+		this.scanner().collect(null, true,
+				ArrayScanner.functionOf(collectStrategy), selectStrategy,
+				result);
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#count(org.jmetis.kernel.closure
+	 * .IUnaryPredicate)
+	 */
+	public int count(IUnaryPredicate<E> predicate) {
+		return this.scanner().count(predicate);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#detect(org.jmetis.kernel.
+	 * closure.IUnaryPredicate)
+	 */
+	public E detect(IUnaryPredicate<E> strategy) {
+		return this.detect(strategy, null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#detect(org.jmetis.kernel.
+	 * closure.IUnaryPredicate, java.lang.Object)
+	 */
+	@SuppressWarnings("unchecked")
+	public E detect(IUnaryPredicate<E> strategy, E defaultValue) {
+		int slot = this.scanner().indexOf(strategy, true, true);
+		return slot < 0 ? defaultValue : (E) this.table[slot];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#groupBy(org.jmetis.collections
+	 * .iterable.OneArgumentObjectStrategy)
+	 */
+	public Map<Object, ICollection<E>> groupBy(
+			OneArgumentObjectStrategy groupStrategy) {
+		return this.groupByHaving(groupStrategy, null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#groupByIntegerHaving(org.jmetis
+	 * .collections.iterable.OneArgumentIntegerStrategy,
+	 * org.jmetis.kernel.closure.IUnaryPredicate)
+	 */
+	public Map<Integer, ICollection<E>> groupByIntegerHaving(
+			OneArgumentIntegerStrategy groupStrategy,
+			IUnaryPredicate<E> havingStrategy) {
+		return this.scanner().groupBy(
+				ArrayScanner.integerFunctionOf(groupStrategy), havingStrategy);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#groupByHaving(org.jmetis.
+	 * collections.iterable.OneArgumentObjectStrategy,
+	 * org.jmetis.kernel.closure.IUnaryPredicate)
+	 */
+	public Map<Object, ICollection<E>> groupByHaving(
+			OneArgumentObjectStrategy groupStrategy,
+			IUnaryPredicate<E> havingStrategy) {
+		return this.scanner().groupBy(ArrayScanner.functionOf(groupStrategy),
+				havingStrategy);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.collections.iterable.ICollection#injectInto(java.lang.Object,
+	 * org.jmetis.collections.iterable.TwoArgumentObjectStrategy)
+	 */
+	public Object injectInto(Object initialValue,
+			TwoArgumentObjectStrategy strategy) {
+		return this.scanner().injectInto(initialValue, strategy);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#reject(org.jmetis.kernel.
+	 * closure.IUnaryPredicate)
+	 */
+	public HashedSet<E> reject(IUnaryPredicate<E> strategy) {
+		HashedSet<E> result = this.newSet();
+		this.scanner().collect(strategy, false, null, null, result);
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#select(org.jmetis.kernel.
+	 * closure.IUnaryPredicate)
+	 */
+	public HashedSet<E> select(IUnaryPredicate<E> strategy) {
+		HashedSet<E> result = this.newSet();
+		this.scanner().collect(strategy, true, null, null, result);
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.collections.iterable.ICollection#selectThenCollect(org.jmetis
+	 * .kernel.closure.IUnaryPredicate,
+	 * org.jmetis.collections.iterable.OneArgumentObjectStrategy)
+	 */
+	public ArrayedList<E> selectThenCollect(IUnaryPredicate<E> selectStrategy,
+			OneArgumentObjectStrategy collectStrategy) {
+		ArrayedList<E> result = this.newList();
+		this.scanner().collect(selectStrategy, true,
+				ArrayScanner.functionOf(collectStrategy), null, result);
+		return result;
+	}
+
+	/**
+	 * {@code SlotIterator} visits the slots in descending order, so that
+	 * removing an element only shifts elements already visited, except for
+	 * elements wrapping around from the start of the array, which are
+	 * collected and visited at the end.
+	 */
+	private class SlotIterator implements Iterator<E> {
+
+		private int position;
+
+		private int nextPosition;
+
+		private ArrayedList<Object> wrapped;
+
+		private int wrappedIndex;
+
+		private Object last;
+
+		private int expectedModCount;
+
+		SlotIterator() {
+			super();
+			this.position = HashedSet.this.table.length;
+			this.expectedModCount = HashedSet.this.modCount;
+			this.nextPosition = this.findNext(this.position);
+		}
+
+		private int findNext(int position) {
+			Object[] table = HashedSet.this.table;
+			while (--position >= 0) {
+				if (table[position] != null) {
+					break;
+				}
+			}
+			return position;
+		}
+
+		public boolean hasNext() {
+			return this.nextPosition >= 0 || this.wrapped != null
+					&& this.wrappedIndex < this.wrapped.size();
+		}
+
+		@SuppressWarnings("unchecked")
+		public E next() {
+			if (HashedSet.this.modCount != this.expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (this.nextPosition >= 0) {
+				this.position = this.nextPosition;
+				this.last = HashedSet.this.table[this.position];
+				this.nextPosition = this.findNext(this.position);
+			} else if (this.hasNext()) {
+				this.position = -1;
+				this.last = this.wrapped.get(this.wrappedIndex++);
+			} else {
+				throw new NoSuchElementException();
+			}
+			return (E) this.last;
+		}
+
+		public void remove() {
+			if (this.last == null) {
+				throw new IllegalStateException();
+			}
+			if (HashedSet.this.modCount != this.expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (this.position >= 0) {
+				if (this.wrapped == null) {
+					this.wrapped = new ArrayedList<Object>();
+				}
+				HashedSet.this.removeAt(this.position, this.position,
+						this.wrapped);
+				this.nextPosition = this.findNext(this.position);
+			} else {
+				HashedSet.this.remove(this.last);
+			}
+			this.last = null;
+			this.expectedModCount = HashedSet.this.modCount;
+		}
+
+	}
+
+}
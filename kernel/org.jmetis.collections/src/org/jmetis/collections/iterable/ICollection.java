@@ -14,6 +14,7 @@
 package org.jmetis.collections.iterable;
 
 import java.util.Collection;
+import java.util.Map;
 
 import org.jmetis.kernel.closure.IUnaryFunction;
 import org.jmetis.kernel.closure.IUnaryPredicate;
@@ -120,7 +121,7 @@ public interface ICollection<E> extends Collection<E> {
 	 * 
 	 * @param <code>strategy</code> the strategy to use
 	 */
-	void apply(IUnaryPredicate<E> predicate);
+	void applyWhile(IUnaryPredicate<E> predicate);
 
 	/**
 	 * Executes the <code>strategy</code> on each element of the receiver until
@@ -129,7 +130,7 @@ public interface ICollection<E> extends Collection<E> {
 	 * 
 	 * @param <code>strategy</code> the strategy to use
 	 */
-	void apply(OneArgumentObjectStrategy strategy);
+	void applyWhileNotNull(OneArgumentObjectStrategy strategy);
 
 	/**
 	 * Executes the <code>strategy</code> on each element of the receiver.
@@ -346,10 +347,10 @@ public interface ICollection<E> extends Collection<E> {
 	 * 
 	 * @param <code>groupStrategy</code> the strategy to separate the elements
 	 *        into groups
-	 * @return a collection of the different groups containing a set of elements
-	 *         for each group.
+	 * @return a map from the result of the <code>groupStrategy</code> to the
+	 *         group of elements for which it was returned, in encounter order
 	 */
-	Collection<E> groupBy(OneArgumentObjectStrategy groupStrategy);
+	Map<Object, ICollection<E>> groupBy(OneArgumentObjectStrategy groupStrategy);
 
 	/**
 	 * Split the receivers contents into collections of elements for which
@@ -407,10 +408,11 @@ public interface ICollection<E> extends Collection<E> {
 	 * @param <code>groupStrategy</code> the strategy to separate the elements
 	 *        into groups
 	 * @param <code>havingStrategy</code> the strategy to do the selection
-	 * @return a collection of the different groups containing a set of elements
-	 *         for each group.
+	 * @return a map from the result of the <code>groupStrategy</code> to the
+	 *         group of elements for which it was returned, in encounter order
 	 */
-	Collection<E> groupByHaving(OneArgumentIntegerStrategy groupStrategy,
+	Map<Integer, ICollection<E>> groupByIntegerHaving(
+			OneArgumentIntegerStrategy groupStrategy,
 			IUnaryPredicate<E> havingStrategy);
 
 	/**
@@ -470,10 +472,11 @@ public interface ICollection<E> extends Collection<E> {
 	 * @param <code>groupStrategy</code> the strategy to separate the elements
 	 *        into groups
 	 * @param <code>havingStrategy</code> the strategy to do the selection
-	 * @return a collection of the different groups containing a set of elements
-	 *         for each group.
+	 * @return a map from the result of the <code>groupStrategy</code> to the
+	 *         group of elements for which it was returned, in encounter order
 	 */
-	Collection<E> groupByHaving(OneArgumentObjectStrategy groupStrategy,
+	Map<Object, ICollection<E>> groupByHaving(
+			OneArgumentObjectStrategy groupStrategy,
 			IUnaryPredicate<E> havingStrategy);
 
 	/**
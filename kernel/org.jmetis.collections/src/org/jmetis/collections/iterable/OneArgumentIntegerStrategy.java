@@ -14,9 +14,22 @@
 package org.jmetis.collections.iterable;
 
 /**
- * @author era
+ * {@code OneArgumentIntegerStrategy} computes an {@code int} from a single
+ * argument.
  * 
+ * @author era
+ * @see ICollection#groupByIntegerHaving(OneArgumentIntegerStrategy,
+ *      org.jmetis.kernel.closure.IUnaryPredicate)
  */
 public interface OneArgumentIntegerStrategy {
 
+	/**
+	 * Executes the receiver on the given {@code argument}.
+	 * 
+	 * @param argument
+	 *            the argument
+	 * @return the result of the execution
+	 */
+	int execute(Object argument);
+
 }
@@ -14,9 +14,21 @@
 package org.jmetis.collections.iterable;
 
 /**
- * @author era
+ * {@code OneArgumentObjectStrategy} computes an object from a single argument.
  * 
+ * @author era
+ * @see ICollection#collectThenSelect(OneArgumentObjectStrategy,
+ *      org.jmetis.kernel.closure.IUnaryPredicate)
  */
 public interface OneArgumentObjectStrategy {
 
+	/**
+	 * Executes the receiver on the given {@code argument}.
+	 * 
+	 * @param argument
+	 *            the argument
+	 * @return the result of the execution
+	 */
+	Object execute(Object argument);
+
 }
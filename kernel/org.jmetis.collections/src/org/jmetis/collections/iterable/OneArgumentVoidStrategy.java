@@ -14,9 +14,20 @@
 package org.jmetis.collections.iterable;
 
 /**
- * @author era
+ * {@code OneArgumentVoidStrategy} is executed for its side effect on a single
+ * argument.
  * 
+ * @author era
+ * @see ICollection#apply(OneArgumentVoidStrategy)
  */
 public interface OneArgumentVoidStrategy {
 
+	/**
+	 * Executes the receiver on the given {@code argument}.
+	 * 
+	 * @param argument
+	 *            the argument
+	 */
+	void execute(Object argument);
+
 }
@@ -0,0 +1,235 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.collections.iterable;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jmetis.kernel.assertion.Assertions;
+
+/**
+ * {@code ParallelEvaluator} evaluates the bulk operations of an
+ * {@link ICollection} on several threads once the collection is large enough.
+ * <p>
+ * A collection of at least twice the {@code threshold} is split into
+ * segments of at least {@code threshold} elements, several per thread so
+ * that segments of uneven cost balance out. The calling thread and up to
+ * {@code parallelism - 1} tasks submitted to the {@link Executor} claim the
+ * segments one by one. Since the calling thread keeps claiming segments until
+ * none is left, an evaluation completes even if the executor is saturated or
+ * rejects the tasks, and evaluations may be nested.
+ * <p>
+ * Strategies and predicates evaluated in parallel must be thread-safe, and
+ * the collection must not be modified while it is evaluated.
+ * 
+ * @author era
+ */
+public class ParallelEvaluator {
+
+	public static final int DEFAULT_THRESHOLD = 1 << 14;
+
+	private static final int SEGMENTS_PER_THREAD = 4;
+
+	private final Executor executor;
+
+	private final int threshold;
+
+	private final int parallelism;
+
+	/**
+	 * Constructs a new {@code ParallelEvaluator} instance which uses as many
+	 * threads as there are processors and the {@link #DEFAULT_THRESHOLD}.
+	 * 
+	 * @param executor
+	 *            the {@link Executor} to run the segments on
+	 */
+	public ParallelEvaluator(Executor executor) {
+		this(executor, ParallelEvaluator.DEFAULT_THRESHOLD, Runtime
+				.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructs a new {@code ParallelEvaluator} instance.
+	 * 
+	 * @param executor
+	 *            the {@link Executor} to run the segments on
+	 * @param threshold
+	 *            the minimum number of elements of a segment
+	 * @param parallelism
+	 *            the maximum number of threads evaluating a collection,
+	 *            including the calling thread
+	 */
+	public ParallelEvaluator(Executor executor, int threshold, int parallelism) {
+		super();
+		if (threshold < 1) {
+			throw new IllegalArgumentException(Integer.toString(threshold));
+		}
+		if (parallelism < 1) {
+			throw new IllegalArgumentException(Integer.toString(parallelism));
+		}
+		this.executor = Assertions.mustNotBeNull("executor", executor); //$NON-NLS-1$
+		this.threshold = threshold;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Returns the minimum number of elements of a segment.
+	 * 
+	 * @return the minimum number of elements of a segment
+	 */
+	public int getThreshold() {
+		return this.threshold;
+	}
+
+	/**
+	 * Returns the maximum number of threads evaluating a collection.
+	 * 
+	 * @return the maximum number of threads evaluating a collection
+	 */
+	public int getParallelism() {
+		return this.parallelism;
+	}
+
+	/**
+	 * Returns the number of segments a collection of the given {@code length}
+	 * is split into.
+	 */
+	int segmentsFor(int length) {
+		int segments = length / this.threshold;
+		if (segments < 2 || this.parallelism < 2) {
+			return 1;
+		}
+		return Math.min(segments, this.parallelism
+				* ParallelEvaluator.SEGMENTS_PER_THREAD);
+	}
+
+	/**
+	 * Evaluates the given {@code evaluation} over the indexes {@code 0} to
+	 * {@code length}, split into segments.
+	 * 
+	 * @return the result of each segment, in order; the result of a segment
+	 *         that was stopped is {@code null}
+	 */
+	Object[] evaluate(final Evaluation<?> evaluation, final int length) {
+		final int segments = this.segmentsFor(length);
+		final Object[] results = new Object[segments];
+		if (segments == 1) {
+			results[0] = evaluation.evaluate(0, 0, length);
+			return results;
+		}
+		final AtomicInteger nextSegment = new AtomicInteger();
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		final CountDownLatch done = new CountDownLatch(segments);
+		Runnable worker = new Runnable() {
+
+			public void run() {
+				int segment;
+				while ((segment = nextSegment.getAndIncrement()) < segments) {
+					try {
+						if (failure.get() == null
+								&& !evaluation.isStopped(segment)) {
+							results[segment] = evaluation.evaluate(segment,
+									(int) ((long) length * segment / segments),
+									(int) ((long) length * (segment + 1) / segments));
+						}
+					} catch (Throwable exception) {
+						failure.compareAndSet(null, exception);
+						evaluation.stopAfter(-1);
+					} finally {
+						done.countDown();
+					}
+				}
+			}
+		};
+		try {
+			for (int i = Math.min(this.parallelism, segments) - 1; i > 0; i--) {
+				this.executor.execute(worker);
+			}
+		} catch (RejectedExecutionException e) {
+			// the calling thread evaluates the remaining segments
+		}
+		worker.run();
+		this.awaitUninterruptibly(done);
+		Throwable exception = failure.get();
+		if (exception instanceof RuntimeException) {
+			throw (RuntimeException) exception;
+		}
+		if (exception instanceof Error) {
+			throw (Error) exception;
+		}
+		return results;
+	}
+
+	private void awaitUninterruptibly(CountDownLatch done) {
+		boolean interrupted = false;
+		while (true) {
+			try {
+				done.await();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * {@code Evaluation} evaluates a bulk operation on a segment of a
+	 * collection. A segment which found a result may stop the evaluation of
+	 * the segments following it.
+	 */
+	abstract static class Evaluation<R> {
+
+		private final AtomicInteger lastSegment;
+
+		Evaluation() {
+			super();
+			this.lastSegment = new AtomicInteger(Integer.MAX_VALUE);
+		}
+
+		/**
+		 * Evaluates the indexes {@code from} (inclusive) to {@code to}
+		 * (exclusive) of the given {@code segment}.
+		 */
+		abstract R evaluate(int segment, int from, int to);
+
+		/**
+		 * Returns {@code true} if the given {@code segment} need not be
+		 * evaluated any further.
+		 */
+		boolean isStopped(int segment) {
+			return segment > this.lastSegment.get();
+		}
+
+		/**
+		 * Stops the evaluation of the segments following the given
+		 * {@code segment}; {@code -1} stops all segments.
+		 */
+		void stopAfter(int segment) {
+			int lastSegment;
+			while (segment < (lastSegment = this.lastSegment.get())) {
+				if (this.lastSegment.compareAndSet(lastSegment, segment)) {
+					break;
+				}
+			}
+		}
+
+	}
+
+}
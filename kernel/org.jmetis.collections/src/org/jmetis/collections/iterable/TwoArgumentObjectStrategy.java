@@ -14,9 +14,22 @@
 package org.jmetis.collections.iterable;
 
 /**
- * @author era
+ * {@code TwoArgumentObjectStrategy} computes an object from two arguments.
  * 
+ * @author era
+ * @see ICollection#injectInto(Object, TwoArgumentObjectStrategy)
  */
 public interface TwoArgumentObjectStrategy {
 
+	/**
+	 * Executes the receiver on the given arguments.
+	 * 
+	 * @param argument1
+	 *            the first argument
+	 * @param argument2
+	 *            the second argument
+	 * @return the result of the execution
+	 */
+	Object execute(Object argument1, Object argument2);
+
 }
@@ -0,0 +1,39 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.collections.list;
+
+import java.util.List;
+
+/**
+ * {@code IRangeProvisioner} is an {@link IProvisioner} which instantiates a
+ * whole range of objects at once, e.g. with a single query of a database.
+ * 
+ * @author era
+ */
+public interface IRangeProvisioner<E> extends IProvisioner<E> {
+
+	/**
+	 * Returns the objects from {@code fromIndex}, inclusive, to
+	 * {@code toIndex}, exclusive. The returned list is shorter if the
+	 * objects end before {@code toIndex}.
+	 * 
+	 * @param fromIndex
+	 *            low end-point (inclusive) of the range
+	 * @param toIndex
+	 *            high end-point (exclusive) of the range
+	 * @return the objects of the range
+	 */
+	List<E> evaluate(int fromIndex, int toIndex);
+
+}
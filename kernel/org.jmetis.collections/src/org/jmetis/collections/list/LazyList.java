@@ -25,6 +25,7 @@ import org.jmetis.kernel.assertion.Assertions;
 
 /**
  * 
+ * @see PagedLazyList
  * @author era
  */
 public class LazyList<P extends IProvisioner<E>, E> extends ListDecorator<E> {
@@ -42,6 +43,8 @@ public class LazyList<P extends IProvisioner<E>, E> extends ListDecorator<E> {
 		super(component);
 		this.provisioner = Assertions.mustNotBeNull("provisioner", //$NON-NLS-1$
 				provisioner);
+		this.addedElements = Collections.emptySet();
+		this.removedElements = Collections.emptySet();
 	}
 
 	protected void elementAdded(E element) {
@@ -200,8 +203,9 @@ public class LazyList<P extends IProvisioner<E>, E> extends ListDecorator<E> {
 	 *            high end-point (exclusive) of the range.
 	 */
 	protected void fillGap(int fromIndex, int toIndex) {
-		for (int i = fromIndex; i < toIndex; i++) {
-			this.component.add(null);
+		if (fromIndex < toIndex) {
+			this.component.addAll(Collections.nCopies(toIndex - fromIndex,
+					(E) null));
 		}
 	}
 
@@ -224,13 +228,13 @@ public class LazyList<P extends IProvisioner<E>, E> extends ListDecorator<E> {
 		if (index < size) {
 			element = super.get(index);
 		} else {
-			this.fillGap(size, index);
+			this.fillGap(size, index + 1);
 			element = null;
 		}
 		if (element == null) {
 			element = this.provisioner.evaluate(index
 					- this.addedElements.size() + this.removedElements.size());
-			this.component.add(element);
+			this.component.set(index, element);
 		}
 		return element;
 	}
@@ -0,0 +1,266 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.collections.list;
+
+import java.util.AbstractList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.jmetis.kernel.assertion.Assertions;
+
+/**
+ * {@code PagedLazyList} is the paged mode of a {@link LazyList}: a read-only
+ * list whose elements are instantiated by an {@link IRangeProvisioner} a
+ * page of {@code pageSize} elements at a time.
+ * <p>
+ * At most {@code maximumPages} pages are kept; the least recently used page
+ * is discarded when another one is needed. If an {@link Executor} is given,
+ * moving to another page prefetches the page following it in the direction of
+ * access. A page requested while it is still being prefetched is awaited,
+ * and a page whose prefetch has not started yet is loaded by the requesting
+ * thread instead.
+ * <p>
+ * Apart from the prefetching, which only calls the provisioner, the list is
+ * not thread-safe.
+ * 
+ * @author era
+ */
+public class PagedLazyList<E> extends AbstractList<E> implements RandomAccess {
+
+	public static final int DEFAULT_PAGE_SIZE = 100;
+
+	public static final int DEFAULT_MAXIMUM_PAGES = 16;
+
+	private final IRangeProvisioner<E> provisioner;
+
+	private final int pageSize;
+
+	private final Executor executor;
+
+	private final Map<Integer, FutureTask<List<E>>> pages;
+
+	private int currentPageIndex;
+
+	private List<E> currentPage;
+
+	/**
+	 * Constructs a new {@code PagedLazyList} instance.
+	 * 
+	 * @param provisioner
+	 *            the {@link IRangeProvisioner} instantiating the pages
+	 * @param pageSize
+	 *            the number of elements of a page
+	 * @param maximumPages
+	 *            the maximum number of pages kept, at least two
+	 * @param executor
+	 *            the {@link Executor} to prefetch pages on, or {@code null}
+	 *            to load pages only when they are requested
+	 */
+	public PagedLazyList(IRangeProvisioner<E> provisioner, int pageSize,
+			final int maximumPages, Executor executor) {
+		super();
+		this.provisioner = Assertions.mustNotBeNull("provisioner", //$NON-NLS-1$
+				provisioner);
+		if (pageSize < 1) {
+			throw new IllegalArgumentException(Integer.toString(pageSize));
+		}
+		if (maximumPages < 2) {
+			throw new IllegalArgumentException(Integer.toString(maximumPages));
+		}
+		this.pageSize = pageSize;
+		this.executor = executor;
+		this.pages = new LinkedHashMap<Integer, FutureTask<List<E>>>(16,
+				0.75F, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					Map.Entry<Integer, FutureTask<List<E>>> eldest) {
+				if (this.size() > maximumPages) {
+					eldest.getValue().cancel(false);
+					return true;
+				}
+				return false;
+			}
+		};
+		this.currentPageIndex = -1;
+	}
+
+	/**
+	 * Constructs a new {@code PagedLazyList} instance which loads pages of
+	 * {@link #DEFAULT_PAGE_SIZE} elements only when they are requested and
+	 * keeps at most {@link #DEFAULT_MAXIMUM_PAGES} of them.
+	 * 
+	 * @param provisioner
+	 *            the {@link IRangeProvisioner} instantiating the pages
+	 */
+	public PagedLazyList(IRangeProvisioner<E> provisioner) {
+		this(provisioner, PagedLazyList.DEFAULT_PAGE_SIZE,
+				PagedLazyList.DEFAULT_MAXIMUM_PAGES, null);
+	}
+
+	/**
+	 * Returns the number of elements of a page.
+	 * 
+	 * @return the number of elements of a page
+	 */
+	public int getPageSize() {
+		return this.pageSize;
+	}
+
+	/**
+	 * Discards all pages, e.g. after the objects of the provisioner have
+	 * changed.
+	 */
+	public void discardPages() {
+		for (FutureTask<List<E>> page : this.pages.values()) {
+			page.cancel(false);
+		}
+		this.pages.clear();
+		this.currentPageIndex = -1;
+		this.currentPage = null;
+		this.modCount++;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractList#get(int)
+	 */
+	@Override
+	public E get(int index) {
+		if (index < 0) {
+			throw new IndexOutOfBoundsException(Integer.toString(index));
+		}
+		int pageIndex = index / this.pageSize;
+		if (pageIndex != this.currentPageIndex) {
+			this.moveTo(pageIndex);
+		}
+		int offset = index - pageIndex * this.pageSize;
+		if (offset >= this.currentPage.size()) {
+			throw new IndexOutOfBoundsException(Integer.toString(index));
+		}
+		return this.currentPage.get(offset);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractCollection#size()
+	 */
+	@Override
+	public int size() {
+		return this.provisioner.size();
+	}
+
+	private void moveTo(int pageIndex) {
+		FutureTask<List<E>> page = this.pages.get(Integer.valueOf(pageIndex));
+		if (page == null) {
+			page = this.pageTask(pageIndex);
+			this.pages.put(Integer.valueOf(pageIndex), page);
+		}
+		List<E> elements;
+		try {
+			elements = this.awaitPage(page);
+		} catch (RuntimeException e) {
+			this.pages.remove(Integer.valueOf(pageIndex));
+			throw e;
+		} catch (Error e) {
+			this.pages.remove(Integer.valueOf(pageIndex));
+			throw e;
+		}
+		if (this.currentPageIndex >= 0) {
+			this.prefetch(pageIndex < this.currentPageIndex ? pageIndex - 1
+					: pageIndex + 1);
+		}
+		this.currentPageIndex = pageIndex;
+		this.currentPage = elements;
+	}
+
+	private FutureTask<List<E>> pageTask(final int pageIndex) {
+		return new FutureTask<List<E>>(new Callable<List<E>>() {
+
+			public List<E> call() {
+				int fromIndex = pageIndex * PagedLazyList.this.pageSize;
+				// the last pages of a list of nearly Integer.MAX_VALUE
+				// elements end at Integer.MAX_VALUE
+				return PagedLazyList.this.provisioner.evaluate(fromIndex,
+						fromIndex
+								+ Math.min(PagedLazyList.this.pageSize,
+										Integer.MAX_VALUE - fromIndex));
+			}
+		});
+	}
+
+	/**
+	 * Submits the loading of the page at the given {@code pageIndex} to the
+	 * {@link Executor} unless it is kept already or out of range.
+	 */
+	private void prefetch(int pageIndex) {
+		if (this.executor == null
+				|| pageIndex < 0
+				|| pageIndex >= ((long) this.size() + this.pageSize - 1)
+						/ this.pageSize
+				|| this.pages.containsKey(Integer.valueOf(pageIndex))) {
+			return;
+		}
+		FutureTask<List<E>> page = this.pageTask(pageIndex);
+		this.pages.put(Integer.valueOf(pageIndex), page);
+		try {
+			this.executor.execute(page);
+		} catch (RejectedExecutionException e) {
+			// the page is loaded by the thread requesting it
+		}
+	}
+
+	/**
+	 * Runs the given {@code page} unless it has been started already and
+	 * waits for it to complete.
+	 */
+	private List<E> awaitPage(FutureTask<List<E>> page) {
+		page.run();
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return page.get();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof RuntimeException) {
+						throw (RuntimeException) cause;
+					}
+					if (cause instanceof Error) {
+						throw (Error) cause;
+					}
+					throw new IllegalStateException(cause);
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+}
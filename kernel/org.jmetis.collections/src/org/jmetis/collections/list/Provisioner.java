@@ -13,11 +13,14 @@
  */
 package org.jmetis.collections.list;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 
  * @author era
  */
-public abstract class Provisioner<E> implements IProvisioner<E> {
+public abstract class Provisioner<E> implements IRangeProvisioner<E> {
 
 	/**
 	 * Constructs a new {@code Provisioner} instance.
@@ -35,4 +38,21 @@ public abstract class Provisioner<E> implements IProvisioner<E> {
 		return Integer.MAX_VALUE;
 	}
 
+	/**
+	 * Evaluates the objects of the range one by one; subclasses which can
+	 * instantiate a range at once should override this method.
+	 * 
+	 * {@inheritDoc}
+	 * 
+	 * @see org.jmetis.collections.list.IRangeProvisioner#evaluate(int, int)
+	 */
+	public List<E> evaluate(int fromIndex, int toIndex) {
+		int end = Math.min(toIndex, this.size());
+		List<E> elements = new ArrayList<E>(Math.max(end - fromIndex, 0));
+		for (int i = fromIndex; i < end; i++) {
+			elements.add(this.evaluate(i));
+		}
+		return elements;
+	}
+
 }
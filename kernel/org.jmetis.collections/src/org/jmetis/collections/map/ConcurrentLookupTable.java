@@ -0,0 +1,426 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.collections.map;
+
+import org.jmetis.kernel.closure.IUnaryFunction;
+
+/**
+ * {@code ConcurrentLookupTable} is a thread-safe {@link ILookupTable} for
+ * read-mostly lookups shared between threads.
+ * <p>
+ * The entries are distributed over a power-of-two number of stripes by the
+ * upper bits of their hash. Each stripe is a chained hash table whose
+ * entries never change their key or successor: {@link #get(Object)} and
+ * {@link #containsKey(Object)} walk these chains without taking any lock,
+ * while {@code put}, {@code remove} and {@code computeIfAbsent} lock only the
+ * stripe of their key. A removal copies the entries preceding the removed
+ * one, and a stripe grows by copying its chains into a table twice as large,
+ * so readers always see a consistent chain. Every structural change ends
+ * with a write of the volatile entry count of the stripe, which readers read
+ * first.
+ * <p>
+ * {@link #size()} and {@link #isEmpty()} sum up the stripes without locking
+ * them and are only estimates while the receiver is being modified.
+ * {@code null} keys and values are permitted.
+ * 
+ * @author era
+ */
+public class ConcurrentLookupTable<K, V> implements ILookupTable<K, V> {
+
+	private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+	private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+	private static final int MAXIMUM_STRIPES = 1 << 16;
+
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+	private static final float LOAD_FACTOR = 0.75F;
+
+	private static final Object NULL = new Object();
+
+	private final Stripe[] stripes;
+
+	private final int stripeShift;
+
+	private final int stripeMask;
+
+	/**
+	 * Constructs a new {@code ConcurrentLookupTable} instance.
+	 * 
+	 * @param initialCapacity
+	 *            the number of entries the receiver holds without growing
+	 * @param concurrencyLevel
+	 *            the number of threads expected to modify the receiver at
+	 *            the same time, rounded up to the number of stripes, which is
+	 *            a power of two
+	 */
+	public ConcurrentLookupTable(int initialCapacity, int concurrencyLevel) {
+		super();
+		if (initialCapacity < 0) {
+			throw new IllegalArgumentException(Integer
+					.toString(initialCapacity));
+		}
+		if (concurrencyLevel < 1) {
+			throw new IllegalArgumentException(Integer
+					.toString(concurrencyLevel));
+		}
+		int shift = 0;
+		while (1 << shift < concurrencyLevel
+				&& 1 << shift < ConcurrentLookupTable.MAXIMUM_STRIPES) {
+			shift++;
+		}
+		this.stripes = new Stripe[1 << shift];
+		this.stripeShift = 32 - shift;
+		this.stripeMask = this.stripes.length - 1;
+		int capacity = 2;
+		while (capacity * ConcurrentLookupTable.LOAD_FACTOR
+				* this.stripes.length < initialCapacity
+				&& capacity < ConcurrentLookupTable.MAXIMUM_CAPACITY) {
+			capacity <<= 1;
+		}
+		for (int i = 0; i < this.stripes.length; i++) {
+			this.stripes[i] = new Stripe(capacity);
+		}
+	}
+
+	/**
+	 * Constructs a new {@code ConcurrentLookupTable} instance.
+	 */
+	public ConcurrentLookupTable() {
+		this(ConcurrentLookupTable.DEFAULT_INITIAL_CAPACITY,
+				ConcurrentLookupTable.DEFAULT_CONCURRENCY_LEVEL);
+	}
+
+	private static Object maskNull(Object object) {
+		return object == null ? ConcurrentLookupTable.NULL : object;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T unmaskNull(Object object) {
+		return object == ConcurrentLookupTable.NULL ? null : (T) object;
+	}
+
+	private static int hashOf(Object key) {
+		int hashCode = key.hashCode() * 0x9e3779b9;
+		return hashCode ^ hashCode >>> 16;
+	}
+
+	private Stripe stripeFor(int hash) {
+		return this.stripes[hash >>> this.stripeShift & this.stripeMask];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.collections.map.ILookupTable#isEmpty()
+	 */
+	public boolean isEmpty() {
+		for (Stripe stripe : this.stripes) {
+			if (stripe.count != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.collections.map.ILookupTable#size()
+	 */
+	public int size() {
+		long size = 0;
+		for (Stripe stripe : this.stripes) {
+			size += stripe.count;
+		}
+		return (int) Math.min(size, Integer.MAX_VALUE);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.collections.map.ILookupTable#containsKey(java.lang.Object)
+	 */
+	public boolean containsKey(Object key) {
+		Object maskedKey = ConcurrentLookupTable.maskNull(key);
+		int hash = ConcurrentLookupTable.hashOf(maskedKey);
+		return this.stripeFor(hash).find(maskedKey, hash) != null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.collections.map.ILookupTable#get(java.lang.Object)
+	 */
+	public V get(Object key) {
+		Object maskedKey = ConcurrentLookupTable.maskNull(key);
+		int hash = ConcurrentLookupTable.hashOf(maskedKey);
+		Stripe stripe = this.stripeFor(hash);
+		Node node = stripe.find(maskedKey, hash);
+		return node == null ? null : ConcurrentLookupTable.<V> unmaskNull(stripe
+				.valueOf(node));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.collections.map.ILookupTable#put(java.lang.Object,
+	 * java.lang.Object)
+	 */
+	public V put(K key, V value) {
+		Object maskedKey = ConcurrentLookupTable.maskNull(key);
+		int hash = ConcurrentLookupTable.hashOf(maskedKey);
+		return ConcurrentLookupTable.<V> unmaskNull(this.stripeFor(hash).put(
+				maskedKey, hash, ConcurrentLookupTable.maskNull(value), false));
+	}
+
+	/**
+	 * Associates the given {@code value} with the given {@code key} unless the
+	 * {@code key} is already mapped.
+	 * 
+	 * @param key
+	 *            {@code key} with which the given {@code value} is to be
+	 *            associated
+	 * @param value
+	 *            {@code value} to be associated with the given {@code key}
+	 * @return the value the {@code key} is already mapped to, or {@code null}
+	 *         if the given {@code value} has been associated
+	 */
+	public V putIfAbsent(K key, V value) {
+		Object maskedKey = ConcurrentLookupTable.maskNull(key);
+		int hash = ConcurrentLookupTable.hashOf(maskedKey);
+		return ConcurrentLookupTable.<V> unmaskNull(this.stripeFor(hash).put(
+				maskedKey, hash, ConcurrentLookupTable.maskNull(value), true));
+	}
+
+	/**
+	 * Returns the value to which the given {@code key} is mapped. If the
+	 * {@code key} is not mapped, or mapped to {@code null}, the given
+	 * {@code function} is evaluated with the {@code key} and its result, if
+	 * not {@code null}, is associated with the {@code key}.
+	 * <p>
+	 * The {@code function} is evaluated at most once per absent key, while
+	 * the stripe of the {@code key} is locked; other threads modifying the
+	 * same stripe wait for it, readers do not. The {@code function} must
+	 * therefore be short and must not modify the receiver.
+	 * 
+	 * @param key
+	 *            the {@code key} whose associated value is to be returned
+	 * @param function
+	 *            the {@link IUnaryFunction} computing the value of an absent
+	 *            {@code key}
+	 * @return the current or computed value, or {@code null} if the
+	 *         {@code function} returned {@code null}
+	 */
+	@SuppressWarnings("unchecked")
+	public V computeIfAbsent(K key,
+			IUnaryFunction<? extends V, ? super K> function) {
+		Object maskedKey = ConcurrentLookupTable.maskNull(key);
+		int hash = ConcurrentLookupTable.hashOf(maskedKey);
+		Stripe stripe = this.stripeFor(hash);
+		Node node = stripe.find(maskedKey, hash);
+		if (node != null) {
+			Object value = stripe.valueOf(node);
+			if (value != ConcurrentLookupTable.NULL) {
+				return (V) value;
+			}
+		}
+		synchronized (stripe) {
+			node = stripe.find(maskedKey, hash);
+			if (node != null && node.value != ConcurrentLookupTable.NULL) {
+				return (V) node.value;
+			}
+			V value = function.evaluate(key);
+			if (value != null) {
+				stripe.put(maskedKey, hash, value, false);
+			}
+			return value;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.collections.map.ILookupTable#remove(java.lang.Object)
+	 */
+	public V remove(Object key) {
+		Object maskedKey = ConcurrentLookupTable.maskNull(key);
+		int hash = ConcurrentLookupTable.hashOf(maskedKey);
+		return ConcurrentLookupTable.<V> unmaskNull(this.stripeFor(hash)
+				.remove(maskedKey, hash));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.collections.map.ILookupTable#clear()
+	 */
+	public void clear() {
+		for (Stripe stripe : this.stripes) {
+			stripe.clear();
+		}
+	}
+
+	/**
+	 * {@code Node} is an entry of a chain. Only its value, which is never
+	 * {@code null}, changes once it has been published.
+	 */
+	private static final class Node {
+
+		final Object key;
+
+		final int hash;
+
+		volatile Object value;
+
+		final Node next;
+
+		Node(Object key, int hash, Object value, Node next) {
+			super();
+			this.key = key;
+			this.hash = hash;
+			this.value = value;
+			this.next = next;
+		}
+
+	}
+
+	/**
+	 * {@code Stripe} is a chained hash table which is read without locking
+	 * and modified while locked.
+	 */
+	private static final class Stripe {
+
+		volatile Node[] table;
+
+		volatile int count;
+
+		private int threshold;
+
+		Stripe(int capacity) {
+			super();
+			this.allocate(capacity);
+		}
+
+		private void allocate(int capacity) {
+			this.table = new Node[capacity];
+			this.threshold = capacity == ConcurrentLookupTable.MAXIMUM_CAPACITY ? Integer.MAX_VALUE
+					: (int) (capacity * ConcurrentLookupTable.LOAD_FACTOR);
+		}
+
+		Node find(Object key, int hash) {
+			if (this.count != 0) {
+				Node[] table = this.table;
+				Node node = table[hash & table.length - 1];
+				while (node != null) {
+					if (node.hash == hash
+							&& (node.key == key || node.key.equals(key))) {
+						return node;
+					}
+					node = node.next;
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Returns the value of the given {@code node}. A node reached through
+		 * a table slot written after the last count the reader has seen may
+		 * not show its value yet, which is then read while locked.
+		 */
+		Object valueOf(Node node) {
+			Object value = node.value;
+			if (value == null) {
+				synchronized (this) {
+					value = node.value;
+				}
+			}
+			return value;
+		}
+
+		synchronized Object put(Object key, int hash, Object value,
+				boolean onlyIfAbsent) {
+			Node node = this.find(key, hash);
+			if (node != null) {
+				Object oldValue = node.value;
+				if (!onlyIfAbsent) {
+					node.value = value;
+				}
+				return oldValue;
+			}
+			Node[] table = this.table;
+			if (this.count >= this.threshold) {
+				table = this.rehash();
+			}
+			int index = hash & table.length - 1;
+			table[index] = new Node(key, hash, value, table[index]);
+			this.count = this.count + 1;
+			return null;
+		}
+
+		synchronized Object remove(Object key, int hash) {
+			Node[] table = this.table;
+			int index = hash & table.length - 1;
+			Node first = table[index];
+			Node node = first;
+			while (node != null
+					&& (node.hash != hash || node.key != key
+							&& !node.key.equals(key))) {
+				node = node.next;
+			}
+			if (node == null) {
+				return null;
+			}
+			Node newFirst = node.next;
+			for (Node preceding = first; preceding != node; preceding = preceding.next) {
+				newFirst = new Node(preceding.key, preceding.hash,
+						preceding.value, newFirst);
+			}
+			table[index] = newFirst;
+			this.count = this.count - 1;
+			return node.value;
+		}
+
+		/**
+		 * Copies the chains into a table twice as large, which is published
+		 * once it is complete.
+		 */
+		private Node[] rehash() {
+			Node[] oldTable = this.table;
+			int capacity = oldTable.length << 1;
+			Node[] table = new Node[capacity];
+			for (Node oldNode : oldTable) {
+				for (Node node = oldNode; node != null; node = node.next) {
+					int index = node.hash & capacity - 1;
+					table[index] = new Node(node.key, node.hash, node.value,
+							table[index]);
+				}
+			}
+			this.threshold = capacity == ConcurrentLookupTable.MAXIMUM_CAPACITY ? Integer.MAX_VALUE
+					: (int) (capacity * ConcurrentLookupTable.LOAD_FACTOR);
+			this.table = table;
+			return table;
+		}
+
+		synchronized void clear() {
+			if (this.count != 0) {
+				this.table = new Node[this.table.length];
+				this.count = 0;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,328 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.collections.map;
+
+import java.util.Arrays;
+
+/**
+ * {@code IntLookupTable} is an {@link ILookupTable} with {@code int} keys
+ * which stores its keys in an {@code int} array, so neither lookups nor
+ * stored entries box the keys. Like {@link LookupTable} it uses linear
+ * probing over a power-of-two number of slots and backward-shift deletion.
+ * The key {@code 0} marks empty slots and is therefore stored apart from the
+ * table.
+ * <p>
+ * The methods taking {@link Integer} keys unbox them; {@code null} keys are
+ * not permitted. {@code null} values are permitted.
+ * 
+ * @author era
+ */
+public class IntLookupTable<V> implements ILookupTable<Integer, V> {
+
+	private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+	private static final float DEFAULT_LOAD_FACTOR = 0.75F;
+
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+	private final float loadFactor;
+
+	private int threshold;
+
+	private int[] keys;
+
+	private Object[] values;
+
+	private int size;
+
+	private boolean containsZeroKey;
+
+	private Object zeroKeyValue;
+
+	/**
+	 * Constructs a new {@code IntLookupTable} instance.
+	 * 
+	 * @param initialCapacity
+	 *            the initial number of slots, rounded up to a power of two
+	 * @param loadFactor
+	 *            the ratio of entries to slots above which the table grows,
+	 *            between {@code 0} and {@code 1} (exclusive)
+	 */
+	public IntLookupTable(int initialCapacity, float loadFactor) {
+		super();
+		if (initialCapacity < 0) {
+			throw new IllegalArgumentException(Integer
+					.toString(initialCapacity));
+		}
+		if (!(loadFactor > 0 && loadFactor < 1)) {
+			throw new IllegalArgumentException(Float.toString(loadFactor));
+		}
+		int capacity = 2;
+		while (capacity < initialCapacity
+				&& capacity < IntLookupTable.MAXIMUM_CAPACITY) {
+			capacity <<= 1;
+		}
+		this.loadFactor = loadFactor;
+		this.allocate(capacity);
+	}
+
+	/**
+	 * Constructs a new {@code IntLookupTable} instance.
+	 */
+	public IntLookupTable() {
+		this(IntLookupTable.DEFAULT_INITIAL_CAPACITY,
+				IntLookupTable.DEFAULT_LOAD_FACTOR);
+	}
+
+	private void allocate(int capacity) {
+		this.keys = new int[capacity];
+		this.values = new Object[capacity];
+		this.threshold = capacity == IntLookupTable.MAXIMUM_CAPACITY ? capacity - 1
+				: (int) (capacity * this.loadFactor);
+	}
+
+	private static int homeOf(int key, int mask) {
+		int hashCode = key * 0x9e3779b9;
+		return (hashCode ^ hashCode >>> 16) & mask;
+	}
+
+	/**
+	 * Returns the slot of the given non-zero {@code key}, or the empty slot
+	 * ending its probe sequence as {@code -(slot + 1)}.
+	 */
+	private int slotOf(int key) {
+		int[] keys = this.keys;
+		int mask = keys.length - 1;
+		int slot = IntLookupTable.homeOf(key, mask);
+		int candidate;
+		while ((candidate = keys[slot]) != 0) {
+			if (candidate == key) {
+				return slot;
+			}
+			slot = slot + 1 & mask;
+		}
+		return -(slot + 1);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.collections.map.ILookupTable#isEmpty()
+	 */
+	public boolean isEmpty() {
+		return this.size() == 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.collections.map.ILookupTable#size()
+	 */
+	public int size() {
+		return this.containsZeroKey ? this.size + 1 : this.size;
+	}
+
+	/**
+	 * Returns {@code true} if the receiver contains a mapping for the given
+	 * {@code key}.
+	 * 
+	 * @param key
+	 *            key whose presence in the receiver is to be tested
+	 * @return {@code true} if the receiver contains a mapping for the given
+	 *         {@code key}
+	 */
+	public boolean containsKey(int key) {
+		return key == 0 ? this.containsZeroKey : this.slotOf(key) >= 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.collections.map.ILookupTable#containsKey(java.lang.Object)
+	 */
+	public boolean containsKey(Object key) {
+		return this.containsKey(((Integer) key).intValue());
+	}
+
+	/**
+	 * Returns the value to which the given {@code key} is mapped, or
+	 * {@code null} if the receiver contains no mapping for the {@code key}.
+	 * 
+	 * @param key
+	 *            the {@code key} whose associated value is to be returned
+	 * @return the value to which the specified key is mapped, or {@code null}
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(int key) {
+		if (key == 0) {
+			return (V) this.zeroKeyValue;
+		}
+		int slot = this.slotOf(key);
+		return slot < 0 ? null : (V) this.values[slot];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.collections.map.ILookupTable#get(java.lang.Object)
+	 */
+	public V get(Object key) {
+		return this.get(((Integer) key).intValue());
+	}
+
+	/**
+	 * Associates the given {@code value} with the given {@code key}.
+	 * 
+	 * @param key
+	 *            {@code key} with which the given {@code value} is to be
+	 *            associated
+	 * @param value
+	 *            {@code value} to be associated with the given {@code key}
+	 * @return the previous {@code value} associated with {@code key}, or
+	 *         {@code null}
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(int key, V value) {
+		Object oldValue;
+		if (key == 0) {
+			oldValue = this.zeroKeyValue;
+			this.zeroKeyValue = value;
+			this.containsZeroKey = true;
+			return (V) oldValue;
+		}
+		int slot = this.slotOf(key);
+		if (slot >= 0) {
+			oldValue = this.values[slot];
+			this.values[slot] = value;
+			return (V) oldValue;
+		}
+		if (this.size >= this.threshold) {
+			if (this.keys.length == IntLookupTable.MAXIMUM_CAPACITY) {
+				throw new IllegalStateException();
+			}
+			this.rehash();
+			slot = this.slotOf(key);
+		}
+		slot = -(slot + 1);
+		this.keys[slot] = key;
+		this.values[slot] = value;
+		this.size++;
+		return null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.collections.map.ILookupTable#put(java.lang.Object,
+	 * java.lang.Object)
+	 */
+	public V put(Integer key, V value) {
+		return this.put(key.intValue(), value);
+	}
+
+	/**
+	 * Removes the mapping for the given {@code key} if it is present.
+	 * 
+	 * @param key
+	 *            {@code key} whose mapping is to be removed from the receiver
+	 * @return the previous value associated with {@code key}, or {@code null}
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(int key) {
+		Object oldValue;
+		if (key == 0) {
+			oldValue = this.zeroKeyValue;
+			this.zeroKeyValue = null;
+			this.containsZeroKey = false;
+			return (V) oldValue;
+		}
+		int slot = this.slotOf(key);
+		if (slot < 0) {
+			return null;
+		}
+		oldValue = this.values[slot];
+		this.removeAt(slot);
+		return (V) oldValue;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.collections.map.ILookupTable#remove(java.lang.Object)
+	 */
+	public V remove(Object key) {
+		return this.remove(((Integer) key).intValue());
+	}
+
+	/**
+	 * Doubles the number of slots and reinserts the entries.
+	 */
+	private void rehash() {
+		int[] oldKeys = this.keys;
+		Object[] oldValues = this.values;
+		this.allocate(oldKeys.length << 1);
+		int[] keys = this.keys;
+		int mask = keys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			int key = oldKeys[i];
+			if (key != 0) {
+				int slot = IntLookupTable.homeOf(key, mask);
+				while (keys[slot] != 0) {
+					slot = slot + 1 & mask;
+				}
+				keys[slot] = key;
+				this.values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	/**
+	 * Removes the entry in the given {@code slot} and shifts the following
+	 * entries of the cluster back into the hole where their probe sequence
+	 * allows.
+	 */
+	private void removeAt(int slot) {
+		int[] keys = this.keys;
+		Object[] values = this.values;
+		int mask = keys.length - 1;
+		int hole = slot;
+		int next = slot;
+		int key;
+		while ((key = keys[next = next + 1 & mask]) != 0) {
+			if ((next - IntLookupTable.homeOf(key, mask) & mask) >= (next
+					- hole & mask)) {
+				keys[hole] = key;
+				values[hole] = values[next];
+				hole = next;
+			}
+		}
+		keys[hole] = 0;
+		values[hole] = null;
+		this.size--;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.collections.map.ILookupTable#clear()
+	 */
+	public void clear() {
+		Arrays.fill(this.keys, 0);
+		Arrays.fill(this.values, null);
+		this.size = 0;
+		this.containsZeroKey = false;
+		this.zeroKeyValue = null;
+	}
+
+}
@@ -16,36 +16,64 @@ package org.jmetis.collections.map;
 import java.util.Arrays;
 
 /**
- * {@code LookupTable}
+ * {@code LookupTable} is an {@link ILookupTable} which keeps its keys and
+ * values interleaved in a single array, each value next to its key, and
+ * resolves collisions by linear probing. The number of slots is a power of
+ * two and grows by doubling once the load factor is exceeded. A removed entry
+ * is closed up by shifting the following entries of its probe sequence back,
+ * so the table never accumulates tombstones and lookups stay as short as
+ * after a fresh insert.
+ * <p>
+ * {@code null} keys and values are permitted.
  * 
  * @author era
  */
 public class LookupTable<K, V> implements ILookupTable<K, V> {
 
-	private static final int DEFAULT_INITIAL_CAPACITY = 10;
+	private static final int DEFAULT_INITIAL_CAPACITY = 16;
 
-	private static final float DEFAULT_THRESHOLD = 0.5F;
+	private static final float DEFAULT_LOAD_FACTOR = 0.75F;
+
+	private static final int MAXIMUM_CAPACITY = 1 << 29;
+
+	private static final Object NULL_KEY = new Object();
 
 	private final float loadFactor;
 
 	private int threshold;
 
-	private Object[] keys;
-
-	private Object[] values;
+	/**
+	 * The keys at the even and their values at the following odd indexes.
+	 */
+	private Object[] table;
 
 	private int size;
 
 	/**
 	 * Constructs a new {@code LookupTable} instance.
+	 * 
+	 * @param initialCapacity
+	 *            the initial number of slots, rounded up to a power of two
+	 * @param loadFactor
+	 *            the ratio of entries to slots above which the table grows,
+	 *            between {@code 0} and {@code 1} (exclusive)
 	 */
 	public LookupTable(int initialCapacity, float loadFactor) {
 		super();
-		final int capacity = initialCapacity;
+		if (initialCapacity < 0) {
+			throw new IllegalArgumentException(Integer
+					.toString(initialCapacity));
+		}
+		if (!(loadFactor > 0 && loadFactor < 1)) {
+			throw new IllegalArgumentException(Float.toString(loadFactor));
+		}
+		int capacity = 2;
+		while (capacity < initialCapacity
+				&& capacity < LookupTable.MAXIMUM_CAPACITY) {
+			capacity <<= 1;
+		}
 		this.loadFactor = loadFactor;
-		this.threshold = (int) (capacity * loadFactor);
-		this.keys = new Object[capacity];
-		this.values = new Object[capacity];
+		this.allocate(capacity);
 	}
 
 	/**
@@ -53,7 +81,13 @@ public class LookupTable<K, V> implements ILookupTable<K, V> {
 	 */
 	public LookupTable() {
 		this(LookupTable.DEFAULT_INITIAL_CAPACITY,
-				LookupTable.DEFAULT_THRESHOLD);
+				LookupTable.DEFAULT_LOAD_FACTOR);
+	}
+
+	private void allocate(int capacity) {
+		this.table = new Object[capacity << 1];
+		this.threshold = capacity == LookupTable.MAXIMUM_CAPACITY ? capacity - 1
+				: (int) (capacity * this.loadFactor);
 	}
 
 	/*
@@ -66,48 +100,36 @@ public class LookupTable<K, V> implements ILookupTable<K, V> {
 	}
 
 	/**
-	 * Method returning the index in <tt>ProbingHashTable.table</tt> of a key,
-	 * if present, or the index at which to insert it, if absent. Uses a version
-	 * of double hashing.
-	 * 
-	 * @param key
-	 *            the key to search for
-	 * @return the position where the search terminates
-	 */
-	protected int indexFor(Object key, int index, int length) {
-		int probe = 1;
-		while (this.keys[index] != null && !this.keys[index].equals(key)) {
-			index += probe;
-			if (index == length) {
-				index = 1;
-			}
-			probe += 2;
-		}
-		return index;
-	}
-
-	/**
-	 * Applies a supplemental hash function to a given hashCode, which defends
-	 * against poor quality hash functions. This is critical because HashMap
-	 * uses power-of-two length hash tables, that otherwise encounter collisions
-	 * for hashCodes that do not differ in lower bits. Note: Null keys always
-	 * map to hash 0, thus index 0.
+	 * Applies a supplemental hash function to the hash code of the given
+	 * {@code key}, which spreads keys differing only in their upper bits over
+	 * the power-of-two sized table.
 	 */
 	protected int hashCodeOf(Object key) {
-		int hashCode = key.hashCode();
-		hashCode ^= hashCode >>> 20 ^ hashCode >>> 12;
-		return hashCode ^ hashCode >>> 7 ^ hashCode >>> 4;
+		int hashCode = key.hashCode() * 0x9e3779b9;
+		return hashCode ^ hashCode >>> 16;
 	}
 
 	/**
-	 * Returns index for hash code h.
+	 * Returns the index of the given (masked) {@code key} in the table, or the
+	 * index of the empty slot ending its probe sequence as
+	 * {@code -(index + 1)}.
 	 */
-	protected int indexFor(Object key) {
-		if (key == null) {
-			return 0;
+	private int indexFor(Object key) {
+		Object[] table = this.table;
+		int mask = table.length - 2;
+		int index = this.hashCodeOf(key) << 1 & mask;
+		Object candidate;
+		while ((candidate = table[index]) != null) {
+			if (candidate == key || candidate.equals(key)) {
+				return index;
+			}
+			index = index + 2 & mask;
 		}
-		return this.indexFor(key, this.hashCodeOf(key) & this.keys.length - 1,
-				this.keys.length);
+		return -(index + 1);
+	}
+
+	private static Object maskNull(Object key) {
+		return key == null ? LookupTable.NULL_KEY : key;
 	}
 
 	/*
@@ -116,7 +138,7 @@ public class LookupTable<K, V> implements ILookupTable<K, V> {
 	 * @see org.jmetis.collections.ILookupTable#containsKey(java.lang.Object)
 	 */
 	public boolean containsKey(Object key) {
-		return this.values[this.indexFor(key)] != null;
+		return this.indexFor(LookupTable.maskNull(key)) >= 0;
 	}
 
 	/*
@@ -124,29 +146,37 @@ public class LookupTable<K, V> implements ILookupTable<K, V> {
 	 * 
 	 * @see org.jmetis.collections.ILookupTable#get(java.lang.Object)
 	 */
+	@SuppressWarnings("unchecked")
 	public V get(Object key) {
-		return (V) this.values[this.indexFor(key)];
+		int index = this.indexFor(LookupTable.maskNull(key));
+		return index < 0 ? null : (V) this.table[index + 1];
 	}
 
+	/**
+	 * Returns the value to store for a key which is already mapped to the
+	 * given {@code oldValue}. Subclasses may combine the values.
+	 */
 	protected Object addValue(Object oldValue, Object newValue) {
 		return newValue;
 	}
 
-	/*
-	 * rehashing method for when the table occupancy grows too large
+	/**
+	 * Doubles the number of slots and reinserts the entries.
 	 */
 	private void rehash() {
-		final int capacity = this.keys.length * 2;
-		final Object[] oldKeys = this.keys;
-		final Object[] oldValues = this.values;
-		this.keys = new Object[capacity];
-		this.values = new Object[capacity];
-		this.threshold = (int) (capacity * this.loadFactor);
-		this.size = 0;
-		for (int i = 0, n = this.keys.length; i < n; i++) {
-			final Object value = oldValues[i];
-			if (value != null) {
-				this.put((K) oldKeys[i], (V) value);
+		Object[] oldTable = this.table;
+		this.allocate(oldTable.length);
+		Object[] table = this.table;
+		int mask = table.length - 2;
+		for (int i = 0; i < oldTable.length; i += 2) {
+			Object key = oldTable[i];
+			if (key != null) {
+				int index = this.hashCodeOf(key) << 1 & mask;
+				while (table[index] != null) {
+					index = index + 2 & mask;
+				}
+				table[index] = key;
+				table[index + 1] = oldTable[i + 1];
 			}
 		}
 	}
@@ -157,19 +187,27 @@ public class LookupTable<K, V> implements ILookupTable<K, V> {
 	 * @see org.jmetis.collections.ILookupTable#put(java.lang.Object,
 	 * java.lang.Object)
 	 */
+	@SuppressWarnings("unchecked")
 	public V put(K key, V value) {
-		final int index = this.indexFor(key);
-		final Object oldValue = this.values[index];
-		if (oldValue == null) {
-			this.values[index] = value;
-			this.size++;
-		} else {
-			this.values[index] = this.addValue(oldValue, value);
+		Object maskedKey = LookupTable.maskNull(key);
+		int index = this.indexFor(maskedKey);
+		if (index >= 0) {
+			Object oldValue = this.table[index + 1];
+			this.table[index + 1] = this.addValue(oldValue, value);
+			return (V) oldValue;
 		}
 		if (this.size >= this.threshold) {
+			if (this.table.length >> 1 == LookupTable.MAXIMUM_CAPACITY) {
+				throw new IllegalStateException();
+			}
 			this.rehash();
+			index = this.indexFor(maskedKey);
 		}
-		return (V) oldValue;
+		index = -(index + 1);
+		this.table[index] = maskedKey;
+		this.table[index + 1] = value;
+		this.size++;
+		return null;
 	}
 
 	/*
@@ -177,12 +215,39 @@ public class LookupTable<K, V> implements ILookupTable<K, V> {
 	 * 
 	 * @see org.jmetis.collections.ILookupTable#remove(java.lang.Object)
 	 */
+	@SuppressWarnings("unchecked")
 	public V remove(Object key) {
-		final Object value = this.values[this.indexFor(key)];
-		if (value != null) {
-			this.size--;
+		int index = this.indexFor(LookupTable.maskNull(key));
+		if (index < 0) {
+			return null;
 		}
-		return (V) value;
+		Object oldValue = this.table[index + 1];
+		this.removeAt(index);
+		return (V) oldValue;
+	}
+
+	/**
+	 * Removes the entry at the given {@code index} and shifts the following
+	 * entries of the cluster back into the hole where their probe sequence
+	 * allows.
+	 */
+	private void removeAt(int index) {
+		Object[] table = this.table;
+		int mask = table.length - 2;
+		int hole = index;
+		int next = index;
+		Object key;
+		while ((key = table[next = next + 2 & mask]) != null) {
+			int home = this.hashCodeOf(key) << 1 & mask;
+			if ((next - home & mask) >= (next - hole & mask)) {
+				table[hole] = key;
+				table[hole + 1] = table[next + 1];
+				hole = next;
+			}
+		}
+		table[hole] = null;
+		table[hole + 1] = null;
+		this.size--;
 	}
 
 	/*
@@ -200,22 +265,8 @@ public class LookupTable<K, V> implements ILookupTable<K, V> {
 	 * @see org.jmetis.collections.ILookupTable#clear()
 	 */
 	public void clear() {
-		Arrays.fill(this.keys, null);
-		Arrays.fill(this.values, null);
+		Arrays.fill(this.table, null);
 		this.size = 0;
 	}
 
-	public static void main(String[] a) {
-		final ILookupTable<String, String> l = new LookupTable<String, String>();
-		System.out.println(l.put("1", "a"));
-		System.out.println(l.put("2", "b"));
-		System.out.println(l.put("3", "c"));
-		System.out.println(l.get("1"));
-		System.out.println(l.get("2"));
-		System.out.println(l.get("3"));
-		System.out.println(l.remove("1"));
-		System.out.println(l.put("2", "b"));
-		System.out.println(l.put("3", "c"));
-	}
-
 }
@@ -0,0 +1,44 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.adapter;
+
+/**
+ * {@code IReplyListener} is notified once the reply to an asynchronous request
+ * sent by a {@link RequestorAdapter} has been received or the request has
+ * failed.
+ * 
+ * @author era
+ */
+public interface IReplyListener<I> {
+
+	/**
+	 * Notifies the receiver that the reply to a request has been received.
+	 * 
+	 * @param payload
+	 *            the payload of the reply
+	 */
+	void replyReceived(I payload);
+
+	/**
+	 * Notifies the receiver that no reply will be received for a request,
+	 * because it timed out, was cancelled or could not be sent.
+	 * 
+	 * @param cause
+	 *            the {@link Throwable} describing the failure, e.g. a
+	 *            {@link java.util.concurrent.TimeoutException} or a
+	 *            {@link java.util.concurrent.CancellationException}
+	 */
+	void replyFailed(Throwable cause);
+
+}
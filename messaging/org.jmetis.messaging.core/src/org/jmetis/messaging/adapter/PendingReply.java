@@ -0,0 +1,126 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.adapter;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * {@code PendingReply} is the {@link java.util.concurrent.Future} of a request
+ * sent by a {@link RequestorAdapter}. It is never run; it is completed by the
+ * adapter when the correlated reply arrives or the request times out.
+ * 
+ * @author era
+ */
+class PendingReply<I> extends FutureTask<I> {
+
+	private static final Callable<Object> NO_TASK = new Callable<Object>() {
+		public Object call() throws Exception {
+			throw new IllegalStateException();
+		}
+	};
+
+	private final RequestorAdapter<I, ?> requestorAdapter;
+
+	private final Object correlationId;
+
+	private final IReplyListener<I> replyListener;
+
+	private volatile ScheduledFuture<?> timeoutTask;
+
+	/**
+	 * Constructs a new {@code PendingReply} instance.
+	 * 
+	 */
+	@SuppressWarnings("unchecked")
+	PendingReply(RequestorAdapter<I, ?> requestorAdapter, Object correlationId,
+			IReplyListener<I> replyListener) {
+		super((Callable<I>) PendingReply.NO_TASK);
+		this.requestorAdapter = requestorAdapter;
+		this.correlationId = correlationId;
+		this.replyListener = replyListener;
+	}
+
+	Object getCorrelationId() {
+		return this.correlationId;
+	}
+
+	ScheduledFuture<?> getTimeoutTask() {
+		return this.timeoutTask;
+	}
+
+	/**
+	 * Sets the task which fails the receiver when the timeout elapses; it is
+	 * cancelled as soon as the receiver is completed.
+	 */
+	void setTimeoutTask(ScheduledFuture<?> timeoutTask) {
+		this.timeoutTask = timeoutTask;
+		if (this.isDone()) {
+			timeoutTask.cancel(false);
+		}
+	}
+
+	void replyReceived(I payload) {
+		this.set(payload);
+	}
+
+	void replyFailed(Throwable cause) {
+		this.setException(cause);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.FutureTask#run()
+	 */
+	@Override
+	public void run() {
+		// completed by the requestor adapter only
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.FutureTask#done()
+	 */
+	@Override
+	protected void done() {
+		ScheduledFuture<?> timeoutTask = this.timeoutTask;
+		if (timeoutTask != null) {
+			timeoutTask.cancel(false);
+		}
+		this.requestorAdapter.removePendingReply(this);
+		if (this.replyListener == null) {
+			return;
+		}
+		I payload;
+		try {
+			payload = this.get();
+		} catch (ExecutionException ex) {
+			this.replyListener.replyFailed(ex.getCause());
+			return;
+		} catch (CancellationException ex) {
+			this.replyListener.replyFailed(ex);
+			return;
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+		this.replyListener.replyReceived(payload);
+	}
+
+}
@@ -13,49 +13,249 @@
  */
 package org.jmetis.messaging.adapter;
 
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jmetis.kernel.assertion.Assertions;
 import org.jmetis.messaging.core.IInboundChannel;
 import org.jmetis.messaging.core.IMessage;
+import org.jmetis.messaging.core.IMessageListener;
 import org.jmetis.messaging.core.IOutboundChannel;
 import org.jmetis.messaging.core.Message;
+import org.jmetis.messaging.core.MessageException;
 
 /**
- * {@code ConsumerAdapter}
+ * {@code RequestorAdapter} sends request messages and correlates the replies.
+ * <p>
+ * Every request carries a correlation ID unique to the adapter and the
+ * identifier of the reply channel, a single temporary
+ * {@link IInboundChannel} shared by all requests of the adapter. Replies
+ * must be sent to that channel with the correlation ID of the request. The
+ * adapter listens on the reply channel and completes the {@link Future} of
+ * the correlated request, so any number of requests may be outstanding at
+ * the same time. Requests which are not answered within the timeout fail with
+ * a {@link TimeoutException}.
  * 
  * @author era
  */
 public class RequestorAdapter<I, O> {
 
+	private static ScheduledExecutorService timeoutScheduler;
+
 	private final IOutboundChannel<O> outboundChannel;
 
-	private IInboundChannel<I> inboundChannel;
+	private final IInboundChannel<I> inboundChannel;
+
+	private final long timeout;
+
+	private final AtomicLong correlationSequence;
 
-	private long timeout;
+	private final ConcurrentMap<Object, PendingReply<I>> pendingReplies;
+
+	private final IMessageListener<I> replyListener;
 
 	/**
-	 * Constructs a new {@code ConsumerAdapter} instance.
+	 * Constructs a new {@code RequestorAdapter} instance which receives the
+	 * replies on a temporary channel created by the channel manager of the
+	 * given {@code outboundChannel}.
 	 * 
 	 */
+	@SuppressWarnings("unchecked")
 	public RequestorAdapter(IOutboundChannel<O> outboundChannel, long timeout) {
+		this(outboundChannel, (IInboundChannel<I>) outboundChannel
+				.getChannelManager().createTemporaryInboundChannel(
+						outboundChannel.getChannelIdentifier().getScheme()),
+				timeout);
+	}
+
+	public RequestorAdapter(IOutboundChannel<O> outboundChannel) {
+		this(outboundChannel, IInboundChannel.INFINITE_TIMEOUT);
+	}
+
+	/**
+	 * Constructs a new {@code RequestorAdapter} instance which receives the
+	 * replies on the given {@code inboundChannel}. The channel must not be
+	 * used by anyone else.
+	 * 
+	 */
+	public RequestorAdapter(IOutboundChannel<O> outboundChannel,
+			IInboundChannel<I> inboundChannel, long timeout) {
 		super();
+		Assertions.mustNotBeNull("outboundChannel", outboundChannel); //$NON-NLS-1$
+		Assertions.mustNotBeNull("inboundChannel", inboundChannel); //$NON-NLS-1$
 		this.outboundChannel = outboundChannel;
+		this.inboundChannel = inboundChannel;
 		this.timeout = timeout;
+		this.correlationSequence = new AtomicLong();
+		this.pendingReplies = new ConcurrentHashMap<Object, PendingReply<I>>();
+		this.replyListener = new IMessageListener<I>() {
+			public void handleMessage(IMessage<I> message) {
+				RequestorAdapter.this.replyReceived(message);
+			}
+		};
+		this.inboundChannel.addMessageListener(this.replyListener);
+	}
 
+	/**
+	 * Returns the shared scheduler which fails requests whose timeout has
+	 * elapsed.
+	 */
+	protected static synchronized ScheduledExecutorService getTimeoutScheduler() {
+		if (RequestorAdapter.timeoutScheduler == null) {
+			RequestorAdapter.timeoutScheduler = Executors
+					.newSingleThreadScheduledExecutor(new ThreadFactory() {
+						public Thread newThread(Runnable runnable) {
+							Thread thread = new Thread(runnable,
+									"Request Timeout Scheduler"); //$NON-NLS-1$
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+		}
+		return RequestorAdapter.timeoutScheduler;
 	}
 
-	public RequestorAdapter(IOutboundChannel<O> outboundChannel) {
-		this(outboundChannel, IInboundChannel.INFINITE_TIMEOUT);
+	/**
+	 * Returns the identifier of the channel on which the receiver expects the
+	 * replies.
+	 * 
+	 * @return the identifier of the reply channel
+	 */
+	public URI getReplyChannel() {
+		return this.inboundChannel.getChannelIdentifier();
 	}
 
+	/**
+	 * Returns the number of requests waiting for a reply.
+	 * 
+	 * @return the number of requests waiting for a reply
+	 */
+	public int getPendingRequestCount() {
+		return this.pendingReplies.size();
+	}
+
+	/**
+	 * Sends the given {@code request} and waits for the reply.
+	 * 
+	 * @param request
+	 *            the payload of the request
+	 * @return the payload of the reply, or {@code null} if no reply has been
+	 *         received within the timeout
+	 */
 	public I sendAndReceive(O request) {
+		Future<I> reply = this.sendAndReceiveAsync(request);
+		try {
+			return reply.get();
+		} catch (ExecutionException ex) {
+			if (ex.getCause() instanceof TimeoutException) {
+				return null;
+			}
+			throw new MessageException(ex.getMessage(), ex.getCause());
+		} catch (InterruptedException ex) {
+			reply.cancel(false);
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+
+	/**
+	 * Sends the given {@code request} without waiting for the reply.
+	 * 
+	 * @param request
+	 *            the payload of the request
+	 * @return the {@link Future} of the reply payload; it fails with a
+	 *         {@link TimeoutException} if no reply is received within the
+	 *         timeout
+	 */
+	public Future<I> sendAndReceiveAsync(O request) {
+		return this.sendAndReceiveAsync(request, null);
+	}
+
+	/**
+	 * Sends the given {@code request} without waiting for the reply and
+	 * notifies the given {@code replyListener} once the reply has been
+	 * received or the request has failed.
+	 * 
+	 * @param request
+	 *            the payload of the request
+	 * @param replyListener
+	 *            the {@link IReplyListener} to notify, or {@code null}
+	 * @return the {@link Future} of the reply payload
+	 */
+	public Future<I> sendAndReceiveAsync(O request,
+			IReplyListener<I> replyListener) {
+		final Object correlationId = Long.valueOf(this.correlationSequence
+				.incrementAndGet());
+		PendingReply<I> pendingReply = new PendingReply<I>(this, correlationId,
+				replyListener);
+		this.pendingReplies.put(correlationId, pendingReply);
+		if (this.timeout != IInboundChannel.INFINITE_TIMEOUT) {
+			pendingReply.setTimeoutTask(RequestorAdapter.getTimeoutScheduler()
+					.schedule(new Runnable() {
+						public void run() {
+							RequestorAdapter.this.requestTimedOut(correlationId);
+						}
+					}, this.timeout, TimeUnit.MILLISECONDS));
+		}
 		IMessage<O> requestMessage = new Message<O>(request);
-		this.outboundChannel.sendMessage(requestMessage);
-		I payload = null;
-		IMessage<I> replyMessage = this.inboundChannel
-				.receiveMessage(this.timeout);
-		if (replyMessage != null) {
-			payload = replyMessage.getPayload();
+		requestMessage.setCorrelationId(correlationId);
+		requestMessage.setReplyChannel(this.getReplyChannel());
+		try {
+			this.outboundChannel.sendMessage(requestMessage);
+		} catch (RuntimeException ex) {
+			pendingReply.replyFailed(ex);
+			throw ex;
+		}
+		return pendingReply;
+	}
+
+	/**
+	 * Completes the request correlated with the given {@code message}. Replies
+	 * without a pending request, e.g. after a timeout, are ignored.
+	 */
+	protected void replyReceived(IMessage<I> message) {
+		Object correlationId = message.getCorrelationId();
+		if (correlationId != null) {
+			PendingReply<I> pendingReply = this.pendingReplies
+					.remove(correlationId);
+			if (pendingReply != null) {
+				pendingReply.replyReceived(message.getPayload());
+			}
+		}
+	}
+
+	private void requestTimedOut(Object correlationId) {
+		PendingReply<I> pendingReply = this.pendingReplies
+				.remove(correlationId);
+		if (pendingReply != null) {
+			pendingReply.replyFailed(new TimeoutException(
+					"no reply to request " + correlationId)); //$NON-NLS-1$
+		}
+	}
+
+	void removePendingReply(PendingReply<I> pendingReply) {
+		this.pendingReplies.remove(pendingReply.getCorrelationId());
+	}
+
+	/**
+	 * Stops listening for replies and cancels all pending requests.
+	 */
+	public void close() {
+		this.inboundChannel.removeMessageListener(this.replyListener);
+		for (PendingReply<I> pendingReply : new ArrayList<PendingReply<I>>(
+				this.pendingReplies.values())) {
+			pendingReply.cancel(false);
 		}
-		return payload;
 	}
 
 }
@@ -0,0 +1,133 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.channel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@code ChannelDispatcher} delivers the pending elements of an
+ * {@link InboundChannel} on the channel's dispatch executor. A dispatcher
+ * does not own a thread: it is {@link #schedule() scheduled} whenever an
+ * element arrives, drains at most one batch per run and reschedules itself if
+ * more elements are pending. At most one run of a dispatcher is active at any
+ * time, so elements are delivered in the order they were queued while the
+ * number of threads is independent of the number of channels.
+ * 
+ * @author era
+ */
+public abstract class ChannelDispatcher<E> implements Runnable {
+
+	private final InboundChannel<?> inboundChannel;
+
+	private final AtomicBoolean scheduled;
+
+	private final List<E> batch;
+
+	private volatile boolean stopped;
+
+	/**
+	 * Constructs a new {@code ChannelDispatcher} instance.
+	 * 
+	 * @param inboundChannel
+	 *            the {@link InboundChannel} whose dispatch executor runs the
+	 *            new dispatcher
+	 */
+	protected ChannelDispatcher(InboundChannel<?> inboundChannel) {
+		super();
+		this.inboundChannel = inboundChannel;
+		this.scheduled = new AtomicBoolean();
+		this.batch = new ArrayList<E>();
+	}
+
+	/**
+	 * Moves up to {@code maxElements} pending elements into the given
+	 * {@code batch} without waiting.
+	 * 
+	 * @return the number of elements moved
+	 */
+	protected abstract int drainTo(Collection<? super E> batch, int maxElements);
+
+	/**
+	 * Indicates whether elements are pending.
+	 * 
+	 * @return {@code true} if elements are pending
+	 */
+	protected abstract boolean hasPendingElements();
+
+	/**
+	 * Delivers the elements of the given {@code batch} to the listeners of the
+	 * channel. The list is reused for the next batch and must not be retained.
+	 */
+	protected abstract void dispatch(List<E> batch);
+
+	/**
+	 * Submits the receiver to the dispatch executor unless it is already
+	 * scheduled or stopped. Must be called after an element has been queued.
+	 */
+	public void schedule() {
+		if (!this.stopped && this.scheduled.compareAndSet(false, true)) {
+			try {
+				this.inboundChannel.startDispatcher(this);
+			} catch (RejectedExecutionException ex) {
+				// the executor is shut down, elements remain queued
+				this.scheduled.set(false);
+			}
+		}
+	}
+
+	/**
+	 * Stops the receiver. A batch which is currently delivered is completed,
+	 * pending elements remain queued.
+	 */
+	public void stop() {
+		this.stopped = true;
+	}
+
+	/**
+	 * Indicates whether the receiver has been stopped.
+	 * 
+	 * @return {@code true} if the receiver has been stopped
+	 */
+	public boolean isStopped() {
+		return this.stopped;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Runnable#run()
+	 */
+	public void run() {
+		try {
+			if (!this.stopped) {
+				if (this.drainTo(this.batch, this.inboundChannel
+						.getDispatchBatchSize()) > 0) {
+					this.dispatch(this.batch);
+				}
+			}
+		} finally {
+			this.batch.clear();
+			this.scheduled.set(false);
+			// also after a failed batch, which leaves the others queued
+			if (this.hasPendingElements()) {
+				this.schedule();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.channel;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@code DispatcherThreadFactory} creates the daemon threads of the default
+ * dispatch executor of {@link InboundChannel}.
+ * 
+ * @author era
+ */
+class DispatcherThreadFactory implements ThreadFactory {
+
+	private final AtomicInteger threadNumber;
+
+	/**
+	 * Constructs a new {@code DispatcherThreadFactory} instance.
+	 * 
+	 */
+	public DispatcherThreadFactory() {
+		super();
+		this.threadNumber = new AtomicInteger();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+	 */
+	public Thread newThread(Runnable runnable) {
+		Thread thread = new Thread(runnable, "Async Message Dispatcher [" //$NON-NLS-1$
+				+ this.threadNumber.incrementAndGet() + "]"); //$NON-NLS-1$
+		thread.setDaemon(true);
+		return thread;
+	}
+
+}
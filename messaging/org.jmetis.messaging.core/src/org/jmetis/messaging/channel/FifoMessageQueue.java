@@ -0,0 +1,105 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.channel;
+
+import java.util.Collection;
+import java.util.LinkedList;
+
+import org.jmetis.messaging.core.IMessage;
+
+/**
+ * {@code FifoMessageQueue} is a {@link MessageQueue} which delivers messages
+ * in the order they arrived.
+ * 
+ * @author era
+ */
+public class FifoMessageQueue<T> extends MessageQueue<T> {
+
+	private final LinkedList<IMessage<T>> messages;
+
+	/**
+	 * Constructs a new unbounded {@code FifoMessageQueue} instance.
+	 */
+	public FifoMessageQueue() {
+		this(MessageQueue.UNBOUNDED, OverflowPolicy.BLOCK);
+	}
+
+	/**
+	 * Constructs a new {@code FifoMessageQueue} instance.
+	 * 
+	 * @param capacity
+	 *            the maximum number of queued messages
+	 * @param overflowPolicy
+	 *            the {@link OverflowPolicy} applied while the queue is full
+	 */
+	public FifoMessageQueue(int capacity, OverflowPolicy overflowPolicy) {
+		super(capacity, overflowPolicy);
+		this.messages = new LinkedList<IMessage<T>>();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.channel.MessageQueue#addMessage(org.jmetis.messaging
+	 * .core.IMessage)
+	 */
+	@Override
+	protected void addMessage(IMessage<T> message) {
+		this.messages.addLast(message);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.messaging.channel.MessageQueue#removeNextMessage()
+	 */
+	@Override
+	protected IMessage<T> removeNextMessage() {
+		return this.messages.removeFirst();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.messaging.channel.MessageQueue#removeOldestMessage()
+	 */
+	@Override
+	protected IMessage<T> removeOldestMessage() {
+		return this.messages.removeFirst();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.messaging.channel.MessageQueue#nextMessage()
+	 */
+	@Override
+	protected IMessage<T> nextMessage() {
+		return this.messages.getFirst();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.channel.MessageQueue#collectMessages(java.util.Collection
+	 * )
+	 */
+	@Override
+	protected void collectMessages(Collection<IMessage<T>> messages) {
+		messages.addAll(this.messages);
+	}
+
+}
@@ -13,36 +13,248 @@
  */
 package org.jmetis.messaging.channel;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import org.jmetis.kernel.assertion.Assertions;
 import org.jmetis.messaging.core.IInboundChannel;
+import org.jmetis.messaging.core.IMessage;
+import org.jmetis.messaging.core.IMessageBatchListener;
 import org.jmetis.messaging.core.IMessageListener;
 import org.jmetis.messaging.core.IMessageSelector;
+import org.jmetis.messaging.core.MessageException;
 
 /**
  * {@code InboundChannel}
+ * <p>
+ * Asynchronous delivery runs on a dispatch executor which is shared by all
+ * channels unless a channel is given its own executor. By default this is a
+ * fixed pool of daemon threads with one thread per available processor.
  * 
  * @author era
  */
 public abstract class InboundChannel<T> extends MessageChannel<T> implements
 		IInboundChannel<T> {
 
+	public static final int DEFAULT_DISPATCH_BATCH_SIZE = 64;
+
 	private static ExecutorService EXECUTOR_SERVICE;
 
+	private volatile Executor dispatchExecutor;
+
+	private volatile int dispatchBatchSize;
+
 	/**
 	 * Constructs a new {@code InboundChannel} instance.
 	 */
 	protected InboundChannel() {
 		super();
+		this.dispatchBatchSize = InboundChannel.DEFAULT_DISPATCH_BATCH_SIZE;
 	}
 
-	// TODO ADD ABSTRACT DISPATCHER METHOD?
-	protected void startDispatcher(Runnable dispatcher) {
+	/**
+	 * Returns the dispatch executor shared by all channels without their own
+	 * executor.
+	 * 
+	 * @return the shared dispatch executor
+	 */
+	public static synchronized ExecutorService getDefaultDispatchExecutor() {
 		if (InboundChannel.EXECUTOR_SERVICE == null) {
-			InboundChannel.EXECUTOR_SERVICE = Executors.newCachedThreadPool();
+			InboundChannel.EXECUTOR_SERVICE = Executors.newFixedThreadPool(
+					Runtime.getRuntime().availableProcessors(),
+					new DispatcherThreadFactory());
+		}
+		return InboundChannel.EXECUTOR_SERVICE;
+	}
+
+	/**
+	 * Replaces the dispatch executor shared by all channels without their own
+	 * executor. The previous executor is not shut down.
+	 * 
+	 * @param executorService
+	 *            the new shared dispatch executor
+	 */
+	public static synchronized void setDefaultDispatchExecutor(
+			ExecutorService executorService) {
+		InboundChannel.EXECUTOR_SERVICE = Assertions.mustNotBeNull(
+				"executorService", executorService); //$NON-NLS-1$
+	}
+
+	/**
+	 * Shuts down the shared dispatch executor and waits until the batches in
+	 * progress have been delivered. Messages which have not been dispatched
+	 * yet remain queued in their channels.
+	 * 
+	 * @param timeout
+	 *            the maximum time to wait in milliseconds
+	 * @return {@code true} if the executor terminated, {@code false} if the
+	 *         timeout elapsed
+	 */
+	public static boolean shutdownDefaultDispatchExecutor(long timeout)
+			throws InterruptedException {
+		ExecutorService executorService;
+		synchronized (InboundChannel.class) {
+			executorService = InboundChannel.EXECUTOR_SERVICE;
+			InboundChannel.EXECUTOR_SERVICE = null;
+		}
+		if (executorService == null) {
+			return true;
+		}
+		executorService.shutdown();
+		return executorService.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Returns the executor which delivers messages to the listeners of the
+	 * receiver.
+	 * 
+	 * @return the executor which delivers messages to the listeners
+	 */
+	public Executor getDispatchExecutor() {
+		Executor dispatchExecutor = this.dispatchExecutor;
+		if (dispatchExecutor == null) {
+			return InboundChannel.getDefaultDispatchExecutor();
+		}
+		return dispatchExecutor;
+	}
+
+	/**
+	 * Sets the executor which delivers messages to the listeners of the
+	 * receiver, or {@code null} to use the shared dispatch executor.
+	 * 
+	 * @param dispatchExecutor
+	 *            the executor which delivers messages to the listeners
+	 */
+	public void setDispatchExecutor(Executor dispatchExecutor) {
+		this.dispatchExecutor = dispatchExecutor;
+	}
+
+	/**
+	 * Returns the maximum number of messages delivered by one run of a
+	 * {@link ChannelDispatcher} before it yields the dispatch thread to other
+	 * channels.
+	 * 
+	 * @return the maximum number of messages delivered per run
+	 */
+	public int getDispatchBatchSize() {
+		return this.dispatchBatchSize;
+	}
+
+	/**
+	 * Sets the maximum number of messages delivered by one run of a
+	 * {@link ChannelDispatcher}.
+	 * 
+	 * @param dispatchBatchSize
+	 *            the maximum number of messages delivered per run
+	 */
+	public void setDispatchBatchSize(int dispatchBatchSize) {
+		if (dispatchBatchSize < 1) {
+			throw new IllegalArgumentException(Integer
+					.toString(dispatchBatchSize));
+		}
+		this.dispatchBatchSize = dispatchBatchSize;
+	}
+
+	/**
+	 * Returns the number of messages the given {@code overflowPolicy} has been
+	 * applied to since the receiver was created. Channels with an unbounded
+	 * queue return zero.
+	 * 
+	 * @param overflowPolicy
+	 *            the {@link OverflowPolicy}
+	 * @return the number of messages the policy has been applied to
+	 */
+	public long getOverflowCount(OverflowPolicy overflowPolicy) {
+		return 0;
+	}
+
+	/**
+	 * Runs the given {@code dispatcher} on the dispatch executor.
+	 */
+	protected void startDispatcher(Runnable dispatcher) {
+		this.getDispatchExecutor().execute(dispatcher);
+	}
+
+	/**
+	 * Passes the given {@code messages} which are accepted by the
+	 * {@code messageSelector} to the {@code messageListeners}. An
+	 * {@link IMessageBatchListener} receives all accepted messages in one
+	 * call.
+	 */
+	protected void dispatchMessages(List<IMessage<T>> messages,
+			IMessageSelector<T> messageSelector,
+			Iterable<IMessageListener<T>> messageListeners) {
+		List<IMessage<T>> acceptedMessages = messages;
+		if (messageSelector != null) {
+			acceptedMessages = new ArrayList<IMessage<T>>(messages.size());
+			for (IMessage<T> message : messages) {
+				if (messageSelector.acceptMessage(message)) {
+					acceptedMessages.add(message);
+				}
+			}
+			if (acceptedMessages.isEmpty()) {
+				return;
+			}
+		}
+		acceptedMessages = Collections.unmodifiableList(acceptedMessages);
+		for (IMessageListener<T> messageListener : messageListeners) {
+			if (messageListener instanceof IMessageBatchListener) {
+				try {
+					((IMessageBatchListener<T>) messageListener)
+							.handleMessages(acceptedMessages);
+				} catch (RuntimeException ex) {
+					this.handleDispatchFailure(messageListener, ex);
+				}
+			} else {
+				for (int i = 0, n = acceptedMessages.size(); i < n; i++) {
+					try {
+						messageListener.handleMessage(acceptedMessages.get(i));
+					} catch (RuntimeException ex) {
+						this.handleDispatchFailure(messageListener, ex);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Handles the given {@code exception} thrown by the given
+	 * {@code messageListener}. The remaining listeners and messages are
+	 * delivered afterwards. By default the exception is reported to the
+	 * {@link Thread.UncaughtExceptionHandler} of the dispatching thread.
+	 */
+	protected void handleDispatchFailure(IMessageListener<T> messageListener,
+			RuntimeException exception) {
+		Thread thread = Thread.currentThread();
+		thread.getUncaughtExceptionHandler().uncaughtException(thread,
+				exception);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.messaging.core.IInboundChannel#receiveMessages(int,
+	 * long)
+	 */
+	public List<IMessage<T>> receiveMessages(int maxMessages, long timeout)
+			throws MessageException {
+		List<IMessage<T>> messages = new ArrayList<IMessage<T>>();
+		if (maxMessages > 0) {
+			IMessage<T> message = this.receiveMessage(timeout);
+			while (message != null) {
+				messages.add(message);
+				if (messages.size() == maxMessages) {
+					break;
+				}
+				message = this.receiveMessage(IInboundChannel.NO_WAIT_TIMEOUT);
+			}
 		}
-		InboundChannel.EXECUTOR_SERVICE.execute(dispatcher);
+		return messages;
 	}
 
 	/*
@@ -0,0 +1,486 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.channel;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.jmetis.kernel.assertion.Assertions;
+import org.jmetis.messaging.core.IMessage;
+import org.jmetis.messaging.core.MessageException;
+
+/**
+ * {@code MessageQueue} is the base class of the {@link BlockingQueue}s used by
+ * inbound channels. It optionally limits the number of queued messages and
+ * applies an {@link OverflowPolicy} to messages arriving while it is full.
+ * {@link #put(IMessage)} applies the policy; the non-blocking
+ * {@link #offer(IMessage)} never waits and fails instead of blocking.
+ * <p>
+ * Messages whose expiration date has passed are discarded when they reach the
+ * head of the queue, so they are never returned by {@link #peek()},
+ * {@link #poll()}, {@link #take()} or {@link #drainTo(Collection)}. Until
+ * then they take up capacity and are included by {@link #size()} and
+ * {@link #iterator()}.
+ * <p>
+ * Subclasses define the order in which messages are taken.
+ * 
+ * @author era
+ */
+public abstract class MessageQueue<T> extends AbstractQueue<IMessage<T>>
+		implements BlockingQueue<IMessage<T>> {
+
+	public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+	protected final ReentrantLock lock;
+
+	private final Condition notEmpty;
+
+	private final Condition notFull;
+
+	private final int capacity;
+
+	private final OverflowPolicy overflowPolicy;
+
+	private final long[] overflowCounts;
+
+	private int count;
+
+	private long expiredCount;
+
+	/**
+	 * Constructs a new {@code MessageQueue} instance.
+	 * 
+	 * @param capacity
+	 *            the maximum number of queued messages, or {@link #UNBOUNDED}
+	 * @param overflowPolicy
+	 *            the {@link OverflowPolicy} applied while the queue is full
+	 */
+	protected MessageQueue(int capacity, OverflowPolicy overflowPolicy) {
+		super();
+		if (capacity < 1) {
+			throw new IllegalArgumentException(Integer.toString(capacity));
+		}
+		this.capacity = capacity;
+		this.overflowPolicy = Assertions.mustNotBeNull("overflowPolicy", //$NON-NLS-1$
+				overflowPolicy);
+		this.overflowCounts = new long[OverflowPolicy.values().length];
+		this.lock = new ReentrantLock();
+		this.notEmpty = this.lock.newCondition();
+		this.notFull = this.lock.newCondition();
+	}
+
+	/**
+	 * Adds the given {@code message}. Called with the lock held.
+	 */
+	protected abstract void addMessage(IMessage<T> message);
+
+	/**
+	 * Removes the message which is delivered next. Called with the lock held
+	 * while the queue is not empty.
+	 */
+	protected abstract IMessage<T> removeNextMessage();
+
+	/**
+	 * Removes the message which is discarded to make room under
+	 * {@link OverflowPolicy#DROP_OLDEST}. Called with the lock held while the
+	 * queue is not empty.
+	 */
+	protected abstract IMessage<T> removeOldestMessage();
+
+	/**
+	 * Returns the message which is delivered next. Called with the lock held
+	 * while the queue is not empty.
+	 */
+	protected abstract IMessage<T> nextMessage();
+
+	/**
+	 * Adds all queued messages in delivery order to the given
+	 * {@code messages}. Called with the lock held.
+	 */
+	protected abstract void collectMessages(Collection<IMessage<T>> messages);
+
+	/**
+	 * Returns the maximum number of queued messages.
+	 * 
+	 * @return the maximum number of queued messages, or {@link #UNBOUNDED}
+	 */
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Returns the {@link OverflowPolicy} applied while the queue is full.
+	 * 
+	 * @return the {@link OverflowPolicy} applied while the queue is full
+	 */
+	public OverflowPolicy getOverflowPolicy() {
+		return this.overflowPolicy;
+	}
+
+	/**
+	 * Returns the number of messages the given {@code overflowPolicy} has been
+	 * applied to, i.e. the number of producers which had to wait, or the
+	 * number of messages dropped or rejected.
+	 * 
+	 * @param overflowPolicy
+	 *            the {@link OverflowPolicy}
+	 * @return the number of messages the policy has been applied to
+	 */
+	public long getOverflowCount(OverflowPolicy overflowPolicy) {
+		this.lock.lock();
+		try {
+			return this.overflowCounts[overflowPolicy.ordinal()];
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of messages which have been discarded because they
+	 * expired.
+	 * 
+	 * @return the number of expired messages
+	 */
+	public long getExpiredCount() {
+		this.lock.lock();
+		try {
+			return this.expiredCount;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	protected boolean isExpired(IMessage<T> message, long now) {
+		Date expirationDate = message.getExpirationDate();
+		return expirationDate != null && expirationDate.getTime() <= now;
+	}
+
+	private void enqueue(IMessage<T> message) {
+		this.addMessage(message);
+		this.count++;
+		this.notEmpty.signal();
+	}
+
+	/**
+	 * Removes the next message which has not expired. Must be called with the
+	 * lock held.
+	 */
+	private IMessage<T> dequeue() {
+		long now = 0;
+		while (this.count > 0) {
+			IMessage<T> message = this.removeNextMessage();
+			this.count--;
+			this.notFull.signal();
+			if (now == 0) {
+				now = System.currentTimeMillis();
+			}
+			if (!this.isExpired(message, now)) {
+				return message;
+			}
+			this.expiredCount++;
+		}
+		return null;
+	}
+
+	/**
+	 * Discards the expired messages at the head of the queue. Must be called
+	 * with the lock held.
+	 */
+	private void discardExpiredMessages() {
+		long now = 0;
+		while (this.count > 0) {
+			if (now == 0) {
+				now = System.currentTimeMillis();
+			}
+			if (!this.isExpired(this.nextMessage(), now)) {
+				return;
+			}
+			this.removeNextMessage();
+			this.count--;
+			this.notFull.signal();
+			this.expiredCount++;
+		}
+	}
+
+	/**
+	 * Applies the overflow policy other than {@link OverflowPolicy#BLOCK} to
+	 * the given {@code message}. Must be called with the lock held while the
+	 * queue is full.
+	 */
+	private boolean overflow(IMessage<T> message) {
+		this.overflowCounts[this.overflowPolicy.ordinal()]++;
+		switch (this.overflowPolicy) {
+		case DROP_OLDEST:
+			this.removeOldestMessage();
+			this.count--;
+			this.enqueue(message);
+			return true;
+		case REJECT:
+			MessageException.capacityExceeded(this.capacity);
+		}
+		return false;
+	}
+
+	/**
+	 * Inserts the given {@code message} without waiting. If the queue is full
+	 * the overflow policy is applied, except for {@link OverflowPolicy#BLOCK}
+	 * in which case the message is refused.
+	 * 
+	 * @return {@code true} if the message was inserted
+	 * @throws MessageException
+	 *             if the message is rejected
+	 */
+	public boolean offer(IMessage<T> message) {
+		Assertions.mustNotBeNull("message", message); //$NON-NLS-1$
+		this.lock.lock();
+		try {
+			if (this.count < this.capacity) {
+				this.enqueue(message);
+				return true;
+			}
+			if (this.overflowPolicy == OverflowPolicy.BLOCK) {
+				return false;
+			}
+			return this.overflow(message);
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Inserts the given {@code message}, waiting up to the given
+	 * {@code timeout} if the queue is full and the overflow policy is
+	 * {@link OverflowPolicy#BLOCK}.
+	 * 
+	 * @return {@code true} if the message was inserted
+	 * @throws MessageException
+	 *             if the message is rejected
+	 */
+	public boolean offer(IMessage<T> message, long timeout, TimeUnit unit)
+			throws InterruptedException {
+		Assertions.mustNotBeNull("message", message); //$NON-NLS-1$
+		long nanos = unit.toNanos(timeout);
+		this.lock.lockInterruptibly();
+		try {
+			if (this.count >= this.capacity) {
+				if (this.overflowPolicy != OverflowPolicy.BLOCK) {
+					return this.overflow(message);
+				}
+				this.overflowCounts[OverflowPolicy.BLOCK.ordinal()]++;
+				while (this.count >= this.capacity) {
+					if (nanos <= 0) {
+						return false;
+					}
+					nanos = this.notFull.awaitNanos(nanos);
+				}
+			}
+			this.enqueue(message);
+			return true;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Inserts the given {@code message}, applying the overflow policy if the
+	 * queue is full.
+	 * 
+	 * @throws MessageException
+	 *             if the message is rejected
+	 */
+	public void put(IMessage<T> message) throws InterruptedException {
+		Assertions.mustNotBeNull("message", message); //$NON-NLS-1$
+		this.lock.lockInterruptibly();
+		try {
+			if (this.count >= this.capacity) {
+				if (this.overflowPolicy != OverflowPolicy.BLOCK) {
+					this.overflow(message);
+					return;
+				}
+				this.overflowCounts[OverflowPolicy.BLOCK.ordinal()]++;
+				while (this.count >= this.capacity) {
+					this.notFull.await();
+				}
+			}
+			this.enqueue(message);
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.Queue#poll()
+	 */
+	public IMessage<T> poll() {
+		this.lock.lock();
+		try {
+			return this.dequeue();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.BlockingQueue#poll(long,
+	 * java.util.concurrent.TimeUnit)
+	 */
+	public IMessage<T> poll(long timeout, TimeUnit unit)
+			throws InterruptedException {
+		long nanos = unit.toNanos(timeout);
+		this.lock.lockInterruptibly();
+		try {
+			IMessage<T> message;
+			while ((message = this.dequeue()) == null) {
+				if (nanos <= 0) {
+					return null;
+				}
+				nanos = this.notEmpty.awaitNanos(nanos);
+			}
+			return message;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.BlockingQueue#take()
+	 */
+	public IMessage<T> take() throws InterruptedException {
+		this.lock.lockInterruptibly();
+		try {
+			IMessage<T> message;
+			while ((message = this.dequeue()) == null) {
+				this.notEmpty.await();
+			}
+			return message;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.Queue#peek()
+	 */
+	public IMessage<T> peek() {
+		this.lock.lock();
+		try {
+			this.discardExpiredMessages();
+			if (this.count == 0) {
+				return null;
+			}
+			return this.nextMessage();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.BlockingQueue#drainTo(java.util.Collection)
+	 */
+	public int drainTo(Collection<? super IMessage<T>> collection) {
+		return this.drainTo(collection, Integer.MAX_VALUE);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.BlockingQueue#drainTo(java.util.Collection,
+	 * int)
+	 */
+	public int drainTo(Collection<? super IMessage<T>> collection,
+			int maxElements) {
+		if (collection == this) {
+			throw new IllegalArgumentException();
+		}
+		this.lock.lock();
+		try {
+			int drained = 0;
+			IMessage<T> message;
+			while (drained < maxElements && (message = this.dequeue()) != null) {
+				collection.add(message);
+				drained++;
+			}
+			return drained;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.BlockingQueue#remainingCapacity()
+	 */
+	public int remainingCapacity() {
+		this.lock.lock();
+		try {
+			return this.capacity - this.count;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of queued messages, including expired messages which
+	 * have not reached the head of the queue yet.
+	 * 
+	 * @return the number of queued messages
+	 */
+	@Override
+	public int size() {
+		this.lock.lock();
+		try {
+			return this.count;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractCollection#iterator()
+	 */
+	@Override
+	public Iterator<IMessage<T>> iterator() {
+		this.lock.lock();
+		try {
+			List<IMessage<T>> messages = new ArrayList<IMessage<T>>(this.count);
+			this.collectMessages(messages);
+			return Collections.unmodifiableList(messages).iterator();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+}
@@ -13,7 +13,12 @@
  */
 package org.jmetis.messaging.channel;
 
+import java.util.Collection;
+import java.util.Date;
+
+import org.jmetis.messaging.core.IMessage;
 import org.jmetis.messaging.core.IOutboundChannel;
+import org.jmetis.messaging.core.MessageException;
 
 /**
  * {@code OutboundChannel}
@@ -70,4 +75,34 @@ public abstract class OutboundChannel<T> extends MessageChannel<T> implements
 		this.timeToLive = timeToLive;
 	}
 
+	/**
+	 * Sets the expiration date of the given {@code message} to the current
+	 * time plus the time to live of the receiver, unless the time to live is
+	 * unlimited or the message already expires.
+	 */
+	protected void applyTimeToLive(IMessage<T> message) {
+		if (this.timeToLive > 0) {
+			Date expirationDate = message.getExpirationDate();
+			if (expirationDate == null
+					|| expirationDate.getTime() == Long.MAX_VALUE) {
+				message.setExpirationDate(new Date(System.currentTimeMillis()
+						+ this.timeToLive));
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.core.IOutboundChannel#sendMessages(java.util.Collection
+	 * )
+	 */
+	public void sendMessages(Collection<? extends IMessage<T>> messages)
+			throws MessageException {
+		for (IMessage<T> message : messages) {
+			this.sendMessage(message);
+		}
+	}
+
 }
@@ -0,0 +1,46 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.channel;
+
+/**
+ * {@code OverflowPolicy} defines what an inbound channel does with a message
+ * that arrives while its queue is full.
+ * 
+ * @author era
+ */
+public enum OverflowPolicy {
+
+	/**
+	 * The producer waits until a consumer has made room.
+	 */
+	BLOCK,
+
+	/**
+	 * The oldest queued message is discarded to make room. Queues which order
+	 * messages by priority discard the oldest message of the lowest priority.
+	 */
+	DROP_OLDEST,
+
+	/**
+	 * The arriving message is discarded.
+	 */
+	DROP_NEWEST,
+
+	/**
+	 * The arriving message is refused with a
+	 * {@link org.jmetis.messaging.core.MessageException}.
+	 */
+	REJECT
+
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.channel;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+import org.jmetis.messaging.core.IMessage;
+import org.jmetis.messaging.core.IMessage.Priority;
+
+/**
+ * {@code PriorityMessageQueue} is a {@link MessageQueue} for inbound channels
+ * which honors the {@link Priority} of its messages.
+ * <p>
+ * Messages of the same priority are taken in FIFO order. Between priorities
+ * the queue uses weighted round robin: while all priorities are backlogged,
+ * every round takes up to four {@code HIGH}, two {@code NORMAL} and one
+ * {@code LOW} message, so high priority messages jump the line without
+ * starving the others. Peeking and iterating follow the same order as
+ * taking the messages.
+ * 
+ * @author era
+ */
+public class PriorityMessageQueue<T> extends MessageQueue<T> {
+
+	private static final int[] DEFAULT_WEIGHTS = { 1, 2, 4 };
+
+	private final LinkedList<IMessage<T>>[] queues;
+
+	private final int[] weights;
+
+	private final int[] credits;
+
+	/**
+	 * Constructs a new unbounded {@code PriorityMessageQueue} instance.
+	 */
+	public PriorityMessageQueue() {
+		this(MessageQueue.UNBOUNDED, OverflowPolicy.BLOCK);
+	}
+
+	/**
+	 * Constructs a new {@code PriorityMessageQueue} instance.
+	 * 
+	 * @param capacity
+	 *            the maximum number of queued messages
+	 * @param overflowPolicy
+	 *            the {@link OverflowPolicy} applied while the queue is full
+	 */
+	@SuppressWarnings("unchecked")
+	public PriorityMessageQueue(int capacity, OverflowPolicy overflowPolicy) {
+		super(capacity, overflowPolicy);
+		int priorities = Priority.values().length;
+		this.queues = (LinkedList<IMessage<T>>[]) new LinkedList<?>[priorities];
+		for (int i = 0; i < priorities; i++) {
+			this.queues[i] = new LinkedList<IMessage<T>>();
+		}
+		this.weights = PriorityMessageQueue.DEFAULT_WEIGHTS.clone();
+		this.credits = this.weights.clone();
+	}
+
+	protected int priorityIndex(IMessage<T> message) {
+		Priority priority = message.getPriority();
+		if (priority == null) {
+			return Priority.NORMAL.ordinal();
+		}
+		return priority.ordinal();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.channel.MessageQueue#addMessage(org.jmetis.messaging
+	 * .core.IMessage)
+	 */
+	@Override
+	protected void addMessage(IMessage<T> message) {
+		this.queues[this.priorityIndex(message)].addLast(message);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.messaging.channel.MessageQueue#removeNextMessage()
+	 */
+	@Override
+	protected IMessage<T> removeNextMessage() {
+		while (true) {
+			for (int i = this.queues.length - 1; i >= 0; i--) {
+				if (this.credits[i] > 0 && !this.queues[i].isEmpty()) {
+					this.credits[i]--;
+					return this.queues[i].removeFirst();
+				}
+			}
+			System.arraycopy(this.weights, 0, this.credits, 0,
+					this.weights.length);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.messaging.channel.MessageQueue#removeOldestMessage()
+	 */
+	@Override
+	protected IMessage<T> removeOldestMessage() {
+		for (LinkedList<IMessage<T>> queue : this.queues) {
+			if (!queue.isEmpty()) {
+				return queue.removeFirst();
+			}
+		}
+		return null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.messaging.channel.MessageQueue#nextMessage()
+	 */
+	@Override
+	protected IMessage<T> nextMessage() {
+		for (int i = this.queues.length - 1; i >= 0; i--) {
+			if (this.credits[i] > 0 && !this.queues[i].isEmpty()) {
+				return this.queues[i].getFirst();
+			}
+		}
+		// all credits of backlogged priorities are used up and will be reset
+		for (int i = this.queues.length - 1; i >= 0; i--) {
+			if (!this.queues[i].isEmpty()) {
+				return this.queues[i].getFirst();
+			}
+		}
+		return null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.channel.MessageQueue#collectMessages(java.util.Collection
+	 * )
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	protected void collectMessages(Collection<IMessage<T>> messages) {
+		// replays removeNextMessage() on copies of the credits and queues
+		int[] credits = this.credits.clone();
+		Iterator<IMessage<T>>[] iterators = (Iterator<IMessage<T>>[]) new Iterator<?>[this.queues.length];
+		int remaining = 0;
+		for (int i = 0; i < this.queues.length; i++) {
+			iterators[i] = this.queues[i].iterator();
+			remaining += this.queues[i].size();
+		}
+		while (remaining > 0) {
+			int i = this.queues.length - 1;
+			while (i >= 0 && (credits[i] == 0 || !iterators[i].hasNext())) {
+				i--;
+			}
+			if (i < 0) {
+				System.arraycopy(this.weights, 0, credits, 0,
+						this.weights.length);
+			} else {
+				messages.add(iterators[i].next());
+				credits[i]--;
+				remaining--;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.codec;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import org.jmetis.messaging.core.MessageException;
+
+/**
+ * {@code BinaryInput} reads the values written by a {@link BinaryOutput} from
+ * a {@link ByteBuffer}.
+ * 
+ * @author era
+ */
+public class BinaryInput {
+
+	private final ByteBuffer buffer;
+
+	/**
+	 * Constructs a new {@code BinaryInput} instance reading from the given
+	 * {@code buffer}, starting at its position.
+	 * 
+	 */
+	public BinaryInput(ByteBuffer buffer) {
+		super();
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Returns the buffer read from, positioned after the last value read.
+	 * 
+	 * @return the buffer read from
+	 */
+	public ByteBuffer getBuffer() {
+		return this.buffer;
+	}
+
+	public byte readByte() {
+		return this.buffer.get();
+	}
+
+	public void readBytes(byte[] bytes, int offset, int length) {
+		this.buffer.get(bytes, offset, length);
+	}
+
+	public boolean readBoolean() {
+		return this.buffer.get() != 0;
+	}
+
+	public char readChar() {
+		return this.buffer.getChar();
+	}
+
+	public short readShort() {
+		return this.buffer.getShort();
+	}
+
+	public int readInt() {
+		return this.buffer.getInt();
+	}
+
+	public long readLong() {
+		return this.buffer.getLong();
+	}
+
+	public float readFloat() {
+		return this.buffer.getFloat();
+	}
+
+	public double readDouble() {
+		return this.buffer.getDouble();
+	}
+
+	public int readVarInt() {
+		ByteBuffer buffer = this.buffer;
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			byte current = buffer.get();
+			value |= (current & 0x7F) << shift;
+			if (current >= 0) {
+				return value;
+			}
+		}
+		MessageException.invalidEncoding("malformed varint"); //$NON-NLS-1$
+		return 0;
+	}
+
+	public long readVarLong() {
+		ByteBuffer buffer = this.buffer;
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte current = buffer.get();
+			value |= (long) (current & 0x7F) << shift;
+			if (current >= 0) {
+				return value;
+			}
+		}
+		MessageException.invalidEncoding("malformed varint"); //$NON-NLS-1$
+		return 0;
+	}
+
+	public int readSignedVarInt() {
+		int value = this.readVarInt();
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	public long readSignedVarLong() {
+		long value = this.readVarLong();
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	public String readString() {
+		int encodedLength = this.readVarInt();
+		ByteBuffer buffer = this.buffer;
+		if (encodedLength > buffer.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		char[] characters = new char[encodedLength];
+		int length = 0;
+		int end = buffer.position() + encodedLength;
+		while (buffer.position() < end) {
+			int current = buffer.get() & 0xFF;
+			if (current < 0x80) {
+				characters[length++] = (char) current;
+			} else if (current < 0xE0) {
+				characters[length++] = (char) (((current & 0x1F) << 6) | (buffer
+						.get() & 0x3F));
+			} else {
+				characters[length++] = (char) (((current & 0x0F) << 12)
+						| ((buffer.get() & 0x3F) << 6) | (buffer.get() & 0x3F));
+			}
+		}
+		return new String(characters, 0, length);
+	}
+
+}
@@ -0,0 +1,363 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.codec;
+
+import java.io.Serializable;
+import java.net.URI;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jmetis.kernel.assertion.Assertions;
+import org.jmetis.messaging.core.IMessage;
+import org.jmetis.messaging.core.Message;
+import org.jmetis.messaging.core.MessageException;
+import org.jmetis.messaging.core.IMessage.Priority;
+
+/**
+ * {@code BinaryMessageCodec} encodes the headers and the payload of an
+ * {@link IMessage} in a compact binary format and decodes them into a
+ * {@link Message}. Properties declared by {@link Message} subclasses are not
+ * encoded.
+ * <p>
+ * A message starts with a format version and a flag byte telling which
+ * optional headers follow and holding the priority. Numbers are written as
+ * varints, and the ID, correlation ID and payload as a type tag followed by
+ * the value encoded by the {@link IPayloadCodec} registered for the tag.
+ * Codecs for strings, byte arrays, the primitive wrappers, {@link java.util.UUID}
+ * and {@link URI} are built in. Further codecs can be registered with
+ * {@link #registerPayloadCodec(int, IPayloadCodec)}. Java serialization is
+ * only used for the types passed to {@link #enableSerialization(Class...)}.
+ * <p>
+ * Unless disabled, reply channels are interned: the first
+ * {@link #MAX_INTERNED_CHANNELS} distinct reply channels are written in full
+ * once and then referenced by their index. An interning codec therefore
+ * carries state and must decode messages in the order in which they were
+ * encoded by its counterpart, as in a stream or a connection; a message which
+ * fails to encode interns nothing. Codecs which persist messages for random
+ * access should not intern reply channels. A codec instance must not be used
+ * by more than one thread at a time.
+ * 
+ * @author era
+ */
+public class BinaryMessageCodec implements IMessageCodec {
+
+	public static final int MAX_INTERNED_CHANNELS = 1024;
+
+	/**
+	 * The smallest tag available to payload codecs registered by clients.
+	 */
+	public static final int MIN_CUSTOM_TAG = 32;
+
+	public static final int MAX_TAG = 255;
+
+	private static final int FORMAT_VERSION = 1;
+
+	private static final int NULL_TAG = 0;
+
+	private static final int SERIALIZABLE_TAG = 31;
+
+	private static final int HAS_CORRELATION_ID = 0x01;
+
+	private static final int HAS_EXPIRATION_DATE = 0x02;
+
+	private static final int HAS_SEQUENCE = 0x04;
+
+	private static final int HAS_REPLY_CHANNEL = 0x08;
+
+	private static final int PRIORITY_SHIFT = 4;
+
+	private static final int LITERAL_CHANNEL = 0;
+
+	private static final int INTERNED_CHANNEL = 1;
+
+	private static final int CHANNEL_REFERENCE = 2;
+
+	private static final Priority[] PRIORITIES = Priority.values();
+
+	private final IPayloadCodec<?>[] payloadCodecs;
+
+	private final Map<Class<?>, Integer> payloadTags;
+
+	private final boolean internReplyChannels;
+
+	private final Map<URI, Integer> replyChannelIndexes;
+
+	private final List<URI> replyChannels;
+
+	/**
+	 * Constructs a new {@code BinaryMessageCodec} instance which interns reply
+	 * channels.
+	 */
+	public BinaryMessageCodec() {
+		this(true);
+	}
+
+	/**
+	 * Constructs a new {@code BinaryMessageCodec} instance.
+	 * 
+	 * @param internReplyChannels
+	 *            {@code true} if reply channels should be interned
+	 */
+	public BinaryMessageCodec(boolean internReplyChannels) {
+		super();
+		this.payloadCodecs = new IPayloadCodec<?>[BinaryMessageCodec.MAX_TAG + 1];
+		this.payloadTags = new HashMap<Class<?>, Integer>();
+		this.internReplyChannels = internReplyChannels;
+		this.replyChannelIndexes = new HashMap<URI, Integer>();
+		this.replyChannels = new ArrayList<URI>();
+		this.addPayloadCodec(1, PayloadCodecs.STRING);
+		this.addPayloadCodec(2, PayloadCodecs.BYTES);
+		this.addPayloadCodec(3, PayloadCodecs.BOOLEAN);
+		this.addPayloadCodec(4, PayloadCodecs.BYTE);
+		this.addPayloadCodec(5, PayloadCodecs.CHARACTER);
+		this.addPayloadCodec(6, PayloadCodecs.SHORT);
+		this.addPayloadCodec(7, PayloadCodecs.INTEGER);
+		this.addPayloadCodec(8, PayloadCodecs.LONG);
+		this.addPayloadCodec(9, PayloadCodecs.FLOAT);
+		this.addPayloadCodec(10, PayloadCodecs.DOUBLE);
+		this.addPayloadCodec(11, PayloadCodecs.UUID_VALUE);
+		this.addPayloadCodec(12, PayloadCodecs.URI_VALUE);
+	}
+
+	private void addPayloadCodec(int tag, IPayloadCodec<?> payloadCodec) {
+		this.payloadCodecs[tag] = payloadCodec;
+		this.payloadTags.put(payloadCodec.getPayloadType(), Integer
+				.valueOf(tag));
+	}
+
+	/**
+	 * Registers the given {@code payloadCodec} for the values of its payload
+	 * type under the given {@code tag}. Encoder and decoder must register the
+	 * same codecs under the same tags.
+	 * 
+	 * @param tag
+	 *            the tag in the range {@link #MIN_CUSTOM_TAG} to
+	 *            {@link #MAX_TAG}
+	 * @param payloadCodec
+	 *            the {@link IPayloadCodec} to register
+	 */
+	public void registerPayloadCodec(int tag, IPayloadCodec<?> payloadCodec) {
+		Assertions.mustNotBeNull("payloadCodec", payloadCodec); //$NON-NLS-1$
+		if (tag < BinaryMessageCodec.MIN_CUSTOM_TAG
+				|| tag > BinaryMessageCodec.MAX_TAG
+				|| this.payloadCodecs[tag] != null) {
+			throw new IllegalArgumentException(Integer.toString(tag));
+		}
+		this.addPayloadCodec(tag, payloadCodec);
+	}
+
+	/**
+	 * Encodes payloads of exactly the given {@code serializableTypes} with
+	 * Java serialization, and decodes serialized payloads made of these types
+	 * only. Encoder and decoder must enable serialization for the same types.
+	 * 
+	 * @param serializableTypes
+	 *            the {@link Serializable} classes of the payloads and of all
+	 *            objects reachable from them
+	 * @see PayloadCodecs#serializable(Class...)
+	 */
+	public void enableSerialization(Class<?>... serializableTypes) {
+		this.payloadCodecs[BinaryMessageCodec.SERIALIZABLE_TAG] = PayloadCodecs
+				.serializable(serializableTypes);
+		Integer tag = Integer.valueOf(BinaryMessageCodec.SERIALIZABLE_TAG);
+		for (Class<?> serializableType : serializableTypes) {
+			if (!this.payloadTags.containsKey(serializableType)) {
+				this.payloadTags.put(serializableType, tag);
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.codec.IMessageCodec#encode(org.jmetis.messaging.
+	 * core.IMessage, java.nio.ByteBuffer)
+	 */
+	public ByteBuffer encode(IMessage<?> message, ByteBuffer buffer) {
+		BinaryOutput output = new BinaryOutput(buffer);
+		Object correlationId = message.getCorrelationId();
+		Date expirationDate = message.getExpirationDate();
+		long expirationTime = expirationDate == null ? Long.MAX_VALUE
+				: expirationDate.getTime();
+		int sequenceNumber = message.getSequenceNumber();
+		int sequenceSize = message.getSequenceSize();
+		URI replyChannel = message.getReplyChannel();
+		Priority priority = message.getPriority();
+		int flags = 0;
+		if (correlationId != null) {
+			flags |= BinaryMessageCodec.HAS_CORRELATION_ID;
+		}
+		if (expirationTime != Long.MAX_VALUE) {
+			flags |= BinaryMessageCodec.HAS_EXPIRATION_DATE;
+		}
+		if (sequenceNumber != 0 || sequenceSize != 0) {
+			flags |= BinaryMessageCodec.HAS_SEQUENCE;
+		}
+		if (replyChannel != null) {
+			flags |= BinaryMessageCodec.HAS_REPLY_CHANNEL;
+		}
+		if (priority != null) {
+			flags |= (priority.ordinal() + 1) << BinaryMessageCodec.PRIORITY_SHIFT;
+		}
+		output.writeByte(BinaryMessageCodec.FORMAT_VERSION);
+		output.writeByte(flags);
+		this.writeValue(message.getId(), output);
+		if (correlationId != null) {
+			this.writeValue(correlationId, output);
+		}
+		if (expirationTime != Long.MAX_VALUE) {
+			output.writeSignedVarLong(expirationTime);
+		}
+		if (sequenceNumber != 0 || sequenceSize != 0) {
+			output.writeSignedVarInt(sequenceNumber);
+			output.writeSignedVarInt(sequenceSize);
+		}
+		boolean interned = false;
+		if (replyChannel != null) {
+			interned = this.writeReplyChannel(replyChannel, output);
+		}
+		this.writeValue(message.getPayload(), output);
+		if (interned) {
+			// the decoder only learns the reply channel from a message which
+			// has been encoded completely
+			this.replyChannelIndexes.put(replyChannel, Integer
+					.valueOf(this.replyChannelIndexes.size()));
+		}
+		return output.getBuffer();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.codec.IMessageCodec#decode(java.nio.ByteBuffer)
+	 */
+	public IMessage<?> decode(ByteBuffer buffer) {
+		BinaryInput input = new BinaryInput(buffer);
+		try {
+			if (input.readByte() != BinaryMessageCodec.FORMAT_VERSION) {
+				MessageException.invalidEncoding("unknown format version"); //$NON-NLS-1$
+			}
+			int flags = input.readByte() & 0xFF;
+			Object id = this.readValue(input);
+			Object correlationId = null;
+			if ((flags & BinaryMessageCodec.HAS_CORRELATION_ID) != 0) {
+				correlationId = this.readValue(input);
+			}
+			Date expirationDate = null;
+			if ((flags & BinaryMessageCodec.HAS_EXPIRATION_DATE) != 0) {
+				expirationDate = new Date(input.readSignedVarLong());
+			}
+			int sequenceNumber = 0;
+			int sequenceSize = 0;
+			if ((flags & BinaryMessageCodec.HAS_SEQUENCE) != 0) {
+				sequenceNumber = input.readSignedVarInt();
+				sequenceSize = input.readSignedVarInt();
+			}
+			URI replyChannel = null;
+			if ((flags & BinaryMessageCodec.HAS_REPLY_CHANNEL) != 0) {
+				replyChannel = this.readReplyChannel(input);
+			}
+			Message<Object> message = new Message<Object>(id, this
+					.readValue(input));
+			message.setCorrelationId(correlationId);
+			if (expirationDate != null) {
+				message.setExpirationDate(expirationDate);
+			}
+			message.setSequenceNumber(sequenceNumber);
+			message.setSequenceSize(sequenceSize);
+			message.setReplyChannel(replyChannel);
+			int priority = flags >> BinaryMessageCodec.PRIORITY_SHIFT;
+			if (priority > BinaryMessageCodec.PRIORITIES.length) {
+				MessageException.invalidEncoding("invalid priority"); //$NON-NLS-1$
+			}
+			message.setPriority(priority == 0 ? null
+					: BinaryMessageCodec.PRIORITIES[priority - 1]);
+			return message;
+		} catch (BufferUnderflowException ex) {
+			MessageException.invalidEncoding("truncated message"); //$NON-NLS-1$
+			return null;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	protected void writeValue(Object value, BinaryOutput output) {
+		if (value == null) {
+			output.writeByte(BinaryMessageCodec.NULL_TAG);
+			return;
+		}
+		Integer tag = this.payloadTags.get(value.getClass());
+		if (tag == null) {
+			MessageException.unsupportedPayload(value.getClass());
+		}
+		output.writeByte(tag.intValue());
+		((IPayloadCodec<Object>) this.payloadCodecs[tag.intValue()]).encode(
+				value, output);
+	}
+
+	protected Object readValue(BinaryInput input) {
+		int tag = input.readByte() & 0xFF;
+		if (tag == BinaryMessageCodec.NULL_TAG) {
+			return null;
+		}
+		IPayloadCodec<?> payloadCodec = this.payloadCodecs[tag];
+		if (payloadCodec == null) {
+			MessageException.invalidEncoding("unknown payload tag " + tag); //$NON-NLS-1$
+		}
+		return payloadCodec.decode(input);
+	}
+
+	/**
+	 * Writes the given {@code replyChannel} and returns {@code true} if it is
+	 * to be interned once the message has been encoded.
+	 */
+	private boolean writeReplyChannel(URI replyChannel, BinaryOutput output) {
+		Integer index = this.replyChannelIndexes.get(replyChannel);
+		if (index != null) {
+			output.writeVarInt(BinaryMessageCodec.CHANNEL_REFERENCE
+					+ index.intValue());
+			return false;
+		}
+		boolean interned = this.internReplyChannels
+				&& this.replyChannelIndexes.size() < BinaryMessageCodec.MAX_INTERNED_CHANNELS;
+		output.writeVarInt(interned ? BinaryMessageCodec.INTERNED_CHANNEL
+				: BinaryMessageCodec.LITERAL_CHANNEL);
+		output.writeString(replyChannel.toString());
+		return interned;
+	}
+
+	private URI readReplyChannel(BinaryInput input) {
+		int marker = input.readVarInt();
+		if (marker >= BinaryMessageCodec.CHANNEL_REFERENCE) {
+			int index = marker - BinaryMessageCodec.CHANNEL_REFERENCE;
+			if (index >= this.replyChannels.size()) {
+				MessageException.invalidEncoding("unknown reply channel " //$NON-NLS-1$
+						+ index);
+			}
+			return this.replyChannels.get(index);
+		}
+		URI replyChannel = URI.create(input.readString());
+		if (marker == BinaryMessageCodec.INTERNED_CHANNEL) {
+			this.replyChannels.add(replyChannel);
+		}
+		return replyChannel;
+	}
+
+}
@@ -0,0 +1,187 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@code BinaryOutput} writes primitive values, variable-length integers and
+ * strings into a {@link ByteBuffer}. When the buffer is full its contents are
+ * moved to a buffer of twice the capacity, so a sufficiently large buffer can
+ * be reused without copying.
+ * <p>
+ * Unsigned integers are written as base-128 varints, signed integers are
+ * zig-zag encoded first. Strings are written as the varint length of their
+ * UTF-8 encoding followed by the encoded bytes; like
+ * {@link java.io.DataOutput#writeUTF(String)} supplementary characters are
+ * written as two three-byte sequences.
+ * 
+ * @author era
+ */
+public class BinaryOutput {
+
+	private ByteBuffer buffer;
+
+	/**
+	 * Constructs a new {@code BinaryOutput} instance writing into the given
+	 * {@code buffer}, starting at its position.
+	 * 
+	 */
+	public BinaryOutput(ByteBuffer buffer) {
+		super();
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Returns the buffer written to, positioned after the last value written.
+	 * 
+	 * @return the buffer written to
+	 */
+	public ByteBuffer getBuffer() {
+		return this.buffer;
+	}
+
+	/**
+	 * Makes room for at least {@code length} more bytes.
+	 */
+	protected void ensureRemaining(int length) {
+		ByteBuffer buffer = this.buffer;
+		if (buffer.remaining() < length) {
+			int capacity = Math.max(buffer.capacity() * 2, buffer.position()
+					+ length);
+			ByteBuffer newBuffer = buffer.isDirect() ? ByteBuffer
+					.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+			newBuffer.order(buffer.order());
+			buffer.flip();
+			newBuffer.put(buffer);
+			this.buffer = newBuffer;
+		}
+	}
+
+	public void writeByte(int value) {
+		this.ensureRemaining(1);
+		this.buffer.put((byte) value);
+	}
+
+	public void writeBytes(byte[] bytes, int offset, int length) {
+		this.ensureRemaining(length);
+		this.buffer.put(bytes, offset, length);
+	}
+
+	public void writeBoolean(boolean value) {
+		this.writeByte(value ? 1 : 0);
+	}
+
+	public void writeChar(char value) {
+		this.ensureRemaining(2);
+		this.buffer.putChar(value);
+	}
+
+	public void writeShort(short value) {
+		this.ensureRemaining(2);
+		this.buffer.putShort(value);
+	}
+
+	public void writeInt(int value) {
+		this.ensureRemaining(4);
+		this.buffer.putInt(value);
+	}
+
+	public void writeLong(long value) {
+		this.ensureRemaining(8);
+		this.buffer.putLong(value);
+	}
+
+	public void writeFloat(float value) {
+		this.ensureRemaining(4);
+		this.buffer.putFloat(value);
+	}
+
+	public void writeDouble(double value) {
+		this.ensureRemaining(8);
+		this.buffer.putDouble(value);
+	}
+
+	/**
+	 * Writes the given non-negative {@code value} as varint.
+	 */
+	public void writeVarInt(int value) {
+		this.ensureRemaining(5);
+		ByteBuffer buffer = this.buffer;
+		while ((value & ~0x7F) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	/**
+	 * Writes the given non-negative {@code value} as varint.
+	 */
+	public void writeVarLong(long value) {
+		this.ensureRemaining(10);
+		ByteBuffer buffer = this.buffer;
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	/**
+	 * Writes the given {@code value} zig-zag encoded as varint, so that small
+	 * negative values take few bytes as well.
+	 */
+	public void writeSignedVarInt(int value) {
+		this.writeVarInt((value << 1) ^ (value >> 31));
+	}
+
+	/**
+	 * Writes the given {@code value} zig-zag encoded as varint.
+	 */
+	public void writeSignedVarLong(long value) {
+		this.writeVarLong((value << 1) ^ (value >> 63));
+	}
+
+	/**
+	 * Writes the given {@code string} as UTF-8.
+	 */
+	public void writeString(String string) {
+		int length = string.length();
+		int encodedLength = length;
+		for (int i = 0; i < length; i++) {
+			char character = string.charAt(i);
+			if (character >= 0x80) {
+				encodedLength += character < 0x800 ? 1 : 2;
+			}
+		}
+		this.writeVarInt(encodedLength);
+		this.ensureRemaining(encodedLength);
+		ByteBuffer buffer = this.buffer;
+		for (int i = 0; i < length; i++) {
+			char character = string.charAt(i);
+			if (character < 0x80) {
+				buffer.put((byte) character);
+			} else if (character < 0x800) {
+				buffer.put((byte) (0xC0 | (character >> 6)));
+				buffer.put((byte) (0x80 | (character & 0x3F)));
+			} else {
+				buffer.put((byte) (0xE0 | (character >> 12)));
+				buffer.put((byte) (0x80 | ((character >> 6) & 0x3F)));
+				buffer.put((byte) (0x80 | (character & 0x3F)));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.codec;
+
+import java.nio.ByteBuffer;
+
+import org.jmetis.messaging.core.IMessage;
+
+/**
+ * {@code IMessageCodec} converts {@link IMessage}s to and from a binary
+ * representation.
+ * 
+ * @author era
+ */
+public interface IMessageCodec {
+
+	/**
+	 * Writes the given {@code message} into the given {@code buffer}, starting
+	 * at its position. If the message does not fit, it is written into a new,
+	 * larger buffer holding the contents of the given one.
+	 * 
+	 * @param message
+	 *            the {@link IMessage} to encode
+	 * @param buffer
+	 *            the {@link ByteBuffer} to write to
+	 * @return the {@link ByteBuffer} the message has been written to,
+	 *         positioned after the message
+	 */
+	ByteBuffer encode(IMessage<?> message, ByteBuffer buffer);
+
+	/**
+	 * Reads a message from the given {@code buffer}, starting at its position.
+	 * 
+	 * @param buffer
+	 *            the {@link ByteBuffer} to read from
+	 * @return the decoded {@link IMessage}
+	 * @throws org.jmetis.messaging.core.MessageException
+	 *             if the buffer does not contain a valid message
+	 */
+	IMessage<?> decode(ByteBuffer buffer);
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.codec;
+
+/**
+ * {@code IPayloadCodec} converts values of one type to and from their binary
+ * representation. Payload codecs are registered with a
+ * {@link BinaryMessageCodec} under a type tag which is written in front of
+ * each encoded value.
+ * 
+ * @author era
+ */
+public interface IPayloadCodec<T> {
+
+	/**
+	 * Returns the type of the values the receiver encodes.
+	 * 
+	 * @return the type of the values the receiver encodes
+	 */
+	Class<T> getPayloadType();
+
+	/**
+	 * Writes the given {@code value}.
+	 * 
+	 * @param value
+	 *            the value to encode, never {@code null}
+	 * @param output
+	 *            the {@link BinaryOutput} to write to
+	 */
+	void encode(T value, BinaryOutput output);
+
+	/**
+	 * Reads a value written by {@link #encode(Object, BinaryOutput)}.
+	 * 
+	 * @param input
+	 *            the {@link BinaryInput} to read from
+	 * @return the decoded value
+	 */
+	T decode(BinaryInput input);
+
+}
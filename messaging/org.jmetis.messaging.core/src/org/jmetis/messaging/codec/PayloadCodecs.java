@@ -0,0 +1,310 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.jmetis.messaging.core.MessageException;
+
+/**
+ * {@code PayloadCodecs} provides the {@link IPayloadCodec}s registered with
+ * every {@link BinaryMessageCodec}, and the Java serialization codec which
+ * has to be enabled explicitly.
+ * 
+ * @author era
+ */
+public final class PayloadCodecs {
+
+	public static final IPayloadCodec<String> STRING = new IPayloadCodec<String>() {
+		public Class<String> getPayloadType() {
+			return String.class;
+		}
+
+		public void encode(String value, BinaryOutput output) {
+			output.writeString(value);
+		}
+
+		public String decode(BinaryInput input) {
+			return input.readString();
+		}
+	};
+
+	public static final IPayloadCodec<byte[]> BYTES = new IPayloadCodec<byte[]>() {
+		public Class<byte[]> getPayloadType() {
+			return byte[].class;
+		}
+
+		public void encode(byte[] value, BinaryOutput output) {
+			output.writeVarInt(value.length);
+			output.writeBytes(value, 0, value.length);
+		}
+
+		public byte[] decode(BinaryInput input) {
+			byte[] value = new byte[input.readVarInt()];
+			input.readBytes(value, 0, value.length);
+			return value;
+		}
+	};
+
+	public static final IPayloadCodec<Boolean> BOOLEAN = new IPayloadCodec<Boolean>() {
+		public Class<Boolean> getPayloadType() {
+			return Boolean.class;
+		}
+
+		public void encode(Boolean value, BinaryOutput output) {
+			output.writeBoolean(value.booleanValue());
+		}
+
+		public Boolean decode(BinaryInput input) {
+			return Boolean.valueOf(input.readBoolean());
+		}
+	};
+
+	public static final IPayloadCodec<Byte> BYTE = new IPayloadCodec<Byte>() {
+		public Class<Byte> getPayloadType() {
+			return Byte.class;
+		}
+
+		public void encode(Byte value, BinaryOutput output) {
+			output.writeByte(value.byteValue());
+		}
+
+		public Byte decode(BinaryInput input) {
+			return Byte.valueOf(input.readByte());
+		}
+	};
+
+	public static final IPayloadCodec<Character> CHARACTER = new IPayloadCodec<Character>() {
+		public Class<Character> getPayloadType() {
+			return Character.class;
+		}
+
+		public void encode(Character value, BinaryOutput output) {
+			output.writeChar(value.charValue());
+		}
+
+		public Character decode(BinaryInput input) {
+			return Character.valueOf(input.readChar());
+		}
+	};
+
+	public static final IPayloadCodec<Short> SHORT = new IPayloadCodec<Short>() {
+		public Class<Short> getPayloadType() {
+			return Short.class;
+		}
+
+		public void encode(Short value, BinaryOutput output) {
+			output.writeSignedVarInt(value.shortValue());
+		}
+
+		public Short decode(BinaryInput input) {
+			return Short.valueOf((short) input.readSignedVarInt());
+		}
+	};
+
+	public static final IPayloadCodec<Integer> INTEGER = new IPayloadCodec<Integer>() {
+		public Class<Integer> getPayloadType() {
+			return Integer.class;
+		}
+
+		public void encode(Integer value, BinaryOutput output) {
+			output.writeSignedVarInt(value.intValue());
+		}
+
+		public Integer decode(BinaryInput input) {
+			return Integer.valueOf(input.readSignedVarInt());
+		}
+	};
+
+	public static final IPayloadCodec<Long> LONG = new IPayloadCodec<Long>() {
+		public Class<Long> getPayloadType() {
+			return Long.class;
+		}
+
+		public void encode(Long value, BinaryOutput output) {
+			output.writeSignedVarLong(value.longValue());
+		}
+
+		public Long decode(BinaryInput input) {
+			return Long.valueOf(input.readSignedVarLong());
+		}
+	};
+
+	public static final IPayloadCodec<Float> FLOAT = new IPayloadCodec<Float>() {
+		public Class<Float> getPayloadType() {
+			return Float.class;
+		}
+
+		public void encode(Float value, BinaryOutput output) {
+			output.writeFloat(value.floatValue());
+		}
+
+		public Float decode(BinaryInput input) {
+			return Float.valueOf(input.readFloat());
+		}
+	};
+
+	public static final IPayloadCodec<Double> DOUBLE = new IPayloadCodec<Double>() {
+		public Class<Double> getPayloadType() {
+			return Double.class;
+		}
+
+		public void encode(Double value, BinaryOutput output) {
+			output.writeDouble(value.doubleValue());
+		}
+
+		public Double decode(BinaryInput input) {
+			return Double.valueOf(input.readDouble());
+		}
+	};
+
+	public static final IPayloadCodec<UUID> UUID_VALUE = new IPayloadCodec<UUID>() {
+		public Class<UUID> getPayloadType() {
+			return UUID.class;
+		}
+
+		public void encode(UUID value, BinaryOutput output) {
+			output.writeLong(value.getMostSignificantBits());
+			output.writeLong(value.getLeastSignificantBits());
+		}
+
+		public UUID decode(BinaryInput input) {
+			return new UUID(input.readLong(), input.readLong());
+		}
+	};
+
+	public static final IPayloadCodec<URI> URI_VALUE = new IPayloadCodec<URI>() {
+		public Class<URI> getPayloadType() {
+			return URI.class;
+		}
+
+		public void encode(URI value, BinaryOutput output) {
+			output.writeString(value.toString());
+		}
+
+		public URI decode(BinaryInput input) {
+			return URI.create(input.readString());
+		}
+	};
+
+	private PayloadCodecs() {
+		super();
+	}
+
+	/**
+	 * Returns an {@link IPayloadCodec} which encodes {@link Serializable}
+	 * values with Java serialization. Decoding only resolves the given
+	 * {@code serializableTypes} and their serializable superclasses, so the
+	 * encoded bytes cannot instantiate any other class, and the classes are
+	 * those of the caller rather than those visible to this bundle. The
+	 * classes of all objects reachable from a payload must be given.
+	 * 
+	 * @param serializableTypes
+	 *            the classes which may be decoded
+	 * @return a new {@link IPayloadCodec}
+	 * @throws IllegalArgumentException
+	 *             if one of the types is not {@link Serializable}
+	 */
+	public static IPayloadCodec<Serializable> serializable(
+			Class<?>... serializableTypes) {
+		final Map<String, Class<?>> acceptedTypes = new HashMap<String, Class<?>>();
+		for (Class<?> serializableType : serializableTypes) {
+			if (!Serializable.class.isAssignableFrom(serializableType)) {
+				throw new IllegalArgumentException(serializableType.getName());
+			}
+			for (Class<?> type = serializableType; type != null
+					&& Serializable.class.isAssignableFrom(type); type = type
+					.getSuperclass()) {
+				acceptedTypes.put(type.getName(), type);
+			}
+		}
+		return new IPayloadCodec<Serializable>() {
+			public Class<Serializable> getPayloadType() {
+				return Serializable.class;
+			}
+
+			public void encode(Serializable value, BinaryOutput output) {
+				try {
+					ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+					ObjectOutputStream objectOutput = new ObjectOutputStream(
+							bytes);
+					objectOutput.writeObject(value);
+					objectOutput.close();
+					PayloadCodecs.BYTES.encode(bytes.toByteArray(), output);
+				} catch (IOException ex) {
+					throw new MessageException(ex.getMessage(), ex);
+				}
+			}
+
+			public Serializable decode(BinaryInput input) {
+				try {
+					ObjectInputStream objectInput = new AcceptingObjectInputStream(
+							new ByteArrayInputStream(PayloadCodecs.BYTES
+									.decode(input)), acceptedTypes);
+					return (Serializable) objectInput.readObject();
+				} catch (IOException ex) {
+					throw new MessageException(ex.getMessage(), ex);
+				} catch (ClassNotFoundException ex) {
+					throw new MessageException(ex.getMessage(), ex);
+				}
+			}
+		};
+	}
+
+	/**
+	 * {@code AcceptingObjectInputStream} resolves the accepted classes only
+	 * and rejects everything else, including proxies.
+	 */
+	private static class AcceptingObjectInputStream extends ObjectInputStream {
+
+		private final Map<String, Class<?>> acceptedTypes;
+
+		AcceptingObjectInputStream(InputStream input,
+				Map<String, Class<?>> acceptedTypes) throws IOException {
+			super(input);
+			this.acceptedTypes = acceptedTypes;
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass descriptor)
+				throws IOException, ClassNotFoundException {
+			Class<?> type = this.acceptedTypes.get(descriptor.getName());
+			if (type == null) {
+				throw new InvalidClassException(descriptor.getName(),
+						"not accepted"); //$NON-NLS-1$
+			}
+			return type;
+		}
+
+		@Override
+		protected Class<?> resolveProxyClass(String[] interfaces)
+				throws IOException, ClassNotFoundException {
+			throw new InvalidClassException("proxy not accepted"); //$NON-NLS-1$
+		}
+
+	}
+
+}
@@ -13,6 +13,8 @@
  */
 package org.jmetis.messaging.core;
 
+import java.util.List;
+
 /**
  * {@code IInboundChannel} is used to receive a {@link IMessage message} from a
  * message channel. {@code IInboundChannel} can be created with a message
@@ -30,7 +32,8 @@ package org.jmetis.messaging.core;
  * For asynchronous delivery, a client can register a {@code IMessageListener}
  * object with a message consumer. As messages arrive at the message consumer,
  * it delivers them by calling the {@code IMessageListener#handleMessage}
- * method.
+ * method. A listener which implements {@link IMessageBatchListener} receives
+ * all messages dispatched together in a single call instead.
  * 
  * @author era
  */
@@ -86,4 +89,23 @@ public interface IInboundChannel<T> extends IMessageChannel<T> {
 	 */
 	IMessage<T> receiveMessage(long timeout) throws MessageException;
 
+	/**
+	 * Receives up to {@code maxMessages} messages. This call blocks until at
+	 * least one message arrives, the timeout expires, or this message consumer
+	 * is closed; further messages are only taken if they are already
+	 * available.
+	 * 
+	 * @param maxMessages
+	 *            the maximum number of messages to receive
+	 * @param timeout
+	 *            the timeout value (in milliseconds)
+	 * @return the messages produced for this message consumer in the order
+	 *         they were sent, or an empty list if the timeout expires
+	 * @throws MessageException
+	 * @see IInboundChannel.INFINITE_TIMEOUT
+	 * @see IInboundChannel.NO_WAIT_TIMEOUT
+	 */
+	List<IMessage<T>> receiveMessages(int maxMessages, long timeout)
+			throws MessageException;
+
 }
@@ -0,0 +1,38 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.core;
+
+import java.util.List;
+
+/**
+ * The {@code IMessageBatchListener} is used to receive asynchronously
+ * delivered messages in batches. The messages an {@link IInboundChannel}
+ * dispatches together are passed in a single call, which amortizes the
+ * per-message overhead of high-volume consumers.
+ * 
+ * @author era
+ */
+public interface IMessageBatchListener<T> extends IMessageListener<T> {
+
+	/**
+	 * Passes the messages of one batch to the listener.
+	 * 
+	 * @param messages
+	 *            the messages in the order they were sent; the list must not
+	 *            be retained or modified by the listener
+	 * @throws MessageException
+	 */
+	void handleMessages(List<IMessage<T>> messages) throws MessageException;
+
+}
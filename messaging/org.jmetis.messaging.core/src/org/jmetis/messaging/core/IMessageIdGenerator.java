@@ -0,0 +1,34 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.core;
+
+/**
+ * {@code IMessageIdGenerator} creates the IDs of new {@link Message}s.
+ * Implementations must be thread-safe and must not return the same ID twice
+ * within a process.
+ * 
+ * @author era
+ * 
+ * @see Message#setIdGenerator(IMessageIdGenerator)
+ */
+public interface IMessageIdGenerator {
+
+	/**
+	 * Returns a new message ID.
+	 * 
+	 * @return a new message ID
+	 */
+	Object nextId();
+
+}
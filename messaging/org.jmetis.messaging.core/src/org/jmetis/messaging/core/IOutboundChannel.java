@@ -13,6 +13,8 @@
  */
 package org.jmetis.messaging.core;
 
+import java.util.Collection;
+
 /**
  * {@code IOutboundChannel} is used to send messages to a message channel.
  * 
@@ -65,4 +67,16 @@ public interface IOutboundChannel<T> extends IMessageChannel<T> {
 	 */
 	void sendMessage(IMessage<T> message) throws MessageException;
 
+	/**
+	 * Sends the given messages in the order of the collection. Channels may
+	 * hand the messages over at once, which is considerably cheaper than
+	 * sending them one by one.
+	 * 
+	 * @param messages
+	 *            the messages to send
+	 * @throws MessageException
+	 */
+	void sendMessages(Collection<? extends IMessage<T>> messages)
+			throws MessageException;
+
 }
@@ -13,18 +13,9 @@
  */
 package org.jmetis.messaging.core;
 
-import java.beans.BeanInfo;
-import java.beans.IntrospectionException;
-import java.beans.Introspector;
-import java.beans.PropertyDescriptor;
 import java.io.Serializable;
-import java.lang.reflect.Method;
 import java.net.URI;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.jmetis.kernel.assertion.Assertions;
 
@@ -37,9 +28,9 @@ public class Message<T> implements IMessage<T>, Serializable {
 
 	private static final long serialVersionUID = 1104965320903865110L;
 
-	private static final Map<Class<?>, Map<String, PropertyDescriptor>> CACHED_PROPERTY_DESCRIPTORS = new ConcurrentHashMap<Class<?>, Map<String, PropertyDescriptor>>();
+	private static volatile IMessageIdGenerator idGenerator = new TimeOrderedIdGenerator();
 
-	private transient Map<String, PropertyDescriptor> propertyDescriptors;
+	private transient MessagePropertyTable propertyTable;
 
 	private Object id;
 
@@ -62,7 +53,7 @@ public class Message<T> implements IMessage<T>, Serializable {
 	 */
 	public Message() {
 		super();
-		this.id = UUID.randomUUID();
+		this.id = Message.idGenerator.nextId();
 		this.expirationDate = Long.MAX_VALUE;
 		this.priority = Priority.NORMAL;
 	}
@@ -75,6 +66,41 @@ public class Message<T> implements IMessage<T>, Serializable {
 		this.payload = payload;
 	}
 
+	/**
+	 * Constructs a new {@code Message} instance with the given {@code id} and
+	 * {@code payload}, e.g. to restore a message which has been transmitted or
+	 * stored.
+	 */
+	public Message(Object id, T payload) {
+		super();
+		this.id = id;
+		this.expirationDate = Long.MAX_VALUE;
+		this.priority = Priority.NORMAL;
+		this.payload = payload;
+	}
+
+	/**
+	 * Returns the {@link IMessageIdGenerator} which creates the IDs of new
+	 * messages.
+	 * 
+	 * @return the {@link IMessageIdGenerator}
+	 */
+	public static IMessageIdGenerator getIdGenerator() {
+		return Message.idGenerator;
+	}
+
+	/**
+	 * Sets the {@link IMessageIdGenerator} which creates the IDs of new
+	 * messages. The default is a {@link TimeOrderedIdGenerator}.
+	 * 
+	 * @param idGenerator
+	 *            the {@link IMessageIdGenerator}
+	 */
+	public static void setIdGenerator(IMessageIdGenerator idGenerator) {
+		Assertions.mustNotBeNull("idGenerator", idGenerator); //$NON-NLS-1$
+		Message.idGenerator = idGenerator;
+	}
+
 	public Object getId() {
 		return this.id;
 	}
@@ -135,37 +161,15 @@ public class Message<T> implements IMessage<T>, Serializable {
 		this.payload = payload;
 	}
 
-	protected Map<String, PropertyDescriptor> createPropertyDescriptors() {
-		Map<String, PropertyDescriptor> propertyDescriptors = Message.CACHED_PROPERTY_DESCRIPTORS
-				.get(this.getClass());
-		if (propertyDescriptors == null) {
-			try {
-				BeanInfo beanInfo;
-				if (this.getClass() == Message.class) {
-					beanInfo = Introspector.getBeanInfo(this.getClass(),
-							Object.class);
-				} else {
-					beanInfo = Introspector.getBeanInfo(this.getClass(),
-							Message.class);
-				}
-				propertyDescriptors = new HashMap<String, PropertyDescriptor>();
-				for (PropertyDescriptor propertyDescriptor : beanInfo
-						.getPropertyDescriptors()) {
-					propertyDescriptors.put(propertyDescriptor.getName(),
-							propertyDescriptor);
-				}
-			} catch (IntrospectionException ex) {
-				Assertions.mustNotBeReached(ex);
-			}
-		}
-		return propertyDescriptors;
-	}
-
-	protected Map<String, PropertyDescriptor> propertyDescriptors() {
-		if (this.propertyDescriptors == null) {
-			this.propertyDescriptors = this.createPropertyDescriptors();
+	/**
+	 * Returns the {@link MessagePropertyTable} of the receiver's class, which
+	 * is shared by all its instances.
+	 */
+	protected MessagePropertyTable propertyTable() {
+		if (this.propertyTable == null) {
+			this.propertyTable = MessagePropertyTable.forClass(this.getClass());
 		}
-		return this.propertyDescriptors;
+		return this.propertyTable;
 	}
 
 	/*
@@ -174,10 +178,7 @@ public class Message<T> implements IMessage<T>, Serializable {
 	 * @see org.jmetis.messaging.core.IMessage#getPropertyNames()
 	 */
 	public String[] getPropertyNames() {
-		Map<String, PropertyDescriptor> propertyDescriptors = this
-				.propertyDescriptors();
-		return propertyDescriptors.keySet().toArray(
-				new String[propertyDescriptors.size()]);
+		return this.propertyTable().getPropertyNames();
 	}
 
 	/**
@@ -188,7 +189,7 @@ public class Message<T> implements IMessage<T>, Serializable {
 	 * @return {@code true} if the property exists; {@code false} otherwise
 	 */
 	public boolean containsProperty(String name) {
-		return this.propertyDescriptors().containsKey(name);
+		return this.propertyTable().getProperty(name) != null;
 	}
 
 	protected void assertIsValidPropertyName(String name) {
@@ -222,13 +223,11 @@ public class Message<T> implements IMessage<T>, Serializable {
 	 */
 	public Object getProperty(String name) {
 		this.assertIsValidPropertyName(name);
-		PropertyDescriptor propertyDescriptor = this.propertyDescriptors().get(
-				name);
-		if (propertyDescriptor != null) {
-			Method readMethod = propertyDescriptor.getReadMethod();
-			if (readMethod != null) {
+		MessageProperty property = this.propertyTable().getProperty(name);
+		if (property != null) {
+			if (property.isReadable()) {
 				try {
-					return readMethod.invoke(this);
+					return property.getValue(this);
 				} catch (Exception ex) {
 					return this.handleReadPropertyFailed(name, ex);
 				}
@@ -262,13 +261,11 @@ public class Message<T> implements IMessage<T>, Serializable {
 
 	public void setProperty(String name, Object value) {
 		this.assertIsValidPropertyName(name);
-		PropertyDescriptor propertyDescriptor = this.propertyDescriptors().get(
-				name);
-		if (propertyDescriptor != null) {
-			Method writeMethod = propertyDescriptor.getWriteMethod();
-			if (writeMethod != null) {
+		MessageProperty property = this.propertyTable().getProperty(name);
+		if (property != null) {
+			if (property.isWritable()) {
 				try {
-					writeMethod.invoke(this, value);
+					property.setValue(this, value);
 				} catch (Exception ex) {
 					this.handleWritePropertyFailed(name, value, ex);
 				}
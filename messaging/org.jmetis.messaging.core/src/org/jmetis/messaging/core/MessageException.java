@@ -13,6 +13,8 @@
  */
 package org.jmetis.messaging.core;
 
+import java.net.URI;
+
 /**
  * {@code MessageException}
  * 
@@ -57,4 +59,29 @@ public class MessageException extends RuntimeException {
 		// TODO
 	}
 
+	public static void capacityExceeded(int capacity) {
+		throw new MessageException("capacity of " + capacity //$NON-NLS-1$
+				+ " messages exceeded", null); //$NON-NLS-1$
+	}
+
+	public static void invalidSelector(String expression, int position) {
+		throw new MessageException("invalid message selector \"" + expression //$NON-NLS-1$
+				+ "\" at position " + position, null); //$NON-NLS-1$
+	}
+
+	public static void invalidEncoding(String reason) {
+		throw new MessageException("invalid message encoding: " + reason, //$NON-NLS-1$
+				null);
+	}
+
+	public static void unsupportedPayload(Class<?> payloadType) {
+		throw new MessageException("no codec for " + payloadType.getName(), //$NON-NLS-1$
+				null);
+	}
+
+	public static void sendInterrupted(URI channelIdentifier) {
+		throw new MessageException("sending to " + channelIdentifier //$NON-NLS-1$
+				+ " was interrupted", new InterruptedException()); //$NON-NLS-1$
+	}
+
 }
@@ -0,0 +1,139 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.core;
+
+import java.lang.reflect.Method;
+
+/**
+ * {@code MessageProperty} reads and writes one property of a {@link Message}.
+ * The properties of a message class are resolved once and shared by all its
+ * instances through its {@link MessagePropertyTable}.
+ * 
+ * @author era
+ */
+public abstract class MessageProperty {
+
+	private final String name;
+
+	/**
+	 * Constructs a new {@code MessageProperty} instance.
+	 * 
+	 */
+	protected MessageProperty(String name) {
+		super();
+		this.name = name;
+	}
+
+	/**
+	 * Returns the name of the property.
+	 * 
+	 * @return the name of the property
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Indicates whether the property can be read.
+	 * 
+	 * @return {@code true} if the property can be read
+	 */
+	public abstract boolean isReadable();
+
+	/**
+	 * Indicates whether the property can be written.
+	 * 
+	 * @return {@code true} if the property can be written
+	 */
+	public abstract boolean isWritable();
+
+	/**
+	 * Returns the value of the property of the given {@code message}.
+	 * 
+	 * @param message
+	 *            the {@link Message} to read the property of
+	 * @return the value of the property
+	 * @throws Exception
+	 *             if the property cannot be read
+	 */
+	public abstract Object getValue(Message<?> message) throws Exception;
+
+	/**
+	 * Sets the property of the given {@code message} to the given
+	 * {@code value}.
+	 * 
+	 * @param message
+	 *            the {@link Message} to write the property of
+	 * @param value
+	 *            the new value of the property
+	 * @throws Exception
+	 *             if the property cannot be written
+	 */
+	public abstract void setValue(Message<?> message, Object value)
+			throws Exception;
+
+	/**
+	 * {@code ReflectiveMessageProperty} accesses a property through its read
+	 * and write methods. The methods are made accessible once, so invoking
+	 * them skips the access checks.
+	 */
+	static class ReflectiveMessageProperty extends MessageProperty {
+
+		private final Method readMethod;
+
+		private final Method writeMethod;
+
+		ReflectiveMessageProperty(String name, Method readMethod,
+				Method writeMethod) {
+			super(name);
+			this.readMethod = ReflectiveMessageProperty.accessible(readMethod);
+			this.writeMethod = ReflectiveMessageProperty
+					.accessible(writeMethod);
+		}
+
+		private static Method accessible(Method method) {
+			if (method != null) {
+				try {
+					method.setAccessible(true);
+				} catch (SecurityException ex) {
+					// invoke with access checks
+				}
+			}
+			return method;
+		}
+
+		@Override
+		public boolean isReadable() {
+			return this.readMethod != null;
+		}
+
+		@Override
+		public boolean isWritable() {
+			return this.writeMethod != null;
+		}
+
+		@Override
+		public Object getValue(Message<?> message) throws Exception {
+			return this.readMethod.invoke(message);
+		}
+
+		@Override
+		public void setValue(Message<?> message, Object value)
+				throws Exception {
+			this.writeMethod.invoke(message, value);
+		}
+
+	}
+
+}
@@ -0,0 +1,287 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.core;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.jmetis.kernel.assertion.Assertions;
+
+/**
+ * {@code MessagePropertyTable} holds the {@link MessageProperty} accessors of
+ * a {@link Message} class. Each class is introspected once; the table is
+ * shared by all instances of the class.
+ * <p>
+ * The properties of {@link Message} itself are accessed by calling its
+ * methods directly. Properties declared by subclasses are accessed through
+ * their read and write methods, which are looked up and made accessible when
+ * the table is built.
+ * <p>
+ * The tables are cached by weak class keys and held softly, since their
+ * accessor methods refer to the class, so the cache does not keep message
+ * classes or their class loaders alive.
+ * 
+ * @author era
+ */
+public final class MessagePropertyTable {
+
+	private static final Map<Class<?>, Reference<MessagePropertyTable>> PROPERTY_TABLES = Collections
+			.synchronizedMap(new WeakHashMap<Class<?>, Reference<MessagePropertyTable>>());
+
+	private static final Map<String, MessageProperty> MESSAGE_PROPERTIES = MessagePropertyTable
+			.createMessageProperties();
+
+	private final Map<String, MessageProperty> properties;
+
+	private final String[] propertyNames;
+
+	private MessagePropertyTable(Map<String, MessageProperty> properties) {
+		super();
+		this.properties = properties;
+		this.propertyNames = properties.keySet().toArray(
+				new String[properties.size()]);
+		Arrays.sort(this.propertyNames);
+	}
+
+	/**
+	 * Returns the {@code MessagePropertyTable} of the given
+	 * {@code messageClass}. Instances of {@link Message} expose its header
+	 * properties; instances of subclasses the properties declared by the
+	 * subclasses.
+	 * 
+	 * @param messageClass
+	 *            {@link Message} or one of its subclasses
+	 * @return the {@code MessagePropertyTable} of the given
+	 *         {@code messageClass}
+	 */
+	public static MessagePropertyTable forClass(
+			Class<?> messageClass) {
+		Reference<MessagePropertyTable> reference = MessagePropertyTable.PROPERTY_TABLES
+				.get(messageClass);
+		MessagePropertyTable propertyTable = reference == null ? null
+				: reference.get();
+		if (propertyTable == null) {
+			// concurrent callers may build equivalent tables, the last one wins
+			propertyTable = MessagePropertyTable
+					.createPropertyTable(messageClass);
+			MessagePropertyTable.PROPERTY_TABLES.put(messageClass,
+					new SoftReference<MessagePropertyTable>(propertyTable));
+		}
+		return propertyTable;
+	}
+
+	private static MessagePropertyTable createPropertyTable(
+			Class<?> messageClass) {
+		Map<String, MessageProperty> properties = new HashMap<String, MessageProperty>();
+		try {
+			BeanInfo beanInfo;
+			if (messageClass == Message.class) {
+				beanInfo = Introspector.getBeanInfo(messageClass, Object.class);
+			} else {
+				beanInfo = Introspector
+						.getBeanInfo(messageClass, Message.class);
+			}
+			for (PropertyDescriptor propertyDescriptor : beanInfo
+					.getPropertyDescriptors()) {
+				properties.put(propertyDescriptor.getName(), MessagePropertyTable
+						.createProperty(propertyDescriptor));
+			}
+		} catch (IntrospectionException ex) {
+			Assertions.mustNotBeReached(ex);
+		}
+		return new MessagePropertyTable(properties);
+	}
+
+	private static MessageProperty createProperty(
+			PropertyDescriptor propertyDescriptor) {
+		Method readMethod = propertyDescriptor.getReadMethod();
+		Method writeMethod = propertyDescriptor.getWriteMethod();
+		if ((readMethod == null || readMethod.getDeclaringClass() == Message.class)
+				&& (writeMethod == null || writeMethod.getDeclaringClass() == Message.class)) {
+			MessageProperty property = MessagePropertyTable.MESSAGE_PROPERTIES
+					.get(propertyDescriptor.getName());
+			if (property != null) {
+				return property;
+			}
+		}
+		return new MessageProperty.ReflectiveMessageProperty(propertyDescriptor
+				.getName(), readMethod, writeMethod);
+	}
+
+	/**
+	 * Returns the {@link MessageProperty} with the given {@code name}.
+	 * 
+	 * @param name
+	 *            the name of the property
+	 * @return the {@link MessageProperty}, or {@code null} if the class has
+	 *         no property with the given {@code name}
+	 */
+	public MessageProperty getProperty(String name) {
+		return this.properties.get(name);
+	}
+
+	/**
+	 * Returns the names of the properties in alphabetical order.
+	 * 
+	 * @return a new array with the names of the properties
+	 */
+	public String[] getPropertyNames() {
+		return this.propertyNames.clone();
+	}
+
+	private static Map<String, MessageProperty> createMessageProperties() {
+		Map<String, MessageProperty> properties = new HashMap<String, MessageProperty>();
+		MessagePropertyTable.addProperty(properties, new HeaderProperty("id", //$NON-NLS-1$
+				false) {
+			@Override
+			public Object getValue(Message<?> message) {
+				return message.getId();
+			}
+		});
+		MessagePropertyTable.addProperty(properties, new HeaderProperty(
+				"correlationId", true) { //$NON-NLS-1$
+			@Override
+			public Object getValue(Message<?> message) {
+				return message.getCorrelationId();
+			}
+
+			@Override
+			public void setValue(Message<?> message, Object value) {
+				message.setCorrelationId(value);
+			}
+		});
+		MessagePropertyTable.addProperty(properties, new HeaderProperty(
+				"expirationDate", true) { //$NON-NLS-1$
+			@Override
+			public Object getValue(Message<?> message) {
+				return message.getExpirationDate();
+			}
+
+			@Override
+			public void setValue(Message<?> message, Object value) {
+				message.setExpirationDate((Date) value);
+			}
+		});
+		MessagePropertyTable.addProperty(properties, new HeaderProperty(
+				"priority", true) { //$NON-NLS-1$
+			@Override
+			public Object getValue(Message<?> message) {
+				return message.getPriority();
+			}
+
+			@Override
+			public void setValue(Message<?> message, Object value) {
+				message.setPriority((IMessage.Priority) value);
+			}
+		});
+		MessagePropertyTable.addProperty(properties, new HeaderProperty(
+				"sequenceNumber", true) { //$NON-NLS-1$
+			@Override
+			public Object getValue(Message<?> message) {
+				return Integer.valueOf(message.getSequenceNumber());
+			}
+
+			@Override
+			public void setValue(Message<?> message, Object value) {
+				message.setSequenceNumber(((Integer) value).intValue());
+			}
+		});
+		MessagePropertyTable.addProperty(properties, new HeaderProperty(
+				"sequenceSize", true) { //$NON-NLS-1$
+			@Override
+			public Object getValue(Message<?> message) {
+				return Integer.valueOf(message.getSequenceSize());
+			}
+
+			@Override
+			public void setValue(Message<?> message, Object value) {
+				message.setSequenceSize(((Integer) value).intValue());
+			}
+		});
+		MessagePropertyTable.addProperty(properties, new HeaderProperty(
+				"replyChannel", true) { //$NON-NLS-1$
+			@Override
+			public Object getValue(Message<?> message) {
+				return message.getReplyChannel();
+			}
+
+			@Override
+			public void setValue(Message<?> message, Object value) {
+				message.setReplyChannel((URI) value);
+			}
+		});
+		MessagePropertyTable.addProperty(properties, new HeaderProperty(
+				"payload", true) { //$NON-NLS-1$
+			@Override
+			public Object getValue(Message<?> message) {
+				return message.getPayload();
+			}
+
+			@Override
+			@SuppressWarnings("unchecked")
+			public void setValue(Message<?> message, Object value) {
+				((Message<Object>) message).setPayload(value);
+			}
+		});
+		return properties;
+	}
+
+	private static void addProperty(Map<String, MessageProperty> properties,
+			MessageProperty property) {
+		properties.put(property.getName(), property);
+	}
+
+	/**
+	 * {@code HeaderProperty} accesses a property of {@link Message} by calling
+	 * its methods directly.
+	 */
+	private abstract static class HeaderProperty extends MessageProperty {
+
+		private final boolean writable;
+
+		HeaderProperty(String name, boolean writable) {
+			super(name);
+			this.writable = writable;
+		}
+
+		@Override
+		public boolean isReadable() {
+			return true;
+		}
+
+		@Override
+		public boolean isWritable() {
+			return this.writable;
+		}
+
+		@Override
+		public void setValue(Message<?> message, Object value) {
+			throw new UnsupportedOperationException(this.getName());
+		}
+
+	}
+
+}
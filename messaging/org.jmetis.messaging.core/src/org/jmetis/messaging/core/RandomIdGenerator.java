@@ -0,0 +1,43 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.core;
+
+import java.util.UUID;
+
+/**
+ * {@code RandomIdGenerator} creates IDs with {@link UUID#randomUUID()}. The
+ * IDs are unique across processes without coordination but are not ordered,
+ * and creating them is serialized on a shared {@link java.security.SecureRandom}.
+ * 
+ * @author era
+ */
+public class RandomIdGenerator implements IMessageIdGenerator {
+
+	/**
+	 * Constructs a new {@code RandomIdGenerator} instance.
+	 */
+	public RandomIdGenerator() {
+		super();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.messaging.core.IMessageIdGenerator#nextId()
+	 */
+	public Object nextId() {
+		return UUID.randomUUID();
+	}
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.core;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code SequentialIdGenerator} creates {@link Long} IDs from a node prefix in
+ * the upper {@link #NODE_BITS} bits and a counter in the remaining bits. IDs
+ * created by one generator increase monotonically; the prefix distinguishes
+ * the IDs of different processes or nodes.
+ * 
+ * @author era
+ */
+public class SequentialIdGenerator implements IMessageIdGenerator {
+
+	public static final int NODE_BITS = 16;
+
+	private static final int COUNTER_BITS = 64 - SequentialIdGenerator.NODE_BITS;
+
+	private final long nodePrefix;
+
+	private final AtomicLong counter;
+
+	/**
+	 * Constructs a new {@code SequentialIdGenerator} instance with a random
+	 * node number.
+	 */
+	public SequentialIdGenerator() {
+		this(new SecureRandom().nextInt(1 << SequentialIdGenerator.NODE_BITS));
+	}
+
+	/**
+	 * Constructs a new {@code SequentialIdGenerator} instance.
+	 * 
+	 * @param node
+	 *            the node number, less than 2<sup>{@link #NODE_BITS}</sup>
+	 */
+	public SequentialIdGenerator(int node) {
+		super();
+		if (node < 0 || node >= 1 << SequentialIdGenerator.NODE_BITS) {
+			throw new IllegalArgumentException(Integer.toString(node));
+		}
+		this.nodePrefix = (long) node << SequentialIdGenerator.COUNTER_BITS;
+		this.counter = new AtomicLong();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.messaging.core.IMessageIdGenerator#nextId()
+	 */
+	public Object nextId() {
+		return Long.valueOf(this.nodePrefix | this.counter.incrementAndGet());
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.core;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code TimeOrderedIdGenerator} creates {@link UUID}s whose most significant
+ * bits hold the creation time in milliseconds followed by a sequence number,
+ * and whose least significant bits are a random number chosen once per
+ * generator. The IDs of one generator therefore sort in creation order, and
+ * the IDs of different generators are unique with high probability.
+ * <p>
+ * Unlike {@link UUID#randomUUID()}, creating an ID costs a single atomic
+ * update instead of a call to a shared {@link SecureRandom}. This is
+ * the default generator of {@link Message}.
+ * 
+ * @author era
+ */
+public class TimeOrderedIdGenerator implements IMessageIdGenerator {
+
+	private static final int SEQUENCE_BITS = 20;
+
+	private final long node;
+
+	private final AtomicLong lastTimestamp;
+
+	/**
+	 * Constructs a new {@code TimeOrderedIdGenerator} instance with a random
+	 * node number.
+	 */
+	public TimeOrderedIdGenerator() {
+		this(new SecureRandom().nextLong());
+	}
+
+	/**
+	 * Constructs a new {@code TimeOrderedIdGenerator} instance.
+	 * 
+	 * @param node
+	 *            the least significant bits of the IDs
+	 */
+	public TimeOrderedIdGenerator(long node) {
+		super();
+		this.node = node;
+		this.lastTimestamp = new AtomicLong();
+	}
+
+	/**
+	 * Returns the next timestamp, which is the current time shifted by the
+	 * sequence bits or, if IDs have been created faster, the last timestamp
+	 * incremented by one.
+	 */
+	protected long nextTimestamp() {
+		long now = System.currentTimeMillis() << TimeOrderedIdGenerator.SEQUENCE_BITS;
+		long last = this.lastTimestamp.get();
+		if (now > last && this.lastTimestamp.compareAndSet(last, now)) {
+			return now;
+		}
+		return this.lastTimestamp.incrementAndGet();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.messaging.core.IMessageIdGenerator#nextId()
+	 */
+	public Object nextId() {
+		return new UUID(this.nextTimestamp(), this.node);
+	}
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.memory;
+
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jmetis.kernel.assertion.Assertions;
+import org.jmetis.messaging.channel.ChannelManager;
+import org.jmetis.messaging.channel.OverflowPolicy;
+import org.jmetis.messaging.core.IInboundChannel;
+import org.jmetis.messaging.core.IMessage;
+import org.jmetis.messaging.core.IOutboundChannel;
+
+/**
+ * {@code MemoryChannelManager} resolves channel identifiers to in-process
+ * channels. The {@link IOutboundChannel} and the {@link IInboundChannel} of an
+ * identifier share one bounded {@link RingBuffer}, so a message is handed from
+ * the producer to the consumer without any intermediate event or dictionary.
+ * 
+ * @author era
+ */
+public class MemoryChannelManager extends ChannelManager {
+
+	public static final String SCHEME = "memory"; //$NON-NLS-1$
+
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	private final int capacity;
+
+	private final boolean multipleProducers;
+
+	private final OverflowPolicy overflowPolicy;
+
+	private final ConcurrentMap<URI, MemoryInboundChannel<?>> inboundChannels;
+
+	private final ConcurrentMap<URI, MemoryOutboundChannel<?>> outboundChannels;
+
+	/**
+	 * Constructs a new {@code MemoryChannelManager} instance whose channels may
+	 * be written by multiple threads concurrently.
+	 */
+	public MemoryChannelManager() {
+		this(MemoryChannelManager.DEFAULT_CAPACITY, true);
+	}
+
+	/**
+	 * Constructs a new {@code MemoryChannelManager} instance.
+	 * 
+	 * @param capacity
+	 *            the capacity of the message buffer of each channel
+	 * @param multipleProducers
+	 *            {@code true} if channels may be written by multiple threads
+	 *            concurrently, {@code false} if each channel has a single
+	 *            producing thread
+	 */
+	public MemoryChannelManager(int capacity, boolean multipleProducers) {
+		this(capacity, multipleProducers, OverflowPolicy.BLOCK);
+	}
+
+	/**
+	 * Constructs a new {@code MemoryChannelManager} instance.
+	 * 
+	 * @param capacity
+	 *            the capacity of the message buffer of each channel
+	 * @param multipleProducers
+	 *            {@code true} if channels may be written by multiple threads
+	 *            concurrently, {@code false} if each channel has a single
+	 *            producing thread
+	 * @param overflowPolicy
+	 *            the {@link OverflowPolicy} applied while the message buffer
+	 *            of a channel is full
+	 */
+	public MemoryChannelManager(int capacity, boolean multipleProducers,
+			OverflowPolicy overflowPolicy) {
+		super();
+		if (capacity < 1) {
+			throw new IllegalArgumentException(Integer.toString(capacity));
+		}
+		Assertions.mustNotBeNull("overflowPolicy", overflowPolicy); //$NON-NLS-1$
+		this.capacity = capacity;
+		this.multipleProducers = multipleProducers;
+		this.overflowPolicy = overflowPolicy;
+		this.inboundChannels = new ConcurrentHashMap<URI, MemoryInboundChannel<?>>();
+		this.outboundChannels = new ConcurrentHashMap<URI, MemoryOutboundChannel<?>>();
+	}
+
+	/**
+	 * Creates the {@link RingBuffer} shared by the channels with the given
+	 * {@link URI channelIdentifier}.
+	 */
+	protected RingBuffer<IMessage<?>> createMessageBuffer(URI channelIdentifier) {
+		if (this.multipleProducers) {
+			return new MultiProducerRingBuffer<IMessage<?>>(this.capacity);
+		}
+		return new SingleProducerRingBuffer<IMessage<?>>(this.capacity);
+	}
+
+	protected MemoryInboundChannel<?> inboundChannel(URI channelIdentifier) {
+		Assertions.mustNotBeNull("channelIdentifier", channelIdentifier); //$NON-NLS-1$
+		MemoryInboundChannel<?> inboundChannel = this.inboundChannels
+				.get(channelIdentifier);
+		if (inboundChannel == null) {
+			inboundChannel = new MemoryInboundChannel<Object>(this,
+					channelIdentifier, this
+							.createMessageBuffer(channelIdentifier),
+					this.overflowPolicy);
+			MemoryInboundChannel<?> existingChannel = this.inboundChannels
+					.putIfAbsent(channelIdentifier, inboundChannel);
+			if (existingChannel != null) {
+				inboundChannel = existingChannel;
+			}
+		}
+		return inboundChannel;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.core.IChannelManager#getInboundChannel(java.net.URI)
+	 */
+	public IInboundChannel<?> getInboundChannel(URI channelIdentifier) {
+		return this.inboundChannel(channelIdentifier);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.core.IChannelManager#getOutboundChannel(java.net.URI)
+	 */
+	public IOutboundChannel<?> getOutboundChannel(URI channelIdentifier) {
+		MemoryOutboundChannel<?> outboundChannel = this.outboundChannels
+				.get(channelIdentifier);
+		if (outboundChannel == null) {
+			outboundChannel = new MemoryOutboundChannel<Object>(this,
+					channelIdentifier, this.inboundChannel(channelIdentifier));
+			MemoryOutboundChannel<?> existingChannel = this.outboundChannels
+					.putIfAbsent(channelIdentifier, outboundChannel);
+			if (existingChannel != null) {
+				outboundChannel = existingChannel;
+			}
+		}
+		return outboundChannel;
+	}
+
+	/**
+	 * Removes the channels with the given {@link URI channelIdentifier}.
+	 * Messages which have not been received yet are discarded.
+	 * 
+	 * @param channelIdentifier
+	 *            the {@link URI channelIdentifier}
+	 */
+	public void releaseChannel(URI channelIdentifier) {
+		this.outboundChannels.remove(channelIdentifier);
+		MemoryInboundChannel<?> inboundChannel = this.inboundChannels
+				.remove(channelIdentifier);
+		if (inboundChannel != null) {
+			inboundChannel.stopDispatcher();
+		}
+	}
+
+}
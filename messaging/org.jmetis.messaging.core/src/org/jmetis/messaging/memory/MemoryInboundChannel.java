@@ -0,0 +1,300 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.memory;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.jmetis.kernel.assertion.Assertions;
+import org.jmetis.messaging.channel.InboundChannel;
+import org.jmetis.messaging.channel.OverflowPolicy;
+import org.jmetis.messaging.core.IChannelManager;
+import org.jmetis.messaging.core.IMessage;
+import org.jmetis.messaging.core.IMessageListener;
+import org.jmetis.messaging.core.IMessageSelector;
+import org.jmetis.messaging.core.MessageException;
+
+/**
+ * {@code MemoryInboundChannel} receives the messages sent through the
+ * {@link MemoryOutboundChannel} with the same channel identifier.
+ * <p>
+ * While the message buffer is full the channel applies its
+ * {@link OverflowPolicy} on the sending thread and counts each message the
+ * policy has been applied to.
+ * 
+ * @author era
+ */
+public class MemoryInboundChannel<T> extends InboundChannel<T> {
+
+	private final IChannelManager channelManager;
+
+	private final URI channelIdentifier;
+
+	private final RingBuffer<IMessage<?>> messageBuffer;
+
+	private final OverflowPolicy overflowPolicy;
+
+	private final AtomicLongArray overflowCounts;
+
+	private final List<IMessageListener<T>> messageListeners;
+
+	private volatile IMessageSelector<T> messageSelector;
+
+	private volatile MessageBufferDispatcher<T> dispatcher;
+
+	/**
+	 * Constructs a new {@code MemoryInboundChannel} instance which blocks
+	 * senders while its message buffer is full.
+	 * 
+	 */
+	public MemoryInboundChannel(IChannelManager channelManager,
+			URI channelIdentifier, RingBuffer<IMessage<?>> messageBuffer) {
+		this(channelManager, channelIdentifier, messageBuffer,
+				OverflowPolicy.BLOCK);
+	}
+
+	/**
+	 * Constructs a new {@code MemoryInboundChannel} instance.
+	 * 
+	 */
+	public MemoryInboundChannel(IChannelManager channelManager,
+			URI channelIdentifier, RingBuffer<IMessage<?>> messageBuffer,
+			OverflowPolicy overflowPolicy) {
+		super();
+		Assertions.mustNotBeNull("overflowPolicy", overflowPolicy); //$NON-NLS-1$
+		this.channelManager = channelManager;
+		this.channelIdentifier = channelIdentifier;
+		this.messageBuffer = messageBuffer;
+		this.overflowPolicy = overflowPolicy;
+		this.overflowCounts = new AtomicLongArray(
+				OverflowPolicy.values().length);
+		this.messageListeners = new CopyOnWriteArrayList<IMessageListener<T>>();
+	}
+
+	RingBuffer<IMessage<?>> messageBuffer() {
+		return this.messageBuffer;
+	}
+
+	/**
+	 * Queues the given {@code message}, applying the overflow policy while the
+	 * message buffer is full, and schedules the dispatcher if listeners are
+	 * registered.
+	 */
+	void enqueueMessage(IMessage<?> message) {
+		if (!this.messageBuffer.offer(message)) {
+			this.overflow(message);
+		}
+		this.messagesEnqueued();
+	}
+
+	/**
+	 * Queues the given {@code messages} in order, applying the overflow policy
+	 * while the message buffer is full. The dispatcher is scheduled whenever
+	 * the buffer fills up and once all messages have been queued.
+	 */
+	void enqueueMessages(Collection<? extends IMessage<?>> messages) {
+		for (IMessage<?> message : messages) {
+			if (!this.messageBuffer.offer(message)) {
+				this.messagesEnqueued();
+				this.overflow(message);
+			}
+		}
+		this.messagesEnqueued();
+	}
+
+	/**
+	 * Applies the overflow policy to the given {@code message} which did not
+	 * fit into the full message buffer.
+	 */
+	private void overflow(IMessage<?> message) {
+		this.overflowCounts.incrementAndGet(this.overflowPolicy.ordinal());
+		switch (this.overflowPolicy) {
+		case BLOCK:
+			if (!this.messageBuffer.offer(message, RingBuffer.INFINITE_TIMEOUT)) {
+				MessageException.sendInterrupted(this.channelIdentifier);
+			}
+			break;
+		case DROP_OLDEST:
+			while (!this.messageBuffer.offer(message)) {
+				this.messageBuffer.poll();
+			}
+			break;
+		case REJECT:
+			MessageException.capacityExceeded(this.messageBuffer.capacity());
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Returns the {@link OverflowPolicy} applied while the message buffer is
+	 * full.
+	 * 
+	 * @return the {@link OverflowPolicy}
+	 */
+	public OverflowPolicy getOverflowPolicy() {
+		return this.overflowPolicy;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.channel.InboundChannel#getOverflowCount(org.jmetis
+	 * .messaging.channel.OverflowPolicy)
+	 */
+	@Override
+	public long getOverflowCount(OverflowPolicy overflowPolicy) {
+		return this.overflowCounts.get(overflowPolicy.ordinal());
+	}
+
+	private void messagesEnqueued() {
+		MessageBufferDispatcher<T> dispatcher = this.dispatcher;
+		if (dispatcher != null) {
+			dispatcher.schedule();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.messaging.channel.MessageChannel#getChannelIdentifier()
+	 */
+	@Override
+	public URI getChannelIdentifier() {
+		return this.channelIdentifier;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.messaging.core.IMessageChannel#getChannelManager()
+	 */
+	public IChannelManager getChannelManager() {
+		return this.channelManager;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.messaging.core.IInboundChannel#getMessageSelector()
+	 */
+	@Override
+	public IMessageSelector<T> getMessageSelector() {
+		return this.messageSelector;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.core.IInboundChannel#setMessageSelector(org.jmetis
+	 * .messaging.core.IMessageSelector)
+	 */
+	@Override
+	public void setMessageSelector(IMessageSelector<T> messageSelector) {
+		this.messageSelector = messageSelector;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.core.IInboundChannel#addMessageListener(org.jmetis
+	 * .messaging.core.IMessageListener)
+	 */
+	@Override
+	public synchronized void addMessageListener(
+			IMessageListener<T> channelListener) {
+		this.messageListeners.add(channelListener);
+		if (this.dispatcher == null) {
+			this.dispatcher = new MessageBufferDispatcher<T>(this);
+			this.dispatcher.schedule();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.core.IInboundChannel#removeMessageListener(org.jmetis
+	 * .messaging.core.IMessageListener)
+	 */
+	@Override
+	public synchronized void removeMessageListener(
+			IMessageListener<T> channelListener) {
+		this.messageListeners.remove(channelListener);
+		if (this.messageListeners.isEmpty()) {
+			this.stopDispatcher();
+		}
+	}
+
+	synchronized void stopDispatcher() {
+		if (this.dispatcher != null) {
+			this.dispatcher.stop();
+			this.dispatcher = null;
+		}
+	}
+
+	/**
+	 * Passes the given {@code messages} to all listeners if they are accepted
+	 * by the message selector.
+	 */
+	protected void dispatchMessages(List<IMessage<T>> messages) {
+		this.dispatchMessages(messages, this.messageSelector,
+				this.messageListeners);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.messaging.core.IInboundChannel#receiveMessage(long)
+	 */
+	@SuppressWarnings("unchecked")
+	public IMessage<T> receiveMessage(long timeout) throws MessageException {
+		IMessage<?> message = this.messageBuffer.poll();
+		if (message == null && timeout > 0) {
+			message = this.messageBuffer.poll(timeout);
+		}
+		return (IMessage<T>) message;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.messaging.channel.InboundChannel#receiveMessages(int,
+	 * long)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<IMessage<T>> receiveMessages(int maxMessages, long timeout)
+			throws MessageException {
+		List<IMessage<T>> messages = new ArrayList<IMessage<T>>();
+		if (maxMessages > 0) {
+			IMessage<T> message = this.receiveMessage(timeout);
+			if (message != null) {
+				messages.add(message);
+				this.messageBuffer.drainTo((List<IMessage<?>>) (List<?>) messages,
+						maxMessages - 1);
+			}
+		}
+		return messages;
+	}
+
+}
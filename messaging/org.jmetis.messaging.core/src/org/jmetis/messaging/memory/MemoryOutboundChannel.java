@@ -0,0 +1,98 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.memory;
+
+import java.net.URI;
+import java.util.Collection;
+
+import org.jmetis.messaging.channel.OutboundChannel;
+import org.jmetis.messaging.core.IChannelManager;
+import org.jmetis.messaging.core.IMessage;
+import org.jmetis.messaging.core.MessageException;
+
+/**
+ * {@code MemoryOutboundChannel} puts messages directly into the
+ * {@link RingBuffer} of the corresponding {@link MemoryInboundChannel}. If the
+ * buffer is full the sender waits until a consumer has made room.
+ * 
+ * @author era
+ */
+public class MemoryOutboundChannel<T> extends OutboundChannel<T> {
+
+	private final IChannelManager channelManager;
+
+	private final URI channelIdentifier;
+
+	private final MemoryInboundChannel<?> inboundChannel;
+
+	/**
+	 * Constructs a new {@code MemoryOutboundChannel} instance.
+	 * 
+	 */
+	public MemoryOutboundChannel(IChannelManager channelManager,
+			URI channelIdentifier, MemoryInboundChannel<?> inboundChannel) {
+		super();
+		this.channelManager = channelManager;
+		this.channelIdentifier = channelIdentifier;
+		this.inboundChannel = inboundChannel;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.messaging.channel.MessageChannel#getChannelIdentifier()
+	 */
+	@Override
+	public URI getChannelIdentifier() {
+		return this.channelIdentifier;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.messaging.core.IMessageChannel#getChannelManager()
+	 */
+	public IChannelManager getChannelManager() {
+		return this.channelManager;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.core.IOutboundChannel#sendMessage(org.jmetis.messaging
+	 * .core.IMessage)
+	 */
+	public void sendMessage(IMessage<T> message) throws MessageException {
+		this.applyTimeToLive(message);
+		this.inboundChannel.enqueueMessage(message);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.channel.OutboundChannel#sendMessages(java.util.Collection
+	 * )
+	 */
+	@Override
+	public void sendMessages(Collection<? extends IMessage<T>> messages)
+			throws MessageException {
+		for (IMessage<T> message : messages) {
+			this.applyTimeToLive(message);
+		}
+		this.inboundChannel.enqueueMessages(messages);
+	}
+
+}
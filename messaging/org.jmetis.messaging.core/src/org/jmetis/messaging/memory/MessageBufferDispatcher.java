@@ -0,0 +1,79 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.memory;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.jmetis.messaging.channel.ChannelDispatcher;
+import org.jmetis.messaging.core.IMessage;
+
+/**
+ * {@code MessageBufferDispatcher} passes the messages in the
+ * {@link RingBuffer} of a {@link MemoryInboundChannel} to its listeners.
+ * 
+ * @author era
+ */
+class MessageBufferDispatcher<T> extends ChannelDispatcher<IMessage<?>> {
+
+	private final MemoryInboundChannel<T> inboundChannel;
+
+	private final RingBuffer<IMessage<?>> messageBuffer;
+
+	/**
+	 * Constructs a new {@code MessageBufferDispatcher} instance.
+	 * 
+	 */
+	public MessageBufferDispatcher(MemoryInboundChannel<T> inboundChannel) {
+		super(inboundChannel);
+		this.inboundChannel = inboundChannel;
+		this.messageBuffer = inboundChannel.messageBuffer();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.channel.ChannelDispatcher#drainTo(java.util.Collection
+	 * , int)
+	 */
+	@Override
+	protected int drainTo(Collection<? super IMessage<?>> batch,
+			int maxElements) {
+		return this.messageBuffer.drainTo(batch, maxElements);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.messaging.channel.ChannelDispatcher#hasPendingElements()
+	 */
+	@Override
+	protected boolean hasPendingElements() {
+		return !this.messageBuffer.isEmpty();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.channel.ChannelDispatcher#dispatch(java.util.List)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	protected void dispatch(List<IMessage<?>> batch) {
+		this.inboundChannel.dispatchMessages((List<IMessage<T>>) (List<?>) batch);
+	}
+
+}
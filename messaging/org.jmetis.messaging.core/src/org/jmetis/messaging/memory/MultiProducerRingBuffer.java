@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.memory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jmetis.kernel.assertion.Assertions;
+
+/**
+ * {@code MultiProducerRingBuffer} is a {@link RingBuffer} that may be written
+ * by any number of threads concurrently. Producers claim slots with a
+ * compare-and-set on the producer sequence.
+ * 
+ * @author era
+ */
+public class MultiProducerRingBuffer<E> extends RingBuffer<E> {
+
+	private final AtomicLong producerSequence;
+
+	/**
+	 * Constructs a new {@code MultiProducerRingBuffer} instance.
+	 * 
+	 * @param capacity
+	 *            the minimum capacity, rounded up to the next power of two
+	 */
+	public MultiProducerRingBuffer(int capacity) {
+		super(capacity);
+		this.producerSequence = new AtomicLong();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.messaging.memory.RingBuffer#producerSequence()
+	 */
+	@Override
+	protected long producerSequence() {
+		return this.producerSequence.get();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.messaging.memory.RingBuffer#offer(java.lang.Object)
+	 */
+	@Override
+	public boolean offer(E element) {
+		Assertions.mustNotBeNull("element", element); //$NON-NLS-1$
+		while (true) {
+			long sequence = this.producerSequence.get();
+			long difference = this.sequences.get((int) sequence & this.mask)
+					- sequence;
+			if (difference == 0) {
+				if (this.producerSequence.compareAndSet(sequence, sequence + 1)) {
+					this.publish(sequence, element);
+					return true;
+				}
+			} else if (difference < 0) {
+				return false;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,267 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.memory;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@code RingBuffer} is a bounded, lock-free queue backed by an array whose
+ * length is a power of two. Every slot carries a sequence number which tells
+ * producers and consumers whether the slot may be written or read in the
+ * current lap, so neither side ever takes a lock.
+ * <p>
+ * Consumers claim slots with a compare-and-set on the consumer sequence and
+ * may therefore poll concurrently. How producers claim slots is defined by
+ * the subclasses {@link SingleProducerRingBuffer} and
+ * {@link MultiProducerRingBuffer}.
+ * <p>
+ * The timed {@code offer} and {@code poll} methods wait by spinning, then
+ * yielding and finally parking with an increasing back-off, so producers
+ * never have to signal waiting consumers.
+ * 
+ * @author era
+ */
+public abstract class RingBuffer<E> {
+
+	public static final long INFINITE_TIMEOUT = Long.MAX_VALUE;
+
+	private static final int SPIN_TRIES = 100;
+
+	private static final int YIELD_TRIES = 200;
+
+	private static final long MIN_PARK_NANOS = TimeUnit.MICROSECONDS
+			.toNanos(1);
+
+	private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS
+			.toNanos(1);
+
+	protected final int mask;
+
+	protected final Object[] elements;
+
+	protected final AtomicLongArray sequences;
+
+	private final AtomicLong consumerSequence;
+
+	/**
+	 * Constructs a new {@code RingBuffer} instance which holds at least
+	 * {@code capacity} elements.
+	 * 
+	 * @param capacity
+	 *            the minimum capacity, rounded up to the next power of two
+	 */
+	protected RingBuffer(int capacity) {
+		super();
+		if (capacity < 1 || capacity > 1 << 30) {
+			throw new IllegalArgumentException(Integer.toString(capacity));
+		}
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity) {
+			size <<= 1;
+		}
+		this.mask = size - 1;
+		this.elements = new Object[size];
+		this.sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			this.sequences.set(i, i);
+		}
+		this.consumerSequence = new AtomicLong();
+	}
+
+	/**
+	 * Returns the number of elements the receiver can hold.
+	 * 
+	 * @return the number of elements the receiver can hold
+	 */
+	public int capacity() {
+		return this.elements.length;
+	}
+
+	/**
+	 * Returns the sequence of the next slot a producer will claim.
+	 * 
+	 * @return the sequence of the next slot a producer will claim
+	 */
+	protected abstract long producerSequence();
+
+	/**
+	 * Inserts the given {@code element} if a slot is available.
+	 * 
+	 * @param element
+	 *            the element to insert
+	 * @return {@code true} if the element was inserted; {@code false} if the
+	 *         receiver is full
+	 */
+	public abstract boolean offer(E element);
+
+	/**
+	 * Stores {@code element} into the claimed slot and publishes it to the
+	 * consumers.
+	 */
+	protected void publish(long sequence, E element) {
+		int index = (int) sequence & this.mask;
+		this.elements[index] = element;
+		this.sequences.set(index, sequence + 1);
+	}
+
+	/**
+	 * Removes the head element if one is available.
+	 * 
+	 * @return the head element, or {@code null} if the receiver is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public E poll() {
+		while (true) {
+			long sequence = this.consumerSequence.get();
+			int index = (int) sequence & this.mask;
+			long difference = this.sequences.get(index) - (sequence + 1);
+			if (difference == 0) {
+				if (this.consumerSequence.compareAndSet(sequence, sequence + 1)) {
+					E element = (E) this.elements[index];
+					this.elements[index] = null;
+					this.sequences.set(index, sequence + this.mask + 1);
+					return element;
+				}
+			} else if (difference < 0) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Inserts the given {@code element}, waiting up to {@code timeout}
+	 * milliseconds for a slot to become available.
+	 * 
+	 * @param element
+	 *            the element to insert
+	 * @param timeout
+	 *            the timeout in milliseconds, or {@link #INFINITE_TIMEOUT}
+	 * @return {@code true} if the element was inserted; {@code false} if the
+	 *         timeout elapsed or the calling thread was interrupted
+	 */
+	public boolean offer(E element, long timeout) {
+		long deadline = this.deadline(timeout);
+		for (int attempt = 0; !this.offer(element); attempt++) {
+			if (!this.backOff(attempt, deadline)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Removes the head element, waiting up to {@code timeout} milliseconds for
+	 * an element to become available.
+	 * 
+	 * @param timeout
+	 *            the timeout in milliseconds, or {@link #INFINITE_TIMEOUT}
+	 * @return the head element, or {@code null} if the timeout elapsed or the
+	 *         calling thread was interrupted
+	 */
+	public E poll(long timeout) {
+		long deadline = this.deadline(timeout);
+		E element;
+		for (int attempt = 0; (element = this.poll()) == null; attempt++) {
+			if (!this.backOff(attempt, deadline)) {
+				return null;
+			}
+		}
+		return element;
+	}
+
+	/**
+	 * Removes up to {@code maxElements} elements without waiting and adds them
+	 * to the given {@code collection}.
+	 * 
+	 * @param collection
+	 *            the collection to add the elements to
+	 * @param maxElements
+	 *            the maximum number of elements to remove
+	 * @return the number of elements removed
+	 */
+	public int drainTo(Collection<? super E> collection, int maxElements) {
+		int count = 0;
+		E element;
+		while (count < maxElements && (element = this.poll()) != null) {
+			collection.add(element);
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of elements in the receiver. The result is only an
+	 * estimate while producers or consumers are active.
+	 * 
+	 * @return the number of elements in the receiver
+	 */
+	public int size() {
+		long size = this.producerSequence() - this.consumerSequence.get();
+		if (size < 0) {
+			return 0;
+		}
+		return (int) Math.min(size, this.elements.length);
+	}
+
+	/**
+	 * Indicates whether the receiver contains no elements.
+	 * 
+	 * @return {@code true} if the receiver contains no elements
+	 */
+	public boolean isEmpty() {
+		return this.size() == 0;
+	}
+
+	private long deadline(long timeout) {
+		long now = System.nanoTime();
+		long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+		if (timeout == RingBuffer.INFINITE_TIMEOUT
+				|| nanos >= Long.MAX_VALUE - Math.max(now, 0)) {
+			return Long.MAX_VALUE;
+		}
+		return now + nanos;
+	}
+
+	/**
+	 * Waits before the next attempt and answers whether another attempt should
+	 * be made.
+	 */
+	private boolean backOff(int attempt, long deadline) {
+		if (Thread.currentThread().isInterrupted()) {
+			return false;
+		}
+		long remaining = deadline == Long.MAX_VALUE ? Long.MAX_VALUE
+				: deadline - System.nanoTime();
+		if (remaining <= 0) {
+			return false;
+		}
+		if (attempt < RingBuffer.SPIN_TRIES) {
+			return true;
+		}
+		if (attempt < RingBuffer.YIELD_TRIES) {
+			Thread.yield();
+			return true;
+		}
+		int shift = Math.min(attempt - RingBuffer.YIELD_TRIES, 10);
+		long parkNanos = Math.min(RingBuffer.MIN_PARK_NANOS << shift,
+				RingBuffer.MAX_PARK_NANOS);
+		LockSupport.parkNanos(Math.min(parkNanos, remaining));
+		return true;
+	}
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.memory;
+
+import org.jmetis.kernel.assertion.Assertions;
+
+/**
+ * {@code SingleProducerRingBuffer} is a {@link RingBuffer} that must only be
+ * written by one thread at a time. Producers claim slots without any atomic
+ * read-modify-write instruction, which makes it the fastest choice for
+ * channels fed by a single thread.
+ * 
+ * @author era
+ */
+public class SingleProducerRingBuffer<E> extends RingBuffer<E> {
+
+	private volatile long producerSequence;
+
+	/**
+	 * Constructs a new {@code SingleProducerRingBuffer} instance.
+	 * 
+	 * @param capacity
+	 *            the minimum capacity, rounded up to the next power of two
+	 */
+	public SingleProducerRingBuffer(int capacity) {
+		super(capacity);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.messaging.memory.RingBuffer#producerSequence()
+	 */
+	@Override
+	protected long producerSequence() {
+		return this.producerSequence;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.messaging.memory.RingBuffer#offer(java.lang.Object)
+	 */
+	@Override
+	public boolean offer(E element) {
+		Assertions.mustNotBeNull("element", element); //$NON-NLS-1$
+		long sequence = this.producerSequence;
+		if (this.sequences.get((int) sequence & this.mask) != sequence) {
+			return false;
+		}
+		this.publish(sequence, element);
+		this.producerSequence = sequence + 1;
+		return true;
+	}
+
+}
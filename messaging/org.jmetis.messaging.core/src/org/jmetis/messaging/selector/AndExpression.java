@@ -0,0 +1,79 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.selector;
+
+import java.util.Map;
+
+import org.jmetis.messaging.core.IMessage;
+
+/**
+ * {@code AndExpression} is the conjunction of two boolean expressions. It is
+ * false if either operand is false and unknown if neither is false but one is
+ * unknown.
+ * 
+ * @author era
+ */
+class AndExpression extends SelectorExpression {
+
+	private final SelectorExpression left;
+
+	private final SelectorExpression right;
+
+	/**
+	 * Constructs a new {@code AndExpression} instance.
+	 * 
+	 */
+	AndExpression(SelectorExpression left, SelectorExpression right) {
+		super();
+		this.left = left;
+		this.right = right;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.selector.SelectorExpression#evaluate(org.jmetis.
+	 * messaging.core.IMessage)
+	 */
+	@Override
+	Object evaluate(IMessage<?> message) {
+		Object leftValue = this.left.evaluate(message);
+		if (leftValue == Boolean.FALSE) {
+			return Boolean.FALSE;
+		}
+		Object rightValue = this.right.evaluate(message);
+		if (rightValue == Boolean.FALSE) {
+			return Boolean.FALSE;
+		}
+		if (leftValue == Boolean.TRUE && rightValue == Boolean.TRUE) {
+			return Boolean.TRUE;
+		}
+		return null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.selector.SelectorExpression#collectEqualityConstraints
+	 * (java.util.Map)
+	 */
+	@Override
+	void collectEqualityConstraints(Map<String, Object> constraints) {
+		this.left.collectEqualityConstraints(constraints);
+		this.right.collectEqualityConstraints(constraints);
+	}
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.selector;
+
+import java.util.Map;
+
+import org.jmetis.messaging.core.IMessage;
+
+/**
+ * {@code ComparisonExpression} compares the values of two expressions. The
+ * result is unknown if either value is {@code null} or the values cannot be
+ * compared.
+ * 
+ * @author era
+ */
+class ComparisonExpression extends SelectorExpression {
+
+	/**
+	 * {@code Operator} defines the comparison operators.
+	 */
+	enum Operator {
+		EQUAL, NOT_EQUAL, LESS, LESS_OR_EQUAL, GREATER, GREATER_OR_EQUAL
+	}
+
+	private final Operator operator;
+
+	private final SelectorExpression left;
+
+	private final SelectorExpression right;
+
+	/**
+	 * Constructs a new {@code ComparisonExpression} instance.
+	 * 
+	 */
+	ComparisonExpression(Operator operator, SelectorExpression left,
+			SelectorExpression right) {
+		super();
+		this.operator = operator;
+		this.left = left;
+		this.right = right;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.selector.SelectorExpression#evaluate(org.jmetis.
+	 * messaging.core.IMessage)
+	 */
+	@Override
+	Object evaluate(IMessage<?> message) {
+		Object leftValue = this.left.evaluate(message);
+		if (leftValue == null) {
+			return null;
+		}
+		Object rightValue = this.right.evaluate(message);
+		if (rightValue == null) {
+			return null;
+		}
+		Integer comparison = SelectorValues.compare(leftValue, rightValue);
+		if (comparison == null) {
+			return null;
+		}
+		int result = comparison.intValue();
+		switch (this.operator) {
+		case EQUAL:
+			return SelectorExpression.valueOf(result == 0);
+		case NOT_EQUAL:
+			return SelectorExpression.valueOf(result != 0);
+		case LESS:
+			return SelectorExpression.valueOf(result < 0);
+		case LESS_OR_EQUAL:
+			return SelectorExpression.valueOf(result <= 0);
+		case GREATER:
+			return SelectorExpression.valueOf(result > 0);
+		default:
+			return SelectorExpression.valueOf(result >= 0);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.selector.SelectorExpression#collectEqualityConstraints
+	 * (java.util.Map)
+	 */
+	@Override
+	void collectEqualityConstraints(Map<String, Object> constraints) {
+		if (this.operator != Operator.EQUAL) {
+			return;
+		}
+		if (this.left instanceof PropertyExpression
+				&& this.right instanceof LiteralExpression) {
+			this.addConstraint(constraints, (PropertyExpression) this.left,
+					(LiteralExpression) this.right);
+		} else if (this.right instanceof PropertyExpression
+				&& this.left instanceof LiteralExpression) {
+			this.addConstraint(constraints, (PropertyExpression) this.right,
+					(LiteralExpression) this.left);
+		}
+	}
+
+	private void addConstraint(Map<String, Object> constraints,
+			PropertyExpression property, LiteralExpression literal) {
+		if (literal.getValue() != null) {
+			constraints.put(property.getPropertyAccessor().getPropertyName(),
+					literal.getValue());
+		}
+	}
+
+}
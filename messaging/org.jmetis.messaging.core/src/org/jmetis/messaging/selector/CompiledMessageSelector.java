@@ -0,0 +1,119 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.selector;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jmetis.kernel.assertion.Assertions;
+import org.jmetis.messaging.core.IMessage;
+import org.jmetis.messaging.core.IMessageSelector;
+
+/**
+ * {@code CompiledMessageSelector} accepts the messages matching a selector
+ * expression such as {@code "priority = 'HIGH' and sequenceNumber > 10"}.
+ * <p>
+ * The expression is parsed once when the selector is constructed. The header
+ * properties of {@link IMessage} are read by calling their accessor methods
+ * directly, so accepting a message neither parses nor looks up property
+ * names. The syntax follows the JMS message selectors without arithmetic: a
+ * boolean combination with {@code AND}, {@code OR} and {@code NOT} of
+ * comparisons, {@code BETWEEN}, {@code IN}, {@code LIKE} and {@code IS NULL}
+ * tests. A comparison involving a missing property is unknown, and a message
+ * is only accepted if the whole expression is true.
+ * 
+ * @author era
+ */
+public class CompiledMessageSelector<T> implements IMessageSelector<T> {
+
+	private final String expression;
+
+	private final SelectorExpression compiledExpression;
+
+	private final Map<String, Object> equalityConstraints;
+
+	/**
+	 * Constructs a new {@code CompiledMessageSelector} instance.
+	 * 
+	 * @param expression
+	 *            the selector expression
+	 * @throws org.jmetis.messaging.core.MessageException
+	 *             if the expression is not a valid selector
+	 */
+	public CompiledMessageSelector(String expression) {
+		super();
+		Assertions.mustNotBeNull("expression", expression); //$NON-NLS-1$
+		this.expression = expression;
+		this.compiledExpression = new SelectorParser(expression,
+				new HashMap<String, MessagePropertyAccessor>()).parse();
+		Map<String, Object> equalityConstraints = new LinkedHashMap<String, Object>();
+		this.compiledExpression.collectEqualityConstraints(equalityConstraints);
+		this.equalityConstraints = Collections
+				.unmodifiableMap(equalityConstraints);
+	}
+
+	/**
+	 * Returns the selector expression.
+	 * 
+	 * @return the selector expression
+	 */
+	public String getExpression() {
+		return this.expression;
+	}
+
+	/**
+	 * Returns the property values every accepted message must have, keyed by
+	 * property name. The values are normalized: integral numbers are
+	 * {@link Long}s and enumeration constants their names.
+	 * 
+	 * @return the equality constraints of the expression
+	 */
+	public Map<String, Object> getEqualityConstraints() {
+		return this.equalityConstraints;
+	}
+
+	/**
+	 * Indicates whether the expression is a single equality test, i.e. whether
+	 * a message is accepted if and only if it satisfies the only equality
+	 * constraint.
+	 */
+	boolean isSingleEquality() {
+		return this.compiledExpression instanceof ComparisonExpression
+				&& this.equalityConstraints.size() == 1;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.core.IMessageSelector#acceptMessage(org.jmetis.messaging
+	 * .core.IMessage)
+	 */
+	public boolean acceptMessage(IMessage<T> message) {
+		return this.compiledExpression.isTrue(message);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return this.expression;
+	}
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.selector;
+
+import java.util.Set;
+
+import org.jmetis.messaging.core.IMessage;
+
+/**
+ * {@code InExpression} tests whether the value of an expression is one of a
+ * set of literal values. The result is unknown if the value is {@code null}.
+ * 
+ * @author era
+ */
+class InExpression extends SelectorExpression {
+
+	private final SelectorExpression operand;
+
+	private final Set<Object> values;
+
+	/**
+	 * Constructs a new {@code InExpression} instance.
+	 * 
+	 * @param values
+	 *            the normalized literal values
+	 */
+	InExpression(SelectorExpression operand, Set<Object> values) {
+		super();
+		this.operand = operand;
+		this.values = values;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.selector.SelectorExpression#evaluate(org.jmetis.
+	 * messaging.core.IMessage)
+	 */
+	@Override
+	Object evaluate(IMessage<?> message) {
+		Object value = this.operand.evaluate(message);
+		if (value == null) {
+			return null;
+		}
+		if (value instanceof Double) {
+			for (Object each : this.values) {
+				Integer comparison = SelectorValues.compare(value, each);
+				if (comparison != null && comparison.intValue() == 0) {
+					return Boolean.TRUE;
+				}
+			}
+			return Boolean.FALSE;
+		}
+		return SelectorExpression.valueOf(this.values.contains(value));
+	}
+
+}
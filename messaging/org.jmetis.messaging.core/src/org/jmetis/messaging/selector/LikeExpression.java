@@ -0,0 +1,88 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.selector;
+
+import java.util.regex.Pattern;
+
+import org.jmetis.messaging.core.IMessage;
+
+/**
+ * {@code LikeExpression} matches the string value of an expression against a
+ * pattern in which {@code _} stands for any character and {@code %} for any
+ * sequence of characters. The pattern is translated into a regular expression
+ * once when the selector is compiled.
+ * 
+ * @author era
+ */
+class LikeExpression extends SelectorExpression {
+
+	private final SelectorExpression operand;
+
+	private final Pattern pattern;
+
+	/**
+	 * Constructs a new {@code LikeExpression} instance.
+	 * 
+	 * @param escape
+	 *            the escape character, or {@code null}
+	 */
+	LikeExpression(SelectorExpression operand, String likePattern,
+			Character escape) {
+		super();
+		this.operand = operand;
+		this.pattern = LikeExpression.compile(likePattern, escape);
+	}
+
+	private static Pattern compile(String likePattern, Character escape) {
+		StringBuilder regex = new StringBuilder(likePattern.length() * 2);
+		StringBuilder literal = new StringBuilder();
+		for (int i = 0; i < likePattern.length(); i++) {
+			char character = likePattern.charAt(i);
+			if (escape != null && character == escape.charValue()
+					&& i + 1 < likePattern.length()) {
+				literal.append(likePattern.charAt(++i));
+			} else if (character == '%' || character == '_') {
+				if (literal.length() > 0) {
+					regex.append(Pattern.quote(literal.toString()));
+					literal.setLength(0);
+				}
+				regex.append(character == '%' ? ".*" : "."); //$NON-NLS-1$ //$NON-NLS-2$
+			} else {
+				literal.append(character);
+			}
+		}
+		if (literal.length() > 0) {
+			regex.append(Pattern.quote(literal.toString()));
+		}
+		return Pattern.compile(regex.toString(), Pattern.DOTALL);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.selector.SelectorExpression#evaluate(org.jmetis.
+	 * messaging.core.IMessage)
+	 */
+	@Override
+	Object evaluate(IMessage<?> message) {
+		Object value = this.operand.evaluate(message);
+		if (value instanceof String) {
+			return SelectorExpression.valueOf(this.pattern.matcher(
+					(String) value).matches());
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.selector;
+
+import org.jmetis.messaging.core.IMessage;
+
+/**
+ * {@code LiteralExpression} evaluates to a constant value.
+ * 
+ * @author era
+ */
+class LiteralExpression extends SelectorExpression {
+
+	private final Object value;
+
+	/**
+	 * Constructs a new {@code LiteralExpression} instance.
+	 * 
+	 */
+	LiteralExpression(Object value) {
+		super();
+		this.value = SelectorValues.normalize(value);
+	}
+
+	Object getValue() {
+		return this.value;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.selector.SelectorExpression#evaluate(org.jmetis.
+	 * messaging.core.IMessage)
+	 */
+	@Override
+	Object evaluate(IMessage<?> message) {
+		return this.value;
+	}
+
+}
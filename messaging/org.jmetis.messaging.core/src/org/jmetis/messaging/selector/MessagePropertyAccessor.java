@@ -0,0 +1,134 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.selector;
+
+import org.jmetis.messaging.core.IMessage;
+import org.jmetis.messaging.core.Message;
+
+/**
+ * {@code MessagePropertyAccessor} reads a property of an {@link IMessage}.
+ * The header properties are read by calling the {@link IMessage} methods
+ * directly; any other property is read with {@link Message#getProperty(String)}
+ * and is unknown for other {@link IMessage} implementations.
+ * 
+ * @author era
+ */
+abstract class MessagePropertyAccessor {
+
+	private final String propertyName;
+
+	/**
+	 * Constructs a new {@code MessagePropertyAccessor} instance.
+	 * 
+	 */
+	protected MessagePropertyAccessor(String propertyName) {
+		super();
+		this.propertyName = propertyName;
+	}
+
+	String getPropertyName() {
+		return this.propertyName;
+	}
+
+	/**
+	 * Returns the value of the property of the given {@code message}, or
+	 * {@code null} if it does not exist.
+	 */
+	abstract Object getValue(IMessage<?> message);
+
+	/**
+	 * Returns the {@code MessagePropertyAccessor} for the property with the
+	 * given {@code propertyName}.
+	 */
+	static MessagePropertyAccessor forName(String propertyName) {
+		if ("id".equals(propertyName)) { //$NON-NLS-1$
+			return new MessagePropertyAccessor(propertyName) {
+				@Override
+				Object getValue(IMessage<?> message) {
+					return message.getId();
+				}
+			};
+		}
+		if ("correlationId".equals(propertyName)) { //$NON-NLS-1$
+			return new MessagePropertyAccessor(propertyName) {
+				@Override
+				Object getValue(IMessage<?> message) {
+					return message.getCorrelationId();
+				}
+			};
+		}
+		if ("expirationDate".equals(propertyName)) { //$NON-NLS-1$
+			return new MessagePropertyAccessor(propertyName) {
+				@Override
+				Object getValue(IMessage<?> message) {
+					return message.getExpirationDate();
+				}
+			};
+		}
+		if ("priority".equals(propertyName)) { //$NON-NLS-1$
+			return new MessagePropertyAccessor(propertyName) {
+				@Override
+				Object getValue(IMessage<?> message) {
+					return message.getPriority();
+				}
+			};
+		}
+		if ("sequenceNumber".equals(propertyName)) { //$NON-NLS-1$
+			return new MessagePropertyAccessor(propertyName) {
+				@Override
+				Object getValue(IMessage<?> message) {
+					return Integer.valueOf(message.getSequenceNumber());
+				}
+			};
+		}
+		if ("sequenceSize".equals(propertyName)) { //$NON-NLS-1$
+			return new MessagePropertyAccessor(propertyName) {
+				@Override
+				Object getValue(IMessage<?> message) {
+					return Integer.valueOf(message.getSequenceSize());
+				}
+			};
+		}
+		if ("replyChannel".equals(propertyName)) { //$NON-NLS-1$
+			return new MessagePropertyAccessor(propertyName) {
+				@Override
+				Object getValue(IMessage<?> message) {
+					return message.getReplyChannel();
+				}
+			};
+		}
+		if ("payload".equals(propertyName)) { //$NON-NLS-1$
+			return new MessagePropertyAccessor(propertyName) {
+				@Override
+				Object getValue(IMessage<?> message) {
+					return message.getPayload();
+				}
+			};
+		}
+		return new MessagePropertyAccessor(propertyName) {
+			@Override
+			Object getValue(IMessage<?> message) {
+				if (message instanceof Message<?>) {
+					Message<?> messageObject = (Message<?>) message;
+					if (messageObject.containsProperty(this.getPropertyName())) {
+						return messageObject.getProperty(this
+								.getPropertyName());
+					}
+				}
+				return null;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,265 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.selector;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.jmetis.kernel.assertion.Assertions;
+import org.jmetis.messaging.core.IMessage;
+import org.jmetis.messaging.core.IMessageListener;
+import org.jmetis.messaging.core.IMessageSelector;
+
+/**
+ * {@code MessageRouter} passes the messages of a channel to those of its
+ * listeners whose selectors accept them. It is registered as an ordinary
+ * {@link IMessageListener} of an inbound channel.
+ * <p>
+ * Listeners subscribing with a {@link CompiledMessageSelector} that requires
+ * a property to equal a literal value are indexed by that property and value.
+ * A message is only tested against the selectors of the listeners indexed by
+ * its own property values and the selectors that could not be indexed, so
+ * many listeners with equality selectors on the same property cost one
+ * property read and one hash lookup per message. Selectors consisting of a
+ * single equality test are not evaluated at all.
+ * <p>
+ * Listeners are kept in an immutable routing table which is replaced when a
+ * listener is added or removed, so routing never takes a lock. The order in
+ * which listeners receive a message is not defined. A listener or selector
+ * throwing an exception does not keep the message from the other listeners.
+ * 
+ * @author era
+ */
+public class MessageRouter<T> implements IMessageListener<T> {
+
+	private final List<Subscription<T>> subscriptions;
+
+	private volatile RoutingTable<T> routingTable;
+
+	/**
+	 * Constructs a new {@code MessageRouter} instance.
+	 * 
+	 */
+	public MessageRouter() {
+		super();
+		this.subscriptions = new ArrayList<Subscription<T>>();
+		this.routingTable = new RoutingTable<T>(this.subscriptions);
+	}
+
+	/**
+	 * Adds the given {@code messageListener} which receives the messages
+	 * matching the given selector {@code expression}.
+	 * 
+	 * @throws org.jmetis.messaging.core.MessageException
+	 *             if the expression is not a valid selector
+	 */
+	public void addMessageListener(String expression,
+			IMessageListener<T> messageListener) {
+		this.addMessageListener(new CompiledMessageSelector<T>(expression),
+				messageListener);
+	}
+
+	/**
+	 * Adds the given {@code messageListener} which receives the messages
+	 * accepted by the given {@code messageSelector}, or all messages if it is
+	 * {@code null}.
+	 */
+	public synchronized void addMessageListener(
+			IMessageSelector<T> messageSelector,
+			IMessageListener<T> messageListener) {
+		Assertions.mustNotBeNull("messageListener", messageListener); //$NON-NLS-1$
+		this.subscriptions.add(new Subscription<T>(messageSelector,
+				messageListener));
+		this.routingTable = new RoutingTable<T>(this.subscriptions);
+	}
+
+	/**
+	 * Removes all subscriptions of the given {@code messageListener}.
+	 */
+	public synchronized void removeMessageListener(
+			IMessageListener<T> messageListener) {
+		for (Iterator<Subscription<T>> iterator = this.subscriptions
+				.iterator(); iterator.hasNext();) {
+			if (iterator.next().messageListener == messageListener) {
+				iterator.remove();
+			}
+		}
+		this.routingTable = new RoutingTable<T>(this.subscriptions);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.core.IMessageListener#handleMessage(org.jmetis.messaging
+	 * .core.IMessage)
+	 */
+	public void handleMessage(IMessage<T> message) {
+		RoutingTable<T> routingTable = this.routingTable;
+		for (int i = 0; i < routingTable.indexedProperties.length; i++) {
+			Object value = SelectorValues
+					.normalize(routingTable.indexedProperties[i]
+							.getValue(message));
+			if (value != null) {
+				Subscription<T>[] candidates = routingTable.indexes[i]
+						.get(value);
+				if (candidates != null) {
+					for (Subscription<T> candidate : candidates) {
+						this.dispatch(candidate, message);
+					}
+				}
+			}
+		}
+		for (Subscription<T> subscription : routingTable.unindexed) {
+			this.dispatch(subscription, message);
+		}
+	}
+
+	private void dispatch(Subscription<T> subscription, IMessage<T> message) {
+		try {
+			subscription.dispatch(message);
+		} catch (RuntimeException ex) {
+			this.handleDispatchFailure(subscription.messageListener, ex);
+		}
+	}
+
+	/**
+	 * Handles the given {@code exception} thrown by the given
+	 * {@code messageListener} or its selector. The message is routed to the
+	 * remaining listeners afterwards. By default the exception is reported to
+	 * the {@link Thread.UncaughtExceptionHandler} of the routing thread.
+	 */
+	protected void handleDispatchFailure(IMessageListener<T> messageListener,
+			RuntimeException exception) {
+		Thread thread = Thread.currentThread();
+		thread.getUncaughtExceptionHandler().uncaughtException(thread,
+				exception);
+	}
+
+	/**
+	 * {@code Subscription} pairs a listener with its selector.
+	 */
+	private static class Subscription<T> {
+
+		private final IMessageSelector<T> messageSelector;
+
+		private final IMessageListener<T> messageListener;
+
+		private final String indexedProperty;
+
+		private final Object indexedValue;
+
+		private final boolean exact;
+
+		Subscription(IMessageSelector<T> messageSelector,
+				IMessageListener<T> messageListener) {
+			super();
+			this.messageSelector = messageSelector;
+			this.messageListener = messageListener;
+			if (messageSelector instanceof CompiledMessageSelector<?>) {
+				CompiledMessageSelector<T> compiledSelector = (CompiledMessageSelector<T>) messageSelector;
+				Map<String, Object> constraints = compiledSelector
+						.getEqualityConstraints();
+				if (constraints.isEmpty()) {
+					this.indexedProperty = null;
+					this.indexedValue = null;
+				} else {
+					Map.Entry<String, Object> constraint = constraints
+							.entrySet().iterator().next();
+					this.indexedProperty = constraint.getKey();
+					this.indexedValue = constraint.getValue();
+				}
+				this.exact = compiledSelector.isSingleEquality();
+			} else {
+				this.indexedProperty = null;
+				this.indexedValue = null;
+				this.exact = messageSelector == null;
+			}
+		}
+
+		void dispatch(IMessage<T> message) {
+			if (this.exact || this.messageSelector.acceptMessage(message)) {
+				this.messageListener.handleMessage(message);
+			}
+		}
+
+	}
+
+	/**
+	 * {@code RoutingTable} is an immutable snapshot of the subscriptions,
+	 * indexed by property name and value.
+	 */
+	private static class RoutingTable<T> {
+
+		private final MessagePropertyAccessor[] indexedProperties;
+
+		private final Map<Object, Subscription<T>[]>[] indexes;
+
+		private final Subscription<T>[] unindexed;
+
+		@SuppressWarnings("unchecked")
+		RoutingTable(List<Subscription<T>> subscriptions) {
+			super();
+			Map<String, Map<Object, List<Subscription<T>>>> indexedSubscriptions = new HashMap<String, Map<Object, List<Subscription<T>>>>();
+			List<Subscription<T>> unindexed = new ArrayList<Subscription<T>>();
+			for (Subscription<T> subscription : subscriptions) {
+				if (subscription.indexedProperty == null) {
+					unindexed.add(subscription);
+				} else {
+					Map<Object, List<Subscription<T>>> index = indexedSubscriptions
+							.get(subscription.indexedProperty);
+					if (index == null) {
+						index = new HashMap<Object, List<Subscription<T>>>();
+						indexedSubscriptions.put(subscription.indexedProperty,
+								index);
+					}
+					List<Subscription<T>> candidates = index
+							.get(subscription.indexedValue);
+					if (candidates == null) {
+						candidates = new ArrayList<Subscription<T>>();
+						index.put(subscription.indexedValue, candidates);
+					}
+					candidates.add(subscription);
+				}
+			}
+			this.indexedProperties = new MessagePropertyAccessor[indexedSubscriptions
+					.size()];
+			this.indexes = (Map<Object, Subscription<T>[]>[]) new Map<?, ?>[indexedSubscriptions
+					.size()];
+			int i = 0;
+			for (Map.Entry<String, Map<Object, List<Subscription<T>>>> entry : indexedSubscriptions
+					.entrySet()) {
+				this.indexedProperties[i] = MessagePropertyAccessor
+						.forName(entry.getKey());
+				Map<Object, Subscription<T>[]> index = new HashMap<Object, Subscription<T>[]>();
+				for (Map.Entry<Object, List<Subscription<T>>> candidates : entry
+						.getValue().entrySet()) {
+					index.put(candidates.getKey(), candidates.getValue()
+							.toArray(
+									(Subscription<T>[]) new Subscription<?>[candidates
+											.getValue().size()]));
+				}
+				this.indexes[i++] = index;
+			}
+			this.unindexed = unindexed
+					.toArray((Subscription<T>[]) new Subscription<?>[unindexed
+							.size()]);
+		}
+
+	}
+
+}
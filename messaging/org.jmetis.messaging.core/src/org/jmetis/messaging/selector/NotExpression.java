@@ -0,0 +1,54 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.selector;
+
+import org.jmetis.messaging.core.IMessage;
+
+/**
+ * {@code NotExpression} negates a boolean expression; the negation of unknown
+ * is unknown.
+ * 
+ * @author era
+ */
+class NotExpression extends SelectorExpression {
+
+	private final SelectorExpression operand;
+
+	/**
+	 * Constructs a new {@code NotExpression} instance.
+	 * 
+	 */
+	NotExpression(SelectorExpression operand) {
+		super();
+		this.operand = operand;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.selector.SelectorExpression#evaluate(org.jmetis.
+	 * messaging.core.IMessage)
+	 */
+	@Override
+	Object evaluate(IMessage<?> message) {
+		Object value = this.operand.evaluate(message);
+		if (value instanceof Boolean) {
+			return SelectorExpression.valueOf(!((Boolean) value)
+					.booleanValue());
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.selector;
+
+import org.jmetis.messaging.core.IMessage;
+
+/**
+ * {@code PropertyExpression} evaluates to the normalized value of a message
+ * property.
+ * 
+ * @author era
+ */
+class PropertyExpression extends SelectorExpression {
+
+	private final MessagePropertyAccessor propertyAccessor;
+
+	/**
+	 * Constructs a new {@code PropertyExpression} instance.
+	 * 
+	 */
+	PropertyExpression(MessagePropertyAccessor propertyAccessor) {
+		super();
+		this.propertyAccessor = propertyAccessor;
+	}
+
+	MessagePropertyAccessor getPropertyAccessor() {
+		return this.propertyAccessor;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.selector.SelectorExpression#evaluate(org.jmetis.
+	 * messaging.core.IMessage)
+	 */
+	@Override
+	Object evaluate(IMessage<?> message) {
+		return SelectorValues.normalize(this.propertyAccessor
+				.getValue(message));
+	}
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.selector;
+
+import java.util.Map;
+
+import org.jmetis.messaging.core.IMessage;
+
+/**
+ * {@code SelectorExpression} is a node of a compiled message selector. Boolean
+ * expressions evaluate to {@link Boolean#TRUE}, {@link Boolean#FALSE} or
+ * {@code null} if the result is unknown, e.g. because a property is missing.
+ * 
+ * @author era
+ */
+abstract class SelectorExpression {
+
+	/**
+	 * Constructs a new {@code SelectorExpression} instance.
+	 */
+	protected SelectorExpression() {
+		super();
+	}
+
+	/**
+	 * Evaluates the receiver for the given {@code message}.
+	 * 
+	 * @param message
+	 *            the {@link IMessage} to evaluate the receiver for
+	 * @return the normalized value of the receiver, or {@code null} if it is
+	 *         unknown
+	 */
+	abstract Object evaluate(IMessage<?> message);
+
+	/**
+	 * Indicates whether the receiver evaluates to {@link Boolean#TRUE} for the
+	 * given {@code message}.
+	 */
+	boolean isTrue(IMessage<?> message) {
+		return this.evaluate(message) == Boolean.TRUE;
+	}
+
+	/**
+	 * Adds the property values the receiver requires to be true to the given
+	 * {@code constraints}, keyed by property name. The default adds nothing.
+	 * 
+	 * @param constraints
+	 *            the constraints collected so far
+	 */
+	void collectEqualityConstraints(Map<String, Object> constraints) {
+		// no constraints
+	}
+
+	static Boolean valueOf(boolean value) {
+		return value ? Boolean.TRUE : Boolean.FALSE;
+	}
+
+}
@@ -0,0 +1,409 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.selector;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.jmetis.messaging.core.MessageException;
+
+/**
+ * {@code SelectorParser} compiles a selector expression into a tree of
+ * {@link SelectorExpression}s. The syntax follows the JMS message selectors:
+ * 
+ * <pre>
+ * expression  := and { OR and }
+ * and         := not { AND not }
+ * not         := NOT not | predicate
+ * predicate   := ( expression ) | operand [ comparison ]
+ * comparison  := ( = | &lt;&gt; | != | &lt; | &lt;= | &gt; | &gt;= ) operand
+ *              | [ NOT ] BETWEEN operand AND operand
+ *              | [ NOT ] IN ( literal { , literal } )
+ *              | [ NOT ] LIKE string [ ESCAPE string ]
+ *              | IS [ NOT ] NULL
+ * operand     := identifier | literal
+ * literal     := 'string' | number | TRUE | FALSE | NULL
+ * </pre>
+ * 
+ * Keywords are case insensitive. Property accessors are resolved once while
+ * parsing, so evaluating the compiled expression does not look up names.
+ * 
+ * @author era
+ */
+class SelectorParser {
+
+	private static final int END = 0;
+
+	private static final int IDENTIFIER = 1;
+
+	private static final int STRING = 2;
+
+	private static final int NUMBER = 3;
+
+	private static final int OPERATOR = 4;
+
+	private final String expression;
+
+	private final Map<String, MessagePropertyAccessor> propertyAccessors;
+
+	private int position;
+
+	private int tokenType;
+
+	private int tokenStart;
+
+	private String token;
+
+	private Object tokenValue;
+
+	/**
+	 * Constructs a new {@code SelectorParser} instance.
+	 * 
+	 * @param propertyAccessors
+	 *            the accessors of the properties referenced so far, reused for
+	 *            repeated references to a property
+	 */
+	SelectorParser(String expression,
+			Map<String, MessagePropertyAccessor> propertyAccessors) {
+		super();
+		this.expression = expression;
+		this.propertyAccessors = propertyAccessors;
+	}
+
+	/**
+	 * Parses the whole expression.
+	 * 
+	 * @throws MessageException
+	 *             if the expression is not a valid selector
+	 */
+	SelectorExpression parse() {
+		this.nextToken();
+		SelectorExpression result = this.parseOr();
+		if (this.tokenType != SelectorParser.END) {
+			this.syntaxError();
+		}
+		return result;
+	}
+
+	private SelectorExpression parseOr() {
+		SelectorExpression result = this.parseAnd();
+		while (this.acceptKeyword("OR")) { //$NON-NLS-1$
+			result = new OrExpression(result, this.parseAnd());
+		}
+		return result;
+	}
+
+	private SelectorExpression parseAnd() {
+		SelectorExpression result = this.parseNot();
+		while (this.acceptKeyword("AND")) { //$NON-NLS-1$
+			result = new AndExpression(result, this.parseNot());
+		}
+		return result;
+	}
+
+	private SelectorExpression parseNot() {
+		if (this.acceptKeyword("NOT")) { //$NON-NLS-1$
+			return new NotExpression(this.parseNot());
+		}
+		return this.parsePredicate();
+	}
+
+	private SelectorExpression parsePredicate() {
+		if (this.acceptOperator("(")) { //$NON-NLS-1$
+			SelectorExpression result = this.parseOr();
+			this.expectOperator(")"); //$NON-NLS-1$
+			return result;
+		}
+		SelectorExpression operand = this.parseOperand();
+		if (this.tokenType == SelectorParser.OPERATOR) {
+			ComparisonExpression.Operator operator = this.comparisonOperator();
+			if (operator != null) {
+				this.nextToken();
+				return new ComparisonExpression(operator, operand, this
+						.parseOperand());
+			}
+		}
+		if (this.acceptKeyword("IS")) { //$NON-NLS-1$
+			boolean negated = this.acceptKeyword("NOT"); //$NON-NLS-1$
+			this.expectKeyword("NULL"); //$NON-NLS-1$
+			return this.negate(new IsNullExpression(operand), negated);
+		}
+		boolean negated = this.acceptKeyword("NOT"); //$NON-NLS-1$
+		if (this.acceptKeyword("BETWEEN")) { //$NON-NLS-1$
+			SelectorExpression lower = this.parseOperand();
+			this.expectKeyword("AND"); //$NON-NLS-1$
+			SelectorExpression upper = this.parseOperand();
+			return this.negate(new AndExpression(new ComparisonExpression(
+					ComparisonExpression.Operator.GREATER_OR_EQUAL, operand,
+					lower), new ComparisonExpression(
+					ComparisonExpression.Operator.LESS_OR_EQUAL, operand,
+					upper)), negated);
+		}
+		if (this.acceptKeyword("IN")) { //$NON-NLS-1$
+			this.expectOperator("("); //$NON-NLS-1$
+			Set<Object> values = new HashSet<Object>();
+			do {
+				values.add(this.parseLiteral().getValue());
+			} while (this.acceptOperator(",")); //$NON-NLS-1$
+			this.expectOperator(")"); //$NON-NLS-1$
+			return this.negate(new InExpression(operand, values), negated);
+		}
+		if (this.acceptKeyword("LIKE")) { //$NON-NLS-1$
+			String pattern = this.expectString();
+			Character escape = null;
+			if (this.acceptKeyword("ESCAPE")) { //$NON-NLS-1$
+				int escapeStart = this.tokenStart;
+				String escapeString = this.expectString();
+				if (escapeString.length() != 1) {
+					MessageException.invalidSelector(this.expression,
+							escapeStart);
+				}
+				escape = Character.valueOf(escapeString.charAt(0));
+			}
+			return this.negate(new LikeExpression(operand, pattern, escape),
+					negated);
+		}
+		if (negated) {
+			this.syntaxError();
+		}
+		return operand;
+	}
+
+	private SelectorExpression negate(SelectorExpression expression,
+			boolean negated) {
+		if (negated) {
+			return new NotExpression(expression);
+		}
+		return expression;
+	}
+
+	private SelectorExpression parseOperand() {
+		if (this.tokenType == SelectorParser.IDENTIFIER
+				&& !this.isLiteralKeyword()) {
+			String propertyName = this.token;
+			this.nextToken();
+			MessagePropertyAccessor propertyAccessor = this.propertyAccessors
+					.get(propertyName);
+			if (propertyAccessor == null) {
+				propertyAccessor = MessagePropertyAccessor
+						.forName(propertyName);
+				this.propertyAccessors.put(propertyName, propertyAccessor);
+			}
+			return new PropertyExpression(propertyAccessor);
+		}
+		return this.parseLiteral();
+	}
+
+	private LiteralExpression parseLiteral() {
+		Object value;
+		if (this.tokenType == SelectorParser.STRING
+				|| this.tokenType == SelectorParser.NUMBER) {
+			value = this.tokenValue;
+		} else if (this.isKeyword("TRUE")) { //$NON-NLS-1$
+			value = Boolean.TRUE;
+		} else if (this.isKeyword("FALSE")) { //$NON-NLS-1$
+			value = Boolean.FALSE;
+		} else if (this.isKeyword("NULL")) { //$NON-NLS-1$
+			value = null;
+		} else {
+			this.syntaxError();
+			return null;
+		}
+		this.nextToken();
+		return new LiteralExpression(value);
+	}
+
+	private ComparisonExpression.Operator comparisonOperator() {
+		if ("=".equals(this.token)) { //$NON-NLS-1$
+			return ComparisonExpression.Operator.EQUAL;
+		}
+		if ("<>".equals(this.token) || "!=".equals(this.token)) { //$NON-NLS-1$ //$NON-NLS-2$
+			return ComparisonExpression.Operator.NOT_EQUAL;
+		}
+		if ("<".equals(this.token)) { //$NON-NLS-1$
+			return ComparisonExpression.Operator.LESS;
+		}
+		if ("<=".equals(this.token)) { //$NON-NLS-1$
+			return ComparisonExpression.Operator.LESS_OR_EQUAL;
+		}
+		if (">".equals(this.token)) { //$NON-NLS-1$
+			return ComparisonExpression.Operator.GREATER;
+		}
+		if (">=".equals(this.token)) { //$NON-NLS-1$
+			return ComparisonExpression.Operator.GREATER_OR_EQUAL;
+		}
+		return null;
+	}
+
+	private boolean isLiteralKeyword() {
+		return this.isKeyword("TRUE") || this.isKeyword("FALSE") //$NON-NLS-1$ //$NON-NLS-2$
+				|| this.isKeyword("NULL"); //$NON-NLS-1$
+	}
+
+	private boolean isKeyword(String keyword) {
+		return this.tokenType == SelectorParser.IDENTIFIER
+				&& keyword.equalsIgnoreCase(this.token);
+	}
+
+	private boolean acceptKeyword(String keyword) {
+		if (this.isKeyword(keyword)) {
+			this.nextToken();
+			return true;
+		}
+		return false;
+	}
+
+	private void expectKeyword(String keyword) {
+		if (!this.acceptKeyword(keyword)) {
+			this.syntaxError();
+		}
+	}
+
+	private boolean acceptOperator(String operator) {
+		if (this.tokenType == SelectorParser.OPERATOR
+				&& operator.equals(this.token)) {
+			this.nextToken();
+			return true;
+		}
+		return false;
+	}
+
+	private void expectOperator(String operator) {
+		if (!this.acceptOperator(operator)) {
+			this.syntaxError();
+		}
+	}
+
+	private String expectString() {
+		if (this.tokenType != SelectorParser.STRING) {
+			this.syntaxError();
+		}
+		String value = (String) this.tokenValue;
+		this.nextToken();
+		return value;
+	}
+
+	private void syntaxError() {
+		MessageException.invalidSelector(this.expression, this.tokenStart);
+	}
+
+	private void nextToken() {
+		String expression = this.expression;
+		int length = expression.length();
+		while (this.position < length
+				&& Character.isWhitespace(expression.charAt(this.position))) {
+			this.position++;
+		}
+		this.tokenStart = this.position;
+		this.tokenValue = null;
+		if (this.position >= length) {
+			this.tokenType = SelectorParser.END;
+			this.token = null;
+			return;
+		}
+		char character = expression.charAt(this.position);
+		if (Character.isJavaIdentifierStart(character)) {
+			do {
+				this.position++;
+			} while (this.position < length
+					&& (Character.isJavaIdentifierPart(expression
+							.charAt(this.position)) || expression
+							.charAt(this.position) == '.'));
+			this.tokenType = SelectorParser.IDENTIFIER;
+		} else if (character == '\'') {
+			this.scanString();
+		} else if (Character.isDigit(character)
+				|| (character == '.' && this.position + 1 < length && Character
+						.isDigit(expression.charAt(this.position + 1)))
+				|| ((character == '-' || character == '+')
+						&& this.position + 1 < length && (Character
+						.isDigit(expression.charAt(this.position + 1)) || expression
+						.charAt(this.position + 1) == '.'))) {
+			this.scanNumber();
+		} else {
+			this.position++;
+			if (this.position < length) {
+				char nextCharacter = expression.charAt(this.position);
+				if ((character == '<' && (nextCharacter == '>' || nextCharacter == '='))
+						|| ((character == '>' || character == '!') && nextCharacter == '=')) {
+					this.position++;
+				}
+			}
+			this.tokenType = SelectorParser.OPERATOR;
+		}
+		this.token = expression.substring(this.tokenStart, this.position);
+	}
+
+	private void scanString() {
+		StringBuilder value = new StringBuilder();
+		this.position++;
+		while (true) {
+			if (this.position >= this.expression.length()) {
+				MessageException.invalidSelector(this.expression,
+						this.tokenStart);
+			}
+			char character = this.expression.charAt(this.position++);
+			if (character == '\'') {
+				if (this.position < this.expression.length()
+						&& this.expression.charAt(this.position) == '\'') {
+					this.position++;
+				} else {
+					break;
+				}
+			}
+			value.append(character);
+		}
+		this.tokenType = SelectorParser.STRING;
+		this.tokenValue = value.toString();
+	}
+
+	private void scanNumber() {
+		String expression = this.expression;
+		int length = expression.length();
+		boolean decimal = false;
+		this.position++;
+		while (this.position < length) {
+			char character = expression.charAt(this.position);
+			if (character == '.' || character == 'e' || character == 'E') {
+				decimal = true;
+			} else if ((character == '-' || character == '+')
+					&& (expression.charAt(this.position - 1) == 'e' || expression
+							.charAt(this.position - 1) == 'E')) {
+				// exponent sign
+			} else if (!Character.isDigit(character)) {
+				break;
+			}
+			this.position++;
+		}
+		String number = expression.substring(this.tokenStart, this.position);
+		if (this.position < length
+				&& (expression.charAt(this.position) == 'L' || expression
+						.charAt(this.position) == 'l')) {
+			this.position++;
+		}
+		try {
+			if (decimal) {
+				this.tokenValue = Double.valueOf(number);
+			} else {
+				this.tokenValue = Long.valueOf(number.startsWith("+") ? number //$NON-NLS-1$
+						.substring(1) : number);
+			}
+		} catch (NumberFormatException ex) {
+			MessageException.invalidSelector(this.expression, this.tokenStart);
+		}
+		this.tokenType = SelectorParser.NUMBER;
+	}
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.messaging.selector;
+
+import java.util.Date;
+
+/**
+ * {@code SelectorValues} normalizes property and literal values so that they
+ * can be compared and used as index keys: integral numbers become
+ * {@link Long}s, other numbers {@link Double}s, enumeration constants and
+ * characters {@link String}s and dates their time in milliseconds. Other
+ * objects except {@link Boolean}s are represented by their string form.
+ * 
+ * @author era
+ */
+final class SelectorValues {
+
+	private SelectorValues() {
+		super();
+	}
+
+	static Object normalize(Object value) {
+		if (value == null || value instanceof String || value instanceof Long
+				|| value instanceof Boolean) {
+			return value;
+		}
+		if (value instanceof Integer || value instanceof Short
+				|| value instanceof Byte) {
+			return Long.valueOf(((Number) value).longValue());
+		}
+		if (value instanceof Number) {
+			double doubleValue = ((Number) value).doubleValue();
+			long longValue = (long) doubleValue;
+			if (longValue == doubleValue) {
+				return Long.valueOf(longValue);
+			}
+			return Double.valueOf(doubleValue);
+		}
+		if (value instanceof Enum) {
+			return ((Enum<?>) value).name();
+		}
+		if (value instanceof Date) {
+			return Long.valueOf(((Date) value).getTime());
+		}
+		return value.toString();
+	}
+
+	/**
+	 * Compares the given normalized values.
+	 * 
+	 * @return a negative integer, zero, or a positive integer as
+	 *         {@code value} is less than, equal to, or greater than
+	 *         {@code otherValue}, or {@code null} if the values cannot be
+	 *         compared
+	 */
+	static Integer compare(Object value, Object otherValue) {
+		if (value instanceof Long && otherValue instanceof Long) {
+			return Integer.valueOf(((Long) value).compareTo((Long) otherValue));
+		}
+		if (value instanceof Number && otherValue instanceof Number) {
+			return Integer.valueOf(Double.compare(((Number) value)
+					.doubleValue(), ((Number) otherValue).doubleValue()));
+		}
+		if (value instanceof String && otherValue instanceof String) {
+			return Integer.valueOf(((String) value)
+					.compareTo((String) otherValue));
+		}
+		if (value instanceof Boolean && otherValue instanceof Boolean) {
+			return Integer.valueOf(value.equals(otherValue) ? 0 : 1);
+		}
+		return null;
+	}
+
+}
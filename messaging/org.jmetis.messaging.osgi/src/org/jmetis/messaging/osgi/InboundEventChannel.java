@@ -13,6 +13,7 @@
  */
 package org.jmetis.messaging.osgi;
 
+import java.util.ArrayList;
 import java.util.Dictionary;
 import java.util.Hashtable;
 import java.util.List;
@@ -21,7 +22,10 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
+import org.jmetis.messaging.channel.FifoMessageQueue;
 import org.jmetis.messaging.channel.InboundChannel;
+import org.jmetis.messaging.channel.MessageQueue;
+import org.jmetis.messaging.channel.OverflowPolicy;
 import org.jmetis.messaging.core.IChannelManager;
 import org.jmetis.messaging.core.IMessage;
 import org.jmetis.messaging.core.IMessageListener;
@@ -35,6 +39,13 @@ import org.osgi.service.event.EventHandler;
 
 /**
  * {@code InboundEventChannel}
+ * <p>
+ * Messages are queued in an unbounded FIFO queue unless the channel is
+ * created with a capacity or with another queue, e.g. a
+ * {@link org.jmetis.messaging.channel.PriorityMessageQueue} which dispatches
+ * messages by priority and discards them once they have expired. With a
+ * bounded {@link MessageQueue} the {@link OverflowPolicy} is applied on the
+ * thread delivering the events.
  * 
  * @author era
  */
@@ -43,6 +54,8 @@ public class InboundEventChannel<T> extends InboundChannel<T> implements
 
 	static final String EVENT_PAYLOAD = "payload";
 
+	static final String EVENT_PAYLOADS = "payloads";
+
 	private final String eventTopic;
 
 	private final BundleContext bundleContext;
@@ -53,19 +66,42 @@ public class InboundEventChannel<T> extends InboundChannel<T> implements
 
 	private List<IMessageListener<T>> channelListeners;
 
-	private final BlockingQueue<Event> eventQueue;
+	private final BlockingQueue<IMessage<T>> messageQueue;
 
-	private Thread dispatcherThread;
+	private volatile MessageDispatcher<T> dispatcher;
 
 	/**
 	 * Constructs a new {@code InboundEventChannel} instance.
 	 * 
 	 */
 	public InboundEventChannel(BundleContext bundleContext, String eventTopic) {
+		this(bundleContext, eventTopic, new LinkedBlockingQueue<IMessage<T>>());
+	}
+
+	/**
+	 * Constructs a new {@code InboundEventChannel} instance which queues up to
+	 * {@code capacity} messages and applies the given {@code overflowPolicy}
+	 * while its queue is full.
+	 * 
+	 */
+	public InboundEventChannel(BundleContext bundleContext, String eventTopic,
+			int capacity, OverflowPolicy overflowPolicy) {
+		this(bundleContext, eventTopic, new FifoMessageQueue<T>(capacity,
+				overflowPolicy));
+	}
+
+	/**
+	 * Constructs a new {@code InboundEventChannel} instance which queues
+	 * received messages in the given {@code messageQueue}.
+	 * 
+	 */
+	public InboundEventChannel(BundleContext bundleContext, String eventTopic,
+			BlockingQueue<IMessage<T>> messageQueue) {
 		super();
 		this.bundleContext = bundleContext;
 		this.eventTopic = eventTopic;
-		this.eventQueue = new LinkedBlockingQueue<Event>();
+		this.messageQueue = messageQueue;
+		this.messageSelector = new MutableMessageSelectorDecorator<T>(null);
 		Dictionary<String, String> serviceProperties = new Hashtable<String, String>();
 		serviceProperties.put(EventConstants.EVENT_TOPIC, this.eventTopic);
 		this.handlerRegistration = this.bundleContext.registerService(
@@ -89,10 +125,7 @@ public class InboundEventChannel<T> extends InboundChannel<T> implements
 	 */
 	@Override
 	public IMessageSelector<T> getMessageSelector() {
-		if (this.messageSelector != null) {
-			return this.messageSelector.getComponent();
-		}
-		return null;
+		return this.messageSelector.getComponent();
 	}
 
 	/*
@@ -104,12 +137,7 @@ public class InboundEventChannel<T> extends InboundChannel<T> implements
 	 */
 	@Override
 	public void setMessageSelector(IMessageSelector<T> messageSelector) {
-		if (this.messageSelector == null) {
-			this.messageSelector = new MutableMessageSelectorDecorator<T>(
-					messageSelector);
-		} else {
-			this.messageSelector.setComponent(messageSelector);
-		}
+		this.messageSelector.setComponent(messageSelector);
 	}
 
 	/*
@@ -124,14 +152,13 @@ public class InboundEventChannel<T> extends InboundChannel<T> implements
 			IMessageListener<T> channelListener) {
 		if (this.channelListeners == null) {
 			this.channelListeners = new CopyOnWriteArrayList<IMessageListener<T>>();
-			this.dispatcherThread = new Thread(new MessageDispatcher<T>(
-					this.eventQueue, this.messageSelector,
-					this.channelListeners), "Async Message Dispatcher ["
-					+ this.eventTopic + "]");
-			this.dispatcherThread.setDaemon(true);
-			this.dispatcherThread.start();
+			this.channelListeners.add(channelListener);
+			this.dispatcher = new MessageDispatcher<T>(this, this.messageQueue,
+					this.channelListeners);
+			this.dispatcher.schedule();
+		} else {
+			this.channelListeners.add(channelListener);
 		}
-		this.channelListeners.add(channelListener);
 	}
 
 	/*
@@ -148,12 +175,33 @@ public class InboundEventChannel<T> extends InboundChannel<T> implements
 			this.channelListeners.remove(channelListener);
 			if (this.channelListeners.size() == 0) {
 				this.channelListeners = null;
-				this.dispatcherThread.interrupt();
-				this.dispatcherThread = null;
+				this.dispatcher.stop();
+				this.dispatcher = null;
 			}
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.channel.InboundChannel#getOverflowCount(org.jmetis
+	 * .messaging.channel.OverflowPolicy)
+	 */
+	@Override
+	public long getOverflowCount(OverflowPolicy overflowPolicy) {
+		if (this.messageQueue instanceof MessageQueue) {
+			return ((MessageQueue<T>) this.messageQueue)
+					.getOverflowCount(overflowPolicy);
+		}
+		return 0;
+	}
+
+	void dispatchMessages(List<IMessage<T>> messages,
+			List<IMessageListener<T>> channelListeners) {
+		this.dispatchMessages(messages, this.messageSelector, channelListeners);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -161,12 +209,29 @@ public class InboundEventChannel<T> extends InboundChannel<T> implements
 	 * org.osgi.service.event.EventHandler#handleEvent(org.osgi.service.event
 	 * .Event)
 	 */
+	@SuppressWarnings("unchecked")
 	public void handleEvent(Event event) {
-		if (this.eventQueue != null) {
-			synchronized (this.eventQueue) {
-				this.eventQueue.add(event);
-				this.eventQueue.notify();
+		IMessage<T> message = (IMessage<T>) event
+				.getProperty(InboundEventChannel.EVENT_PAYLOAD);
+		try {
+			if (message != null) {
+				this.messageQueue.put(message);
+			} else {
+				IMessage<T>[] messages = (IMessage<T>[]) event
+						.getProperty(InboundEventChannel.EVENT_PAYLOADS);
+				if (messages == null) {
+					return;
+				}
+				for (IMessage<T> each : messages) {
+					this.messageQueue.put(each);
+				}
 			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		MessageDispatcher<T> dispatcher = this.dispatcher;
+		if (dispatcher != null) {
+			dispatcher.schedule();
 		}
 	}
 
@@ -175,19 +240,34 @@ public class InboundEventChannel<T> extends InboundChannel<T> implements
 	 * 
 	 * @see org.jmetis.messaging.core.IInboundChannel#receiveMessage(long)
 	 */
-	@SuppressWarnings("unchecked")
 	public IMessage<T> receiveMessage(long timeout) throws MessageException {
 		IMessage<T> message = null;
 		try {
-			Event event = this.eventQueue.poll(timeout, TimeUnit.MILLISECONDS);
-			if (event != null) {
-				message = (IMessage<T>) event
-						.getProperty(InboundEventChannel.EVENT_PAYLOAD);
-			}
+			message = this.messageQueue.poll(timeout, TimeUnit.MILLISECONDS);
 		} catch (InterruptedException ex) {
 			// do nothing
 		}
 		return message;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.messaging.channel.InboundChannel#receiveMessages(int,
+	 * long)
+	 */
+	@Override
+	public List<IMessage<T>> receiveMessages(int maxMessages, long timeout)
+			throws MessageException {
+		List<IMessage<T>> messages = new ArrayList<IMessage<T>>();
+		if (maxMessages > 0) {
+			IMessage<T> message = this.receiveMessage(timeout);
+			if (message != null) {
+				messages.add(message);
+				this.messageQueue.drainTo(messages, maxMessages - 1);
+			}
+		}
+		return messages;
+	}
+
 }
@@ -13,25 +13,24 @@
  */
 package org.jmetis.messaging.osgi;
 
+import java.util.Collection;
 import java.util.List;
-import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
 
+import org.jmetis.messaging.channel.ChannelDispatcher;
 import org.jmetis.messaging.core.IMessage;
 import org.jmetis.messaging.core.IMessageListener;
-import org.jmetis.messaging.core.IMessageSelector;
-import org.jmetis.messaging.core.MessageException;
-import org.osgi.service.event.Event;
 
 /**
  * {@code MessageDispatcher}
  * 
  * @author era
  */
-class MessageDispatcher<T> implements Runnable {
+class MessageDispatcher<T> extends ChannelDispatcher<IMessage<T>> {
 
-	private final Queue<Event> eventQueue;
+	private final InboundEventChannel<T> inboundChannel;
 
-	private final IMessageSelector<T> messageSelector;
+	private final BlockingQueue<IMessage<T>> messageQueue;
 
 	private final List<IMessageListener<T>> channelListeners;
 
@@ -39,52 +38,47 @@ class MessageDispatcher<T> implements Runnable {
 	 * Constructs a new {@code MessageDispatcher} instance.
 	 * 
 	 */
-	public MessageDispatcher(Queue<Event> eventQueue,
-			IMessageSelector<T> messageSelector,
+	public MessageDispatcher(InboundEventChannel<T> inboundChannel,
+			BlockingQueue<IMessage<T>> messageQueue,
 			List<IMessageListener<T>> channelListeners) {
-		super();
-		this.eventQueue = eventQueue;
-		this.messageSelector = messageSelector;
+		super(inboundChannel);
+		this.inboundChannel = inboundChannel;
+		this.messageQueue = messageQueue;
 		this.channelListeners = channelListeners;
 	}
 
-	@SuppressWarnings("unchecked")
-	protected void processEvent(Event event) {
-		IMessage<T> message = (IMessage<T>) event
-				.getProperty(InboundEventChannel.EVENT_PAYLOAD);
-		if (this.channelListeners != null
-				&& (this.messageSelector == null || this.messageSelector
-						.acceptMessage(message))) {
-			for (IMessageListener<T> c : this.channelListeners) {
-				try {
-					c.handleMessage(message);
-				} catch (MessageException ex) {
-					// TODO
-				}
-			}
-		}
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.channel.ChannelDispatcher#drainTo(java.util.Collection
+	 * , int)
+	 */
+	@Override
+	protected int drainTo(Collection<? super IMessage<T>> batch,
+			int maxElements) {
+		return this.messageQueue.drainTo(batch, maxElements);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.messaging.channel.ChannelDispatcher#hasPendingElements()
+	 */
+	@Override
+	protected boolean hasPendingElements() {
+		return !this.messageQueue.isEmpty();
 	}
 
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see java.lang.Runnable#run()
+	 * @see
+	 * org.jmetis.messaging.channel.ChannelDispatcher#dispatch(java.util.List)
 	 */
-	public void run() {
-		try {
-			while (!Thread.interrupted()) {
-				while (!this.eventQueue.isEmpty()) {
-					this.processEvent(this.eventQueue.remove());
-				}
-				synchronized (this.eventQueue) {
-					this.eventQueue.wait();
-				}
-			}
-		} catch (InterruptedException ex) {
-			while (!this.eventQueue.isEmpty()) {
-				this.processEvent(this.eventQueue.remove());
-			}
-		}
+	@Override
+	protected void dispatch(List<IMessage<T>> batch) {
+		this.inboundChannel.dispatchMessages(batch, this.channelListeners);
 	}
 
 }
@@ -13,6 +13,7 @@
  */
 package org.jmetis.messaging.osgi;
 
+import java.util.Collection;
 import java.util.Dictionary;
 import java.util.Hashtable;
 
@@ -34,6 +35,8 @@ public class OutboundEventChannel<T> extends OutboundChannel<T> {
 
 	private static final String EVENT_PAYLOAD = "payload";
 
+	private static final String EVENT_PAYLOADS = "payloads";
+
 	private final ServiceTracker eventAdminTracker;
 
 	private final String eventTopic;
@@ -76,10 +79,33 @@ public class OutboundEventChannel<T> extends OutboundChannel<T> {
 	 * .core.IMessage)
 	 */
 	public void sendMessage(IMessage<T> message) throws MessageException {
+		this.applyTimeToLive(message);
 		Dictionary<String, Object> eventProperties = new Hashtable<String, Object>();
 		eventProperties.put(OutboundEventChannel.EVENT_PAYLOAD, message);
 		this.eventAdmin()
 				.postEvent(new Event(this.eventTopic, eventProperties));
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.messaging.channel.OutboundChannel#sendMessages(java.util.Collection
+	 * )
+	 */
+	@Override
+	public void sendMessages(Collection<? extends IMessage<T>> messages)
+			throws MessageException {
+		if (!messages.isEmpty()) {
+			for (IMessage<T> message : messages) {
+				this.applyTimeToLive(message);
+			}
+			Dictionary<String, Object> eventProperties = new Hashtable<String, Object>();
+			eventProperties.put(OutboundEventChannel.EVENT_PAYLOADS, messages
+					.toArray(new IMessage<?>[messages.size()]));
+			this.eventAdmin().postEvent(
+					new Event(this.eventTopic, eventProperties));
+		}
+	}
+
 }
@@ -0,0 +1,155 @@
+package org.jmetis.messaging.adapter;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.jmetis.messaging.core.IInboundChannel;
+import org.jmetis.messaging.core.IMessage;
+import org.jmetis.messaging.core.IOutboundChannel;
+import org.jmetis.messaging.core.Message;
+import org.jmetis.messaging.memory.MemoryChannelManager;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@code RequestorAdapterTest}
+ * 
+ * @author era
+ */
+public class RequestorAdapterTest {
+
+	private MemoryChannelManager channelManager;
+
+	private IOutboundChannel<String> requestChannel;
+
+	private IInboundChannel<String> serviceChannel;
+
+	/**
+	 * Constructs a new {@code RequestorAdapterTest} instance.
+	 */
+	public RequestorAdapterTest() {
+		super();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Before
+	public void setUp() throws Exception {
+		this.channelManager = new MemoryChannelManager(4096, true);
+		URI channelIdentifier = new URI("memory:org/jmetis/messaging/service");
+		this.requestChannel = (IOutboundChannel<String>) this.channelManager
+				.getOutboundChannel(channelIdentifier);
+		this.serviceChannel = (IInboundChannel<String>) this.channelManager
+				.getInboundChannel(channelIdentifier);
+	}
+
+	@SuppressWarnings("unchecked")
+	protected void reply(IMessage<String> requestMessage) {
+		IMessage<String> replyMessage = new Message<String>(requestMessage
+				.getPayload().toUpperCase());
+		replyMessage.setCorrelationId(requestMessage.getCorrelationId());
+		((IOutboundChannel<String>) this.channelManager
+				.getOutboundChannel(requestMessage.getReplyChannel()))
+				.sendMessage(replyMessage);
+	}
+
+	@Test
+	public void testSendAndReceive() throws Exception {
+		RequestorAdapter<String, String> requestorAdapter = new RequestorAdapter<String, String>(
+				this.requestChannel, 5000);
+		Thread service = new Thread() {
+			@Override
+			public void run() {
+				RequestorAdapterTest.this.reply(RequestorAdapterTest.this.serviceChannel
+						.receiveMessage(IInboundChannel.INFINITE_TIMEOUT));
+			}
+		};
+		service.start();
+		Assert.assertEquals("TEST", requestorAdapter.sendAndReceive("test"));
+		service.join();
+		Assert.assertEquals(0, requestorAdapter.getPendingRequestCount());
+		requestorAdapter.close();
+	}
+
+	@Test
+	public void testManyRequestsInFlight() throws Exception {
+		final int count = 2000;
+		RequestorAdapter<String, String> requestorAdapter = new RequestorAdapter<String, String>(
+				this.requestChannel, 10000);
+		final CountDownLatch repliesLatch = new CountDownLatch(count);
+		IReplyListener<String> replyListener = new IReplyListener<String>() {
+			public void replyReceived(String payload) {
+				repliesLatch.countDown();
+			}
+
+			public void replyFailed(Throwable cause) {
+			}
+		};
+		List<Future<String>> replies = new ArrayList<Future<String>>();
+		for (int i = 0; i < count; i++) {
+			replies.add(requestorAdapter.sendAndReceiveAsync("r" + i,
+					replyListener));
+		}
+		Assert.assertEquals(count, requestorAdapter.getPendingRequestCount());
+		List<IMessage<String>> requestMessages = this.serviceChannel
+				.receiveMessages(count, 0);
+		Assert.assertEquals(count, requestMessages.size());
+		Collections.reverse(requestMessages);
+		for (IMessage<String> requestMessage : requestMessages) {
+			this.reply(requestMessage);
+		}
+		Assert.assertTrue(repliesLatch.await(5, TimeUnit.SECONDS));
+		for (int i = 0; i < count; i++) {
+			Assert.assertEquals("R" + i, replies.get(i).get());
+		}
+		Assert.assertEquals(0, requestorAdapter.getPendingRequestCount());
+		requestorAdapter.close();
+	}
+
+	@Test
+	public void testReplyCancelsTimeout() throws Exception {
+		RequestorAdapter<String, String> requestorAdapter = new RequestorAdapter<String, String>(
+				this.requestChannel, 60000);
+		Future<String> reply = requestorAdapter.sendAndReceiveAsync("test");
+		this.reply(this.serviceChannel.receiveMessage(0));
+		Assert.assertEquals("TEST", reply.get(5, TimeUnit.SECONDS));
+		Assert.assertTrue(((PendingReply<String>) reply).getTimeoutTask()
+				.isCancelled());
+		requestorAdapter.close();
+	}
+
+	@Test
+	public void testRequestTimesOut() throws Exception {
+		RequestorAdapter<String, String> requestorAdapter = new RequestorAdapter<String, String>(
+				this.requestChannel, 50);
+		Future<String> reply = requestorAdapter.sendAndReceiveAsync("test");
+		try {
+			reply.get(5, TimeUnit.SECONDS);
+			Assert.fail();
+		} catch (ExecutionException ex) {
+			Assert.assertTrue(ex.getCause() instanceof TimeoutException);
+		}
+		Assert.assertEquals(0, requestorAdapter.getPendingRequestCount());
+		this.reply(this.serviceChannel.receiveMessage(0));
+		Assert.assertNull(requestorAdapter.sendAndReceive("late"));
+		requestorAdapter.close();
+	}
+
+	@Test
+	public void testCloseCancelsPendingRequests() throws Exception {
+		RequestorAdapter<String, String> requestorAdapter = new RequestorAdapter<String, String>(
+				this.requestChannel);
+		Future<String> reply = requestorAdapter.sendAndReceiveAsync("test");
+		requestorAdapter.close();
+		Assert.assertTrue(reply.isCancelled());
+		Assert.assertEquals(0, requestorAdapter.getPendingRequestCount());
+	}
+
+}
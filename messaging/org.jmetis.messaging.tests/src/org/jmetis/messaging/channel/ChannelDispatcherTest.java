@@ -0,0 +1,83 @@
+package org.jmetis.messaging.channel;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.jmetis.messaging.memory.MemoryChannelManager;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * {@code ChannelDispatcherTest}
+ * 
+ * @author era
+ */
+public class ChannelDispatcherTest {
+
+	/**
+	 * Constructs a new {@code ChannelDispatcherTest} instance.
+	 */
+	public ChannelDispatcherTest() {
+		super();
+	}
+
+	@Test
+	public void testRescheduleAfterFailedBatch() throws Exception {
+		InboundChannel<?> inboundChannel = (InboundChannel<?>) new MemoryChannelManager(
+				4, true).getInboundChannel(new URI("memory:dispatcher"));
+		final List<Runnable> runs = new ArrayList<Runnable>();
+		inboundChannel.setDispatchExecutor(new Executor() {
+			public void execute(Runnable runnable) {
+				runs.add(runnable);
+			}
+		});
+		inboundChannel.setDispatchBatchSize(1);
+		final List<String> pending = new LinkedList<String>(Arrays.asList(
+				"a", "b", "c"));
+		final List<String> dispatched = new ArrayList<String>();
+		ChannelDispatcher<String> dispatcher = new ChannelDispatcher<String>(
+				inboundChannel) {
+
+			@Override
+			protected int drainTo(Collection<? super String> batch,
+					int maxElements) {
+				int count = 0;
+				while (count < maxElements && !pending.isEmpty()) {
+					batch.add(pending.remove(0));
+					count++;
+				}
+				return count;
+			}
+
+			@Override
+			protected boolean hasPendingElements() {
+				return !pending.isEmpty();
+			}
+
+			@Override
+			protected void dispatch(List<String> batch) {
+				dispatched.addAll(batch);
+				if (dispatched.size() == 1) {
+					throw new IllegalStateException();
+				}
+			}
+		};
+		dispatcher.schedule();
+		int failures = 0;
+		while (!runs.isEmpty()) {
+			try {
+				runs.remove(0).run();
+			} catch (IllegalStateException ex) {
+				failures++;
+			}
+		}
+		Assert.assertEquals(1, failures);
+		Assert.assertEquals(Arrays.asList("a", "b", "c"), dispatched);
+	}
+
+}
@@ -0,0 +1,131 @@
+package org.jmetis.messaging.channel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.jmetis.messaging.core.IMessage;
+import org.jmetis.messaging.core.Message;
+import org.jmetis.messaging.core.MessageException;
+import org.jmetis.messaging.core.IMessage.Priority;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * {@code MessageQueueTest}
+ * 
+ * @author era
+ */
+public class MessageQueueTest {
+
+	/**
+	 * Constructs a new {@code MessageQueueTest} instance.
+	 */
+	public MessageQueueTest() {
+		super();
+	}
+
+	protected IMessage<String> message(String payload) {
+		return new Message<String>(payload);
+	}
+
+	protected IMessage<String> message(String payload, Priority priority) {
+		IMessage<String> message = new Message<String>(payload);
+		message.setPriority(priority);
+		return message;
+	}
+
+	protected String payloads(MessageQueue<String> messageQueue) {
+		List<IMessage<String>> messages = new ArrayList<IMessage<String>>();
+		messageQueue.drainTo(messages);
+		StringBuilder payloads = new StringBuilder();
+		for (IMessage<String> message : messages) {
+			payloads.append(message.getPayload());
+		}
+		return payloads.toString();
+	}
+
+	@Test
+	public void testDropNewest() throws Exception {
+		MessageQueue<String> messageQueue = new FifoMessageQueue<String>(2,
+				OverflowPolicy.DROP_NEWEST);
+		messageQueue.put(this.message("a"));
+		messageQueue.put(this.message("b"));
+		messageQueue.put(this.message("c"));
+		Assert.assertFalse(messageQueue.offer(this.message("d")));
+		Assert.assertEquals(0, messageQueue.remainingCapacity());
+		Assert.assertEquals(2, messageQueue
+				.getOverflowCount(OverflowPolicy.DROP_NEWEST));
+		Assert.assertEquals("ab", this.payloads(messageQueue));
+	}
+
+	@Test
+	public void testDropOldest() throws Exception {
+		MessageQueue<String> messageQueue = new FifoMessageQueue<String>(2,
+				OverflowPolicy.DROP_OLDEST);
+		messageQueue.put(this.message("a"));
+		messageQueue.put(this.message("b"));
+		messageQueue.put(this.message("c"));
+		messageQueue.put(this.message("d"));
+		Assert.assertEquals(2, messageQueue
+				.getOverflowCount(OverflowPolicy.DROP_OLDEST));
+		Assert.assertEquals("cd", this.payloads(messageQueue));
+	}
+
+	@Test
+	public void testDropOldestOfLowestPriority() throws Exception {
+		MessageQueue<String> messageQueue = new PriorityMessageQueue<String>(3,
+				OverflowPolicy.DROP_OLDEST);
+		messageQueue.put(this.message("h", Priority.HIGH));
+		messageQueue.put(this.message("l", Priority.LOW));
+		messageQueue.put(this.message("n", Priority.NORMAL));
+		messageQueue.put(this.message("H", Priority.HIGH));
+		Assert.assertEquals("hHn", this.payloads(messageQueue));
+	}
+
+	@Test(expected = MessageException.class)
+	public void testReject() throws Exception {
+		MessageQueue<String> messageQueue = new FifoMessageQueue<String>(1,
+				OverflowPolicy.REJECT);
+		messageQueue.put(this.message("a"));
+		try {
+			messageQueue.put(this.message("b"));
+		} finally {
+			Assert.assertEquals(1, messageQueue
+					.getOverflowCount(OverflowPolicy.REJECT));
+			Assert.assertEquals(1, messageQueue.size());
+		}
+	}
+
+	@Test
+	public void testBlock() throws Exception {
+		final MessageQueue<String> messageQueue = new FifoMessageQueue<String>(
+				1, OverflowPolicy.BLOCK);
+		messageQueue.put(this.message("a"));
+		Assert.assertFalse(messageQueue.offer(this.message("b")));
+		Assert.assertFalse(messageQueue.offer(this.message("b"), 10,
+				TimeUnit.MILLISECONDS));
+		final CountDownLatch putLatch = new CountDownLatch(1);
+		Thread producer = new Thread() {
+			@Override
+			public void run() {
+				try {
+					messageQueue.put(MessageQueueTest.this.message("c"));
+					putLatch.countDown();
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		producer.start();
+		Assert.assertFalse(putLatch.await(50, TimeUnit.MILLISECONDS));
+		Assert.assertEquals("a", messageQueue.take().getPayload());
+		Assert.assertTrue(putLatch.await(1, TimeUnit.SECONDS));
+		Assert.assertEquals("c", messageQueue.take().getPayload());
+		producer.join();
+		Assert
+				.assertTrue(messageQueue.getOverflowCount(OverflowPolicy.BLOCK) >= 2);
+	}
+
+}
@@ -0,0 +1,142 @@
+package org.jmetis.messaging.channel;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jmetis.messaging.core.IMessage;
+import org.jmetis.messaging.core.Message;
+import org.jmetis.messaging.core.IMessage.Priority;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@code PriorityMessageQueueTest}
+ * 
+ * @author era
+ */
+public class PriorityMessageQueueTest {
+
+	private PriorityMessageQueue<String> messageQueue;
+
+	/**
+	 * Constructs a new {@code PriorityMessageQueueTest} instance.
+	 */
+	public PriorityMessageQueueTest() {
+		super();
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		this.messageQueue = new PriorityMessageQueue<String>();
+	}
+
+	protected IMessage<String> message(String payload, Priority priority) {
+		IMessage<String> message = new Message<String>(payload);
+		message.setPriority(priority);
+		return message;
+	}
+
+	protected String payloads(List<IMessage<String>> messages) {
+		StringBuilder payloads = new StringBuilder();
+		for (IMessage<String> message : messages) {
+			payloads.append(message.getPayload());
+		}
+		return payloads.toString();
+	}
+
+	@Test
+	public void testHighPriorityFirst() throws Exception {
+		this.messageQueue.add(this.message("l", Priority.LOW));
+		this.messageQueue.add(this.message("n", Priority.NORMAL));
+		this.messageQueue.add(this.message("h", Priority.HIGH));
+		Assert.assertEquals("h", this.messageQueue.poll().getPayload());
+		Assert.assertEquals("n", this.messageQueue.poll().getPayload());
+		Assert.assertEquals("l", this.messageQueue.poll().getPayload());
+		Assert.assertNull(this.messageQueue.poll());
+	}
+
+	@Test
+	public void testFifoWithinPriority() throws Exception {
+		for (int i = 0; i < 5; i++) {
+			this.messageQueue.add(this.message(Integer.toString(i),
+					Priority.NORMAL));
+		}
+		List<IMessage<String>> messages = new ArrayList<IMessage<String>>();
+		this.messageQueue.drainTo(messages);
+		Assert.assertEquals("01234", this.payloads(messages));
+	}
+
+	@Test
+	public void testLowPriorityIsNotStarved() throws Exception {
+		for (int i = 0; i < 10; i++) {
+			this.messageQueue.add(this.message("h", Priority.HIGH));
+			this.messageQueue.add(this.message("n", Priority.NORMAL));
+			this.messageQueue.add(this.message("l", Priority.LOW));
+		}
+		List<IMessage<String>> messages = new ArrayList<IMessage<String>>();
+		this.messageQueue.drainTo(messages, 7);
+		Assert.assertEquals("hhhhnnl", this.payloads(messages));
+	}
+
+	@Test
+	public void testPeekAndIterationFollowPolling() throws Exception {
+		for (int i = 0; i < 10; i++) {
+			this.messageQueue.add(this.message("h" + i, Priority.HIGH));
+			this.messageQueue.add(this.message("n" + i, Priority.NORMAL));
+			this.messageQueue.add(this.message("l" + i, Priority.LOW));
+		}
+		for (int i = 0; i < 5; i++) {
+			this.messageQueue.poll();
+		}
+		List<IMessage<String>> iterated = new ArrayList<IMessage<String>>(
+				this.messageQueue);
+		List<IMessage<String>> polled = new ArrayList<IMessage<String>>();
+		while (!this.messageQueue.isEmpty()) {
+			IMessage<String> peeked = this.messageQueue.peek();
+			IMessage<String> message = this.messageQueue.poll();
+			Assert.assertSame(peeked, message);
+			polled.add(message);
+		}
+		Assert.assertEquals(this.payloads(polled), this.payloads(iterated));
+	}
+
+	@Test
+	public void testExpiredMessagesAreDiscarded() throws Exception {
+		IMessage<String> expiredMessage = this.message("x", Priority.HIGH);
+		expiredMessage.setExpirationDate(new Date(
+				System.currentTimeMillis() - 1));
+		this.messageQueue.add(expiredMessage);
+		this.messageQueue.add(this.message("n", Priority.NORMAL));
+		Assert.assertEquals("n", this.messageQueue.poll().getPayload());
+		Assert.assertEquals(1, this.messageQueue.getExpiredCount());
+		Assert.assertTrue(this.messageQueue.isEmpty());
+	}
+
+	@Test
+	public void testPeekDiscardsExpiredMessages() throws Exception {
+		IMessage<String> expiredMessage = this.message("x", Priority.HIGH);
+		expiredMessage.setExpirationDate(new Date(
+				System.currentTimeMillis() - 1));
+		this.messageQueue.add(expiredMessage);
+		Assert.assertEquals(1, this.messageQueue.size());
+		Assert.assertNull(this.messageQueue.peek());
+		Assert.assertEquals(1, this.messageQueue.getExpiredCount());
+		Assert.assertTrue(this.messageQueue.isEmpty());
+		this.messageQueue.add(expiredMessage);
+		this.messageQueue.add(this.message("n", Priority.NORMAL));
+		Assert.assertEquals("n", this.messageQueue.peek().getPayload());
+		Assert.assertEquals(2, this.messageQueue.getExpiredCount());
+		Assert.assertEquals(1, this.messageQueue.size());
+	}
+
+	@Test
+	public void testPollTimeout() throws Exception {
+		long start = System.currentTimeMillis();
+		Assert.assertNull(this.messageQueue.poll(50, TimeUnit.MILLISECONDS));
+		Assert.assertTrue(System.currentTimeMillis() - start >= 45);
+	}
+
+}
@@ -0,0 +1,286 @@
+package org.jmetis.messaging.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.UUID;
+
+import org.jmetis.messaging.core.IMessage;
+import org.jmetis.messaging.core.Message;
+import org.jmetis.messaging.core.MessageException;
+import org.jmetis.messaging.core.IMessage.Priority;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * {@code BinaryMessageCodecTest}
+ * 
+ * @author era
+ */
+public class BinaryMessageCodecTest {
+
+	/**
+	 * Constructs a new {@code BinaryMessageCodecTest} instance.
+	 */
+	public BinaryMessageCodecTest() {
+		super();
+	}
+
+	protected IMessage<?> roundTrip(IMessage<?> message) {
+		ByteBuffer buffer = new BinaryMessageCodec().encode(message,
+				ByteBuffer.allocate(256));
+		buffer.flip();
+		IMessage<?> decodedMessage = new BinaryMessageCodec().decode(buffer);
+		Assert.assertFalse(buffer.hasRemaining());
+		return decodedMessage;
+	}
+
+	@Test
+	public void testHeaders() throws Exception {
+		Message<String> message = new Message<String>("Gr\u00FC\u00DFe \u20AC \uD834\uDD1E");
+		message.setCorrelationId(Long.valueOf(-42));
+		message.setExpirationDate(new Date(1234567890123L));
+		message.setPriority(Priority.HIGH);
+		message.setSequenceNumber(-1);
+		message.setSequenceSize(300);
+		message.setReplyChannel(new URI("memory:replies"));
+		IMessage<?> decodedMessage = this.roundTrip(message);
+		Assert.assertEquals(message.getId(), decodedMessage.getId());
+		Assert.assertEquals(message.getCorrelationId(), decodedMessage
+				.getCorrelationId());
+		Assert.assertEquals(message.getExpirationDate(), decodedMessage
+				.getExpirationDate());
+		Assert.assertEquals(Priority.HIGH, decodedMessage.getPriority());
+		Assert.assertEquals(-1, decodedMessage.getSequenceNumber());
+		Assert.assertEquals(300, decodedMessage.getSequenceSize());
+		Assert.assertEquals(message.getReplyChannel(), decodedMessage
+				.getReplyChannel());
+		Assert.assertEquals(message.getPayload(), decodedMessage.getPayload());
+	}
+
+	@Test
+	public void testDefaultHeaders() throws Exception {
+		Message<String> message = new Message<String>(null);
+		IMessage<?> decodedMessage = this.roundTrip(message);
+		Assert.assertNull(decodedMessage.getCorrelationId());
+		Assert.assertEquals(message.getExpirationDate(), decodedMessage
+				.getExpirationDate());
+		Assert.assertEquals(Priority.NORMAL, decodedMessage.getPriority());
+		Assert.assertNull(decodedMessage.getReplyChannel());
+		Assert.assertNull(decodedMessage.getPayload());
+	}
+
+	@Test
+	public void testPayloads() throws Exception {
+		Object[] payloads = { Boolean.TRUE, Byte.valueOf((byte) -3),
+				Character.valueOf('x'), Short.valueOf((short) 1000),
+				Integer.valueOf(Integer.MIN_VALUE), Long.valueOf(Long.MAX_VALUE),
+				Float.valueOf(1.5f), Double.valueOf(-0.25), UUID.randomUUID(),
+				new URI("memory:test") };
+		for (Object payload : payloads) {
+			Assert.assertEquals(payload, this.roundTrip(
+					new Message<Object>(payload)).getPayload());
+		}
+		byte[] bytes = { 1, 2, 3 };
+		Assert.assertTrue(Arrays.equals(bytes, (byte[]) this.roundTrip(
+				new Message<byte[]>(bytes)).getPayload()));
+	}
+
+	@Test
+	public void testBufferGrows() throws Exception {
+		char[] characters = new char[10000];
+		Arrays.fill(characters, 'a');
+		String payload = new String(characters);
+		BinaryMessageCodec codec = new BinaryMessageCodec();
+		ByteBuffer buffer = codec.encode(new Message<String>(payload),
+				ByteBuffer.allocate(16));
+		buffer.flip();
+		Assert.assertEquals(payload, codec.decode(buffer).getPayload());
+	}
+
+	@Test
+	public void testReplyChannelsAreInterned() throws Exception {
+		BinaryMessageCodec encoder = new BinaryMessageCodec();
+		BinaryMessageCodec decoder = new BinaryMessageCodec();
+		URI replyChannel = new URI("memory:org/jmetis/messaging/replies");
+		ByteBuffer buffer = ByteBuffer.allocate(1024);
+		int[] sizes = new int[3];
+		for (int i = 0; i < sizes.length; i++) {
+			Message<String> message = new Message<String>("m");
+			message.setReplyChannel(replyChannel);
+			int start = buffer.position();
+			buffer = encoder.encode(message, buffer);
+			sizes[i] = buffer.position() - start;
+		}
+		Assert.assertTrue(sizes[1] < sizes[0]);
+		Assert.assertEquals(sizes[1], sizes[2]);
+		buffer.flip();
+		for (int i = 0; i < sizes.length; i++) {
+			Assert.assertEquals(replyChannel, decoder.decode(buffer)
+					.getReplyChannel());
+		}
+	}
+
+	@Test
+	public void testInternedReplyChannelsSurviveFailedEncoding()
+			throws Exception {
+		BinaryMessageCodec encoder = new BinaryMessageCodec();
+		BinaryMessageCodec decoder = new BinaryMessageCodec();
+		URI[] replyChannels = { new URI("memory:a"), new URI("memory:b"),
+				new URI("memory:c") };
+		int[] order = { 0, 1, 0, 2, 1, 2, 0, 1 };
+		ByteBuffer buffer = ByteBuffer.allocate(1024);
+		for (int i = 0; i < order.length; i++) {
+			if (i == 2) {
+				Message<Object> unsupported = new Message<Object>(new Object());
+				unsupported.setReplyChannel(new URI("memory:lost"));
+				int position = buffer.position();
+				try {
+					encoder.encode(unsupported, buffer);
+					Assert.fail();
+				} catch (MessageException ex) {
+					buffer.position(position);
+				}
+			}
+			Message<String> message = new Message<String>("m" + i);
+			message.setReplyChannel(replyChannels[order[i]]);
+			buffer = encoder.encode(message, buffer);
+		}
+		buffer.flip();
+		for (int i = 0; i < order.length; i++) {
+			IMessage<?> decodedMessage = decoder.decode(buffer);
+			Assert.assertEquals("m" + i, decodedMessage.getPayload());
+			Assert.assertEquals(replyChannels[order[i]], decodedMessage
+					.getReplyChannel());
+		}
+		Assert.assertFalse(buffer.hasRemaining());
+	}
+
+	@Test
+	public void testCustomPayloadCodec() throws Exception {
+		IPayloadCodec<StringBuilder> payloadCodec = new IPayloadCodec<StringBuilder>() {
+			public Class<StringBuilder> getPayloadType() {
+				return StringBuilder.class;
+			}
+
+			public void encode(StringBuilder value, BinaryOutput output) {
+				output.writeString(value.toString());
+			}
+
+			public StringBuilder decode(BinaryInput input) {
+				return new StringBuilder(input.readString());
+			}
+		};
+		BinaryMessageCodec codec = new BinaryMessageCodec();
+		codec.registerPayloadCodec(BinaryMessageCodec.MIN_CUSTOM_TAG,
+				payloadCodec);
+		ByteBuffer buffer = codec.encode(new Message<StringBuilder>(
+				new StringBuilder("abc")), ByteBuffer.allocate(64));
+		buffer.flip();
+		Assert.assertEquals("abc", codec.decode(buffer).getPayload()
+				.toString());
+	}
+
+	@Test(expected = MessageException.class)
+	public void testUnsupportedPayload() throws Exception {
+		new BinaryMessageCodec().encode(new Message<Object>(new Object()),
+				ByteBuffer.allocate(64));
+	}
+
+	@Test
+	public void testSerializationIsOptIn() throws Exception {
+		Message<Date> message = new Message<Date>(new Date(42));
+		try {
+			new BinaryMessageCodec().encode(message, ByteBuffer.allocate(64));
+			Assert.fail();
+		} catch (MessageException ex) {
+			// expected
+		}
+		BinaryMessageCodec encoder = new BinaryMessageCodec();
+		encoder.enableSerialization(Date.class, ArrayList.class);
+		BinaryMessageCodec decoder = new BinaryMessageCodec();
+		decoder.enableSerialization(Date.class);
+		ByteBuffer buffer = encoder.encode(message, ByteBuffer.allocate(256));
+		buffer.flip();
+		Assert.assertEquals(new Date(42), decoder.decode(buffer).getPayload());
+		ArrayList<Date> dates = new ArrayList<Date>();
+		dates.add(new Date(42));
+		buffer = encoder.encode(new Message<ArrayList<Date>>(dates),
+				ByteBuffer.allocate(256));
+		buffer.flip();
+		try {
+			decoder.decode(buffer);
+			Assert.fail();
+		} catch (MessageException ex) {
+			// ArrayList is not accepted by the decoder
+		}
+		buffer = encoder.encode(message, ByteBuffer.allocate(256));
+		buffer.flip();
+		try {
+			new BinaryMessageCodec().decode(buffer);
+			Assert.fail();
+		} catch (MessageException ex) {
+			// serialization is not enabled
+		}
+	}
+
+	@Test(expected = MessageException.class)
+	public void testInvalidPriority() throws Exception {
+		ByteBuffer buffer = new BinaryMessageCodec().encode(
+				new Message<String>("TEST"), ByteBuffer.allocate(64));
+		buffer.put(1, (byte) 0xF0);
+		buffer.flip();
+		new BinaryMessageCodec().decode(buffer);
+	}
+
+	@Test(expected = ArrayIndexOutOfBoundsException.class)
+	public void testPayloadCodecFailuresPropagate() throws Exception {
+		IPayloadCodec<StringBuilder> payloadCodec = new IPayloadCodec<StringBuilder>() {
+			public Class<StringBuilder> getPayloadType() {
+				return StringBuilder.class;
+			}
+
+			public void encode(StringBuilder value, BinaryOutput output) {
+				output.writeString(value.toString());
+			}
+
+			public StringBuilder decode(BinaryInput input) {
+				throw new ArrayIndexOutOfBoundsException();
+			}
+		};
+		BinaryMessageCodec codec = new BinaryMessageCodec();
+		codec.registerPayloadCodec(BinaryMessageCodec.MIN_CUSTOM_TAG,
+				payloadCodec);
+		ByteBuffer buffer = codec.encode(new Message<StringBuilder>(
+				new StringBuilder("abc")), ByteBuffer.allocate(64));
+		buffer.flip();
+		codec.decode(buffer);
+	}
+
+	@Test(expected = MessageException.class)
+	public void testTruncatedMessage() throws Exception {
+		ByteBuffer buffer = new BinaryMessageCodec().encode(
+				new Message<String>("TEST"), ByteBuffer.allocate(64));
+		buffer.flip();
+		buffer.limit(buffer.limit() - 2);
+		new BinaryMessageCodec().decode(buffer);
+	}
+
+	@Test
+	public void testSmallerThanSerialization() throws Exception {
+		Message<String> message = new Message<String>("TEST");
+		message.setReplyChannel(new URI("memory:org/jmetis/messaging/replies"));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream objectOutput = new ObjectOutputStream(bytes);
+		objectOutput.writeObject(message);
+		objectOutput.close();
+		ByteBuffer buffer = new BinaryMessageCodec().encode(message, ByteBuffer
+				.allocate(256));
+		Assert.assertTrue(buffer.position() * 5 < bytes.size());
+	}
+
+}
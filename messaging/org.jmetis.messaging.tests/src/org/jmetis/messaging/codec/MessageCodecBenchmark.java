@@ -0,0 +1,109 @@
+package org.jmetis.messaging.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+
+import org.jmetis.messaging.core.IMessage;
+import org.jmetis.messaging.core.Message;
+import org.jmetis.test.BenchmarkReport;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@code MessageCodecBenchmark} compares the size and the time to encode and
+ * decode a message with the {@link BinaryMessageCodec} and with Java
+ * serialization.
+ * 
+ * @author era
+ */
+public class MessageCodecBenchmark {
+
+	private static final int WARMUP_COUNT = 20000;
+
+	private static final int MESSAGE_COUNT = 200000;
+
+	/**
+	 * Constructs a new {@code MessageCodecBenchmark} instance.
+	 */
+	public MessageCodecBenchmark() {
+		super();
+	}
+
+	@Before
+	public void assumeEnabled() {
+		BenchmarkReport.assumeEnabled();
+	}
+
+	protected IMessage<String> createMessage() throws Exception {
+		IMessage<String> message = new Message<String>("order 4711 shipped");
+		message.setCorrelationId(Long.valueOf(4711));
+		message.setReplyChannel(new URI("memory:org/jmetis/messaging/replies"));
+		return message;
+	}
+
+	protected int encodeAndDecode(IMessage<String> message, int count) {
+		BinaryMessageCodec encoder = new BinaryMessageCodec();
+		BinaryMessageCodec decoder = new BinaryMessageCodec();
+		ByteBuffer buffer = ByteBuffer.allocate(256);
+		int size = 0;
+		for (int i = 0; i < count; i++) {
+			buffer.clear();
+			buffer = encoder.encode(message, buffer);
+			size = buffer.position();
+			buffer.flip();
+			Assert.assertNotNull(decoder.decode(buffer));
+		}
+		return size;
+	}
+
+	protected int serializeAndDeserialize(IMessage<String> message, int count)
+			throws Exception {
+		int size = 0;
+		for (int i = 0; i < count; i++) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+			ObjectOutputStream objectOutput = new ObjectOutputStream(bytes);
+			objectOutput.writeObject(message);
+			objectOutput.close();
+			size = bytes.size();
+			ObjectInputStream objectInput = new ObjectInputStream(
+					new ByteArrayInputStream(bytes.toByteArray()));
+			Assert.assertNotNull(objectInput.readObject());
+		}
+		return size;
+	}
+
+	protected void report(String name, int size, long start, int count) {
+		long elapsed = System.nanoTime() - start;
+		BenchmarkReport.report(
+				"%s: %d bytes, %,.0f ns per encode and decode", name, size, //$NON-NLS-1$
+				(double) elapsed / count);
+	}
+
+	@Test
+	public void benchmarkBinaryMessageCodec() throws Exception {
+		IMessage<String> message = this.createMessage();
+		this.encodeAndDecode(message, MessageCodecBenchmark.WARMUP_COUNT);
+		long start = System.nanoTime();
+		int size = this.encodeAndDecode(message,
+				MessageCodecBenchmark.MESSAGE_COUNT);
+		this.report("BinaryMessageCodec", size, start,
+				MessageCodecBenchmark.MESSAGE_COUNT);
+	}
+
+	@Test
+	public void benchmarkSerialization() throws Exception {
+		IMessage<String> message = this.createMessage();
+		int count = MessageCodecBenchmark.MESSAGE_COUNT / 10;
+		this.serializeAndDeserialize(message,
+				MessageCodecBenchmark.WARMUP_COUNT / 10);
+		long start = System.nanoTime();
+		int size = this.serializeAndDeserialize(message, count);
+		this.report("Java serialization", size, start, count);
+	}
+
+}
@@ -0,0 +1,95 @@
+package org.jmetis.messaging.core;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.jmetis.test.BenchmarkReport;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@code MessageIdBenchmark} measures how fast {@link #THREAD_COUNT} threads
+ * can create messages concurrently with each {@link IMessageIdGenerator}.
+ * 
+ * @author era
+ */
+public class MessageIdBenchmark {
+
+	private static final int THREAD_COUNT = 16;
+
+	private static final int MESSAGE_COUNT = 100000;
+
+	/**
+	 * Constructs a new {@code MessageIdBenchmark} instance.
+	 */
+	public MessageIdBenchmark() {
+		super();
+	}
+
+	@Before
+	public void assumeEnabled() {
+		BenchmarkReport.assumeEnabled();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		Message.setIdGenerator(new TimeOrderedIdGenerator());
+	}
+
+	protected long createMessages(final int count) throws Exception {
+		final CountDownLatch startLatch = new CountDownLatch(1);
+		Thread[] threads = new Thread[MessageIdBenchmark.THREAD_COUNT];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						startLatch.await();
+					} catch (InterruptedException ex) {
+						return;
+					}
+					for (int j = 0; j < count; j++) {
+						new Message<String>(null);
+					}
+				}
+			};
+			threads[i].start();
+		}
+		long start = System.nanoTime();
+		startLatch.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		return System.nanoTime() - start;
+	}
+
+	protected void runBenchmark(String name, IMessageIdGenerator idGenerator)
+			throws Exception {
+		Message.setIdGenerator(idGenerator);
+		this.createMessages(MessageIdBenchmark.MESSAGE_COUNT / 10);
+		long elapsed = this.createMessages(MessageIdBenchmark.MESSAGE_COUNT);
+		BenchmarkReport.report(
+				"%s: %,.0f messages/s with %d threads", name, //$NON-NLS-1$
+				(double) MessageIdBenchmark.MESSAGE_COUNT
+						* MessageIdBenchmark.THREAD_COUNT * 1e9 / elapsed,
+				MessageIdBenchmark.THREAD_COUNT);
+	}
+
+	@Test
+	public void benchmarkRandomIdGenerator() throws Exception {
+		this.runBenchmark("RandomIdGenerator", new RandomIdGenerator());
+	}
+
+	@Test
+	public void benchmarkTimeOrderedIdGenerator() throws Exception {
+		this.runBenchmark("TimeOrderedIdGenerator",
+				new TimeOrderedIdGenerator());
+	}
+
+	@Test
+	public void benchmarkSequentialIdGenerator() throws Exception {
+		this.runBenchmark("SequentialIdGenerator", new SequentialIdGenerator());
+	}
+
+}
@@ -0,0 +1,93 @@
+package org.jmetis.messaging.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * {@code MessageIdGeneratorTest}
+ * 
+ * @author era
+ */
+public class MessageIdGeneratorTest {
+
+	private static final int THREAD_COUNT = 8;
+
+	private static final int ID_COUNT = 20000;
+
+	/**
+	 * Constructs a new {@code MessageIdGeneratorTest} instance.
+	 */
+	public MessageIdGeneratorTest() {
+		super();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		Message.setIdGenerator(new TimeOrderedIdGenerator());
+	}
+
+	protected void assertUniqueIds(final IMessageIdGenerator idGenerator)
+			throws Exception {
+		final Map<Object, Boolean> ids = new ConcurrentHashMap<Object, Boolean>();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < MessageIdGeneratorTest.THREAD_COUNT; i++) {
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < MessageIdGeneratorTest.ID_COUNT; j++) {
+						ids.put(idGenerator.nextId(), Boolean.TRUE);
+					}
+				}
+			};
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Assert.assertEquals(MessageIdGeneratorTest.THREAD_COUNT
+				* MessageIdGeneratorTest.ID_COUNT, ids.size());
+	}
+
+	@Test
+	public void testUniqueIds() throws Exception {
+		this.assertUniqueIds(new TimeOrderedIdGenerator());
+		this.assertUniqueIds(new SequentialIdGenerator());
+		this.assertUniqueIds(new RandomIdGenerator());
+	}
+
+	@Test
+	public void testTimeOrderedIds() throws Exception {
+		IMessageIdGenerator idGenerator = new TimeOrderedIdGenerator(7);
+		UUID lastId = (UUID) idGenerator.nextId();
+		for (int i = 0; i < 10000; i++) {
+			UUID id = (UUID) idGenerator.nextId();
+			Assert.assertTrue(id.compareTo(lastId) > 0);
+			Assert.assertEquals(7, id.getLeastSignificantBits());
+			lastId = id;
+		}
+	}
+
+	@Test
+	public void testSequentialIds() throws Exception {
+		IMessageIdGenerator idGenerator = new SequentialIdGenerator(3);
+		long firstId = (Long) idGenerator.nextId();
+		Assert.assertEquals(3, firstId >>> (64 - SequentialIdGenerator.NODE_BITS));
+		Assert.assertEquals(firstId + 1, idGenerator.nextId());
+	}
+
+	@Test
+	public void testMessageUsesIdGenerator() throws Exception {
+		Message.setIdGenerator(new SequentialIdGenerator(0));
+		Assert.assertEquals(Long.valueOf(1), new Message<String>("a").getId());
+		Assert.assertEquals(Long.valueOf(2), new Message<String>("b").getId());
+	}
+
+}
@@ -0,0 +1,102 @@
+package org.jmetis.messaging.core;
+
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+
+import org.jmetis.test.BenchmarkReport;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@code MessagePropertyBenchmark} measures {@link Message#getProperty(String)}
+ * on a {@link Message} subclass, for a message reused for every read and for
+ * a new message per read, and compares it with introspecting the class and
+ * invoking the read method reflectively on every read.
+ * 
+ * @author era
+ */
+public class MessagePropertyBenchmark {
+
+	private static final int WARMUP_COUNT = 200000;
+
+	private static final int READ_COUNT = 2000000;
+
+	/**
+	 * Constructs a new {@code MessagePropertyBenchmark} instance.
+	 */
+	public MessagePropertyBenchmark() {
+		super();
+	}
+
+	@Before
+	public void assumeEnabled() {
+		BenchmarkReport.assumeEnabled();
+	}
+
+	protected long readProperties(boolean newMessages, int count) {
+		long sum = 0;
+		MessagePropertyTest.OrderMessage message = new MessagePropertyTest.OrderMessage();
+		for (int i = 0; i < count; i++) {
+			if (newMessages) {
+				message = new MessagePropertyTest.OrderMessage();
+			}
+			message.setQuantity(i);
+			sum += (Integer) message.getProperty("quantity");
+		}
+		return sum;
+	}
+
+	protected long readPropertiesByIntrospection(int count) throws Exception {
+		long sum = 0;
+		for (int i = 0; i < count; i++) {
+			MessagePropertyTest.OrderMessage message = new MessagePropertyTest.OrderMessage();
+			message.setQuantity(i);
+			for (PropertyDescriptor propertyDescriptor : Introspector
+					.getBeanInfo(message.getClass(), Message.class)
+					.getPropertyDescriptors()) {
+				if ("quantity".equals(propertyDescriptor.getName())) {
+					sum += (Integer) propertyDescriptor.getReadMethod()
+							.invoke(message);
+				}
+			}
+		}
+		return sum;
+	}
+
+	protected void report(String name, long start, int count) {
+		long elapsed = System.nanoTime() - start;
+		BenchmarkReport.report("%s: %,.1f ns/read", name, //$NON-NLS-1$
+				(double) elapsed / count);
+	}
+
+	@Test
+	public void benchmarkGetProperty() throws Exception {
+		long expected = (long) MessagePropertyBenchmark.READ_COUNT
+				* (MessagePropertyBenchmark.READ_COUNT - 1) / 2;
+		this.readProperties(false, MessagePropertyBenchmark.WARMUP_COUNT);
+		long start = System.nanoTime();
+		Assert.assertEquals(expected, this.readProperties(false,
+				MessagePropertyBenchmark.READ_COUNT));
+		this.report("getProperty, same message", start,
+				MessagePropertyBenchmark.READ_COUNT);
+		this.readProperties(true, MessagePropertyBenchmark.WARMUP_COUNT);
+		start = System.nanoTime();
+		Assert.assertEquals(expected, this.readProperties(true,
+				MessagePropertyBenchmark.READ_COUNT));
+		this.report("getProperty, new message", start,
+				MessagePropertyBenchmark.READ_COUNT);
+	}
+
+	@Test
+	public void benchmarkIntrospection() throws Exception {
+		int count = MessagePropertyBenchmark.READ_COUNT / 10;
+		this.readPropertiesByIntrospection(MessagePropertyBenchmark.WARMUP_COUNT / 10);
+		long start = System.nanoTime();
+		Assert.assertEquals((long) count * (count - 1) / 2, this
+				.readPropertiesByIntrospection(count));
+		this.report("introspection and Method.invoke", start, count);
+	}
+
+}
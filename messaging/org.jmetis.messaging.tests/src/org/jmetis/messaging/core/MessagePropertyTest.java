@@ -0,0 +1,84 @@
+package org.jmetis.messaging.core;
+
+import java.util.Arrays;
+
+import org.jmetis.messaging.core.IMessage.Priority;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * {@code MessagePropertyTest}
+ * 
+ * @author era
+ */
+public class MessagePropertyTest {
+
+	/**
+	 * Constructs a new {@code MessagePropertyTest} instance.
+	 */
+	public MessagePropertyTest() {
+		super();
+	}
+
+	@Test
+	public void testHeaderProperties() throws Exception {
+		Message<String> message = new Message<String>("TEST");
+		message.setProperty("priority", Priority.HIGH);
+		message.setProperty("sequenceNumber", Integer.valueOf(3));
+		Assert.assertEquals(Priority.HIGH, message.getProperty("priority"));
+		Assert.assertEquals(Integer.valueOf(3), message
+				.getProperty("sequenceNumber"));
+		Assert.assertEquals("TEST", message.getProperty("payload"));
+		Assert.assertEquals(message.getId(), message.getProperty("id"));
+		Assert.assertTrue(message.containsProperty("replyChannel"));
+		Assert.assertFalse(message.containsProperty("customerId"));
+	}
+
+	@Test
+	public void testSubclassProperties() throws Exception {
+		OrderMessage message = new OrderMessage();
+		message.setProperty("customerId", "C-1");
+		message.setProperty("quantity", Integer.valueOf(7));
+		Assert.assertEquals("C-1", message.getCustomerId());
+		Assert.assertEquals(Integer.valueOf(7), message.getProperty("quantity"));
+		Assert.assertEquals(Arrays.asList("customerId", "quantity"), Arrays
+				.asList(message.getPropertyNames()));
+		Assert.assertNull(message.getProperty("unknown"));
+	}
+
+	@Test
+	public void testPropertyTableIsShared() throws Exception {
+		Assert.assertSame(MessagePropertyTable.forClass(OrderMessage.class),
+				MessagePropertyTable.forClass(new OrderMessage().getClass()));
+		Assert.assertSame(MessagePropertyTable.forClass(Message.class)
+				.getProperty("priority"), MessagePropertyTable.forClass(
+				Message.class).getProperty("priority"));
+	}
+
+	public static class OrderMessage extends Message<String> {
+
+		private static final long serialVersionUID = 1L;
+
+		private String customerId;
+
+		private int quantity;
+
+		public String getCustomerId() {
+			return this.customerId;
+		}
+
+		public void setCustomerId(String customerId) {
+			this.customerId = customerId;
+		}
+
+		public int getQuantity() {
+			return this.quantity;
+		}
+
+		public void setQuantity(int quantity) {
+			this.quantity = quantity;
+		}
+
+	}
+
+}
@@ -0,0 +1,362 @@
+package org.jmetis.messaging.memory;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.jmetis.messaging.channel.InboundChannel;
+import org.jmetis.messaging.channel.OverflowPolicy;
+import org.jmetis.messaging.core.IInboundChannel;
+import org.jmetis.messaging.core.IMessage;
+import org.jmetis.messaging.core.IMessageBatchListener;
+import org.jmetis.messaging.core.IMessageListener;
+import org.jmetis.messaging.core.IOutboundChannel;
+import org.jmetis.messaging.core.Message;
+import org.jmetis.messaging.core.MessageException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@code MemoryChannelTest}
+ * 
+ * @author era
+ */
+public class MemoryChannelTest {
+
+	private MemoryChannelManager channelManager;
+
+	private IOutboundChannel<String> outboundChannel;
+
+	private IInboundChannel<String> inboundChannel;
+
+	/**
+	 * Constructs a new {@code MemoryChannelTest} instance.
+	 */
+	public MemoryChannelTest() {
+		super();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Before
+	public void setUp() throws Exception {
+		this.channelManager = new MemoryChannelManager(4, true);
+		URI channelIdentifier = new URI("memory:org/jmetis/messaging/test");
+		this.outboundChannel = (IOutboundChannel<String>) this.channelManager
+				.getOutboundChannel(channelIdentifier);
+		this.inboundChannel = (IInboundChannel<String>) this.channelManager
+				.getInboundChannel(channelIdentifier);
+	}
+
+	@Test
+	public void testChannelsAreShared() throws Exception {
+		URI channelIdentifier = this.inboundChannel.getChannelIdentifier();
+		Assert.assertSame(this.inboundChannel, this.channelManager
+				.getInboundChannel(channelIdentifier));
+		Assert.assertSame(this.outboundChannel, this.channelManager
+				.getOutboundChannel(channelIdentifier));
+		Assert.assertSame(this.channelManager, this.inboundChannel
+				.getChannelManager());
+	}
+
+	@Test
+	public void testSendMessages() throws Exception {
+		IMessage<String> requestMessage = new Message<String>("TEST");
+		this.outboundChannel.sendMessage(requestMessage);
+		IMessage<String> responseMessage = this.inboundChannel
+				.receiveMessage(IInboundChannel.INFINITE_TIMEOUT);
+		Assert.assertSame(requestMessage, responseMessage);
+		Assert.assertNull(this.inboundChannel
+				.receiveMessage(IInboundChannel.NO_WAIT_TIMEOUT));
+	}
+
+	@Test
+	public void testReceiveTimeout() throws Exception {
+		long start = System.currentTimeMillis();
+		Assert.assertNull(this.inboundChannel.receiveMessage(50));
+		Assert.assertTrue(System.currentTimeMillis() - start >= 45);
+	}
+
+	@Test
+	public void testSendBlocksWhileBufferIsFull() throws Exception {
+		final int count = 1000;
+		Thread producer = new Thread() {
+			@Override
+			public void run() {
+				for (int i = 0; i < count; i++) {
+					MemoryChannelTest.this.outboundChannel
+							.sendMessage(new Message<String>(Integer
+									.toString(i)));
+				}
+			}
+		};
+		producer.start();
+		for (int i = 0; i < count; i++) {
+			IMessage<String> message = this.inboundChannel
+					.receiveMessage(IInboundChannel.INFINITE_TIMEOUT);
+			Assert.assertEquals(Integer.toString(i), message.getPayload());
+		}
+		producer.join();
+	}
+
+	@Test
+	public void testMessageListener() throws Exception {
+		final CountDownLatch latch = new CountDownLatch(3);
+		final List<String> payloads = new CopyOnWriteArrayList<String>();
+		IMessageListener<String> messageListener = new IMessageListener<String>() {
+			public void handleMessage(IMessage<String> message) {
+				payloads.add(message.getPayload());
+				latch.countDown();
+			}
+		};
+		this.inboundChannel.addMessageListener(messageListener);
+		this.outboundChannel.sendMessage(new Message<String>("1"));
+		this.outboundChannel.sendMessage(new Message<String>("2"));
+		this.outboundChannel.sendMessage(new Message<String>("3"));
+		Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+		Assert.assertEquals("1", payloads.get(0));
+		Assert.assertEquals("3", payloads.get(2));
+		this.inboundChannel.removeMessageListener(messageListener);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testFailingListenerDoesNotStopDispatch() throws Exception {
+		final CountDownLatch latch = new CountDownLatch(3);
+		final List<String> payloads = new CopyOnWriteArrayList<String>();
+		final List<Throwable> failures = new CopyOnWriteArrayList<Throwable>();
+		ExecutorService executorService = Executors
+				.newSingleThreadExecutor(new ThreadFactory() {
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable);
+						thread
+								.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+									public void uncaughtException(
+											Thread failedThread,
+											Throwable failure) {
+										failures.add(failure);
+									}
+								});
+						return thread;
+					}
+				});
+		((InboundChannel<String>) this.inboundChannel)
+				.setDispatchExecutor(executorService);
+		this.inboundChannel.addMessageListener(new IMessageListener<String>() {
+			public void handleMessage(IMessage<String> message) {
+				if ("1".equals(message.getPayload())) {
+					throw new IllegalStateException();
+				}
+			}
+		});
+		this.inboundChannel.addMessageListener(new IMessageListener<String>() {
+			public void handleMessage(IMessage<String> message) {
+				payloads.add(message.getPayload());
+				latch.countDown();
+			}
+		});
+		this.outboundChannel.sendMessage(new Message<String>("1"));
+		this.outboundChannel.sendMessage(new Message<String>("2"));
+		this.outboundChannel.sendMessage(new Message<String>("3"));
+		Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+		Assert.assertEquals(Arrays.asList("1", "2", "3"), payloads);
+		Assert.assertEquals(1, failures.size());
+		executorService.shutdown();
+	}
+
+	@Test
+	public void testSendAndReceiveBatches() throws Exception {
+		List<IMessage<String>> messages = new ArrayList<IMessage<String>>();
+		for (int i = 0; i < 3; i++) {
+			messages.add(new Message<String>(Integer.toString(i)));
+		}
+		this.outboundChannel.sendMessages(messages);
+		List<IMessage<String>> receivedMessages = this.inboundChannel
+				.receiveMessages(2, IInboundChannel.INFINITE_TIMEOUT);
+		Assert.assertEquals(messages.subList(0, 2), receivedMessages);
+		receivedMessages = this.inboundChannel.receiveMessages(10,
+				IInboundChannel.NO_WAIT_TIMEOUT);
+		Assert.assertEquals(messages.subList(2, 3), receivedMessages);
+		Assert.assertTrue(this.inboundChannel.receiveMessages(10,
+				IInboundChannel.NO_WAIT_TIMEOUT).isEmpty());
+	}
+
+	@Test
+	public void testMessageBatchListener() throws Exception {
+		final int count = 100;
+		final CountDownLatch latch = new CountDownLatch(count);
+		final List<Integer> batchSizes = new CopyOnWriteArrayList<Integer>();
+		this.inboundChannel
+				.addMessageListener(new IMessageBatchListener<String>() {
+					public void handleMessages(List<IMessage<String>> messages) {
+						batchSizes.add(messages.size());
+						for (int i = 0; i < messages.size(); i++) {
+							latch.countDown();
+						}
+					}
+
+					public void handleMessage(IMessage<String> message) {
+						Assert.fail();
+					}
+				});
+		List<IMessage<String>> messages = new ArrayList<IMessage<String>>();
+		for (int i = 0; i < count; i++) {
+			messages.add(new Message<String>(Integer.toString(i)));
+		}
+		this.outboundChannel.sendMessages(messages);
+		Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+		Assert.assertTrue(batchSizes.size() < count);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testDispatchOrderOnSharedExecutor() throws Exception {
+		final int channels = 100;
+		final int count = 100;
+		ExecutorService executorService = Executors.newFixedThreadPool(2);
+		final CountDownLatch latch = new CountDownLatch(channels * count);
+		final List<String> failures = new CopyOnWriteArrayList<String>();
+		List<IOutboundChannel<Integer>> outboundChannels = new ArrayList<IOutboundChannel<Integer>>();
+		for (int i = 0; i < channels; i++) {
+			URI channelIdentifier = new URI("memory:channel" + i);
+			InboundChannel<Integer> inboundChannel = (InboundChannel<Integer>) this.channelManager
+					.getInboundChannel(channelIdentifier);
+			inboundChannel.setDispatchExecutor(executorService);
+			inboundChannel.setDispatchBatchSize(3);
+			inboundChannel.addMessageListener(new IMessageListener<Integer>() {
+				private int expected;
+
+				public void handleMessage(IMessage<Integer> message) {
+					if (message.getPayload().intValue() != this.expected++) {
+						failures.add(message.getPayload().toString());
+					}
+					latch.countDown();
+				}
+			});
+			outboundChannels.add((IOutboundChannel<Integer>) this.channelManager
+					.getOutboundChannel(channelIdentifier));
+		}
+		for (int i = 0; i < count; i++) {
+			for (IOutboundChannel<Integer> outboundChannel : outboundChannels) {
+				outboundChannel.sendMessage(new Message<Integer>(i));
+			}
+		}
+		Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+		Assert.assertTrue(failures.isEmpty());
+		executorService.shutdown();
+		Assert.assertTrue(executorService.awaitTermination(5,
+				TimeUnit.SECONDS));
+	}
+
+	@SuppressWarnings("unchecked")
+	protected IOutboundChannel<String> outboundChannel(
+			OverflowPolicy overflowPolicy) throws Exception {
+		this.channelManager = new MemoryChannelManager(4, true, overflowPolicy);
+		URI channelIdentifier = new URI("memory:org/jmetis/messaging/overflow");
+		this.inboundChannel = (IInboundChannel<String>) this.channelManager
+				.getInboundChannel(channelIdentifier);
+		return (IOutboundChannel<String>) this.channelManager
+				.getOutboundChannel(channelIdentifier);
+	}
+
+	protected String receivePayloads() {
+		StringBuilder payloads = new StringBuilder();
+		for (IMessage<String> message : this.inboundChannel.receiveMessages(
+				Integer.MAX_VALUE, 0)) {
+			payloads.append(message.getPayload());
+		}
+		return payloads.toString();
+	}
+
+	@Test
+	public void testDropNewestWhileBufferIsFull() throws Exception {
+		IOutboundChannel<String> outboundChannel = this
+				.outboundChannel(OverflowPolicy.DROP_NEWEST);
+		for (int i = 0; i < 6; i++) {
+			outboundChannel.sendMessage(new Message<String>(Integer
+					.toString(i)));
+		}
+		Assert.assertEquals("0123", this.receivePayloads());
+		Assert.assertEquals(2, ((InboundChannel<String>) this.inboundChannel)
+				.getOverflowCount(OverflowPolicy.DROP_NEWEST));
+	}
+
+	@Test
+	public void testDropOldestWhileBufferIsFull() throws Exception {
+		IOutboundChannel<String> outboundChannel = this
+				.outboundChannel(OverflowPolicy.DROP_OLDEST);
+		for (int i = 0; i < 6; i++) {
+			outboundChannel.sendMessage(new Message<String>(Integer
+					.toString(i)));
+		}
+		Assert.assertEquals("2345", this.receivePayloads());
+		Assert.assertEquals(2, ((InboundChannel<String>) this.inboundChannel)
+				.getOverflowCount(OverflowPolicy.DROP_OLDEST));
+	}
+
+	@Test(expected = MessageException.class)
+	public void testRejectWhileBufferIsFull() throws Exception {
+		IOutboundChannel<String> outboundChannel = this
+				.outboundChannel(OverflowPolicy.REJECT);
+		for (int i = 0; i < 5; i++) {
+			outboundChannel.sendMessage(new Message<String>(Integer
+					.toString(i)));
+		}
+	}
+
+	@Test
+	public void testSingleProducerRingBuffer() throws Exception {
+		RingBuffer<Integer> ringBuffer = new SingleProducerRingBuffer<Integer>(
+				3);
+		Assert.assertEquals(4, ringBuffer.capacity());
+		for (int i = 0; i < 4; i++) {
+			Assert.assertTrue(ringBuffer.offer(i));
+		}
+		Assert.assertFalse(ringBuffer.offer(4));
+		Assert.assertEquals(4, ringBuffer.size());
+		Assert.assertEquals(0, ringBuffer.poll().intValue());
+		Assert.assertTrue(ringBuffer.offer(4));
+		for (int i = 1; i < 5; i++) {
+			Assert.assertEquals(i, ringBuffer.poll().intValue());
+		}
+		Assert.assertNull(ringBuffer.poll());
+		Assert.assertTrue(ringBuffer.isEmpty());
+	}
+
+	@Test
+	public void testMultiProducerRingBuffer() throws Exception {
+		final RingBuffer<Integer> ringBuffer = new MultiProducerRingBuffer<Integer>(
+				64);
+		final int producers = 4;
+		final int count = 10000;
+		Thread[] threads = new Thread[producers];
+		for (int i = 0; i < producers; i++) {
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < count; j++) {
+						ringBuffer.offer(j, RingBuffer.INFINITE_TIMEOUT);
+					}
+				}
+			};
+			threads[i].start();
+		}
+		long sum = 0;
+		for (int i = 0; i < producers * count; i++) {
+			sum += ringBuffer.poll(RingBuffer.INFINITE_TIMEOUT);
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Assert.assertEquals((long) producers * count * (count - 1) / 2, sum);
+		Assert.assertTrue(ringBuffer.isEmpty());
+	}
+
+}
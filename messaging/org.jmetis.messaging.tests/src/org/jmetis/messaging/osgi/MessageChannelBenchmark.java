@@ -0,0 +1,134 @@
+package org.jmetis.messaging.osgi;
+
+import java.net.URI;
+
+import org.jmetis.messaging.core.IInboundChannel;
+import org.jmetis.messaging.core.IMessage;
+import org.jmetis.messaging.core.IOutboundChannel;
+import org.jmetis.messaging.core.Message;
+import org.jmetis.messaging.memory.MemoryChannelManager;
+import org.jmetis.test.BenchmarkReport;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.service.event.EventAdmin;
+import org.osgi.util.tracker.ServiceTracker;
+
+/**
+ * {@code MessageChannelBenchmark} compares the throughput and latency of the
+ * EventAdmin based channels with the in-process channels of the
+ * {@link MemoryChannelManager}. One thread sends {@link #MESSAGE_COUNT}
+ * messages carrying their send time while the test thread receives them.
+ * 
+ * @author era
+ */
+public class MessageChannelBenchmark {
+
+	private static final int WARMUP_COUNT = 20000;
+
+	private static final int MESSAGE_COUNT = 200000;
+
+	private ServiceTracker eventAdminTracker;
+
+	private BundleContext bundleContext;
+
+	/**
+	 * Constructs a new {@code MessageChannelBenchmark} instance.
+	 */
+	public MessageChannelBenchmark() {
+		super();
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		BenchmarkReport.assumeEnabled();
+		Primitives.ensureBundleStarted("org.eclipse.equinox.event");
+		Primitives.ensureBundleStarted("org.jmetis.messaging.tests");
+		Bundle bundle = Primitives.bundleNamed("org.jmetis.messaging.tests");
+		this.bundleContext = bundle.getBundleContext();
+		this.eventAdminTracker = new ServiceTracker(this.bundleContext,
+				EventAdmin.class.getName(), null);
+		this.eventAdminTracker.open();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (this.eventAdminTracker != null) {
+			this.eventAdminTracker.close();
+		}
+	}
+
+	protected void runBenchmark(String name,
+			final IOutboundChannel<Long> outboundChannel,
+			IInboundChannel<Long> inboundChannel, final int count)
+			throws Exception {
+		Thread producer = new Thread() {
+			@Override
+			public void run() {
+				for (int i = 0; i < count; i++) {
+					outboundChannel.sendMessage(new Message<Long>(System
+							.nanoTime()));
+				}
+			}
+		};
+		long start = System.nanoTime();
+		producer.start();
+		long latency = 0;
+		for (int i = 0; i < count; i++) {
+			IMessage<Long> message = inboundChannel
+					.receiveMessage(IInboundChannel.INFINITE_TIMEOUT);
+			Assert.assertNotNull(message);
+			latency += System.nanoTime() - message.getPayload();
+		}
+		long elapsed = System.nanoTime() - start;
+		producer.join();
+		if (name != null) {
+			BenchmarkReport.report(
+					"%s: %,.0f messages/s, mean latency %,.1f us", name, //$NON-NLS-1$
+					count * 1e9 / elapsed, latency / 1e3 / count);
+		}
+	}
+
+	protected void runBenchmark(String name,
+			IOutboundChannel<Long> outboundChannel,
+			IInboundChannel<Long> inboundChannel) throws Exception {
+		this.runBenchmark(null, outboundChannel, inboundChannel,
+				MessageChannelBenchmark.WARMUP_COUNT);
+		this.runBenchmark(name, outboundChannel, inboundChannel,
+				MessageChannelBenchmark.MESSAGE_COUNT);
+	}
+
+	@Test
+	public void benchmarkEventAdminChannel() throws Exception {
+		String eventTopic = "org/jmetis/messaging/benchmark";
+		this.runBenchmark("EventAdmin", new OutboundEventChannel<Long>(
+				this.bundleContext, this.eventAdminTracker, eventTopic),
+				new InboundEventChannel<Long>(this.bundleContext, eventTopic));
+	}
+
+	@SuppressWarnings("unchecked")
+	protected void benchmarkMemoryChannel(String name,
+			boolean multipleProducers) throws Exception {
+		MemoryChannelManager channelManager = new MemoryChannelManager(
+				MemoryChannelManager.DEFAULT_CAPACITY, multipleProducers);
+		URI channelIdentifier = new URI("memory:org/jmetis/messaging/benchmark");
+		this.runBenchmark(name, (IOutboundChannel<Long>) channelManager
+				.getOutboundChannel(channelIdentifier),
+				(IInboundChannel<Long>) channelManager
+						.getInboundChannel(channelIdentifier));
+	}
+
+	@Test
+	public void benchmarkSingleProducerMemoryChannel() throws Exception {
+		this.benchmarkMemoryChannel("Memory (single producer)", false);
+	}
+
+	@Test
+	public void benchmarkMultiProducerMemoryChannel() throws Exception {
+		this.benchmarkMemoryChannel("Memory (multi producer)", true);
+	}
+
+}
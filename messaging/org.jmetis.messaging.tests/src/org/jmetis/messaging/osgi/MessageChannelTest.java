@@ -1,5 +1,8 @@
 package org.jmetis.messaging.osgi;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.jmetis.messaging.core.IInboundChannel;
 import org.jmetis.messaging.core.IMessage;
 import org.jmetis.messaging.core.IOutboundChannel;
@@ -70,4 +73,19 @@ public class MessageChannelTest {
 		Assert.assertSame(requestMessage.getPayload(), responseMessage
 				.getPayload());
 	}
+
+	@Test
+	public void testSendMessageBatches() throws Exception {
+		List<IMessage<String>> requestMessages = new ArrayList<IMessage<String>>();
+		for (int i = 0; i < 10; i++) {
+			requestMessages.add(new Message<String>(Integer.toString(i)));
+		}
+		this.outboundChannel.sendMessages(requestMessages);
+		List<IMessage<String>> responseMessages = new ArrayList<IMessage<String>>();
+		while (responseMessages.size() < requestMessages.size()) {
+			responseMessages.addAll(this.inboundChannel.receiveMessages(10,
+					IInboundChannel.INFINITE_TIMEOUT));
+		}
+		Assert.assertEquals(requestMessages, responseMessages);
+	}
 }
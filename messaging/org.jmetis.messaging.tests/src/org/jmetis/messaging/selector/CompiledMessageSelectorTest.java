@@ -0,0 +1,119 @@
+package org.jmetis.messaging.selector;
+
+import org.jmetis.messaging.core.IMessage;
+import org.jmetis.messaging.core.Message;
+import org.jmetis.messaging.core.MessageException;
+import org.jmetis.messaging.core.IMessage.Priority;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@code CompiledMessageSelectorTest}
+ * 
+ * @author era
+ */
+public class CompiledMessageSelectorTest {
+
+	private IMessage<String> message;
+
+	/**
+	 * Constructs a new {@code CompiledMessageSelectorTest} instance.
+	 */
+	public CompiledMessageSelectorTest() {
+		super();
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		this.message = new Message<String>("order-4711");
+		this.message.setPriority(Priority.HIGH);
+		this.message.setSequenceNumber(12);
+		this.message.setSequenceSize(20);
+	}
+
+	protected boolean accepts(String expression) {
+		return new CompiledMessageSelector<String>(expression)
+				.acceptMessage(this.message);
+	}
+
+	@Test
+	public void testComparisons() throws Exception {
+		Assert.assertTrue(this.accepts("priority = 'HIGH'"));
+		Assert.assertFalse(this.accepts("priority = 'LOW'"));
+		Assert.assertTrue(this.accepts("priority <> 'LOW'"));
+		Assert.assertTrue(this.accepts("sequenceNumber > 10"));
+		Assert.assertTrue(this.accepts("sequenceNumber >= 12"));
+		Assert.assertFalse(this.accepts("sequenceNumber < 12"));
+		Assert.assertTrue(this.accepts("sequenceNumber <= 12.0"));
+		Assert.assertTrue(this.accepts("12 = sequenceNumber"));
+		Assert.assertTrue(this.accepts("sequenceNumber != -1"));
+	}
+
+	@Test
+	public void testLogicalOperators() throws Exception {
+		Assert.assertTrue(this
+				.accepts("priority = 'HIGH' and sequenceNumber > 10"));
+		Assert.assertFalse(this
+				.accepts("priority = 'HIGH' AND sequenceNumber > 12"));
+		Assert.assertTrue(this
+				.accepts("priority = 'LOW' OR sequenceNumber > 10"));
+		Assert.assertTrue(this.accepts("NOT (priority = 'LOW')"));
+		Assert.assertTrue(this
+				.accepts("(priority = 'LOW' or priority = 'HIGH') and not sequenceNumber = 0"));
+	}
+
+	@Test
+	public void testPredicates() throws Exception {
+		Assert.assertTrue(this.accepts("sequenceNumber BETWEEN 10 AND 12"));
+		Assert.assertFalse(this.accepts("sequenceNumber NOT BETWEEN 10 AND 12"));
+		Assert.assertTrue(this.accepts("priority IN ('NORMAL', 'HIGH')"));
+		Assert.assertFalse(this.accepts("priority NOT IN ('NORMAL', 'HIGH')"));
+		Assert.assertTrue(this.accepts("payload LIKE 'order-%'"));
+		Assert.assertTrue(this.accepts("payload LIKE 'order-47_1'"));
+		Assert.assertFalse(this.accepts("payload LIKE 'order'"));
+		Assert.assertTrue(this.accepts("payload NOT LIKE 'order!_%' ESCAPE '!'"));
+		Assert.assertTrue(this.accepts("correlationId IS NULL"));
+		Assert.assertFalse(this.accepts("payload IS NULL"));
+		Assert.assertTrue(this.accepts("payload IS NOT NULL"));
+	}
+
+	@Test
+	public void testUnknownValues() throws Exception {
+		Assert.assertFalse(this.accepts("correlationId = 'x'"));
+		Assert.assertFalse(this.accepts("NOT (correlationId = 'x')"));
+		Assert.assertTrue(this
+				.accepts("correlationId = 'x' OR priority = 'HIGH'"));
+		Assert.assertFalse(this.accepts("unknownProperty = 1"));
+	}
+
+	@Test
+	public void testEqualityConstraints() throws Exception {
+		CompiledMessageSelector<String> messageSelector = new CompiledMessageSelector<String>(
+				"priority = 'HIGH' and sequenceNumber = 12 and sequenceSize > 1");
+		Assert.assertEquals(2, messageSelector.getEqualityConstraints().size());
+		Assert.assertEquals("HIGH", messageSelector.getEqualityConstraints()
+				.get("priority"));
+		Assert.assertEquals(Long.valueOf(12), messageSelector
+				.getEqualityConstraints().get("sequenceNumber"));
+		Assert.assertTrue(new CompiledMessageSelector<String>(
+				"priority = 'HIGH' or sequenceNumber = 12")
+				.getEqualityConstraints().isEmpty());
+	}
+
+	@Test
+	public void testInvalidExpressions() throws Exception {
+		String[] expressions = { "", "priority =", "priority = 'HIGH",
+				"(priority = 'HIGH'", "priority 'HIGH'",
+				"priority IN 'HIGH'", "priority NOT 'HIGH'" };
+		for (String expression : expressions) {
+			try {
+				new CompiledMessageSelector<String>(expression);
+				Assert.fail(expression);
+			} catch (MessageException ex) {
+				// expected
+			}
+		}
+	}
+
+}
@@ -0,0 +1,139 @@
+package org.jmetis.messaging.selector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jmetis.messaging.core.IMessage;
+import org.jmetis.messaging.core.IMessageListener;
+import org.jmetis.messaging.core.IMessageSelector;
+import org.jmetis.messaging.core.Message;
+import org.jmetis.messaging.core.IMessage.Priority;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@code MessageRouterTest}
+ * 
+ * @author era
+ */
+public class MessageRouterTest {
+
+	private MessageRouter<String> messageRouter;
+
+	/**
+	 * Constructs a new {@code MessageRouterTest} instance.
+	 */
+	public MessageRouterTest() {
+		super();
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		this.messageRouter = new MessageRouter<String>();
+	}
+
+	protected IMessage<String> message(String payload, int sequenceNumber) {
+		IMessage<String> message = new Message<String>(payload);
+		message.setSequenceNumber(sequenceNumber);
+		return message;
+	}
+
+	protected RecordingListener listener(String expression) {
+		RecordingListener listener = new RecordingListener();
+		this.messageRouter.addMessageListener(expression, listener);
+		return listener;
+	}
+
+	@Test
+	public void testEqualitySelectorsReceiveMatchingMessagesOnly() throws Exception {
+		List<RecordingListener> listeners = new ArrayList<RecordingListener>();
+		for (int i = 0; i < 100; i++) {
+			listeners.add(this.listener("sequenceNumber = " + i));
+		}
+		for (int i = 0; i < 100; i++) {
+			this.messageRouter.handleMessage(this.message("m" + i, i));
+		}
+		for (int i = 0; i < 100; i++) {
+			Assert.assertEquals("m" + i, listeners.get(i).payloads());
+		}
+	}
+
+	@Test
+	public void testIndexedSelectorsAreEvaluated() throws Exception {
+		RecordingListener highListener = this
+				.listener("sequenceNumber = 1 and priority = 'HIGH'");
+		RecordingListener anyListener = this.listener("sequenceNumber = 1");
+		IMessage<String> highMessage = this.message("h", 1);
+		highMessage.setPriority(Priority.HIGH);
+		this.messageRouter.handleMessage(this.message("n", 1));
+		this.messageRouter.handleMessage(highMessage);
+		Assert.assertEquals("h", highListener.payloads());
+		Assert.assertEquals("nh", anyListener.payloads());
+	}
+
+	@Test
+	public void testUnindexedSelectors() throws Exception {
+		RecordingListener rangeListener = this.listener("sequenceNumber > 1");
+		RecordingListener allListener = new RecordingListener();
+		this.messageRouter.addMessageListener((IMessageSelector<String>) null,
+				allListener);
+		for (int i = 0; i < 4; i++) {
+			this.messageRouter.handleMessage(this.message("m" + i, i));
+		}
+		Assert.assertEquals("m2m3", rangeListener.payloads());
+		Assert.assertEquals("m0m1m2m3", allListener.payloads());
+	}
+
+	@Test
+	public void testRemoveMessageListener() throws Exception {
+		RecordingListener listener = this.listener("sequenceNumber = 1");
+		this.messageRouter.handleMessage(this.message("a", 1));
+		this.messageRouter.removeMessageListener(listener);
+		this.messageRouter.handleMessage(this.message("b", 1));
+		Assert.assertEquals("a", listener.payloads());
+	}
+
+	@Test
+	public void testFailingListenerDoesNotStopRouting() throws Exception {
+		final List<RuntimeException> failures = new ArrayList<RuntimeException>();
+		this.messageRouter = new MessageRouter<String>() {
+			@Override
+			protected void handleDispatchFailure(
+					IMessageListener<String> messageListener,
+					RuntimeException exception) {
+				failures.add(exception);
+			}
+		};
+		IMessageListener<String> failingListener = new IMessageListener<String>() {
+
+			public void handleMessage(IMessage<String> message) {
+				throw new IllegalStateException(message.getPayload());
+			}
+		};
+		this.messageRouter.addMessageListener("sequenceNumber = 1",
+				failingListener);
+		RecordingListener indexedListener = this.listener("sequenceNumber = 1");
+		RecordingListener unindexedListener = this.listener("sequenceNumber > 0");
+		this.messageRouter.handleMessage(this.message("a", 1));
+		this.messageRouter.handleMessage(this.message("b", 1));
+		Assert.assertEquals("ab", indexedListener.payloads());
+		Assert.assertEquals("ab", unindexedListener.payloads());
+		Assert.assertEquals(2, failures.size());
+	}
+
+	static class RecordingListener implements IMessageListener<String> {
+
+		private final StringBuilder payloads = new StringBuilder();
+
+		public void handleMessage(IMessage<String> message) {
+			this.payloads.append(message.getPayload());
+		}
+
+		String payloads() {
+			return this.payloads.toString();
+		}
+
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.observable;
+
+import java.beans.PropertyChangeListener;
+
+/**
+ * {@code IPrimitivePropertyChangeListener} is a {@link PropertyChangeListener}
+ * which accepts changes of primitive property values without boxing them.
+ * Dispatchers that support primitive events call the typed {@code
+ * propertyChange} methods instead of creating a
+ * {@link java.beans.PropertyChangeEvent}; all other sources keep calling
+ * {@link #propertyChange(java.beans.PropertyChangeEvent)}.
+ * <p>
+ * {@code byte}, {@code short} and {@code char} values are delivered widened to
+ * {@code int}, {@code float} values widened to {@code double}.
+ * 
+ * @author aerlach
+ */
+public interface IPrimitivePropertyChangeListener extends
+		PropertyChangeListener {
+
+	/**
+	 * Notifies the receiver that a {@code boolean} property has changed.
+	 * 
+	 * @param source
+	 *            the object on which the property has changed
+	 * @param propertyName
+	 *            the name of the changed property, or {@code null} if unknown
+	 * @param oldValue
+	 *            the old value of the property
+	 * @param newValue
+	 *            the new value of the property
+	 */
+	void propertyChange(Object source, String propertyName, boolean oldValue,
+			boolean newValue);
+
+	/**
+	 * Notifies the receiver that an {@code int}, {@code short}, {@code byte} or
+	 * {@code char} property has changed.
+	 * 
+	 * @param source
+	 *            the object on which the property has changed
+	 * @param propertyName
+	 *            the name of the changed property, or {@code null} if unknown
+	 * @param oldValue
+	 *            the old value of the property
+	 * @param newValue
+	 *            the new value of the property
+	 */
+	void propertyChange(Object source, String propertyName, int oldValue,
+			int newValue);
+
+	/**
+	 * Notifies the receiver that a {@code long} property has changed.
+	 * 
+	 * @param source
+	 *            the object on which the property has changed
+	 * @param propertyName
+	 *            the name of the changed property, or {@code null} if unknown
+	 * @param oldValue
+	 *            the old value of the property
+	 * @param newValue
+	 *            the new value of the property
+	 */
+	void propertyChange(Object source, String propertyName, long oldValue,
+			long newValue);
+
+	/**
+	 * Notifies the receiver that a {@code double} or {@code float} property has
+	 * changed.
+	 * 
+	 * @param source
+	 *            the object on which the property has changed
+	 * @param propertyName
+	 *            the name of the changed property, or {@code null} if unknown
+	 * @param oldValue
+	 *            the old value of the property
+	 * @param newValue
+	 *            the new value of the property
+	 */
+	void propertyChange(Object source, String propertyName, double oldValue,
+			double newValue);
+
+}
@@ -0,0 +1,225 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.observable.collection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jmetis.kernel.assertion.Assertions;
+import org.jmetis.kernel.closure.IUnaryFunction;
+import org.jmetis.kernel.metadata.IPropertyAccessor;
+import org.jmetis.kernel.metadata.IPropertyDescription;
+
+/**
+ * {@code ElementIndex} is a secondary index which maps the key of each
+ * element of an {@link IndexedCollection}, or each value of a
+ * {@link KeyedCollection}, to the elements having that key. The collection
+ * updates its indexes from its own mutation methods before it fires the
+ * corresponding change event, so lookups by key take constant time and agree
+ * with the events received by listeners.
+ * <p>
+ * A key maps to its only element directly; a list is allocated only for keys
+ * shared by several elements. {@code null} elements are not indexed.
+ * <p>
+ * Keys are computed when an element is added, so an index keyed by a mutable
+ * property goes stale when that property of an indexed element changes: the
+ * element stays filed under its old key until the collection replaces it,
+ * e.g. by putting or setting the same element again, which moves it to its
+ * current key.
+ * 
+ * @author era
+ * @param <K>
+ *            the type of the keys
+ * @param <E>
+ *            the type of the indexed elements
+ */
+public class ElementIndex<K, E> {
+
+	private static final IUnaryFunction<Object, Object> ELEMENT_FUNCTION = new IUnaryFunction<Object, Object>() {
+
+		public Object evaluate(Object argument) {
+			return argument;
+		}
+	};
+
+	private final IUnaryFunction<? extends K, ? super E> keyFunction;
+
+	private final Map<K, Object> elements;
+
+	/**
+	 * Constructs a new {@code ElementIndex} instance.
+	 * 
+	 * @param keyFunction
+	 *            the {@link IUnaryFunction} which computes the key of an
+	 *            element
+	 */
+	public ElementIndex(IUnaryFunction<? extends K, ? super E> keyFunction) {
+		super();
+		this.keyFunction = Assertions.mustNotBeNull("keyFunction", //$NON-NLS-1$
+				keyFunction);
+		this.elements = new HashMap<K, Object>();
+	}
+
+	/**
+	 * Returns an {@code ElementIndex} keyed by the elements themselves.
+	 */
+	@SuppressWarnings("unchecked")
+	static <E> ElementIndex<E, E> byElement() {
+		return new ElementIndex<E, E>(
+				(IUnaryFunction<E, E>) ElementIndex.ELEMENT_FUNCTION);
+	}
+
+	/**
+	 * Returns an {@code ElementIndex} keyed by the value of the property
+	 * described by the given {@code propertyDescriptor}.
+	 */
+	static <E> ElementIndex<Object, E> byProperty(
+			IPropertyDescription propertyDescriptor) {
+		final IPropertyAccessor propertyAccessor = Assertions.mustNotBeNull(
+				"propertyDescriptor", propertyDescriptor) //$NON-NLS-1$
+				.getPropertyAccessor();
+		return new ElementIndex<Object, E>(new IUnaryFunction<Object, E>() {
+
+			public Object evaluate(E argument) {
+				return propertyAccessor.getValueFrom(argument);
+			}
+		});
+	}
+
+	/**
+	 * Returns the key of the given {@code element}.
+	 */
+	public K keyOf(E element) {
+		return this.keyFunction.evaluate(element);
+	}
+
+	/**
+	 * Returns {@code true} if an element has the given {@code key}.
+	 */
+	public boolean containsKey(Object key) {
+		return this.elements.containsKey(key);
+	}
+
+	/**
+	 * Returns the first indexed element with the given {@code key}.
+	 * 
+	 * @return an element with the given {@code key}, or {@code null} if there
+	 *         is none
+	 */
+	@SuppressWarnings("unchecked")
+	public E get(Object key) {
+		Object value = this.elements.get(key);
+		if (value instanceof Bucket) {
+			return (E) ((Bucket) value).get(0);
+		}
+		return (E) value;
+	}
+
+	/**
+	 * Returns all indexed elements with the given {@code key}.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<E> getAll(Object key) {
+		Object value = this.elements.get(key);
+		if (value == null) {
+			return Collections.emptyList();
+		}
+		if (value instanceof Bucket) {
+			return Collections.unmodifiableList((List<E>) value);
+		}
+		return Collections.singletonList((E) value);
+	}
+
+	/**
+	 * Returns the number of distinct keys.
+	 */
+	public int size() {
+		return this.elements.size();
+	}
+
+	void add(E element) {
+		if (element != null) {
+			K key = this.keyOf(element);
+			Object value = this.elements.put(key, element);
+			if (value != null) {
+				Bucket bucket;
+				if (value instanceof Bucket) {
+					bucket = (Bucket) value;
+				} else {
+					bucket = new Bucket();
+					bucket.add(value);
+				}
+				bucket.add(element);
+				this.elements.put(key, bucket);
+			}
+		}
+	}
+
+	void remove(E element) {
+		if (element != null && !this.remove(this.keyOf(element), element)) {
+			// the key of the element changed after it has been indexed
+			for (K key : this.elements.keySet()) {
+				if (this.remove(key, element)) {
+					break;
+				}
+			}
+		}
+	}
+
+	private boolean remove(K key, E element) {
+		Object value = this.elements.get(key);
+		if (value instanceof Bucket) {
+			Bucket bucket = (Bucket) value;
+			if (!bucket.remove(element)) {
+				return false;
+			}
+			if (bucket.size() == 1) {
+				this.elements.put(key, bucket.get(0));
+			}
+			return true;
+		}
+		if (value != null && value.equals(element)) {
+			this.elements.remove(key);
+			return true;
+		}
+		return false;
+	}
+
+	void addAll(Iterable<? extends E> elements) {
+		for (E element : elements) {
+			this.add(element);
+		}
+	}
+
+	void clear() {
+		this.elements.clear();
+	}
+
+	/**
+	 * {@code Bucket} holds the elements of a key shared by several elements.
+	 */
+	private static final class Bucket extends ArrayList<Object> {
+
+		private static final long serialVersionUID = 1L;
+
+		Bucket() {
+			super(2);
+		}
+
+	}
+
+}
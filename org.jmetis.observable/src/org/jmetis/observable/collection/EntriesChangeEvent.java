@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.observable.collection;
+
+import java.beans.PropertyChangeEvent;
+import java.util.Map;
+
+/**
+ * {@code EntriesChangeEvent} is fired by a {@link KeyedCollection} to its
+ * general listeners when a batch of changes ends. Its old and new values map
+ * each changed key to its value before and after the batch; a key which has
+ * been removed maps to {@code null} in the new values.
+ * 
+ * @author era
+ */
+public class EntriesChangeEvent extends PropertyChangeEvent {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Constructs a new {@code EntriesChangeEvent} instance.
+	 * 
+	 * @param source
+	 *            the {@link KeyedCollection} that has changed
+	 * @param oldValues
+	 *            the old value of each changed key
+	 * @param newValues
+	 *            the new value of each changed key
+	 */
+	public EntriesChangeEvent(Object source, Map<String, ?> oldValues,
+			Map<String, ?> newValues) {
+		super(source, "entries", oldValues, newValues); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns the old value of each changed key.
+	 * 
+	 * @return a {@link Map} from the changed keys to their old values
+	 */
+	@SuppressWarnings("unchecked")
+	public Map<String, ?> getOldValues() {
+		return (Map<String, ?>) this.getOldValue();
+	}
+
+	/**
+	 * Returns the new value of each changed key.
+	 * 
+	 * @return a {@link Map} from the changed keys to their new values
+	 */
+	@SuppressWarnings("unchecked")
+	public Map<String, ?> getNewValues() {
+		return (Map<String, ?>) this.getNewValue();
+	}
+
+}
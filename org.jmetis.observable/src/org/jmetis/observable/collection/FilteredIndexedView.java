@@ -0,0 +1,158 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.observable.collection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jmetis.kernel.assertion.Assertions;
+import org.jmetis.kernel.closure.IUnaryPredicate;
+import org.jmetis.observable.IIndexedModel;
+
+/**
+ * {@code FilteredIndexedView} shows the elements of its source which satisfy
+ * a filter, in the order of the source.
+ * <p>
+ * The view keeps one node per source element in an {@link IndexTree}, marked
+ * with whether the element passed the filter, so each source change is
+ * mapped to the view in O(log n) and fired as a single event.
+ * 
+ * @author era
+ * @param <E>
+ */
+public class FilteredIndexedView<E> extends IndexedView<E, E> {
+
+	private final IndexTree<E> elements;
+
+	private IUnaryPredicate<? super E> filter;
+
+	/**
+	 * Constructs a new {@code FilteredIndexedView} instance.
+	 * 
+	 * @param sourceModel
+	 *            the {@link IIndexedModel} to filter
+	 * @param filter
+	 *            the {@link IUnaryPredicate} the shown elements satisfy
+	 */
+	public FilteredIndexedView(IIndexedModel<E> sourceModel,
+			IUnaryPredicate<? super E> filter) {
+		super(sourceModel);
+		this.filter = Assertions.mustNotBeNull("filter", filter); //$NON-NLS-1$
+		this.elements = new IndexTree<E>();
+		this.rebuild();
+	}
+
+	public IUnaryPredicate<? super E> getFilter() {
+		return this.filter;
+	}
+
+	/**
+	 * Replaces the filter and refreshes the receiver.
+	 * 
+	 * @param filter
+	 *            the {@link IUnaryPredicate} the shown elements satisfy
+	 */
+	public void setFilter(IUnaryPredicate<? super E> filter) {
+		this.filter = Assertions.mustNotBeNull("filter", filter); //$NON-NLS-1$
+		this.refresh();
+	}
+
+	private int weightOf(E element) {
+		return this.filter.evaluate(element) ? 1 : 0;
+	}
+
+	/**
+	 * Returns the index in the source of the element at the given {@code
+	 * index} of the receiver.
+	 * 
+	 * @param index
+	 *            an index of the receiver
+	 * @return the corresponding index in the source
+	 */
+	public int sourceIndexOf(int index) {
+		this.checkIndex(index);
+		return this.elements.indexOf(this.elements.weightedNodeAt(index));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractList#get(int)
+	 */
+	@Override
+	public E get(int index) {
+		this.checkIndex(index);
+		return this.elements.weightedNodeAt(index).value;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractCollection#size()
+	 */
+	@Override
+	public int size() {
+		return this.elements.count();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.observable.collection.IndexedView#rebuild()
+	 */
+	@Override
+	protected void rebuild() {
+		this.elements.clear();
+		int index = 0;
+		for (E element : this.sourceModel) {
+			this.elements.insert(index++, element, this.weightOf(element));
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.observable.collection.IndexedView#sourceElementsChanged(int,
+	 * java.lang.Object[], java.lang.Object[])
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	protected void sourceElementsChanged(int index, Object[] oldElements,
+			Object[] newElements) {
+		int viewIndex = this.elements.countBefore(index);
+		List<Object> removedElements = new ArrayList<Object>();
+		for (int i = 0; i < oldElements.length; i++) {
+			IndexTree.Node<E> node = this.elements.nodeAt(index);
+			if (node.weight == 1) {
+				removedElements.add(node.value);
+			}
+			this.elements.remove(node);
+		}
+		List<Object> addedElements = new ArrayList<Object>();
+		for (int i = 0; i < newElements.length; i++) {
+			E element = (E) newElements[i];
+			int weight = this.weightOf(element);
+			this.elements.insert(index + i, element, weight);
+			if (weight == 1) {
+				addedElements.add(element);
+			}
+		}
+		if (!removedElements.isEmpty() || !addedElements.isEmpty()) {
+			this.fireElementsChanged(viewIndex, removedElements.toArray(),
+					addedElements.toArray());
+		}
+	}
+
+}
@@ -0,0 +1,334 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.observable.collection;
+
+import java.util.Comparator;
+
+/**
+ * {@code IndexTree} is a sequence of nodes kept in a randomized balanced
+ * binary tree, so that nodes can be inserted, removed and looked up by index
+ * in O(log n). Every node has a weight of zero or one, and nodes can also be
+ * looked up by their index among the nodes of weight one.
+ * <p>
+ * Nodes know their parent, so the index of a node is computed from the node
+ * itself without searching for it.
+ * 
+ * @author era
+ * @param <T>
+ *            the type of the node values
+ */
+final class IndexTree<T> {
+
+	private Node<T> root;
+
+	private int seed;
+
+	private Node<T> splitLeft;
+
+	private Node<T> splitRight;
+
+	/**
+	 * Constructs a new {@code IndexTree} instance.
+	 */
+	IndexTree() {
+		super();
+		this.seed = System.identityHashCode(this) | 1;
+	}
+
+	private static int size(Node<?> node) {
+		return node == null ? 0 : node.size;
+	}
+
+	private static int count(Node<?> node) {
+		return node == null ? 0 : node.count;
+	}
+
+	private static <T> Node<T> update(Node<T> node) {
+		Node<T> left = node.left;
+		Node<T> right = node.right;
+		node.size = 1 + IndexTree.size(left) + IndexTree.size(right);
+		node.count = node.weight + IndexTree.count(left)
+				+ IndexTree.count(right);
+		if (left != null) {
+			left.parent = node;
+		}
+		if (right != null) {
+			right.parent = node;
+		}
+		return node;
+	}
+
+	private int nextPriority() {
+		int seed = this.seed;
+		seed ^= seed << 13;
+		seed ^= seed >>> 17;
+		seed ^= seed << 5;
+		return this.seed = seed;
+	}
+
+	/**
+	 * Returns the number of nodes.
+	 */
+	int size() {
+		return IndexTree.size(this.root);
+	}
+
+	/**
+	 * Returns the number of nodes of weight one.
+	 */
+	int count() {
+		return IndexTree.count(this.root);
+	}
+
+	void clear() {
+		this.root = null;
+	}
+
+	/**
+	 * Returns the node at the given {@code index}.
+	 */
+	Node<T> nodeAt(int index) {
+		Node<T> node = this.root;
+		while (true) {
+			int leftSize = IndexTree.size(node.left);
+			if (index < leftSize) {
+				node = node.left;
+			} else if (index == leftSize) {
+				return node;
+			} else {
+				index -= leftSize + 1;
+				node = node.right;
+			}
+		}
+	}
+
+	/**
+	 * Returns the node of weight one at the given {@code index} among the
+	 * nodes of weight one.
+	 */
+	Node<T> weightedNodeAt(int index) {
+		Node<T> node = this.root;
+		while (true) {
+			int leftCount = IndexTree.count(node.left);
+			if (index < leftCount) {
+				node = node.left;
+			} else if (index == leftCount && node.weight == 1) {
+				return node;
+			} else {
+				index -= leftCount + node.weight;
+				node = node.right;
+			}
+		}
+	}
+
+	/**
+	 * Returns the index of the given {@code node}.
+	 */
+	int indexOf(Node<T> node) {
+		int index = IndexTree.size(node.left);
+		for (Node<T> child = node, parent = node.parent; parent != null; child = parent, parent = parent.parent) {
+			if (parent.right == child) {
+				index += IndexTree.size(parent.left) + 1;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the number of nodes of weight one before the given {@code node}.
+	 */
+	int weightedIndexOf(Node<T> node) {
+		int index = IndexTree.count(node.left);
+		for (Node<T> child = node, parent = node.parent; parent != null; child = parent, parent = parent.parent) {
+			if (parent.right == child) {
+				index += IndexTree.count(parent.left) + parent.weight;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the number of nodes of weight one before the given {@code index}.
+	 */
+	int countBefore(int index) {
+		int count = 0;
+		Node<T> node = this.root;
+		while (node != null) {
+			int leftSize = IndexTree.size(node.left);
+			if (index <= leftSize) {
+				node = node.left;
+			} else {
+				count += IndexTree.count(node.left) + node.weight;
+				index -= leftSize + 1;
+				node = node.right;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the index after the last node whose value is not greater than
+	 * the given {@code value}. The values must be ordered by the given
+	 * {@code comparator}.
+	 */
+	int upperBound(T value, Comparator<? super T> comparator) {
+		int index = 0;
+		Node<T> node = this.root;
+		while (node != null) {
+			if (comparator.compare(value, node.value) < 0) {
+				node = node.left;
+			} else {
+				index += IndexTree.size(node.left) + 1;
+				node = node.right;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Inserts a new node at the given {@code index}.
+	 * 
+	 * @return the inserted node
+	 */
+	Node<T> insert(int index, T value, int weight) {
+		Node<T> node = new Node<T>(value, weight, this.nextPriority());
+		this.root = this.insert(this.root, index, node);
+		this.root.parent = null;
+		return node;
+	}
+
+	private Node<T> insert(Node<T> tree, int index, Node<T> node) {
+		if (tree == null) {
+			return node;
+		}
+		if (node.priority > tree.priority) {
+			this.split(tree, index);
+			node.left = this.splitLeft;
+			node.right = this.splitRight;
+			this.splitLeft = this.splitRight = null;
+			return IndexTree.update(node);
+		}
+		int leftSize = IndexTree.size(tree.left);
+		if (index <= leftSize) {
+			tree.left = this.insert(tree.left, index, node);
+		} else {
+			tree.right = this.insert(tree.right, index - leftSize - 1, node);
+		}
+		return IndexTree.update(tree);
+	}
+
+	/**
+	 * Splits the given {@code tree} into {@link #splitLeft}, holding the first
+	 * {@code index} nodes, and {@link #splitRight}.
+	 */
+	private void split(Node<T> tree, int index) {
+		if (tree == null) {
+			this.splitLeft = this.splitRight = null;
+		} else {
+			int leftSize = IndexTree.size(tree.left);
+			if (index <= leftSize) {
+				this.split(tree.left, index);
+				tree.left = this.splitRight;
+				this.splitRight = IndexTree.update(tree);
+			} else {
+				this.split(tree.right, index - leftSize - 1);
+				tree.right = this.splitLeft;
+				this.splitLeft = IndexTree.update(tree);
+			}
+		}
+	}
+
+	private Node<T> merge(Node<T> left, Node<T> right) {
+		if (left == null) {
+			return right;
+		}
+		if (right == null) {
+			return left;
+		}
+		if (left.priority > right.priority) {
+			left.right = this.merge(left.right, right);
+			return IndexTree.update(left);
+		}
+		right.left = this.merge(left, right.left);
+		return IndexTree.update(right);
+	}
+
+	/**
+	 * Removes the given {@code node}.
+	 */
+	void remove(Node<T> node) {
+		Node<T> merged = this.merge(node.left, node.right);
+		Node<T> parent = node.parent;
+		if (merged != null) {
+			merged.parent = parent;
+		}
+		if (parent == null) {
+			this.root = merged;
+		} else {
+			if (parent.left == node) {
+				parent.left = merged;
+			} else {
+				parent.right = merged;
+			}
+			for (; parent != null; parent = parent.parent) {
+				IndexTree.update(parent);
+			}
+		}
+		node.left = node.right = node.parent = null;
+	}
+
+	/**
+	 * Changes the weight of the given {@code node}.
+	 */
+	void setWeight(Node<T> node, int weight) {
+		node.weight = weight;
+		for (Node<T> parent = node; parent != null; parent = parent.parent) {
+			parent.count = parent.weight + IndexTree.count(parent.left)
+					+ IndexTree.count(parent.right);
+		}
+	}
+
+	/**
+	 * {@code Node} is a node of an {@link IndexTree}.
+	 */
+	static final class Node<T> {
+
+		T value;
+
+		int weight;
+
+		int size;
+
+		int count;
+
+		final int priority;
+
+		Node<T> left;
+
+		Node<T> right;
+
+		Node<T> parent;
+
+		Node(T value, int weight, int priority) {
+			super();
+			this.value = value;
+			this.weight = weight;
+			this.size = 1;
+			this.count = weight;
+			this.priority = priority;
+		}
+
+	}
+
+}
@@ -17,14 +17,31 @@ import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedList;
 import java.util.List;
 
 import org.jmetis.kernel.assertion.Assertions;
+import org.jmetis.kernel.closure.IUnaryFunction;
+import org.jmetis.kernel.metadata.IPropertyDescription;
 import org.jmetis.observable.IIndexedModel;
+import org.jmetis.observable.internal.WeakPropertyChangeListener;
 
 /**
  * {@code IndexedCollection}
+ * <p>
+ * Changes made between {@link #beginChanges()} and {@link #endChanges()} are
+ * not fired immediately. Each change which overlaps or touches the range of
+ * the previous one is merged into it, and the merged ranges are fired in order
+ * when the outermost batch ends. Bulk loading a list in a batch therefore
+ * notifies listeners once instead of once per element.
+ * <p>
+ * Secondary indexes added with {@link #addIndex(IUnaryFunction)} are updated
+ * by every change, including changes made within a batch, so elements can be
+ * looked up by key without scanning the list. Once
+ * {@link #addElementIndex()} has been called, {@link #contains(Object)} and
+ * the misses of {@link #indexOf(Object)} no longer scan the list either.
  * 
  * @author era
  * @param <E>
@@ -38,6 +55,16 @@ IIndexedModel<E> {
 
 	protected transient PropertyChangeSupport propertyChangeListeners;
 
+	private transient int batchDepth;
+
+	private transient LinkedList<ElementsChange> pendingChanges;
+
+	private transient boolean weakListeners;
+
+	private transient List<ElementIndex<?, E>> elementIndexes;
+
+	private transient ElementIndex<E, E> elementIndex;
+
 	/**
 	 * Constructs a new {@code IndexedCollection} instance.
 	 * 
@@ -63,8 +90,8 @@ IIndexedModel<E> {
 			if (this.propertyChangeListeners == null) {
 				this.propertyChangeListeners = new PropertyChangeSupport(this);
 			}
-			this.propertyChangeListeners
-			.addPropertyChangeListener(propertyChangeListener);
+			this.propertyChangeListeners.addPropertyChangeListener(this
+					.listenerFor(propertyChangeListener));
 		}
 	}
 
@@ -79,17 +106,213 @@ IIndexedModel<E> {
 			PropertyChangeListener propertyChangeListener) {
 		if (propertyChangeListener != null
 				&& this.propertyChangeListeners != null) {
-			this.propertyChangeListeners
-			.removePropertyChangeListener(propertyChangeListener);
+			this.propertyChangeListeners.removePropertyChangeListener(this
+					.listenerFor(propertyChangeListener));
+		}
+	}
+
+	/**
+	 * Returns {@code true} if listeners are referenced weakly.
+	 * 
+	 * @return {@code true} if listeners are referenced weakly
+	 */
+	public boolean isWeakListeners() {
+		return this.weakListeners;
+	}
+
+	/**
+	 * Sets whether listeners are referenced weakly. Listeners which have been
+	 * garbage collected are unregistered when the next change is fired. The
+	 * mode should be set before listeners are added.
+	 * 
+	 * @param weakListeners
+	 *            {@code true} to reference listeners weakly
+	 */
+	public void setWeakListeners(boolean weakListeners) {
+		this.weakListeners = weakListeners;
+	}
+
+	/**
+	 * Adds a secondary index which maps the key computed by the given
+	 * {@code keyFunction} to the elements having that key.
+	 * 
+	 * @param keyFunction
+	 *            the {@link IUnaryFunction} which computes the key of an
+	 *            element
+	 * @return the new {@link ElementIndex}
+	 */
+	public <K> ElementIndex<K, E> addIndex(
+			IUnaryFunction<? extends K, ? super E> keyFunction) {
+		return this.addIndex(new ElementIndex<K, E>(keyFunction));
+	}
+
+	/**
+	 * Adds a secondary index which maps the value of the described property to
+	 * the elements having that value. The index is not notified when the
+	 * property of a contained element changes; set the element again to move
+	 * it to its new key.
+	 * 
+	 * @param propertyDescriptor
+	 *            the {@link IPropertyDescription} of the indexed property
+	 * @return the new {@link ElementIndex}
+	 */
+	public ElementIndex<Object, E> addIndex(
+			IPropertyDescription propertyDescriptor) {
+		return this.addIndex(ElementIndex.<E> byProperty(propertyDescriptor));
+	}
+
+	/**
+	 * Adds a secondary index of the elements themselves, which is then used by
+	 * {@link #contains(Object)}, {@link #indexOf(Object)} and
+	 * {@link #lastIndexOf(Object)}. Calling this method again returns the
+	 * existing index.
+	 * 
+	 * @return the {@link ElementIndex} of the elements
+	 */
+	public ElementIndex<E, E> addElementIndex() {
+		if (this.elementIndex == null) {
+			this.elementIndex = this.addIndex(ElementIndex.<E> byElement());
+		}
+		return this.elementIndex;
+	}
+
+	private <K> ElementIndex<K, E> addIndex(ElementIndex<K, E> elementIndex) {
+		elementIndex.addAll(this.observedList);
+		if (this.elementIndexes == null) {
+			this.elementIndexes = new ArrayList<ElementIndex<?, E>>(2);
+		}
+		this.elementIndexes.add(elementIndex);
+		return elementIndex;
+	}
+
+	/**
+	 * Removes the given secondary index, which is no longer updated.
+	 * 
+	 * @param elementIndex
+	 *            the {@link ElementIndex} to remove
+	 * @return {@code true} if the index was removed
+	 */
+	public boolean removeIndex(ElementIndex<?, E> elementIndex) {
+		if (this.elementIndexes != null
+				&& this.elementIndexes.remove(elementIndex)) {
+			if (elementIndex == this.elementIndex) {
+				this.elementIndex = null;
+			}
+			if (this.elementIndexes.isEmpty()) {
+				this.elementIndexes = null;
+			}
+			elementIndex.clear();
+			return true;
+		}
+		return false;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void updateIndexes(Object[] oldElements, Object[] newElements) {
+		for (ElementIndex<?, E> index : this.elementIndexes) {
+			for (Object oldElement : oldElements) {
+				index.remove((E) oldElement);
+			}
+			for (Object newElement : newElements) {
+				index.add((E) newElement);
+			}
+		}
+	}
+
+	private PropertyChangeListener listenerFor(
+			PropertyChangeListener propertyChangeListener) {
+		if (this.weakListeners) {
+			return WeakPropertyChangeListener.weakListenerFor(
+					propertyChangeListener, null);
+		}
+		return propertyChangeListener;
+	}
+
+	/**
+	 * Starts a batch of changes. Changes are collected until the matching call
+	 * of {@link #endChanges()}; batches may be nested.
+	 */
+	public void beginChanges() {
+		this.batchDepth++;
+	}
+
+	/**
+	 * Ends a batch of changes started by {@link #beginChanges()}. When the
+	 * outermost batch ends the collected changes are fired.
+	 * 
+	 * @throws IllegalStateException
+	 *             if no batch has been started
+	 */
+	public void endChanges() {
+		if (this.batchDepth == 0) {
+			throw new IllegalStateException();
+		}
+		if (--this.batchDepth == 0 && this.pendingChanges != null) {
+			LinkedList<ElementsChange> pendingChanges = this.pendingChanges;
+			this.pendingChanges = null;
+			for (ElementsChange elementsChange : pendingChanges) {
+				if (!elementsChange.isEmpty()) {
+					this.propertyChangeListeners.fireIndexedPropertyChange(
+							"elements", //$NON-NLS-1$
+							elementsChange.index, elementsChange.oldElements
+									.toArray(), elementsChange.newElements
+									.toArray());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns {@code true} if a batch of changes has been started and not yet
+	 * ended.
+	 * 
+	 * @return {@code true} if changes are being collected
+	 */
+	public boolean isChanging() {
+		return this.batchDepth > 0;
+	}
+
+	/**
+	 * Runs the given {@code changes} as a single batch.
+	 * 
+	 * @param changes
+	 *            the {@link Runnable} that changes the receiver
+	 */
+	public void runBatched(Runnable changes) {
+		this.beginChanges();
+		try {
+			changes.run();
+		} finally {
+			this.endChanges();
 		}
 	}
 
 	protected void fireElementsChanged(int index, Object[] oldElements,
 			Object[] newElements) {
+		if (this.elementIndexes != null) {
+			this.updateIndexes(oldElements, newElements);
+		}
 		if (this.propertyChangeListeners != null) {
-			this.propertyChangeListeners.fireIndexedPropertyChange("elements", //$NON-NLS-1$
-					index, oldElements, newElements);
+			if (this.batchDepth > 0) {
+				this.collectElementsChange(index, oldElements, newElements);
+			} else {
+				this.propertyChangeListeners.fireIndexedPropertyChange(
+						"elements", //$NON-NLS-1$
+						index, oldElements, newElements);
+			}
+		}
+	}
+
+	private void collectElementsChange(int index, Object[] oldElements,
+			Object[] newElements) {
+		if (this.pendingChanges == null) {
+			this.pendingChanges = new LinkedList<ElementsChange>();
+		} else if (this.pendingChanges.getLast().merge(index, oldElements,
+				newElements)) {
+			return;
 		}
+		this.pendingChanges.add(new ElementsChange(index, oldElements,
+				newElements));
 	}
 
 	/*
@@ -172,10 +395,27 @@ IIndexedModel<E> {
 			.fireElementsChanged(index,
 					IndexedCollection.EMPTY_ELEMENT_ARRAY, collection
 					.toArray());
+			return true;
 		}
 		return false;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractList#removeRange(int, int)
+	 */
+	@Override
+	protected void removeRange(int fromIndex, int toIndex) {
+		List<E> range = this.observedList.subList(fromIndex, toIndex);
+		Object[] oldElements = range.toArray();
+		range.clear();
+		if (oldElements.length > 0) {
+			this.fireElementsChanged(fromIndex, oldElements,
+					IndexedCollection.EMPTY_ELEMENT_ARRAY);
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -189,6 +429,47 @@ IIndexedModel<E> {
 				IndexedCollection.EMPTY_ELEMENT_ARRAY);
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractCollection#contains(java.lang.Object)
+	 */
+	@Override
+	public boolean contains(Object element) {
+		if (this.elementIndex != null && element != null) {
+			return this.elementIndex.containsKey(element);
+		}
+		return this.observedList.contains(element);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractList#indexOf(java.lang.Object)
+	 */
+	@Override
+	public int indexOf(Object element) {
+		if (this.elementIndex != null && element != null
+				&& !this.elementIndex.containsKey(element)) {
+			return -1;
+		}
+		return this.observedList.indexOf(element);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractList#lastIndexOf(java.lang.Object)
+	 */
+	@Override
+	public int lastIndexOf(Object element) {
+		if (this.elementIndex != null && element != null
+				&& !this.elementIndex.containsKey(element)) {
+			return -1;
+		}
+		return this.observedList.lastIndexOf(element);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -219,4 +500,57 @@ IIndexedModel<E> {
 		return this.observedList.toArray();
 	}
 
+	/**
+	 * {@code ElementsChange} is a collected change which replaces the
+	 * {@code oldElements} at {@code index} by the {@code newElements}.
+	 */
+	private static final class ElementsChange {
+
+		int index;
+
+		final List<Object> oldElements;
+
+		final List<Object> newElements;
+
+		ElementsChange(int index, Object[] oldElements, Object[] newElements) {
+			super();
+			this.index = index;
+			this.oldElements = new ArrayList<Object>(Arrays
+					.asList(oldElements));
+			this.newElements = new ArrayList<Object>(Arrays
+					.asList(newElements));
+		}
+
+		boolean isEmpty() {
+			return this.oldElements.isEmpty() && this.newElements.isEmpty();
+		}
+
+		/**
+		 * Merges the given change into the receiver if its range overlaps or
+		 * touches the range of the receiver's new elements.
+		 */
+		boolean merge(int index, Object[] oldElements, Object[] newElements) {
+			int end = this.index + this.newElements.size();
+			if (index > end || index + oldElements.length < this.index) {
+				return false;
+			}
+			int leading = Math.max(0, this.index - index);
+			int trailing = Math.max(0, index + oldElements.length - end);
+			int from = Math.max(0, index - this.index);
+			int to = Math.min(this.newElements.size(), index
+					+ oldElements.length - this.index);
+			List<Object> replacedElements = this.newElements.subList(from,
+					Math.max(from, to));
+			replacedElements.clear();
+			replacedElements.addAll(Arrays.asList(newElements));
+			this.oldElements.addAll(0, Arrays.asList(oldElements).subList(0,
+					leading));
+			this.oldElements.addAll(Arrays.asList(oldElements).subList(
+					oldElements.length - trailing, oldElements.length));
+			this.index = Math.min(this.index, index);
+			return true;
+		}
+
+	}
+
 }
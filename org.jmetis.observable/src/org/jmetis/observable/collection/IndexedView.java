@@ -0,0 +1,167 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.observable.collection;
+
+import java.beans.IndexedPropertyChangeEvent;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.util.AbstractList;
+
+import org.jmetis.kernel.assertion.Assertions;
+import org.jmetis.observable.IIndexedModel;
+
+/**
+ * {@code IndexedView} is a read-only {@link IIndexedModel} derived from a
+ * source {@link IIndexedModel}. The view listens to the indexed change events
+ * of its source, updates itself incrementally and fires indexed change events
+ * of its own, so views can be stacked on each other.
+ * <p>
+ * A view stays registered with its source until it is disposed.
+ * 
+ * @author era
+ * @param <E>
+ *            the type of the elements of the view
+ * @param <S>
+ *            the type of the elements of the source
+ */
+public abstract class IndexedView<E, S> extends AbstractList<E> implements
+		IIndexedModel<E> {
+
+	protected final IIndexedModel<S> sourceModel;
+
+	protected transient PropertyChangeSupport propertyChangeListeners;
+
+	private final PropertyChangeListener sourceListener;
+
+	/**
+	 * Constructs a new {@code IndexedView} instance.
+	 * 
+	 * @param sourceModel
+	 *            the {@link IIndexedModel} the view is derived from
+	 */
+	protected IndexedView(IIndexedModel<S> sourceModel) {
+		super();
+		this.sourceModel = Assertions.mustNotBeNull("sourceModel", //$NON-NLS-1$
+				sourceModel);
+		this.sourceListener = new PropertyChangeListener() {
+
+			public void propertyChange(PropertyChangeEvent propertyChangeEvent) {
+				IndexedView.this.sourceChanged(propertyChangeEvent);
+			}
+		};
+		sourceModel.addPropertyChangeListener(this.sourceListener);
+	}
+
+	/**
+	 * Unregisters the receiver from its source. The receiver is not updated
+	 * any more afterwards.
+	 */
+	public void dispose() {
+		this.sourceModel.removePropertyChangeListener(this.sourceListener);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.observable.IIndexedModel#addPropertyChangeListener(java.beans
+	 * .PropertyChangeListener)
+	 */
+	public void addPropertyChangeListener(
+			PropertyChangeListener propertyChangeListener) {
+		if (propertyChangeListener != null) {
+			if (this.propertyChangeListeners == null) {
+				this.propertyChangeListeners = new PropertyChangeSupport(this);
+			}
+			this.propertyChangeListeners
+					.addPropertyChangeListener(propertyChangeListener);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.observable.IIndexedModel#removePropertyChangeListener(java
+	 * .beans.PropertyChangeListener)
+	 */
+	public void removePropertyChangeListener(
+			PropertyChangeListener propertyChangeListener) {
+		if (propertyChangeListener != null
+				&& this.propertyChangeListeners != null) {
+			this.propertyChangeListeners
+					.removePropertyChangeListener(propertyChangeListener);
+		}
+	}
+
+	protected void fireElementsChanged(int index, Object[] oldElements,
+			Object[] newElements) {
+		if (this.propertyChangeListeners != null) {
+			this.propertyChangeListeners.fireIndexedPropertyChange("elements", //$NON-NLS-1$
+					index, oldElements, newElements);
+		}
+	}
+
+	protected boolean hasPropertyChangeListeners() {
+		return this.propertyChangeListeners != null;
+	}
+
+	protected void checkIndex(int index) {
+		if (index < 0 || index >= this.size()) {
+			throw new IndexOutOfBoundsException(Integer.toString(index));
+		}
+	}
+
+	protected void sourceChanged(PropertyChangeEvent propertyChangeEvent) {
+		if (propertyChangeEvent instanceof IndexedPropertyChangeEvent
+				&& propertyChangeEvent.getOldValue() instanceof Object[]
+				&& propertyChangeEvent.getNewValue() instanceof Object[]) {
+			this.sourceElementsChanged(
+					((IndexedPropertyChangeEvent) propertyChangeEvent)
+							.getIndex(), (Object[]) propertyChangeEvent
+							.getOldValue(), (Object[]) propertyChangeEvent
+							.getNewValue());
+		} else {
+			this.refresh();
+		}
+	}
+
+	/**
+	 * Updates the receiver after the {@code oldElements} at {@code index} of
+	 * the source have been replaced by the {@code newElements}.
+	 */
+	protected abstract void sourceElementsChanged(int index,
+			Object[] oldElements, Object[] newElements);
+
+	/**
+	 * Rebuilds the receiver from its source without firing any event.
+	 */
+	protected abstract void rebuild();
+
+	/**
+	 * Rebuilds the receiver from its source and fires a single event which
+	 * replaces all its elements. Call this after a change of the source
+	 * elements which the source did not report.
+	 */
+	public void refresh() {
+		Object[] oldElements = this.hasPropertyChangeListeners() ? this
+				.toArray() : null;
+		this.rebuild();
+		if (oldElements != null) {
+			this.fireElementsChanged(0, oldElements, this.toArray());
+		}
+	}
+
+}
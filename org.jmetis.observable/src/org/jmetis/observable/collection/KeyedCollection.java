@@ -13,19 +13,42 @@
  */
 package org.jmetis.observable.collection;
 
+import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeListenerProxy;
 import java.beans.PropertyChangeSupport;
 import java.util.AbstractMap;
 import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.jmetis.kernel.assertion.Assertions;
+import org.jmetis.kernel.closure.IUnaryFunction;
+import org.jmetis.kernel.metadata.IPropertyDescription;
 import org.jmetis.observable.IKeyedModel;
+import org.jmetis.observable.internal.WeakPropertyChangeListener;
 
 /**
  * {@code KeyedCollection}
+ * <p>
+ * Changes made between {@link #beginChanges()} and {@link #endChanges()} are
+ * not fired immediately. They are collected per key, keeping the first old
+ * and the last new value, and fired when the outermost batch ends. Listeners
+ * added for a key receive one event for that key, while general listeners
+ * receive a single {@link EntriesChangeEvent} whose old and new values map
+ * each changed key to its old and new value. Keys whose value ends up
+ * unchanged are not fired at all.
+ * <p>
+ * Secondary indexes added with {@link #addIndex(IUnaryFunction)} map a key
+ * computed from each value to the values having that key. They are updated
+ * by every change, including changes made within a batch. Once
+ * {@link #addValueIndex()} has been called, {@link #containsValue(Object)}
+ * no longer scans the values.
  * 
  * @author aerlach
  * @param <K>
@@ -40,6 +63,16 @@ public class KeyedCollection<K, V> extends AbstractMap<K, V> implements
 
 	private Set<Map.Entry<K, V>> entrySet;
 
+	private transient int batchDepth;
+
+	private transient Map<String, Object[]> pendingChanges;
+
+	private transient boolean weakListeners;
+
+	private transient List<ElementIndex<?, V>> valueIndexes;
+
+	private transient ElementIndex<V, V> valueIndex;
+
 	/**
 	 * Constructs a new {@code KeyedCollection} instance.
 	 * 
@@ -57,6 +90,108 @@ public class KeyedCollection<K, V> extends AbstractMap<K, V> implements
 		return this.propertyChangeListeners;
 	}
 
+	/**
+	 * Returns {@code true} if listeners are referenced weakly.
+	 * 
+	 * @return {@code true} if listeners are referenced weakly
+	 */
+	public boolean isWeakListeners() {
+		return this.weakListeners;
+	}
+
+	/**
+	 * Sets whether listeners are referenced weakly. Listeners which have been
+	 * garbage collected are unregistered when the next change of their key is
+	 * fired. The mode should be set before listeners are added.
+	 * 
+	 * @param weakListeners
+	 *            {@code true} to reference listeners weakly
+	 */
+	public void setWeakListeners(boolean weakListeners) {
+		this.weakListeners = weakListeners;
+	}
+
+	/**
+	 * Adds a secondary index which maps the key computed by the given
+	 * {@code keyFunction} to the values having that key.
+	 * 
+	 * @param keyFunction
+	 *            the {@link IUnaryFunction} which computes the key of a value
+	 * @return the new {@link ElementIndex}
+	 */
+	public <I> ElementIndex<I, V> addIndex(
+			IUnaryFunction<? extends I, ? super V> keyFunction) {
+		return this.addIndex(new ElementIndex<I, V>(keyFunction));
+	}
+
+	/**
+	 * Adds a secondary index which maps the value of the described property to
+	 * the values having that property value. The index is not notified when
+	 * the property of a contained value changes; put the value again to move
+	 * it to its new key.
+	 * 
+	 * @param propertyDescriptor
+	 *            the {@link IPropertyDescription} of the indexed property
+	 * @return the new {@link ElementIndex}
+	 */
+	public ElementIndex<Object, V> addIndex(
+			IPropertyDescription propertyDescriptor) {
+		return this.addIndex(ElementIndex.<V> byProperty(propertyDescriptor));
+	}
+
+	/**
+	 * Adds a secondary index of the values themselves, which is then used by
+	 * {@link #containsValue(Object)}. Calling this method again returns the
+	 * existing index.
+	 * 
+	 * @return the {@link ElementIndex} of the values
+	 */
+	public ElementIndex<V, V> addValueIndex() {
+		if (this.valueIndex == null) {
+			this.valueIndex = this.addIndex(ElementIndex.<V> byElement());
+		}
+		return this.valueIndex;
+	}
+
+	private <I> ElementIndex<I, V> addIndex(ElementIndex<I, V> valueIndex) {
+		valueIndex.addAll(this.observedMap.values());
+		if (this.valueIndexes == null) {
+			this.valueIndexes = new ArrayList<ElementIndex<?, V>>(2);
+		}
+		this.valueIndexes.add(valueIndex);
+		return valueIndex;
+	}
+
+	/**
+	 * Removes the given secondary index, which is no longer updated.
+	 * 
+	 * @param valueIndex
+	 *            the {@link ElementIndex} to remove
+	 * @return {@code true} if the index was removed
+	 */
+	public boolean removeIndex(ElementIndex<?, V> valueIndex) {
+		if (this.valueIndexes != null && this.valueIndexes.remove(valueIndex)) {
+			if (valueIndex == this.valueIndex) {
+				this.valueIndex = null;
+			}
+			if (this.valueIndexes.isEmpty()) {
+				this.valueIndexes = null;
+			}
+			valueIndex.clear();
+			return true;
+		}
+		return false;
+	}
+
+	private PropertyChangeListener listenerFor(
+			PropertyChangeListener propertyChangeListener, String key) {
+		if (this.weakListeners) {
+			return WeakPropertyChangeListener.weakListenerFor(
+					propertyChangeListener, key);
+		}
+		return propertyChangeListener;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -69,8 +204,8 @@ public class KeyedCollection<K, V> extends AbstractMap<K, V> implements
 		if (this.propertyChangeListeners == null) {
 			this.propertyChangeListeners = new PropertyChangeSupport(this);
 		}
-		this.propertyChangeListeners
-				.addPropertyChangeListener(propertyChangeListener);
+		this.propertyChangeListeners.addPropertyChangeListener(this
+				.listenerFor(propertyChangeListener, null));
 	}
 
 	/*
@@ -85,8 +220,8 @@ public class KeyedCollection<K, V> extends AbstractMap<K, V> implements
 		if (this.propertyChangeListeners == null) {
 			this.propertyChangeListeners = new PropertyChangeSupport(this);
 		}
-		this.propertyChangeListeners.addPropertyChangeListener(key,
-				propertyChangeListener);
+		this.propertyChangeListeners.addPropertyChangeListener(key, this
+				.listenerFor(propertyChangeListener, key));
 	}
 
 	/*
@@ -99,8 +234,8 @@ public class KeyedCollection<K, V> extends AbstractMap<K, V> implements
 	public void removePropertyChangeListener(
 			PropertyChangeListener propertyChangeListener) {
 		if (this.propertyChangeListeners != null) {
-			this.propertyChangeListeners
-					.removePropertyChangeListener(propertyChangeListener);
+			this.propertyChangeListeners.removePropertyChangeListener(this
+					.listenerFor(propertyChangeListener, null));
 		}
 	}
 
@@ -115,19 +250,124 @@ public class KeyedCollection<K, V> extends AbstractMap<K, V> implements
 			PropertyChangeListener propertyChangeListener) {
 		if (this.propertyChangeListeners != null) {
 			this.propertyChangeListeners.removePropertyChangeListener(key,
-					propertyChangeListener);
+					this.listenerFor(propertyChangeListener, key));
+		}
+	}
+
+	/**
+	 * Starts a batch of changes. Changes are collected until the matching call
+	 * of {@link #endChanges()}; batches may be nested.
+	 */
+	public void beginChanges() {
+		this.batchDepth++;
+	}
+
+	/**
+	 * Ends a batch of changes started by {@link #beginChanges()}. When the
+	 * outermost batch ends the collected changes are fired, one event per key
+	 * to the listeners of that key and a single {@link EntriesChangeEvent} to
+	 * the general listeners.
+	 * 
+	 * @throws IllegalStateException
+	 *             if no batch has been started
+	 */
+	public void endChanges() {
+		if (this.batchDepth == 0) {
+			throw new IllegalStateException();
+		}
+		if (--this.batchDepth == 0 && this.pendingChanges != null) {
+			Map<String, Object[]> pendingChanges = this.pendingChanges;
+			this.pendingChanges = null;
+			this.firePendingChanges(pendingChanges);
+		}
+	}
+
+	private void firePendingChanges(Map<String, Object[]> pendingChanges) {
+		Map<String, Object> oldValues = new LinkedHashMap<String, Object>();
+		Map<String, Object> newValues = new LinkedHashMap<String, Object>();
+		for (Map.Entry<String, Object[]> entry : pendingChanges.entrySet()) {
+			String key = entry.getKey();
+			Object[] values = entry.getValue();
+			if (values[0] == null ? values[1] != null : !values[0]
+					.equals(values[1])) {
+				oldValues.put(key, values[0]);
+				newValues.put(key, values[1]);
+				if (key != null) {
+					PropertyChangeEvent event = new PropertyChangeEvent(this,
+							key, values[0], values[1]);
+					for (PropertyChangeListener propertyChangeListener : this.propertyChangeListeners
+							.getPropertyChangeListeners(key)) {
+						propertyChangeListener.propertyChange(event);
+					}
+				}
+			}
+		}
+		if (!newValues.isEmpty()) {
+			PropertyChangeEvent event = new EntriesChangeEvent(this,
+					Collections.unmodifiableMap(oldValues), Collections
+							.unmodifiableMap(newValues));
+			for (PropertyChangeListener propertyChangeListener : this.propertyChangeListeners
+					.getPropertyChangeListeners()) {
+				if (!(propertyChangeListener instanceof PropertyChangeListenerProxy)) {
+					propertyChangeListener.propertyChange(event);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns {@code true} if a batch of changes has been started and not yet
+	 * ended.
+	 * 
+	 * @return {@code true} if changes are being collected
+	 */
+	public boolean isChanging() {
+		return this.batchDepth > 0;
+	}
+
+	/**
+	 * Runs the given {@code changes} as a single batch.
+	 * 
+	 * @param changes
+	 *            the {@link Runnable} that changes the receiver
+	 */
+	public void runBatched(Runnable changes) {
+		this.beginChanges();
+		try {
+			changes.run();
+		} finally {
+			this.endChanges();
 		}
 	}
 
 	protected void fireElementChanged(String key, Object oldValue,
 			Object newValue) {
 		if (this.propertyChangeListeners != null) {
-			this.propertyChangeListeners.firePropertyChange(key, oldValue,
-					newValue);
+			if (this.batchDepth > 0) {
+				if (this.pendingChanges == null) {
+					this.pendingChanges = new LinkedHashMap<String, Object[]>();
+				}
+				Object[] values = this.pendingChanges.get(key);
+				if (values == null) {
+					this.pendingChanges.put(key, new Object[] { oldValue,
+							newValue });
+				} else {
+					values[1] = newValue;
+				}
+			} else {
+				this.propertyChangeListeners.firePropertyChange(key, oldValue,
+						newValue);
+			}
 		}
 	}
 
 	protected void fireElementChanged(K key, V oldValue, V newValue) {
+		if (this.valueIndexes != null) {
+			for (ElementIndex<?, V> index : this.valueIndexes) {
+				index.remove(oldValue);
+				index.add(newValue);
+			}
+		}
 		if (key == null) {
 			this.fireElementChanged((String) null, oldValue, newValue);
 		} else {
@@ -166,6 +406,9 @@ public class KeyedCollection<K, V> extends AbstractMap<K, V> implements
 	 */
 	@Override
 	public boolean containsValue(Object value) {
+		if (this.valueIndex != null && value != null) {
+			return this.valueIndex.containsKey(value);
+		}
 		return this.observedMap.containsValue(value);
 	}
 
@@ -219,8 +462,13 @@ public class KeyedCollection<K, V> extends AbstractMap<K, V> implements
 	 */
 	@Override
 	public void putAll(Map<? extends K, ? extends V> map) {
-		for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
-			this.put(entry.getKey(), entry.getValue());
+		this.beginChanges();
+		try {
+			for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+				this.put(entry.getKey(), entry.getValue());
+			}
+		} finally {
+			this.endChanges();
 		}
 	}
 
@@ -247,6 +495,46 @@ public class KeyedCollection<K, V> extends AbstractMap<K, V> implements
 		return this.observedMap.size();
 	}
 
+	/**
+	 * {@code CollectionEntry} writes values through the enclosing collection,
+	 * so that {@link #setValue(Object)} updates the indexes and fires the
+	 * change event like {@link KeyedCollection#put(Object, Object)}.
+	 */
+	private class CollectionEntry implements Map.Entry<K, V> {
+		private final Map.Entry<K, V> realEntry;
+
+		CollectionEntry(Map.Entry<K, V> realEntry) {
+			this.realEntry = realEntry;
+		}
+
+		public K getKey() {
+			return this.realEntry.getKey();
+		}
+
+		public V getValue() {
+			return this.realEntry.getValue();
+		}
+
+		public V setValue(V value) {
+			return KeyedCollection.this.put(this.realEntry.getKey(), value);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return this.realEntry.equals(obj);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.realEntry.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return this.realEntry.toString();
+		}
+	}
+
 	private class EntryIterator implements Iterator<Map.Entry<K, V>> {
 		private Iterator<Map.Entry<K, V>> realIterator;
 		private Map.Entry<K, V> last;
@@ -262,7 +550,7 @@ public class KeyedCollection<K, V> extends AbstractMap<K, V> implements
 
 		public Map.Entry<K, V> next() {
 			this.last = this.realIterator.next();
-			return this.last;
+			return new CollectionEntry(this.last);
 		}
 
 		public void remove() {
@@ -0,0 +1,104 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.observable.collection;
+
+import org.jmetis.kernel.assertion.Assertions;
+import org.jmetis.kernel.closure.IUnaryFunction;
+import org.jmetis.observable.IIndexedModel;
+
+/**
+ * {@code MappedIndexedView} shows the results of a function applied to the
+ * elements of its source. Elements are mapped when they are accessed, so the
+ * view keeps no index of its own and maps source changes one to one.
+ * 
+ * @author era
+ * @param <E>
+ *            the type of the mapped elements
+ * @param <S>
+ *            the type of the source elements
+ */
+public class MappedIndexedView<E, S> extends IndexedView<E, S> {
+
+	private final IUnaryFunction<? extends E, ? super S> function;
+
+	/**
+	 * Constructs a new {@code MappedIndexedView} instance.
+	 * 
+	 * @param sourceModel
+	 *            the {@link IIndexedModel} to map
+	 * @param function
+	 *            the {@link IUnaryFunction} which maps the source elements
+	 */
+	public MappedIndexedView(IIndexedModel<S> sourceModel,
+			IUnaryFunction<? extends E, ? super S> function) {
+		super(sourceModel);
+		this.function = Assertions.mustNotBeNull("function", function); //$NON-NLS-1$
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractList#get(int)
+	 */
+	@Override
+	public E get(int index) {
+		return this.function.evaluate(this.sourceModel.get(index));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractCollection#size()
+	 */
+	@Override
+	public int size() {
+		return this.sourceModel.size();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.observable.collection.IndexedView#rebuild()
+	 */
+	@Override
+	protected void rebuild() {
+		// elements are mapped when they are accessed
+	}
+
+	@SuppressWarnings("unchecked")
+	private Object[] map(Object[] elements) {
+		Object[] mappedElements = new Object[elements.length];
+		for (int i = 0; i < elements.length; i++) {
+			mappedElements[i] = this.function.evaluate((S) elements[i]);
+		}
+		return mappedElements;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.observable.collection.IndexedView#sourceElementsChanged(int,
+	 * java.lang.Object[], java.lang.Object[])
+	 */
+	@Override
+	protected void sourceElementsChanged(int index, Object[] oldElements,
+			Object[] newElements) {
+		if (this.hasPropertyChangeListeners()) {
+			this.fireElementsChanged(index, this.map(oldElements), this
+					.map(newElements));
+		}
+	}
+
+}
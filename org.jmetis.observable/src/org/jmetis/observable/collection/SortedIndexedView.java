@@ -0,0 +1,179 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.observable.collection;
+
+import java.util.Comparator;
+
+import org.jmetis.kernel.assertion.Assertions;
+import org.jmetis.observable.IIndexedModel;
+
+/**
+ * {@code SortedIndexedView} shows the elements of its source sorted by a
+ * {@link Comparator}. Equal elements are shown in the order in which they
+ * were added to the view.
+ * <p>
+ * The view keeps its elements in one {@link IndexTree} in sorted order and
+ * the nodes of that tree in a second one in source order, so an element
+ * changed in the source is found, moved and reported in O(log n).
+ * 
+ * @author era
+ * @param <E>
+ */
+public class SortedIndexedView<E> extends IndexedView<E, E> {
+
+	private final IndexTree<E> sortedElements;
+
+	private final IndexTree<IndexTree.Node<E>> sourcePositions;
+
+	private Comparator<? super E> comparator;
+
+	/**
+	 * Constructs a new {@code SortedIndexedView} instance.
+	 * 
+	 * @param sourceModel
+	 *            the {@link IIndexedModel} to sort
+	 * @param comparator
+	 *            the {@link Comparator} which orders the elements
+	 */
+	public SortedIndexedView(IIndexedModel<E> sourceModel,
+			Comparator<? super E> comparator) {
+		super(sourceModel);
+		this.comparator = Assertions.mustNotBeNull("comparator", comparator); //$NON-NLS-1$
+		this.sortedElements = new IndexTree<E>();
+		this.sourcePositions = new IndexTree<IndexTree.Node<E>>();
+		this.rebuild();
+	}
+
+	public Comparator<? super E> getComparator() {
+		return this.comparator;
+	}
+
+	/**
+	 * Replaces the comparator and refreshes the receiver.
+	 * 
+	 * @param comparator
+	 *            the {@link Comparator} which orders the elements
+	 */
+	public void setComparator(Comparator<? super E> comparator) {
+		this.comparator = Assertions.mustNotBeNull("comparator", comparator); //$NON-NLS-1$
+		this.refresh();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractList#get(int)
+	 */
+	@Override
+	public E get(int index) {
+		this.checkIndex(index);
+		return this.sortedElements.nodeAt(index).value;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractCollection#size()
+	 */
+	@Override
+	public int size() {
+		return this.sortedElements.size();
+	}
+
+	private IndexTree.Node<E> insertSorted(E element) {
+		return this.sortedElements.insert(this.sortedElements.upperBound(
+				element, this.comparator), element, 1);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jmetis.observable.collection.IndexedView#rebuild()
+	 */
+	@Override
+	protected void rebuild() {
+		this.sortedElements.clear();
+		this.sourcePositions.clear();
+		int index = 0;
+		for (E element : this.sourceModel) {
+			this.sourcePositions.insert(index++, this.insertSorted(element), 1);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.jmetis.observable.collection.IndexedView#sourceElementsChanged(int,
+	 * java.lang.Object[], java.lang.Object[])
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	protected void sourceElementsChanged(int index, Object[] oldElements,
+			Object[] newElements) {
+		if (oldElements.length == 1 && newElements.length == 1) {
+			this.sourceElementReplaced(index, (E) newElements[0]);
+		} else {
+			for (int i = 0; i < oldElements.length; i++) {
+				IndexTree.Node<IndexTree.Node<E>> position = this.sourcePositions
+						.nodeAt(index);
+				IndexTree.Node<E> node = position.value;
+				int viewIndex = this.sortedElements.indexOf(node);
+				this.sortedElements.remove(node);
+				this.sourcePositions.remove(position);
+				if (this.hasPropertyChangeListeners()) {
+					this.fireElementsChanged(viewIndex,
+							new Object[] { node.value },
+							IndexedCollection.EMPTY_ELEMENT_ARRAY);
+				}
+			}
+			for (int i = 0; i < newElements.length; i++) {
+				E element = (E) newElements[i];
+				IndexTree.Node<E> node = this.insertSorted(element);
+				this.sourcePositions.insert(index + i, node, 1);
+				if (this.hasPropertyChangeListeners()) {
+					this.fireElementsChanged(this.sortedElements.indexOf(node),
+							IndexedCollection.EMPTY_ELEMENT_ARRAY,
+							new Object[] { element });
+				}
+			}
+		}
+	}
+
+	private void sourceElementReplaced(int index, E element) {
+		IndexTree.Node<IndexTree.Node<E>> position = this.sourcePositions
+				.nodeAt(index);
+		IndexTree.Node<E> oldNode = position.value;
+		int oldIndex = this.sortedElements.indexOf(oldNode);
+		this.sortedElements.remove(oldNode);
+		IndexTree.Node<E> newNode = this.insertSorted(element);
+		position.value = newNode;
+		if (this.hasPropertyChangeListeners()) {
+			int newIndex = this.sortedElements.indexOf(newNode);
+			if (newIndex == oldIndex) {
+				this.fireElementsChanged(oldIndex,
+						new Object[] { oldNode.value },
+						new Object[] { element });
+			} else {
+				this.fireElementsChanged(oldIndex,
+						new Object[] { oldNode.value },
+						IndexedCollection.EMPTY_ELEMENT_ARRAY);
+				this.fireElementsChanged(newIndex,
+						IndexedCollection.EMPTY_ELEMENT_ARRAY,
+						new Object[] { element });
+			}
+		}
+	}
+
+}
@@ -34,6 +34,17 @@ public class CompoundPropertyChangeListener implements IPropertyChangeListener {
 		this.propertyChangeListeners = propertyChangeListeners;
 	}
 
+	/**
+	 * Returns the {@link PropertyChangeListener}s the receiver notifies. The
+	 * returned array is replaced, not modified, when listeners are added or
+	 * removed, so it may be iterated while listeners are notified.
+	 * 
+	 * @return the {@link PropertyChangeListener}s the receiver notifies
+	 */
+	public PropertyChangeListener[] getPropertyChangeListeners() {
+		return this.propertyChangeListeners;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -0,0 +1,381 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.observable.internal;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@code ConcurrentPropertyChangeDispatcher} is an {@link IPropertyChangeDispatcher}
+ * which may be used from several threads at once. All registered listeners are
+ * kept in an immutable snapshot which is replaced by a compare-and-set
+ * whenever a listener is added or removed, so firing an event only reads the
+ * current snapshot and never waits for a registration, and registrations
+ * never block each other.
+ * <p>
+ * A listener added or removed while an event is fired may or may not be
+ * notified of that event.
+ * 
+ * @author aerlach
+ */
+public class ConcurrentPropertyChangeDispatcher implements
+		IPropertyChangeDispatcher {
+
+	private static final PropertyChangeListener[] NO_LISTENERS = {};
+
+	private final Object eventSource;
+
+	private final AtomicReference<Listeners> listeners;
+
+	/**
+	 * Constructs a new {@code ConcurrentPropertyChangeDispatcher} instance.
+	 * 
+	 * @param eventSource
+	 *            the source of the fired {@link PropertyChangeEvent}s
+	 */
+	public ConcurrentPropertyChangeDispatcher(Object eventSource) {
+		super();
+		this.eventSource = eventSource;
+		this.listeners = new AtomicReference<Listeners>(new Listeners(
+				ConcurrentPropertyChangeDispatcher.NO_LISTENERS, Collections
+						.<String, PropertyChangeListener[]> emptyMap()));
+	}
+
+	/**
+	 * Returns {@code true} if a listener is registered for all properties or
+	 * for the property with the given {@code propertyName}.
+	 * 
+	 * @param propertyName
+	 *            the name of the property, or {@code null} to check for
+	 *            listeners of all properties only
+	 * @return {@code true} if an event fired for the property would notify a
+	 *         listener
+	 */
+	public boolean hasPropertyChangeListeners(String propertyName) {
+		Listeners listeners = this.listeners.get();
+		return listeners.generalListeners.length > 0
+				|| listeners.listenersNamed(propertyName).length > 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @seeorg.jmetis.observable.internal.IPropertyChangeDispatcher#
+	 * addPropertyChangeListener(java.lang.String,
+	 * java.beans.PropertyChangeListener)
+	 */
+	public IPropertyChangeDispatcher addPropertyChangeListener(
+			String propertyName, PropertyChangeListener propertyChangeListener) {
+		if (propertyChangeListener != null) {
+			Listeners listeners;
+			do {
+				listeners = this.listeners.get();
+			} while (!this.listeners.compareAndSet(listeners, listeners.with(
+					propertyName, ConcurrentPropertyChangeDispatcher.added(
+							listeners.listenersNamed(propertyName),
+							propertyChangeListener))));
+		}
+		return this;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @seeorg.jmetis.observable.internal.IPropertyChangeDispatcher#
+	 * addPropertyChangeListener(java.beans.PropertyChangeListener)
+	 */
+	public IPropertyChangeDispatcher addPropertyChangeListener(
+			PropertyChangeListener propertyChangeListener) {
+		return this.addPropertyChangeListener(null, propertyChangeListener);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @seeorg.jmetis.observable.internal.IPropertyChangeDispatcher#
+	 * removePropertyChangeListener(java.lang.String,
+	 * java.beans.PropertyChangeListener)
+	 */
+	public IPropertyChangeDispatcher removePropertyChangeListener(
+			String propertyName, PropertyChangeListener propertyChangeListener) {
+		if (propertyChangeListener != null) {
+			while (true) {
+				Listeners listeners = this.listeners.get();
+				PropertyChangeListener[] propertyChangeListeners = listeners
+						.listenersNamed(propertyName);
+				PropertyChangeListener[] remainingListeners = ConcurrentPropertyChangeDispatcher
+						.removed(propertyChangeListeners,
+								propertyChangeListener);
+				if (remainingListeners == propertyChangeListeners
+						|| this.listeners.compareAndSet(listeners, listeners
+								.with(propertyName, remainingListeners))) {
+					break;
+				}
+			}
+		}
+		return this;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @seeorg.jmetis.observable.internal.IPropertyChangeDispatcher#
+	 * removePropertyChangeListener(java.beans.PropertyChangeListener)
+	 */
+	public IPropertyChangeDispatcher removePropertyChangeListener(
+			PropertyChangeListener propertyChangeListener) {
+		return this.removePropertyChangeListener(null, propertyChangeListener);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @seeorg.jmetis.observable.internal.IPropertyChangeDispatcher#
+	 * firePropertyChangeEvent(java.lang.String, java.lang.Object,
+	 * java.lang.Object)
+	 */
+	public void firePropertyChangeEvent(String propertyName, Object oldValue,
+			Object newValue) {
+		if (oldValue != newValue || oldValue != null
+				&& !oldValue.equals(newValue)) {
+			Listeners listeners = this.listeners.get();
+			PropertyChangeListener[] generalListeners = listeners.generalListeners;
+			PropertyChangeListener[] namedListeners = propertyName == null ? ConcurrentPropertyChangeDispatcher.NO_LISTENERS
+					: listeners.listenersNamed(propertyName);
+			if (generalListeners.length > 0 || namedListeners.length > 0) {
+				PropertyChangeEvent propertyChangeEvent = new PropertyChangeEvent(
+						this.eventSource, propertyName, oldValue, newValue);
+				for (PropertyChangeListener propertyChangeListener : generalListeners) {
+					propertyChangeListener.propertyChange(propertyChangeEvent);
+				}
+				for (PropertyChangeListener propertyChangeListener : namedListeners) {
+					propertyChangeListener.propertyChange(propertyChangeEvent);
+				}
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @seeorg.jmetis.observable.internal.IPropertyChangeDispatcher#
+	 * firePropertyChangeEvent(java.lang.String, boolean, boolean)
+	 */
+	public void firePropertyChangeEvent(String propertyName, boolean oldValue,
+			boolean newValue) {
+		if (oldValue != newValue) {
+			this.firePrimitivePropertyChangeEvent(propertyName,
+					PrimitivePropertyChange.BOOLEAN_VALUE, oldValue ? 1 : 0,
+					newValue ? 1 : 0);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @seeorg.jmetis.observable.internal.IPropertyChangeDispatcher#
+	 * firePropertyChangeEvent(java.lang.String, byte, byte)
+	 */
+	public void firePropertyChangeEvent(String propertyName, byte oldValue,
+			byte newValue) {
+		if (oldValue != newValue) {
+			this.firePrimitivePropertyChangeEvent(propertyName,
+					PrimitivePropertyChange.BYTE_VALUE, oldValue, newValue);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @seeorg.jmetis.observable.internal.IPropertyChangeDispatcher#
+	 * firePropertyChangeEvent(java.lang.String, char, char)
+	 */
+	public void firePropertyChangeEvent(String propertyName, char oldValue,
+			char newValue) {
+		if (oldValue != newValue) {
+			this.firePrimitivePropertyChangeEvent(propertyName,
+					PrimitivePropertyChange.CHAR_VALUE, oldValue, newValue);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @seeorg.jmetis.observable.internal.IPropertyChangeDispatcher#
+	 * firePropertyChangeEvent(java.lang.String, double, double)
+	 */
+	public void firePropertyChangeEvent(String propertyName, double oldValue,
+			double newValue) {
+		long oldBits = Double.doubleToLongBits(oldValue);
+		long newBits = Double.doubleToLongBits(newValue);
+		if (oldBits != newBits) {
+			this.firePrimitivePropertyChangeEvent(propertyName,
+					PrimitivePropertyChange.DOUBLE_VALUE, oldBits, newBits);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @seeorg.jmetis.observable.internal.IPropertyChangeDispatcher#
+	 * firePropertyChangeEvent(java.lang.String, float, float)
+	 */
+	public void firePropertyChangeEvent(String propertyName, float oldValue,
+			float newValue) {
+		int oldBits = Float.floatToIntBits(oldValue);
+		int newBits = Float.floatToIntBits(newValue);
+		if (oldBits != newBits) {
+			this.firePrimitivePropertyChangeEvent(propertyName,
+					PrimitivePropertyChange.FLOAT_VALUE, oldBits, newBits);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @seeorg.jmetis.observable.internal.IPropertyChangeDispatcher#
+	 * firePropertyChangeEvent(java.lang.String, int, int)
+	 */
+	public void firePropertyChangeEvent(String propertyName, int oldValue,
+			int newValue) {
+		if (oldValue != newValue) {
+			this.firePrimitivePropertyChangeEvent(propertyName,
+					PrimitivePropertyChange.INT_VALUE, oldValue, newValue);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @seeorg.jmetis.observable.internal.IPropertyChangeDispatcher#
+	 * firePropertyChangeEvent(java.lang.String, long, long)
+	 */
+	public void firePropertyChangeEvent(String propertyName, long oldValue,
+			long newValue) {
+		if (oldValue != newValue) {
+			this.firePrimitivePropertyChangeEvent(propertyName,
+					PrimitivePropertyChange.LONG_VALUE, oldValue, newValue);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @seeorg.jmetis.observable.internal.IPropertyChangeDispatcher#
+	 * firePropertyChangeEvent(java.lang.String, short, short)
+	 */
+	public void firePropertyChangeEvent(String propertyName, short oldValue,
+			short newValue) {
+		if (oldValue != newValue) {
+			this.firePrimitivePropertyChangeEvent(propertyName,
+					PrimitivePropertyChange.SHORT_VALUE, oldValue, newValue);
+		}
+	}
+
+	protected void firePrimitivePropertyChangeEvent(String propertyName,
+			int valueType, long oldBits, long newBits) {
+		Listeners listeners = this.listeners.get();
+		PropertyChangeListener[] generalListeners = listeners.generalListeners;
+		PropertyChangeListener[] namedListeners = propertyName == null ? ConcurrentPropertyChangeDispatcher.NO_LISTENERS
+				: listeners.listenersNamed(propertyName);
+		if (generalListeners.length > 0 || namedListeners.length > 0) {
+			PropertyChangeEvent propertyChangeEvent = PrimitivePropertyChange
+					.dispatch(this.eventSource, generalListeners, propertyName,
+							valueType, oldBits, newBits, null);
+			PrimitivePropertyChange.dispatch(this.eventSource, namedListeners,
+					propertyName, valueType, oldBits, newBits,
+					propertyChangeEvent);
+		}
+	}
+
+	private static PropertyChangeListener[] added(
+			PropertyChangeListener[] propertyChangeListeners,
+			PropertyChangeListener propertyChangeListener) {
+		PropertyChangeListener[] newListeners = new PropertyChangeListener[propertyChangeListeners.length + 1];
+		System.arraycopy(propertyChangeListeners, 0, newListeners, 0,
+				propertyChangeListeners.length);
+		newListeners[propertyChangeListeners.length] = propertyChangeListener;
+		return newListeners;
+	}
+
+	private static PropertyChangeListener[] removed(
+			PropertyChangeListener[] propertyChangeListeners,
+			PropertyChangeListener propertyChangeListener) {
+		for (int i = 0, n = propertyChangeListeners.length; i < n; i++) {
+			if (propertyChangeListener.equals(propertyChangeListeners[i])) {
+				if (n == 1) {
+					return ConcurrentPropertyChangeDispatcher.NO_LISTENERS;
+				}
+				PropertyChangeListener[] newListeners = new PropertyChangeListener[n - 1];
+				System.arraycopy(propertyChangeListeners, 0, newListeners, 0, i);
+				System.arraycopy(propertyChangeListeners, i + 1, newListeners,
+						i, n - i - 1);
+				return newListeners;
+			}
+		}
+		return propertyChangeListeners;
+	}
+
+	/**
+	 * {@code Listeners} is an immutable snapshot of the listeners registered
+	 * for all properties and for single properties.
+	 */
+	private static final class Listeners {
+
+		final PropertyChangeListener[] generalListeners;
+
+		final Map<String, PropertyChangeListener[]> namedListeners;
+
+		Listeners(PropertyChangeListener[] generalListeners,
+				Map<String, PropertyChangeListener[]> namedListeners) {
+			super();
+			this.generalListeners = generalListeners;
+			this.namedListeners = namedListeners;
+		}
+
+		PropertyChangeListener[] listenersNamed(String propertyName) {
+			if (propertyName == null) {
+				return this.generalListeners;
+			}
+			PropertyChangeListener[] propertyChangeListeners = this.namedListeners
+					.get(propertyName);
+			if (propertyChangeListeners == null) {
+				return ConcurrentPropertyChangeDispatcher.NO_LISTENERS;
+			}
+			return propertyChangeListeners;
+		}
+
+		Listeners with(String propertyName,
+				PropertyChangeListener[] propertyChangeListeners) {
+			if (propertyName == null) {
+				return new Listeners(propertyChangeListeners,
+						this.namedListeners);
+			}
+			Map<String, PropertyChangeListener[]> namedListeners = new HashMap<String, PropertyChangeListener[]>(
+					this.namedListeners);
+			if (propertyChangeListeners.length == 0) {
+				namedListeners.remove(propertyName);
+			} else {
+				namedListeners.put(propertyName, propertyChangeListeners);
+			}
+			return new Listeners(this.generalListeners, namedListeners);
+		}
+
+	}
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.observable.internal;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+
+import org.jmetis.observable.IPrimitivePropertyChangeListener;
+
+/**
+ * {@code PrimitivePropertyChange} notifies listeners of primitive property
+ * changes whose old and new values are passed as raw bits together with their
+ * value type. {@link IPrimitivePropertyChangeListener}s receive the unboxed
+ * values, all other listeners share a single {@link PropertyChangeEvent}
+ * which is only created once the first of them is notified.
+ * 
+ * @author aerlach
+ */
+final class PrimitivePropertyChange {
+
+	static final int BOOLEAN_VALUE = 0;
+
+	static final int BYTE_VALUE = 1;
+
+	static final int CHAR_VALUE = 2;
+
+	static final int SHORT_VALUE = 3;
+
+	static final int INT_VALUE = 4;
+
+	static final int LONG_VALUE = 5;
+
+	static final int FLOAT_VALUE = 6;
+
+	static final int DOUBLE_VALUE = 7;
+
+	private PrimitivePropertyChange() {
+		super();
+	}
+
+	/**
+	 * Notifies the given {@code propertyChangeListener}, which may be a
+	 * {@link CompoundPropertyChangeListener}, of a primitive property change.
+	 * 
+	 * @return the {@link PropertyChangeEvent} passed in, or the one created to
+	 *         notify a listener without primitive support
+	 */
+	static PropertyChangeEvent dispatch(Object eventSource,
+			PropertyChangeListener propertyChangeListener, String propertyName,
+			int valueType, long oldBits, long newBits,
+			PropertyChangeEvent propertyChangeEvent) {
+		if (propertyChangeListener instanceof CompoundPropertyChangeListener) {
+			return PrimitivePropertyChange.dispatch(eventSource,
+					((CompoundPropertyChangeListener) propertyChangeListener)
+							.getPropertyChangeListeners(), propertyName,
+					valueType, oldBits, newBits, propertyChangeEvent);
+		}
+		return PrimitivePropertyChange.notify(eventSource,
+				propertyChangeListener, propertyName, valueType, oldBits,
+				newBits, propertyChangeEvent);
+	}
+
+	/**
+	 * Notifies all of the given {@code propertyChangeListeners} of a primitive
+	 * property change.
+	 * 
+	 * @return the {@link PropertyChangeEvent} passed in, or the one created to
+	 *         notify a listener without primitive support
+	 */
+	static PropertyChangeEvent dispatch(Object eventSource,
+			PropertyChangeListener[] propertyChangeListeners,
+			String propertyName, int valueType, long oldBits, long newBits,
+			PropertyChangeEvent propertyChangeEvent) {
+		for (PropertyChangeListener propertyChangeListener : propertyChangeListeners) {
+			propertyChangeEvent = PrimitivePropertyChange.notify(eventSource,
+					propertyChangeListener, propertyName, valueType, oldBits,
+					newBits, propertyChangeEvent);
+		}
+		return propertyChangeEvent;
+	}
+
+	private static PropertyChangeEvent notify(Object eventSource,
+			PropertyChangeListener propertyChangeListener, String propertyName,
+			int valueType, long oldBits, long newBits,
+			PropertyChangeEvent propertyChangeEvent) {
+		if (propertyChangeListener instanceof IPrimitivePropertyChangeListener) {
+			PrimitivePropertyChange.deliver(eventSource,
+					(IPrimitivePropertyChangeListener) propertyChangeListener,
+					propertyName, valueType, oldBits, newBits);
+		} else if (propertyChangeListener != null
+				&& propertyChangeListener != NullPropertyChangeListener
+						.defaultInstance()) {
+			if (propertyChangeEvent == null) {
+				propertyChangeEvent = new PropertyChangeEvent(eventSource,
+						propertyName, PrimitivePropertyChange.boxedValueOf(
+								valueType, oldBits), PrimitivePropertyChange
+								.boxedValueOf(valueType, newBits));
+			}
+			propertyChangeListener.propertyChange(propertyChangeEvent);
+		}
+		return propertyChangeEvent;
+	}
+
+	private static void deliver(Object eventSource,
+			IPrimitivePropertyChangeListener propertyChangeListener,
+			String propertyName, int valueType, long oldBits, long newBits) {
+		switch (valueType) {
+		case BOOLEAN_VALUE:
+			propertyChangeListener.propertyChange(eventSource, propertyName,
+					oldBits != 0, newBits != 0);
+			break;
+		case LONG_VALUE:
+			propertyChangeListener.propertyChange(eventSource, propertyName,
+					oldBits, newBits);
+			break;
+		case FLOAT_VALUE:
+			propertyChangeListener.propertyChange(eventSource, propertyName,
+					(double) Float.intBitsToFloat((int) oldBits),
+					(double) Float.intBitsToFloat((int) newBits));
+			break;
+		case DOUBLE_VALUE:
+			propertyChangeListener.propertyChange(eventSource, propertyName,
+					Double.longBitsToDouble(oldBits), Double
+							.longBitsToDouble(newBits));
+			break;
+		default:
+			propertyChangeListener.propertyChange(eventSource, propertyName,
+					(int) oldBits, (int) newBits);
+		}
+	}
+
+	private static Object boxedValueOf(int valueType, long bits) {
+		switch (valueType) {
+		case BOOLEAN_VALUE:
+			return Boolean.valueOf(bits != 0);
+		case BYTE_VALUE:
+			return Byte.valueOf((byte) bits);
+		case CHAR_VALUE:
+			return Character.valueOf((char) bits);
+		case SHORT_VALUE:
+			return Short.valueOf((short) bits);
+		case INT_VALUE:
+			return Integer.valueOf((int) bits);
+		case LONG_VALUE:
+			return Long.valueOf(bits);
+		case FLOAT_VALUE:
+			return Float.valueOf(Float.intBitsToFloat((int) bits));
+		default:
+			return Double.valueOf(Double.longBitsToDouble(bits));
+		}
+	}
+
+}
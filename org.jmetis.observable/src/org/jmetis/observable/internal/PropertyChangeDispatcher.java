@@ -19,6 +19,12 @@ import java.util.Arrays;
 
 /**
  * {@code PropertyChangeDispatcher}
+ * <p>
+ * An idle {@code PropertyChangeDispatcher} shares empty tables with all other
+ * instances. The listeners of the first registered property name are kept in
+ * an inline slot, and the hash tables are only allocated once listeners for a
+ * second property name are added. They are released again when the last
+ * listener is removed.
  * 
  * @author aerlach
  */
@@ -26,6 +32,12 @@ public class PropertyChangeDispatcher implements IPropertyChangeDispatcher {
 
 	private static final String NULL_PROPERTY_NAME = "";
 
+	private static final String[] EMPTY_PROPERTY_NAMES = {};
+
+	private static final PropertyChangeListener[] EMPTY_PROPERTY_CHANGE_LISTENERS = {};
+
+	private static final int INITIAL_CAPACITY = 10;
+
 	private static final int[] PRIME_NUMBERS = { 11, 17, 23, 31, 37, 43, 47,
 			67, 79, 89, 97, 137, 163, 179, 197, 277, 311, 331, 359, 379, 397,
 			433, 557, 599, 631, 673, 719, 761, 797, 877, 953, 1039 };
@@ -38,6 +50,10 @@ public class PropertyChangeDispatcher implements IPropertyChangeDispatcher {
 
 	private int numberOfPropertyChangeListeners;
 
+	private String inlinePropertyName;
+
+	private PropertyChangeListener inlinePropertyChangeListener;
+
 	/**
 	 * Constructs a new {@code PropertyChangeDispatcher} instance.
 	 * 
@@ -47,10 +63,8 @@ public class PropertyChangeDispatcher implements IPropertyChangeDispatcher {
 		// this.eventSource = Assertions.mustNotBeNull("eventSource",
 		// eventSource);
 		this.eventSource = eventSource;
-		propertyNames = new String[10];
-		propertyChangeListeners = new PropertyChangeListener[11];
-		Arrays.fill(propertyChangeListeners, NullPropertyChangeListener
-				.defaultInstance());
+		propertyNames = PropertyChangeDispatcher.EMPTY_PROPERTY_NAMES;
+		propertyChangeListeners = PropertyChangeDispatcher.EMPTY_PROPERTY_CHANGE_LISTENERS;
 	}
 
 	protected int threshold() {
@@ -64,8 +78,13 @@ public class PropertyChangeDispatcher implements IPropertyChangeDispatcher {
 	protected int primeCapacityFor(int capacity) {
 		int index = Arrays.binarySearch(PropertyChangeDispatcher.PRIME_NUMBERS,
 				capacity);
-		return PropertyChangeDispatcher.PRIME_NUMBERS[index >= 0 ? index
-				: -index - 1];
+		if (index < 0) {
+			index = -index - 1;
+			if (index == PropertyChangeDispatcher.PRIME_NUMBERS.length) {
+				return capacity;
+			}
+		}
+		return PropertyChangeDispatcher.PRIME_NUMBERS[index];
 	}
 
 	protected int hashCodeOf(String key) {
@@ -79,71 +98,91 @@ public class PropertyChangeDispatcher implements IPropertyChangeDispatcher {
 		return key == hashKey || key.equals(hashKey);
 	}
 
-	protected void rehashCollisions(int hashIndex, int targetIndex,
-			int numberOfCollisions) {
-		int capacity = propertyNames.length;
-		for (int i = targetIndex + (++numberOfCollisions << 1 - 1); i < capacity;) {
-			String hashKey = propertyNames[i];
-			if (hashKey == null) {
-				propertyNames[targetIndex] = propertyNames[i];
-				propertyChangeListeners[targetIndex] = propertyChangeListeners[i];
-				return;
-			}
-			int realIndex = hashCodeOf(hashKey) & 0x7FFFFFFF & capacity - 1;
-			if (realIndex <= targetIndex || realIndex > i) {
-				propertyNames[targetIndex] = hashKey;
-				propertyChangeListeners[targetIndex] = propertyChangeListeners[i];
-				targetIndex = i;
+	/**
+	 * Returns the index of the given {@code key} in the given table, or of the
+	 * free slot where it is to be inserted, or -1 if the probe sequence of the
+	 * {@code key} holds neither. Insertion, lookup and removal all follow this
+	 * probe sequence.
+	 */
+	protected int probe(String[] keys, String key) {
+		int capacity = keys.length;
+		int hashIndex = hashCodeOf(key) & 0x7FFFFFFF & capacity - 1;
+		int numberOfCollisions = 0;
+		for (int i = hashIndex; i < capacity;) {
+			String hashKey = keys[i];
+			if (hashKey == null || isMatchFor(key, hashKey)) {
+				return i;
 			}
-			i += ++numberOfCollisions << 1 - 1;
+			i += ++numberOfCollisions;
 		}
 		for (int i = 0; i < hashIndex;) {
-			String hashKey = propertyNames[i];
-			if (hashKey == null) {
-				propertyNames[targetIndex] = propertyNames[i];
-				propertyChangeListeners[targetIndex] = propertyChangeListeners[i];
-				return;
+			String hashKey = keys[i];
+			if (hashKey == null || isMatchFor(key, hashKey)) {
+				return i;
 			}
-			int realIndex = hashCodeOf(hashKey) & 0x7FFFFFFF & capacity - 1;
-			if (realIndex <= targetIndex || realIndex > i) {
-				propertyNames[targetIndex] = hashKey;
-				propertyChangeListeners[targetIndex] = propertyChangeListeners[i];
-				targetIndex = i;
-			}
-			i += ++numberOfCollisions << 1 - 1;
+			i += ++numberOfCollisions;
 		}
-		propertyNames[targetIndex] = null;
-		propertyChangeListeners[targetIndex] = NullPropertyChangeListener
-				.defaultInstance();
+		return -1;
 	}
 
-	protected void expandCapacity(int slotsToInsert) {
-		int oldCapacity = propertyNames.length;
-		int newCapacity = primeCapacityFor(oldCapacity
-				+ growFactorFor(slotsToInsert));
-		String[] newKeys = new String[newCapacity];
-		PropertyChangeListener[] newValues = new PropertyChangeListener[newCapacity];
-		for (int i = 0; i < oldCapacity; i++) {
-			String hashKey = propertyNames[i];
-			if (hashKey != null) {
-				int hashIndex = hashCodeOf(hashKey) & 0x7FFFFFFF & newCapacity
-						- 1;
-				int numberOfCollisions = 0;
-				int j;
-				for (j = hashIndex; j < newCapacity && newKeys[j] != null; j++) {
-					j += ++numberOfCollisions << 1 - 1;
-				}
-				if (j == newCapacity) {
-					for (j = 0; j < hashIndex && newKeys[j] != null; j++) {
-						j += ++numberOfCollisions << 1 - 1;
+	/**
+	 * Re-inserts all entries into tables of at least the given
+	 * {@code capacity}. Since probe sequences may pass the slot of a removed
+	 * entry, every entry is re-inserted after a removal, so that no sequence
+	 * ends early at the freed slot. The capacity grows while an entry does not
+	 * find a free slot on its probe sequence.
+	 */
+	protected void rehash(int capacity) {
+		do {
+			String[] newKeys = new String[capacity];
+			PropertyChangeListener[] newValues = new PropertyChangeListener[capacity];
+			int i = propertyNames.length;
+			while (--i >= 0) {
+				String hashKey = propertyNames[i];
+				if (hashKey != null) {
+					int j = probe(newKeys, hashKey);
+					if (j < 0) {
+						break;
 					}
+					newKeys[j] = hashKey;
+					newValues[j] = propertyChangeListeners[i];
 				}
-				newKeys[j] = hashKey;
-				newValues[j] = propertyChangeListeners[i];
 			}
-		}
-		propertyNames = newKeys;
-		propertyChangeListeners = newValues;
+			if (i < 0) {
+				propertyNames = newKeys;
+				propertyChangeListeners = newValues;
+				return;
+			}
+			capacity = primeCapacityFor(capacity + 1);
+		} while (true);
+	}
+
+	/**
+	 * Moves the listeners of the inline slot into newly allocated hash
+	 * tables.
+	 */
+	protected void inflate() {
+		String propertyName = inlinePropertyName;
+		PropertyChangeListener propertyChangeListener = inlinePropertyChangeListener;
+		inlinePropertyName = null;
+		inlinePropertyChangeListener = null;
+		numberOfPropertyChangeListeners = 0;
+		propertyNames = new String[PropertyChangeDispatcher.INITIAL_CAPACITY];
+		propertyChangeListeners = new PropertyChangeListener[PropertyChangeDispatcher.INITIAL_CAPACITY];
+		addPropertyChangeListener(propertyName, propertyChangeListener);
+	}
+
+	/**
+	 * Releases the hash tables after the last property name has been removed.
+	 */
+	protected void deflate() {
+		propertyNames = PropertyChangeDispatcher.EMPTY_PROPERTY_NAMES;
+		propertyChangeListeners = PropertyChangeDispatcher.EMPTY_PROPERTY_CHANGE_LISTENERS;
+	}
+
+	protected void expandCapacity(int slotsToInsert) {
+		int oldCapacity = propertyNames.length;
+		rehash(primeCapacityFor(oldCapacity + growFactorFor(slotsToInsert)));
 	}
 
 	/*
@@ -159,59 +198,46 @@ public class PropertyChangeDispatcher implements IPropertyChangeDispatcher {
 			if (propertyName == null) {
 				propertyName = PropertyChangeDispatcher.NULL_PROPERTY_NAME;
 			}
-			do {
-				int capacity = propertyNames.length;
-				int hashIndex = hashCodeOf(propertyName) & 0x7FFFFFFF
-						& capacity - 1;
-				int numberOfCollisions = 0;
-				for (int i = hashIndex; i < capacity;) {
-					String key = propertyNames[i];
-					if (key == null) {
-						propertyNames[i] = propertyName;
-						propertyChangeListeners[i] = propertyChangeListener;
-						if (++numberOfPropertyChangeListeners > threshold()) {
-							expandCapacity(1);
-						}
-						return this;
-					}
-					if (isMatchFor(propertyName, key)) {
-						PropertyChangeListener value = propertyChangeListeners[i];
-						if (value instanceof CompoundPropertyChangeListener) {
-							((CompoundPropertyChangeListener) value)
-									.addPropertyChangeListener(propertyChangeListener);
-						} else {
-							propertyChangeListeners[i] = new CompoundPropertyChangeListener(
-									propertyChangeListener);
-						}
-						return this;
-					}
-					i += ++numberOfCollisions << 1 - 1;
+			if (propertyNames.length == 0) {
+				if (inlinePropertyChangeListener == null) {
+					inlinePropertyName = propertyName;
+					inlinePropertyChangeListener = propertyChangeListener;
+					numberOfPropertyChangeListeners = 1;
+					return this;
 				}
-				for (int i = 0; i < hashIndex;) {
-					String key = propertyNames[i];
-					if (key == null) {
-						propertyNames[i] = propertyName;
-						propertyChangeListeners[i] = propertyChangeListener;
-						if (++numberOfPropertyChangeListeners > threshold()) {
-							expandCapacity(1);
-						}
-						return this;
-					}
-					if (isMatchFor(propertyName, key)) {
-						PropertyChangeListener value = propertyChangeListeners[i];
-						if (value instanceof CompoundPropertyChangeListener) {
-							((CompoundPropertyChangeListener) value)
-									.addPropertyChangeListener(propertyChangeListener);
-						} else {
-							propertyChangeListeners[i] = new CompoundPropertyChangeListener(
-									propertyChangeListener);
-						}
-						return this;
+				if (isMatchFor(propertyName, inlinePropertyName)) {
+					if (inlinePropertyChangeListener instanceof CompoundPropertyChangeListener) {
+						((CompoundPropertyChangeListener) inlinePropertyChangeListener)
+								.addPropertyChangeListener(propertyChangeListener);
+					} else {
+						inlinePropertyChangeListener = new CompoundPropertyChangeListener(
+								inlinePropertyChangeListener,
+								propertyChangeListener);
 					}
-					i += ++numberOfCollisions << 1 - 1;
+					return this;
 				}
+				inflate();
+			}
+			int i;
+			while ((i = probe(propertyNames, propertyName)) < 0) {
 				expandCapacity(1);
-			} while (true);
+			}
+			if (propertyNames[i] == null) {
+				propertyNames[i] = propertyName;
+				propertyChangeListeners[i] = propertyChangeListener;
+				if (++numberOfPropertyChangeListeners > threshold()) {
+					expandCapacity(1);
+				}
+				return this;
+			}
+			PropertyChangeListener value = propertyChangeListeners[i];
+			if (value instanceof CompoundPropertyChangeListener) {
+				((CompoundPropertyChangeListener) value)
+						.addPropertyChangeListener(propertyChangeListener);
+			} else {
+				propertyChangeListeners[i] = new CompoundPropertyChangeListener(
+						value, propertyChangeListener);
+			}
 		}
 		return this;
 	}
@@ -233,29 +259,26 @@ public class PropertyChangeDispatcher implements IPropertyChangeDispatcher {
 			propertyName = PropertyChangeDispatcher.NULL_PROPERTY_NAME;
 		}
 		int capacity = propertyNames.length;
-		int hashIndex = hashCodeOf(propertyName) & 0x7FFFFFFF & capacity - 1;
-		int numberOfCollisions = 0;
-		for (int i = hashIndex; i < capacity;) {
-			String hashKey = propertyNames[i];
-			if (hashKey == null) {
-				return NullPropertyChangeListener.defaultInstance();
+		if (capacity == 0) {
+			if (inlinePropertyChangeListener != null
+					&& isMatchFor(propertyName, inlinePropertyName)) {
+				return inlinePropertyChangeListener;
 			}
-			if (isMatchFor(propertyName, hashKey)) {
-				return propertyChangeListeners[i];
-			}
-			i += ++numberOfCollisions << 1 - 1;
+			return NullPropertyChangeListener.defaultInstance();
 		}
-		for (int i = 0; i < hashIndex;) {
-			String hashKey = propertyNames[i];
-			if (hashKey == null) {
-				return NullPropertyChangeListener.defaultInstance();
-			}
-			if (isMatchFor(propertyName, hashKey)) {
-				return propertyChangeListeners[i];
-			}
-			i += ++numberOfCollisions << 1 - 1;
+		int i = probe(propertyNames, propertyName);
+		if (i < 0 || propertyNames[i] == null) {
+			return NullPropertyChangeListener.defaultInstance();
 		}
-		return null;
+		return propertyChangeListeners[i];
+	}
+
+	protected boolean hasPropertyChangeListeners(
+			PropertyChangeListener propertyChangeListener) {
+		return propertyChangeListener != NullPropertyChangeListener
+				.defaultInstance()
+				&& !(propertyChangeListener instanceof CompoundPropertyChangeListener && ((CompoundPropertyChangeListener) propertyChangeListener)
+						.getPropertyChangeListeners().length == 0);
 	}
 
 	/*
@@ -269,32 +292,17 @@ public class PropertyChangeDispatcher implements IPropertyChangeDispatcher {
 			Object newValue) {
 		if (oldValue != newValue || oldValue != null
 				&& !oldValue.equals(newValue)) {
-			if (propertyName == null) {
-				PropertyChangeListener propertyChangeListener = propertyChangeListenerFor(null);
-				if (propertyChangeListener != NullPropertyChangeListener
-						.defaultInstance()) {
-					propertyChangeListener
-							.propertyChange(new PropertyChangeEvent(
-									eventSource, propertyName, oldValue,
-									newValue));
-				}
-			} else {
-				PropertyChangeListener propertyChangeListener = propertyChangeListenerFor(null);
-				if (propertyChangeListener != NullPropertyChangeListener
-						.defaultInstance()) {
-					propertyChangeListener
-							.propertyChange(new PropertyChangeEvent(
-									eventSource, propertyName, oldValue,
-									newValue));
-				}
-				propertyChangeListener = propertyChangeListenerFor(propertyName);
-				if (propertyChangeListener != NullPropertyChangeListener
-						.defaultInstance()) {
-					propertyChangeListener
-							.propertyChange(new PropertyChangeEvent(
-									eventSource, propertyName, oldValue,
-									newValue));
-				}
+			PropertyChangeListener generalListener = this
+					.propertyChangeListenerFor(null);
+			PropertyChangeListener namedListener = propertyName == null ? NullPropertyChangeListener
+					.defaultInstance()
+					: this.propertyChangeListenerFor(propertyName);
+			if (this.hasPropertyChangeListeners(generalListener)
+					|| this.hasPropertyChangeListeners(namedListener)) {
+				PropertyChangeEvent propertyChangeEvent = new PropertyChangeEvent(
+						this.eventSource, propertyName, oldValue, newValue);
+				generalListener.propertyChange(propertyChangeEvent);
+				namedListener.propertyChange(propertyChangeEvent);
 			}
 		}
 	}
@@ -307,7 +315,11 @@ public class PropertyChangeDispatcher implements IPropertyChangeDispatcher {
 	 */
 	public void firePropertyChangeEvent(String propertyName, boolean oldValue,
 			boolean newValue) {
-
+		if (oldValue != newValue) {
+			this.firePrimitivePropertyChangeEvent(propertyName,
+					PrimitivePropertyChange.BOOLEAN_VALUE, oldValue ? 1 : 0,
+					newValue ? 1 : 0);
+		}
 	}
 
 	/*
@@ -318,7 +330,10 @@ public class PropertyChangeDispatcher implements IPropertyChangeDispatcher {
 	 */
 	public void firePropertyChangeEvent(String propertyName, byte oldValue,
 			byte newValue) {
-
+		if (oldValue != newValue) {
+			this.firePrimitivePropertyChangeEvent(propertyName,
+					PrimitivePropertyChange.BYTE_VALUE, oldValue, newValue);
+		}
 	}
 
 	/*
@@ -329,7 +344,10 @@ public class PropertyChangeDispatcher implements IPropertyChangeDispatcher {
 	 */
 	public void firePropertyChangeEvent(String propertyName, char oldValue,
 			char newValue) {
-
+		if (oldValue != newValue) {
+			this.firePrimitivePropertyChangeEvent(propertyName,
+					PrimitivePropertyChange.CHAR_VALUE, oldValue, newValue);
+		}
 	}
 
 	/*
@@ -340,7 +358,12 @@ public class PropertyChangeDispatcher implements IPropertyChangeDispatcher {
 	 */
 	public void firePropertyChangeEvent(String propertyName, double oldValue,
 			double newValue) {
-
+		long oldBits = Double.doubleToLongBits(oldValue);
+		long newBits = Double.doubleToLongBits(newValue);
+		if (oldBits != newBits) {
+			this.firePrimitivePropertyChangeEvent(propertyName,
+					PrimitivePropertyChange.DOUBLE_VALUE, oldBits, newBits);
+		}
 	}
 
 	/*
@@ -351,7 +374,12 @@ public class PropertyChangeDispatcher implements IPropertyChangeDispatcher {
 	 */
 	public void firePropertyChangeEvent(String propertyName, float oldValue,
 			float newValue) {
-
+		int oldBits = Float.floatToIntBits(oldValue);
+		int newBits = Float.floatToIntBits(newValue);
+		if (oldBits != newBits) {
+			this.firePrimitivePropertyChangeEvent(propertyName,
+					PrimitivePropertyChange.FLOAT_VALUE, oldBits, newBits);
+		}
 	}
 
 	/*
@@ -362,7 +390,10 @@ public class PropertyChangeDispatcher implements IPropertyChangeDispatcher {
 	 */
 	public void firePropertyChangeEvent(String propertyName, int oldValue,
 			int newValue) {
-
+		if (oldValue != newValue) {
+			this.firePrimitivePropertyChangeEvent(propertyName,
+					PrimitivePropertyChange.INT_VALUE, oldValue, newValue);
+		}
 	}
 
 	/*
@@ -373,7 +404,10 @@ public class PropertyChangeDispatcher implements IPropertyChangeDispatcher {
 	 */
 	public void firePropertyChangeEvent(String propertyName, long oldValue,
 			long newValue) {
-
+		if (oldValue != newValue) {
+			this.firePrimitivePropertyChangeEvent(propertyName,
+					PrimitivePropertyChange.LONG_VALUE, oldValue, newValue);
+		}
 	}
 
 	/*
@@ -384,7 +418,35 @@ public class PropertyChangeDispatcher implements IPropertyChangeDispatcher {
 	 */
 	public void firePropertyChangeEvent(String propertyName, short oldValue,
 			short newValue) {
+		if (oldValue != newValue) {
+			this.firePrimitivePropertyChangeEvent(propertyName,
+					PrimitivePropertyChange.SHORT_VALUE, oldValue, newValue);
+		}
+	}
 
+	/**
+	 * Notifies the listeners of a primitive property change. The old and new
+	 * values are passed as raw bits of the given {@code valueType}, so nothing
+	 * is boxed unless a listener without primitive support is registered, in
+	 * which case a single {@link PropertyChangeEvent} is shared by all of
+	 * them.
+	 */
+	protected void firePrimitivePropertyChangeEvent(String propertyName,
+			int valueType, long oldBits, long newBits) {
+		PropertyChangeListener generalListener = this
+				.propertyChangeListenerFor(null);
+		PropertyChangeListener namedListener = propertyName == null ? NullPropertyChangeListener
+				.defaultInstance()
+				: this.propertyChangeListenerFor(propertyName);
+		if (this.hasPropertyChangeListeners(generalListener)
+				|| this.hasPropertyChangeListeners(namedListener)) {
+			PropertyChangeEvent propertyChangeEvent = PrimitivePropertyChange
+					.dispatch(this.eventSource, generalListener, propertyName,
+							valueType, oldBits, newBits, null);
+			PrimitivePropertyChange.dispatch(this.eventSource, namedListener,
+					propertyName, valueType, oldBits, newBits,
+					propertyChangeEvent);
+		}
 	}
 
 	/*
@@ -401,53 +463,67 @@ public class PropertyChangeDispatcher implements IPropertyChangeDispatcher {
 				propertyName = PropertyChangeDispatcher.NULL_PROPERTY_NAME;
 			}
 			int capacity = propertyNames.length;
-			int hashIndex = hashCodeOf(propertyName) & 0x7FFFFFFF & capacity
-					- 1;
-			int numberOfCollisions = 0;
-			for (int i = hashIndex; i < capacity;) {
-				String hashKey = propertyNames[i];
-				if (hashKey == null) {
-					return this;
-				}
-				if (isMatchFor(propertyName, hashKey)) {
-					PropertyChangeListener value = propertyChangeListeners[i];
-					if (value instanceof CompoundPropertyChangeListener) {
-						((CompoundPropertyChangeListener) value)
-								.removePropertyChangeListener(propertyChangeListener);
-					} else {
-						propertyNames = null;
-						propertyChangeListeners[i] = null;
-						rehashCollisions(hashIndex, i, numberOfCollisions);
+			if (capacity == 0) {
+				if (inlinePropertyChangeListener != null
+						&& isMatchFor(propertyName, inlinePropertyName)) {
+					inlinePropertyChangeListener = remainingListenerOf(
+							inlinePropertyChangeListener,
+							propertyChangeListener);
+					if (inlinePropertyChangeListener == null) {
+						inlinePropertyName = null;
+						numberOfPropertyChangeListeners = 0;
 					}
-					numberOfPropertyChangeListeners--;
-					return this;
 				}
-				i += ++numberOfCollisions << 1 - 1;
+				return this;
 			}
-			for (int i = 0; i < hashIndex;) {
-				String hashKey = propertyNames[i];
-				if (hashKey == null) {
-					return this;
-				}
-				if (isMatchFor(propertyName, hashKey)) {
-					PropertyChangeListener value = propertyChangeListeners[i];
-					if (value instanceof CompoundPropertyChangeListener) {
-						((CompoundPropertyChangeListener) value)
-								.removePropertyChangeListener(propertyChangeListener);
-					} else {
-						propertyNames = null;
-						propertyChangeListeners[i] = null;
-						rehashCollisions(hashIndex, i, numberOfCollisions);
-					}
-					numberOfPropertyChangeListeners--;
-					return this;
+			int i = probe(propertyNames, propertyName);
+			if (i < 0 || propertyNames[i] == null) {
+				return this;
+			}
+			propertyChangeListeners[i] = remainingListenerOf(
+					propertyChangeListeners[i], propertyChangeListener);
+			if (propertyChangeListeners[i] == null) {
+				propertyNames[i] = null;
+				if (--numberOfPropertyChangeListeners == 0) {
+					deflate();
+				} else {
+					rehash(capacity);
 				}
-				i += ++numberOfCollisions << 1 - 1;
 			}
 		}
 		return this;
 	}
 
+	/**
+	 * Removes the given {@code propertyChangeListener} from the given slot
+	 * {@code value} and returns what is left for the slot: a compound which
+	 * still holds several listeners, the only remaining listener, or
+	 * {@code null} if no listener remains.
+	 */
+	protected PropertyChangeListener remainingListenerOf(
+			PropertyChangeListener value,
+			PropertyChangeListener propertyChangeListener) {
+		if (value instanceof CompoundPropertyChangeListener) {
+			CompoundPropertyChangeListener compoundListener = (CompoundPropertyChangeListener) value;
+			compoundListener
+					.removePropertyChangeListener(propertyChangeListener);
+			PropertyChangeListener[] remainingListeners = compoundListener
+					.getPropertyChangeListeners();
+			switch (remainingListeners.length) {
+			case 0:
+				return null;
+			case 1:
+				return remainingListeners[0];
+			default:
+				return value;
+			}
+		}
+		if (value.equals(propertyChangeListener)) {
+			return null;
+		}
+		return value;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
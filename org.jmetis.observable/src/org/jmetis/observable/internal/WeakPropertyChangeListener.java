@@ -0,0 +1,155 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.observable.internal;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.lang.ref.WeakReference;
+
+import org.jmetis.observable.IBeanModel;
+import org.jmetis.observable.IIndexedModel;
+import org.jmetis.observable.IPropertyModel;
+
+/**
+ * {@code WeakPropertyChangeListener} references a
+ * {@link PropertyChangeListener} weakly, so registering it with a long-lived
+ * model does not keep the listener from being garbage collected. Once the
+ * listener has been collected, the next event delivered to the {@code
+ * WeakPropertyChangeListener} unregisters it from the source of that event.
+ * <p>
+ * Two {@code WeakPropertyChangeListener}s are equal if they reference equal
+ * listeners for the same property, so a listener registered weakly is
+ * removed by passing a new {@code WeakPropertyChangeListener} for it.
+ * 
+ * @author aerlach
+ */
+public class WeakPropertyChangeListener extends
+		WeakReference<PropertyChangeListener> implements PropertyChangeListener {
+
+	private final String propertyName;
+
+	private final int hashCode;
+
+	/**
+	 * Constructs a new {@code WeakPropertyChangeListener} instance.
+	 * 
+	 * @param propertyChangeListener
+	 *            the listener to reference weakly
+	 * @param propertyName
+	 *            the name of the property the listener is registered for, or
+	 *            {@code null} if it is registered for all properties
+	 */
+	public WeakPropertyChangeListener(
+			PropertyChangeListener propertyChangeListener, String propertyName) {
+		super(propertyChangeListener);
+		this.propertyName = propertyName;
+		hashCode = propertyChangeListener.hashCode();
+	}
+
+	/**
+	 * Returns a {@code WeakPropertyChangeListener} for the given {@code
+	 * propertyChangeListener}, or the listener itself if it already is one.
+	 */
+	public static PropertyChangeListener weakListenerFor(
+			PropertyChangeListener propertyChangeListener, String propertyName) {
+		if (propertyChangeListener == null
+				|| propertyChangeListener instanceof WeakPropertyChangeListener) {
+			return propertyChangeListener;
+		}
+		return new WeakPropertyChangeListener(propertyChangeListener,
+				propertyName);
+	}
+
+	protected String getPropertyName() {
+		return propertyName;
+	}
+
+	/**
+	 * Returns {@code true} if the referenced listener has been garbage
+	 * collected.
+	 */
+	public boolean isCleared() {
+		return get() == null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @seejava.beans.PropertyChangeListener#propertyChange(java.beans.
+	 * PropertyChangeEvent)
+	 */
+	public void propertyChange(PropertyChangeEvent propertyChangeEvent) {
+		PropertyChangeListener propertyChangeListener = get();
+		if (propertyChangeListener != null) {
+			propertyChangeListener.propertyChange(propertyChangeEvent);
+		} else {
+			purgeFrom(propertyChangeEvent.getSource());
+		}
+	}
+
+	/**
+	 * Unregisters the receiver from the given {@code eventSource} after the
+	 * referenced listener has been garbage collected.
+	 * 
+	 * @param eventSource
+	 *            the source of the event just received
+	 */
+	protected void purgeFrom(Object eventSource) {
+		if (eventSource instanceof IPropertyModel) {
+			((IPropertyModel) eventSource).removePropertyChangeListener(this);
+		} else if (eventSource instanceof IBeanModel) {
+			if (propertyName == null) {
+				((IBeanModel) eventSource).removePropertyChangeListener(this);
+			} else {
+				((IBeanModel) eventSource).removePropertyChangeListener(
+						propertyName, this);
+			}
+		} else if (eventSource instanceof IIndexedModel<?>) {
+			((IIndexedModel<?>) eventSource).removePropertyChangeListener(this);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return hashCode;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (other instanceof WeakPropertyChangeListener) {
+			WeakPropertyChangeListener otherListener = (WeakPropertyChangeListener) other;
+			PropertyChangeListener propertyChangeListener = get();
+			return propertyChangeListener != null
+					&& hashCode == otherListener.hashCode
+					&& propertyChangeListener.equals(otherListener.get())
+					&& (propertyName == null ? otherListener.propertyName == null
+							: propertyName.equals(otherListener.propertyName));
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,362 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.observable.journal;
+
+import java.beans.IndexedPropertyChangeEvent;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.jmetis.observable.IPropertyModel;
+import org.jmetis.observable.collection.EntriesChangeEvent;
+import org.jmetis.observable.collection.IndexedCollection;
+import org.jmetis.observable.collection.KeyedCollection;
+
+/**
+ * {@code ChangeJournal} records the changes fired by {@link IndexedCollection}
+ * s, {@link KeyedCollection}s and {@link IPropertyModel}s, so they can be
+ * undone and redone.
+ * <p>
+ * Each change is recorded as the delta carried by its event: the replaced and
+ * the inserted elements of an indexed change, or the old and the new value of
+ * a key or a property. Undoing or redoing a change therefore costs time
+ * proportional to the size of the change, not of the model. The deltas are
+ * kept in a ring buffer of fixed capacity, so the oldest changes are dropped
+ * once the buffer is full. The {@link EntriesChangeEvent} which ends a batch
+ * of a {@link KeyedCollection} is recorded as one change per key.
+ * <p>
+ * Every recorded change increments the version of the journal. The models can
+ * be brought back to any version still held by the journal with
+ * {@link #restore(long)}. Recording a new change after changes have been
+ * undone discards the undone changes.
+ * 
+ * @author aerlach
+ */
+public class ChangeJournal {
+
+	private static final int DEFAULT_CAPACITY = 1024;
+
+	private final Object[] models;
+
+	private final String[] keys;
+
+	private final int[] indexes;
+
+	private final Object[] oldValues;
+
+	private final Object[] newValues;
+
+	private final boolean[] continued;
+
+	private final PropertyChangeListener recorder;
+
+	private int start;
+
+	private int length;
+
+	private int position;
+
+	private long oldestVersion;
+
+	private int groupDepth;
+
+	private boolean grouped;
+
+	private boolean replaying;
+
+	/**
+	 * Constructs a new {@code ChangeJournal} instance which holds the last
+	 * 1024 changes.
+	 */
+	public ChangeJournal() {
+		this(ChangeJournal.DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs a new {@code ChangeJournal} instance.
+	 * 
+	 * @param capacity
+	 *            the number of changes the journal holds
+	 */
+	public ChangeJournal(int capacity) {
+		super();
+		if (capacity < 1) {
+			throw new IllegalArgumentException(Integer.toString(capacity));
+		}
+		models = new Object[capacity];
+		keys = new String[capacity];
+		indexes = new int[capacity];
+		oldValues = new Object[capacity];
+		newValues = new Object[capacity];
+		continued = new boolean[capacity];
+		recorder = new PropertyChangeListener() {
+
+			public void propertyChange(PropertyChangeEvent propertyChangeEvent) {
+				ChangeJournal.this.record(propertyChangeEvent);
+			}
+		};
+	}
+
+	/**
+	 * Records the changes of the given {@code indexedCollection}.
+	 */
+	public void attach(IndexedCollection<?> indexedCollection) {
+		indexedCollection.addPropertyChangeListener(recorder);
+	}
+
+	/**
+	 * Records the changes of the given {@code keyedCollection}. The keys are
+	 * taken from the property names of its events, so only collections keyed
+	 * by strings can be restored.
+	 */
+	public void attach(KeyedCollection<String, ?> keyedCollection) {
+		keyedCollection.addPropertyChangeListener(recorder);
+	}
+
+	/**
+	 * Records the changes of the value of the given {@code propertyModel}.
+	 */
+	public void attach(IPropertyModel propertyModel) {
+		propertyModel.addPropertyChangeListener(recorder);
+	}
+
+	public void detach(IndexedCollection<?> indexedCollection) {
+		indexedCollection.removePropertyChangeListener(recorder);
+	}
+
+	public void detach(KeyedCollection<String, ?> keyedCollection) {
+		keyedCollection.removePropertyChangeListener(recorder);
+	}
+
+	public void detach(IPropertyModel propertyModel) {
+		propertyModel.removePropertyChangeListener(recorder);
+	}
+
+	/**
+	 * Starts a group of changes which are undone and redone as a single step.
+	 * Groups may be nested.
+	 */
+	public void beginChanges() {
+		if (groupDepth++ == 0) {
+			grouped = false;
+		}
+	}
+
+	/**
+	 * Ends a group of changes started by {@link #beginChanges()}.
+	 * 
+	 * @throws IllegalStateException
+	 *             if no group has been started
+	 */
+	public void endChanges() {
+		if (groupDepth == 0) {
+			throw new IllegalStateException();
+		}
+		groupDepth--;
+	}
+
+	/**
+	 * Returns the number of changes the receiver holds.
+	 */
+	public int capacity() {
+		return models.length;
+	}
+
+	/**
+	 * Returns the version of the models, which is the number of changes
+	 * recorded and not undone since the receiver was created.
+	 */
+	public long getVersion() {
+		return oldestVersion + position;
+	}
+
+	/**
+	 * Returns the oldest version the models can be restored to.
+	 */
+	public long getOldestVersion() {
+		return oldestVersion;
+	}
+
+	/**
+	 * Returns the latest version the models can be restored to.
+	 */
+	public long getLatestVersion() {
+		return oldestVersion + length;
+	}
+
+	public boolean canUndo() {
+		return position > 0;
+	}
+
+	public boolean canRedo() {
+		return position < length;
+	}
+
+	/**
+	 * Discards all recorded changes.
+	 */
+	public void clear() {
+		Arrays.fill(models, null);
+		Arrays.fill(oldValues, null);
+		Arrays.fill(newValues, null);
+		Arrays.fill(keys, null);
+		oldestVersion += position;
+		start = length = position = 0;
+	}
+
+	private int slotOf(int offset) {
+		int slot = start + offset;
+		return slot < models.length ? slot : slot - models.length;
+	}
+
+	protected void record(PropertyChangeEvent propertyChangeEvent) {
+		if (replaying) {
+			return;
+		}
+		if (propertyChangeEvent instanceof EntriesChangeEvent) {
+			EntriesChangeEvent entriesChangeEvent = (EntriesChangeEvent) propertyChangeEvent;
+			Map<String, ?> oldValues = entriesChangeEvent.getOldValues();
+			for (Map.Entry<String, ?> entry : entriesChangeEvent
+					.getNewValues().entrySet()) {
+				record(new PropertyChangeEvent(entriesChangeEvent.getSource(),
+						entry.getKey(), oldValues.get(entry.getKey()), entry
+								.getValue()));
+			}
+			return;
+		}
+		for (; length > position; length--) {
+			int slot = slotOf(length - 1);
+			models[slot] = oldValues[slot] = newValues[slot] = null;
+			keys[slot] = null;
+		}
+		if (length == models.length) {
+			models[start] = oldValues[start] = newValues[start] = null;
+			keys[start] = null;
+			start = slotOf(1);
+			oldestVersion++;
+			length--;
+			position--;
+		}
+		int slot = slotOf(length);
+		models[slot] = propertyChangeEvent.getSource();
+		if (propertyChangeEvent instanceof IndexedPropertyChangeEvent) {
+			indexes[slot] = ((IndexedPropertyChangeEvent) propertyChangeEvent)
+					.getIndex();
+		} else {
+			keys[slot] = propertyChangeEvent.getPropertyName();
+		}
+		oldValues[slot] = propertyChangeEvent.getOldValue();
+		newValues[slot] = propertyChangeEvent.getNewValue();
+		continued[slot] = groupDepth > 0 && grouped;
+		grouped = groupDepth > 0;
+		position = ++length;
+	}
+
+	/**
+	 * Reverts the last step which has not been undone yet.
+	 * 
+	 * @throws IllegalStateException
+	 *             if there is no change to undo
+	 */
+	public void undo() {
+		if (!canUndo()) {
+			throw new IllegalStateException();
+		}
+		do {
+			apply(slotOf(--position), false);
+		} while (position > 0 && continued[slotOf(position)]);
+	}
+
+	/**
+	 * Reapplies the last undone step.
+	 * 
+	 * @throws IllegalStateException
+	 *             if there is no change to redo
+	 */
+	public void redo() {
+		if (!canRedo()) {
+			throw new IllegalStateException();
+		}
+		do {
+			apply(slotOf(position++), true);
+		} while (position < length && continued[slotOf(position)]);
+	}
+
+	/**
+	 * Undoes or redoes changes until the models are at the given {@code
+	 * version}.
+	 * 
+	 * @param version
+	 *            a version between {@link #getOldestVersion()} and
+	 *            {@link #getLatestVersion()}
+	 * @throws IllegalArgumentException
+	 *             if the receiver does not hold the given {@code version}
+	 */
+	public void restore(long version) {
+		if (version < oldestVersion || version > oldestVersion + length) {
+			throw new IllegalArgumentException(Long.toString(version));
+		}
+		int targetPosition = (int) (version - oldestVersion);
+		while (position > targetPosition) {
+			apply(slotOf(--position), false);
+		}
+		while (position < targetPosition) {
+			apply(slotOf(position++), true);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void apply(int slot, boolean forward) {
+		Object model = models[slot];
+		Object value = forward ? newValues[slot] : oldValues[slot];
+		replaying = true;
+		try {
+			if (model instanceof IndexedCollection<?>) {
+				Object[] replacedElements = (Object[]) (forward ? oldValues[slot]
+						: newValues[slot]);
+				apply((IndexedCollection<Object>) model, indexes[slot],
+						replacedElements.length, (Object[]) value);
+			} else if (model instanceof KeyedCollection<?, ?>) {
+				KeyedCollection<String, Object> keyedCollection = (KeyedCollection<String, Object>) model;
+				if (value == null) {
+					keyedCollection.remove(keys[slot]);
+				} else {
+					keyedCollection.put(keys[slot], value);
+				}
+			} else {
+				((IPropertyModel) model).setValue(value);
+			}
+		} finally {
+			replaying = false;
+		}
+	}
+
+	private void apply(IndexedCollection<Object> indexedCollection,
+			int index, int numberOfReplacedElements, Object[] elements) {
+		indexedCollection.beginChanges();
+		try {
+			if (numberOfReplacedElements > 0) {
+				indexedCollection.subList(index,
+						index + numberOfReplacedElements).clear();
+			}
+			if (elements.length > 0) {
+				indexedCollection.addAll(index, Arrays.asList(elements));
+			}
+		} finally {
+			indexedCollection.endChanges();
+		}
+	}
+
+}
@@ -17,6 +17,7 @@ import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 
 import org.jmetis.observable.IBeanModel;
+import org.jmetis.observable.internal.WeakPropertyChangeListener;
 
 /**
  * {@code BeanModel} is a base implementation for observable objects based on
@@ -28,6 +29,8 @@ public abstract class BeanModel implements IBeanModel {
 
 	private PropertyChangeSupport propertyChangeListeners;
 
+	private boolean weakListeners;
+
 	/**
 	 * Constructs a new {@code BeanModel} instance.
 	 */
@@ -42,6 +45,36 @@ public abstract class BeanModel implements IBeanModel {
 		return propertyChangeListeners;
 	}
 
+	/**
+	 * Returns {@code true} if listeners are referenced weakly.
+	 * 
+	 * @return {@code true} if listeners are referenced weakly
+	 */
+	public boolean isWeakListeners() {
+		return weakListeners;
+	}
+
+	/**
+	 * Sets whether listeners are referenced weakly. Listeners which have been
+	 * garbage collected are unregistered when the next change of their
+	 * property is fired. The mode should be set before listeners are added.
+	 * 
+	 * @param weakListeners
+	 *            {@code true} to reference listeners weakly
+	 */
+	public void setWeakListeners(boolean weakListeners) {
+		this.weakListeners = weakListeners;
+	}
+
+	private PropertyChangeListener listenerFor(
+			PropertyChangeListener propertyChangeListener, String propertyName) {
+		if (weakListeners) {
+			return WeakPropertyChangeListener.weakListenerFor(
+					propertyChangeListener, propertyName);
+		}
+		return propertyChangeListener;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -54,8 +87,8 @@ public abstract class BeanModel implements IBeanModel {
 		if (propertyChangeListeners == null) {
 			propertyChangeListeners = new PropertyChangeSupport(this);
 		}
-		propertyChangeListeners
-				.addPropertyChangeListener(propertyChangeListener);
+		propertyChangeListeners.addPropertyChangeListener(listenerFor(
+				propertyChangeListener, null));
 	}
 
 	/*
@@ -71,7 +104,7 @@ public abstract class BeanModel implements IBeanModel {
 			propertyChangeListeners = new PropertyChangeSupport(this);
 		}
 		propertyChangeListeners.addPropertyChangeListener(propertyName,
-				propertyChangeListener);
+				listenerFor(propertyChangeListener, propertyName));
 	}
 
 	/*
@@ -84,8 +117,8 @@ public abstract class BeanModel implements IBeanModel {
 	public void removePropertyChangeListener(
 			PropertyChangeListener propertyChangeListener) {
 		if (propertyChangeListeners != null) {
-			propertyChangeListeners
-					.removePropertyChangeListener(propertyChangeListener);
+			propertyChangeListeners.removePropertyChangeListener(listenerFor(
+					propertyChangeListener, null));
 		}
 	}
 
@@ -100,7 +133,7 @@ public abstract class BeanModel implements IBeanModel {
 			PropertyChangeListener propertyChangeListener) {
 		if (propertyChangeListeners != null) {
 			propertyChangeListeners.removePropertyChangeListener(propertyName,
-					propertyChangeListener);
+					listenerFor(propertyChangeListener, propertyName));
 		}
 	}
 
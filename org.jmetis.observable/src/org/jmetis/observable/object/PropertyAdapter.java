@@ -15,28 +15,57 @@ package org.jmetis.observable.object;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import org.jmetis.kernel.metadata.IClassDescription;
 import org.jmetis.kernel.metadata.IPropertyAccessor;
 import org.jmetis.kernel.metadata.IPropertyDescription;
+import org.jmetis.observable.IBeanModel;
+import org.jmetis.observable.internal.WeakPropertyChangeListener;
 
 /**
  * {@code PropertyAdapter}
+ * <p>
+ * The {@code PropertyAdapter} registers itself with each value of the observed
+ * property that supports named {@link PropertyChangeListener}s. How to do so
+ * is resolved once per class of the observed values: {@link IBeanModel}s are
+ * called directly, other classes through their public {@code
+ * addPropertyChangeListener(String, PropertyChangeListener)} and {@code
+ * removePropertyChangeListener(String, PropertyChangeListener)} methods.
+ * The cache references its entries softly, so that it does not keep the
+ * classes of the observed values from being unloaded. Subclasses which
+ * override {@link #getEventListenerMethod(Object, String, Class...)} resolve
+ * the methods through it for every observed value instead.
+ * <p>
+ * If the {@code PropertyAdapter} references its listeners weakly, it also
+ * registers itself weakly with the observed values, so the values do not keep
+ * it from being garbage collected.
  * 
  * @author aerlach
  */
 public class PropertyAdapter extends PropertyModel implements
 		PropertyChangeListener {
 
+	private static final Map<Class<?>, Reference<ListenerRegistration>> LISTENER_REGISTRATIONS = Collections
+			.synchronizedMap(new WeakHashMap<Class<?>, Reference<ListenerRegistration>>());
+
 	private PropertyModel propertyModel;
 
 	private IPropertyDescription propertyDescriptor;
 
 	private IPropertyAccessor propertyAccessor;
 
+	private PropertyChangeListener eventListener;
+
+	private final boolean customEventListenerMethods;
+
 	/**
 	 * Constructs a new {@code PropertyAdapter} instance.
 	 */
@@ -46,6 +75,24 @@ public class PropertyAdapter extends PropertyModel implements
 		this.propertyModel = propertyModel;
 		this.propertyDescriptor = propertyDescriptor;
 		propertyAccessor = propertyDescriptor.getPropertyAccessor();
+		customEventListenerMethods = PropertyAdapter
+				.overridesEventListenerMethod(getClass());
+	}
+
+	private static boolean overridesEventListenerMethod(Class<?> adapterClass) {
+		for (Class<?> declaringClass = adapterClass; declaringClass != PropertyAdapter.class; declaringClass = declaringClass
+				.getSuperclass()) {
+			try {
+				declaringClass.getDeclaredMethod("getEventListenerMethod", //$NON-NLS-1$
+						Object.class, String.class, Class[].class);
+				return true;
+			} catch (NoSuchMethodException ex) {
+				// not overridden by this class
+			} catch (SecurityException ex) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/*
@@ -95,6 +142,96 @@ public class PropertyAdapter extends PropertyModel implements
 		return propertyDescriptor.getElementTypes();
 	}
 
+	/**
+	 * Returns the {@link ListenerRegistration} for instances of the given
+	 * {@code sourceClass}, resolving and caching it on first use.
+	 * 
+	 * @param sourceClass
+	 *            the class of an observed value
+	 * @return the {@link ListenerRegistration} for the given {@code
+	 *         sourceClass}
+	 */
+	protected static ListenerRegistration listenerRegistrationFor(
+			Class<?> sourceClass) {
+		Reference<ListenerRegistration> reference = PropertyAdapter.LISTENER_REGISTRATIONS
+				.get(sourceClass);
+		ListenerRegistration listenerRegistration = reference == null ? null
+				: reference.get();
+		if (listenerRegistration == null) {
+			listenerRegistration = PropertyAdapter
+					.createListenerRegistrationFor(sourceClass);
+			PropertyAdapter.LISTENER_REGISTRATIONS.put(sourceClass,
+					new SoftReference<ListenerRegistration>(
+							listenerRegistration));
+		}
+		return listenerRegistration;
+	}
+
+	/**
+	 * Returns the {@link ListenerRegistration} for the given {@code
+	 * eventSource}, which is shared by all instances of its class unless the
+	 * receiver resolves the methods itself.
+	 * 
+	 * @param eventSource
+	 *            an observed value
+	 * @return the {@link ListenerRegistration} for the given {@code
+	 *         eventSource}
+	 * @throws NoSuchMethodException
+	 *             if the methods cannot be resolved
+	 */
+	protected ListenerRegistration listenerRegistrationFor(Object eventSource)
+			throws NoSuchMethodException {
+		if (!customEventListenerMethods) {
+			return PropertyAdapter.listenerRegistrationFor(eventSource
+					.getClass());
+		}
+		return new MethodListenerRegistration(getEventListenerMethod(
+				eventSource, "addPropertyChangeListener", String.class, //$NON-NLS-1$
+				PropertyChangeListener.class), getEventListenerMethod(
+				eventSource, "removePropertyChangeListener", String.class, //$NON-NLS-1$
+				PropertyChangeListener.class));
+	}
+
+	private static ListenerRegistration createListenerRegistrationFor(
+			Class<?> sourceClass) {
+		if (IBeanModel.class.isAssignableFrom(sourceClass)) {
+			return ListenerRegistration.BEAN_MODEL;
+		}
+		try {
+			Method addMethod = sourceClass.getMethod(
+					"addPropertyChangeListener", String.class, //$NON-NLS-1$
+					PropertyChangeListener.class);
+			Method removeMethod = sourceClass.getMethod(
+					"removePropertyChangeListener", String.class, //$NON-NLS-1$
+					PropertyChangeListener.class);
+			addMethod.setAccessible(true);
+			removeMethod.setAccessible(true);
+			return new MethodListenerRegistration(addMethod, removeMethod);
+		} catch (NoSuchMethodException ex) {
+			return new UnsupportedListenerRegistration(ex);
+		} catch (SecurityException ex) {
+			return new UnsupportedListenerRegistration(ex);
+		}
+	}
+
+	/**
+	 * Returns the listener the receiver registers with the observed values,
+	 * which is the receiver itself or a {@link WeakPropertyChangeListener}
+	 * referencing it.
+	 */
+	protected PropertyChangeListener eventListener() {
+		if (eventListener == null
+				|| (eventListener == this) == isWeakListeners()) {
+			if (isWeakListeners()) {
+				eventListener = new WeakEventListener(this, propertyDescriptor
+						.getPropertyName());
+			} else {
+				eventListener = this;
+			}
+		}
+		return eventListener;
+	}
+
 	protected Method getEventListenerMethod(Object eventSource,
 			String methodName, Class<?>... parameterTypes)
 			throws NoSuchMethodException {
@@ -119,11 +256,9 @@ public class PropertyAdapter extends PropertyModel implements
 		super.addPropertyChangeListenerTo(eventSource);
 		if (eventSource != null) {
 			try {
-				Method addEventListenerMethod = getEventListenerMethod(
-						eventSource, "addPropertyChangeListener", String.class, //$NON-NLS-1$
-						PropertyChangeListener.class);
-				addEventListenerMethod.invoke(eventSource, propertyDescriptor
-						.getPropertyName(), this);
+				listenerRegistrationFor(eventSource).addPropertyChangeListener(
+						eventSource, propertyDescriptor.getPropertyName(),
+						eventListener());
 			} catch (InvocationTargetException ex) {
 				handleCannotAddEventListener(eventSource, ex.getCause());
 			} catch (Exception ex) {
@@ -159,12 +294,11 @@ public class PropertyAdapter extends PropertyModel implements
 	protected void removePropertyChangeListenerFrom(Object eventSource) {
 		if (eventSource != null) {
 			try {
-				Method removeEventListenerMethod = getEventListenerMethod(
-						eventSource,
-						"removePropertyChangeListener", String.class, //$NON-NLS-1$
-						PropertyChangeListener.class);
-				removeEventListenerMethod.invoke(eventSource,
-						propertyDescriptor.getPropertyName(), this);
+				listenerRegistrationFor(eventSource)
+						.removePropertyChangeListener(
+								eventSource,
+								propertyDescriptor.getPropertyName(),
+								eventListener != null ? eventListener : this);
 			} catch (InvocationTargetException ex) {
 				handleCannotRemoveEventListener(eventSource, ex.getCause());
 			} catch (Exception ex) {
@@ -228,4 +362,129 @@ public class PropertyAdapter extends PropertyModel implements
 		super.valueChanged(oldValue, newValue);
 	}
 
+	/**
+	 * {@code ListenerRegistration} adds and removes named
+	 * {@link PropertyChangeListener}s to and from the instances of one class.
+	 */
+	protected abstract static class ListenerRegistration {
+
+		static final ListenerRegistration BEAN_MODEL = new ListenerRegistration() {
+
+			@Override
+			public void addPropertyChangeListener(Object eventSource,
+					String propertyName,
+					PropertyChangeListener propertyChangeListener) {
+				((IBeanModel) eventSource).addPropertyChangeListener(
+						propertyName, propertyChangeListener);
+			}
+
+			@Override
+			public void removePropertyChangeListener(Object eventSource,
+					String propertyName,
+					PropertyChangeListener propertyChangeListener) {
+				((IBeanModel) eventSource).removePropertyChangeListener(
+						propertyName, propertyChangeListener);
+			}
+		};
+
+		/**
+		 * Registers the given {@code propertyChangeListener} with the given
+		 * {@code eventSource}.
+		 */
+		public abstract void addPropertyChangeListener(Object eventSource,
+				String propertyName,
+				PropertyChangeListener propertyChangeListener) throws Exception;
+
+		/**
+		 * Unregisters the given {@code propertyChangeListener} from the given
+		 * {@code eventSource}.
+		 */
+		public abstract void removePropertyChangeListener(Object eventSource,
+				String propertyName,
+				PropertyChangeListener propertyChangeListener) throws Exception;
+
+	}
+
+	private static final class MethodListenerRegistration extends
+			ListenerRegistration {
+
+		private final Method addMethod;
+
+		private final Method removeMethod;
+
+		MethodListenerRegistration(Method addMethod, Method removeMethod) {
+			super();
+			this.addMethod = addMethod;
+			this.removeMethod = removeMethod;
+		}
+
+		@Override
+		public void addPropertyChangeListener(Object eventSource,
+				String propertyName,
+				PropertyChangeListener propertyChangeListener) throws Exception {
+			this.addMethod.invoke(eventSource, propertyName,
+					propertyChangeListener);
+		}
+
+		@Override
+		public void removePropertyChangeListener(Object eventSource,
+				String propertyName,
+				PropertyChangeListener propertyChangeListener) throws Exception {
+			this.removeMethod.invoke(eventSource, propertyName,
+					propertyChangeListener);
+		}
+
+	}
+
+	/**
+	 * {@code WeakEventListener} references a {@code PropertyAdapter} weakly
+	 * and unregisters itself from observed values of any class.
+	 */
+	private static final class WeakEventListener extends
+			WeakPropertyChangeListener {
+
+		WeakEventListener(PropertyAdapter propertyAdapter, String propertyName) {
+			super(propertyAdapter, propertyName);
+		}
+
+		@Override
+		protected void purgeFrom(Object eventSource) {
+			try {
+				PropertyAdapter.listenerRegistrationFor(eventSource.getClass())
+						.removePropertyChangeListener(eventSource,
+								getPropertyName(), this);
+			} catch (Exception ex) {
+				// added through the methods resolved by a subclass, or not at
+				// all
+			}
+		}
+
+	}
+
+	private static final class UnsupportedListenerRegistration extends
+			ListenerRegistration {
+
+		private final Exception exception;
+
+		UnsupportedListenerRegistration(Exception exception) {
+			super();
+			this.exception = exception;
+		}
+
+		@Override
+		public void addPropertyChangeListener(Object eventSource,
+				String propertyName,
+				PropertyChangeListener propertyChangeListener) throws Exception {
+			throw this.exception;
+		}
+
+		@Override
+		public void removePropertyChangeListener(Object eventSource,
+				String propertyName,
+				PropertyChangeListener propertyChangeListener) throws Exception {
+			throw this.exception;
+		}
+
+	}
+
 }
@@ -0,0 +1,203 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.observable.object;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.jmetis.kernel.assertion.Assertions;
+
+/**
+ * {@code PropertyChangeCoalescer} defers the delivery of value changes of the
+ * {@link PropertyModel}s it is assigned to. Changes are queued per model,
+ * keeping the first old and the last new value, and delivered when the
+ * receiver is flushed, so a model written many times between two flushes
+ * notifies its listeners at most once. Changes which end up at the original
+ * value are dropped.
+ * <p>
+ * The receiver is flushed explicitly by {@link #flush()}, on an
+ * {@link Executor} as soon as a change is queued, or periodically by a
+ * {@link ScheduledExecutorService}. Changes may be queued from any thread;
+ * listeners are notified on the flushing thread. An exception thrown by a
+ * listener during a flush on an executor or scheduler is reported to the
+ * {@link Thread.UncaughtExceptionHandler} of the flushing thread, so that
+ * later flushes still take place.
+ * 
+ * @author aerlach
+ */
+public class PropertyChangeCoalescer {
+
+	private final Executor executor;
+
+	private final Runnable flushTask;
+
+	private ScheduledFuture<?> scheduledFlush;
+
+	private Map<PropertyModel, Object[]> pendingChanges;
+
+	private boolean flushRequested;
+
+	/**
+	 * Constructs a new {@code PropertyChangeCoalescer} instance which is
+	 * flushed by calling {@link #flush()}.
+	 */
+	public PropertyChangeCoalescer() {
+		this((Executor) null);
+	}
+
+	/**
+	 * Constructs a new {@code PropertyChangeCoalescer} instance which flushes
+	 * on the given {@code executor} whenever a change is queued and no flush
+	 * is pending yet.
+	 * 
+	 * @param executor
+	 *            the {@link Executor} to flush on, or {@code null} to flush
+	 *            by calling {@link #flush()} only
+	 */
+	public PropertyChangeCoalescer(Executor executor) {
+		super();
+		this.executor = executor;
+		this.pendingChanges = new LinkedHashMap<PropertyModel, Object[]>();
+		this.flushTask = new Runnable() {
+
+			public void run() {
+				try {
+					PropertyChangeCoalescer.this.flush();
+				} catch (RuntimeException ex) {
+					Thread thread = Thread.currentThread();
+					thread.getUncaughtExceptionHandler().uncaughtException(
+							thread, ex);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Constructs a new {@code PropertyChangeCoalescer} instance which flushes
+	 * every {@code interval} on the given {@code scheduler} until it is
+	 * closed.
+	 * 
+	 * @param scheduler
+	 *            the {@link ScheduledExecutorService} to flush on
+	 * @param interval
+	 *            the time between two flushes
+	 * @param unit
+	 *            the {@link TimeUnit} of the {@code interval}
+	 */
+	public PropertyChangeCoalescer(ScheduledExecutorService scheduler,
+			long interval, TimeUnit unit) {
+		this((Executor) null);
+		this.scheduledFlush = Assertions.mustNotBeNull("scheduler", scheduler) //$NON-NLS-1$
+				.scheduleWithFixedDelay(this.flushTask, interval, interval,
+						unit);
+	}
+
+	/**
+	 * Queues a change of the value of the given {@code propertyModel}.
+	 * 
+	 * @param propertyModel
+	 *            the {@link PropertyModel} whose value has changed
+	 * @param oldValue
+	 *            the old value
+	 * @param newValue
+	 *            the new value
+	 */
+	protected void propertyChanged(PropertyModel propertyModel,
+			Object oldValue, Object newValue) {
+		boolean requestFlush = false;
+		synchronized (this) {
+			Object[] values = this.pendingChanges.get(propertyModel);
+			if (values == null) {
+				this.pendingChanges.put(propertyModel, new Object[] {
+						oldValue, newValue });
+			} else {
+				values[1] = newValue;
+			}
+			if (this.executor != null && !this.flushRequested) {
+				this.flushRequested = requestFlush = true;
+			}
+		}
+		if (requestFlush) {
+			this.executor.execute(this.flushTask);
+		}
+	}
+
+	/**
+	 * Returns the number of models with queued changes.
+	 * 
+	 * @return the number of models with queued changes
+	 */
+	public synchronized int getPendingChangeCount() {
+		return this.pendingChanges.size();
+	}
+
+	/**
+	 * Delivers all queued changes on the calling thread.
+	 * 
+	 * @throws RuntimeException
+	 *             the first exception thrown by a listener, after all changes
+	 *             have been delivered
+	 */
+	public void flush() {
+		Map<PropertyModel, Object[]> pendingChanges;
+		synchronized (this) {
+			this.flushRequested = false;
+			if (this.pendingChanges.isEmpty()) {
+				return;
+			}
+			pendingChanges = this.pendingChanges;
+			this.pendingChanges = new LinkedHashMap<PropertyModel, Object[]>();
+		}
+		RuntimeException failure = null;
+		for (Map.Entry<PropertyModel, Object[]> entry : pendingChanges
+				.entrySet()) {
+			Object[] values = entry.getValue();
+			if (values[0] != values[1]
+					&& (values[0] == null || !values[0].equals(values[1]))) {
+				try {
+					entry.getKey().deliverPropertyChangeEvent(values[0],
+							values[1]);
+				} catch (RuntimeException ex) {
+					if (failure == null) {
+						failure = ex;
+					}
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Stops flushing periodically and delivers all queued changes on the
+	 * calling thread.
+	 */
+	public void close() {
+		ScheduledFuture<?> scheduledFlush;
+		synchronized (this) {
+			scheduledFlush = this.scheduledFlush;
+			this.scheduledFlush = null;
+		}
+		if (scheduledFlush != null) {
+			scheduledFlush.cancel(false);
+		}
+		this.flush();
+	}
+
+}
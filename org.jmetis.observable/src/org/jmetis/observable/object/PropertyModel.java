@@ -24,9 +24,13 @@ import org.jmetis.kernel.assertion.Assertions;
 import org.jmetis.kernel.metadata.IClassDescription;
 import org.jmetis.kernel.metadata.IPropertyDescription;
 import org.jmetis.observable.IPropertyModel;
+import org.jmetis.observable.internal.WeakPropertyChangeListener;
 
 /**
  * {@code PropertyModel}
+ * <p>
+ * The first nested property adapter is kept in a field of its own, and a map
+ * is only allocated for the adapters of further properties.
  * 
  * @author aerlach
  */
@@ -34,9 +38,15 @@ public abstract class PropertyModel implements IPropertyModel {
 
 	protected static final Class<?>[] EMPTY_CLASS_ARRAY = {};
 
+	private PropertyAdapter firstPropertyAdapter;
+
 	private Map<String, PropertyAdapter> propertyAdapters;
 
-	private PropertyChangeListener[] propertyChangeListeners;
+	private volatile PropertyChangeListener[] propertyChangeListeners;
+
+	private volatile PropertyChangeCoalescer propertyChangeCoalescer;
+
+	private boolean weakListeners;
 
 	/**
 	 * Constructs a new {@code PropertyModel} instance.
@@ -99,22 +109,103 @@ public abstract class PropertyModel implements IPropertyModel {
 	 * org.jmetis.observable.IPropertyModel#getPropertyNamed(java.lang.String)
 	 */
 	public final IPropertyModel getPropertyNamed(String propertyName) {
-		PropertyAdapter propertyAdapter;
-		if (propertyAdapters != null) {
-			propertyAdapter = propertyAdapters.get(propertyName);
-			if (propertyAdapter != null) {
+		PropertyAdapter propertyAdapter = firstPropertyAdapter;
+		if (propertyAdapter != null) {
+			if (propertyAdapter.getPropertyDescriptor().getPropertyName()
+					.equals(propertyName)) {
 				return propertyAdapter;
 			}
-		} else {
-			propertyAdapters = new HashMap<String, PropertyAdapter>();
+			if (propertyAdapters != null) {
+				propertyAdapter = propertyAdapters.get(propertyName);
+				if (propertyAdapter != null) {
+					return propertyAdapter;
+				}
+			}
 		}
 		propertyAdapter = createPropertyAdapterFor(Assertions.mustNotBeNull(
 				"propertyDescriptor", getClassDescriptor()
 						.getPropertyDescriptorNamed(propertyName)));
-		propertyAdapters.put(propertyName, propertyAdapter);
+		propertyAdapter.setPropertyChangeCoalescer(propertyChangeCoalescer);
+		propertyAdapter.setWeakListeners(weakListeners);
+		if (firstPropertyAdapter == null) {
+			firstPropertyAdapter = propertyAdapter;
+		} else {
+			if (propertyAdapters == null) {
+				propertyAdapters = new HashMap<String, PropertyAdapter>();
+			}
+			propertyAdapters.put(propertyName, propertyAdapter);
+		}
 		return propertyAdapter;
 	}
 
+	/**
+	 * Returns the {@link PropertyChangeCoalescer} which defers the
+	 * notification of the receiver's listeners.
+	 * 
+	 * @return the {@link PropertyChangeCoalescer} of the receiver, or {@code
+	 *         null} if listeners are notified immediately
+	 */
+	public PropertyChangeCoalescer getPropertyChangeCoalescer() {
+		return propertyChangeCoalescer;
+	}
+
+	/**
+	 * Sets the {@link PropertyChangeCoalescer} which defers the notification
+	 * of the listeners of the receiver and of all its nested properties.
+	 * 
+	 * @param propertyChangeCoalescer
+	 *            the {@link PropertyChangeCoalescer} to use, or {@code null}
+	 *            to notify listeners immediately
+	 */
+	public void setPropertyChangeCoalescer(
+			PropertyChangeCoalescer propertyChangeCoalescer) {
+		this.propertyChangeCoalescer = propertyChangeCoalescer;
+		if (firstPropertyAdapter != null) {
+			firstPropertyAdapter
+					.setPropertyChangeCoalescer(propertyChangeCoalescer);
+			if (propertyAdapters != null) {
+				for (PropertyAdapter propertyAdapter : propertyAdapters
+						.values()) {
+					propertyAdapter
+							.setPropertyChangeCoalescer(propertyChangeCoalescer);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns {@code true} if listeners are referenced weakly.
+	 * 
+	 * @return {@code true} if listeners are referenced weakly
+	 */
+	public boolean isWeakListeners() {
+		return weakListeners;
+	}
+
+	/**
+	 * Sets whether the listeners of the receiver and of all its nested
+	 * properties are referenced weakly. Listeners which have been garbage
+	 * collected are unregistered when the next change is fired, and nested
+	 * properties register themselves weakly with the observed values, so
+	 * they can be collected without being removed explicitly. The mode
+	 * should be set before listeners are added.
+	 * 
+	 * @param weakListeners
+	 *            {@code true} to reference listeners weakly
+	 */
+	public void setWeakListeners(boolean weakListeners) {
+		this.weakListeners = weakListeners;
+		if (firstPropertyAdapter != null) {
+			firstPropertyAdapter.setWeakListeners(weakListeners);
+			if (propertyAdapters != null) {
+				for (PropertyAdapter propertyAdapter : propertyAdapters
+						.values()) {
+					propertyAdapter.setWeakListeners(weakListeners);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Registers the {@code PropertyModel} with the given {@code eventSource}.
 	 * 
@@ -134,6 +225,10 @@ public abstract class PropertyModel implements IPropertyModel {
 	public void addPropertyChangeListener(
 			PropertyChangeListener propertyChangeListener) {
 		if (propertyChangeListener != null) {
+			if (weakListeners) {
+				propertyChangeListener = WeakPropertyChangeListener
+						.weakListenerFor(propertyChangeListener, null);
+			}
 			if (propertyChangeListeners == null) {
 				propertyChangeListeners = new PropertyChangeListener[] { propertyChangeListener };
 				addPropertyChangeListenerTo(getValue());
@@ -164,13 +259,25 @@ public abstract class PropertyModel implements IPropertyModel {
 	}
 
 	protected void firePropertyChangeEvent(Object oldValue, Object newValue) {
+		if (propertyChangeListeners != null) {
+			PropertyChangeCoalescer propertyChangeCoalescer = this.propertyChangeCoalescer;
+			if (propertyChangeCoalescer != null) {
+				propertyChangeCoalescer.propertyChanged(this, oldValue,
+						newValue);
+			} else {
+				deliverPropertyChangeEvent(oldValue, newValue);
+			}
+		}
+	}
+
+	void deliverPropertyChangeEvent(Object oldValue, Object newValue) {
+		PropertyChangeListener[] propertyChangeListeners = this.propertyChangeListeners;
 		if (propertyChangeListeners != null) {
 			PropertyChangeEvent propertyChangeEvent = createPropertyChangeEvent(
 					oldValue, newValue);
 			for (PropertyChangeListener propertyChangeListener : propertyChangeListeners) {
 				propertyChangeListener.propertyChange(propertyChangeEvent);
 			}
-
 		}
 	}
 
@@ -192,7 +299,11 @@ public abstract class PropertyModel implements IPropertyModel {
 	 */
 	public void removePropertyChangeListener(
 			PropertyChangeListener propertyChangeListener) {
-		if (propertyChangeListener != null) {
+		if (propertyChangeListener != null && propertyChangeListeners != null) {
+			if (weakListeners) {
+				propertyChangeListener = WeakPropertyChangeListener
+						.weakListenerFor(propertyChangeListener, null);
+			}
 			if (propertyChangeListeners.length == 1) {
 				if (propertyChangeListeners[0].equals(propertyChangeListener)) {
 					propertyChangeListeners = null;
@@ -217,9 +328,13 @@ public abstract class PropertyModel implements IPropertyModel {
 	}
 
 	protected void valueChanged(Object oldValue, Object newValue) {
-		if (propertyAdapters != null) {
-			for (PropertyAdapter propertyAdapter : propertyAdapters.values()) {
-				propertyAdapter.valueChanged(oldValue, newValue);
+		if (firstPropertyAdapter != null) {
+			firstPropertyAdapter.valueChanged(oldValue, newValue);
+			if (propertyAdapters != null) {
+				for (PropertyAdapter propertyAdapter : propertyAdapters
+						.values()) {
+					propertyAdapter.valueChanged(oldValue, newValue);
+				}
 			}
 		}
 	}
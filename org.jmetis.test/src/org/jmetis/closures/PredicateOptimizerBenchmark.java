@@ -0,0 +1,158 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.closures;
+
+import java.util.Random;
+
+import org.jmetis.closures.composite.PredicateOptimizer;
+import org.jmetis.closures.composite.UnaryAndPredicate;
+import org.jmetis.closures.core.ITotalPredicate;
+import org.jmetis.closures.core.TruePredicate;
+import org.jmetis.closures.core.UnaryPredicate;
+import org.jmetis.closures.decorator.UnaryNotPredicate;
+import org.jmetis.collections.iterable.ArrayedList;
+import org.jmetis.kernel.closure.IUnaryPredicate;
+import org.jmetis.test.BenchmarkReport;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@code PredicateOptimizerBenchmark} compares {@link ArrayedList#select}
+ * with a filter chain as built from nested {@code and()} and {@code not()}
+ * calls, the same chain optimized and optimized adaptively.
+ * 
+ * @author era
+ */
+public class PredicateOptimizerBenchmark {
+
+	private static final int ELEMENT_COUNT = 2000000;
+
+	private static final int ROUNDS = 10;
+
+	/**
+	 * Constructs a new {@code PredicateOptimizerBenchmark} instance.
+	 */
+	public PredicateOptimizerBenchmark() {
+		super();
+	}
+
+	@Before
+	public void assumeEnabled() {
+		BenchmarkReport.assumeEnabled();
+	}
+
+	protected long measure(String name, ArrayedList<Integer> elements,
+			IUnaryPredicate<Integer> predicate, int expected) {
+		long start = System.nanoTime();
+		for (int round = 0; round < PredicateOptimizerBenchmark.ROUNDS; round++) {
+			Assert.assertEquals(expected, elements.select(predicate).size());
+		}
+		long time = System.nanoTime() - start;
+		BenchmarkReport.report("%s: %,.1f ns per element", //$NON-NLS-1$
+				name, (double) time / PredicateOptimizerBenchmark.ROUNDS
+						/ PredicateOptimizerBenchmark.ELEMENT_COUNT);
+		return time;
+	}
+
+	@Test
+	public void benchmarkSelect() throws Exception {
+		Random random = new Random(43);
+		ArrayedList<Integer> elements = new ArrayedList<Integer>(
+				PredicateOptimizerBenchmark.ELEMENT_COUNT);
+		for (int i = 0; i < PredicateOptimizerBenchmark.ELEMENT_COUNT; i++) {
+			elements.add(Integer.valueOf(random.nextInt(1 << 20)));
+		}
+		IsLessPredicate inRange = new IsLessPredicate(1 << 20);
+		IsMultiplePredicate notSeventh = new IsMultiplePredicate(7);
+		IUnaryPredicate<Integer> always = TruePredicate.getInstance();
+		// the selective component comes last, as it often does when filters
+		// are added one by one
+		IUnaryPredicate<Integer> chain = new UnaryAndPredicate<Integer>(
+				new UnaryAndPredicate<Integer>(new UnaryAndPredicate<Integer>(
+						inRange.and(notSeventh.not()), always),
+						new UnaryNotPredicate<Integer>(inRange.not())),
+				new UnaryAndPredicate<Integer>(new IsLessPredicate(1 << 20)
+						.and(always), new IsLessPredicate(1 << 10)));
+		int expected = 0;
+		for (Integer element : elements) {
+			if (chain.evaluate(element)) {
+				expected++;
+			}
+		}
+		for (int round = 0; round < 2; round++) {
+			long chainTime = measure("nested chain", elements, chain, //$NON-NLS-1$
+					expected);
+			measure("optimized", elements, PredicateOptimizer.optimize(chain), //$NON-NLS-1$
+					expected);
+			long adaptiveTime = measure("optimized adaptively", elements, //$NON-NLS-1$
+					PredicateOptimizer.optimize(chain, true), expected);
+			if (round == 1) {
+				Assert.assertTrue(adaptiveTime < chainTime);
+			}
+		}
+	}
+
+	/**
+	 * {@code IsLessPredicate} returns {@code true} for arguments less than its
+	 * bound.
+	 */
+	static class IsLessPredicate extends UnaryPredicate<Integer> implements
+			ITotalPredicate {
+
+		private final int bound;
+
+		IsLessPredicate(int bound) {
+			super();
+			this.bound = bound;
+		}
+
+		public boolean evaluate(Integer argument) {
+			return argument.intValue() < this.bound;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			return object instanceof IsLessPredicate
+					&& ((IsLessPredicate) object).bound == this.bound;
+		}
+
+		@Override
+		public int hashCode() {
+			return this.bound;
+		}
+
+	}
+
+	/**
+	 * {@code IsMultiplePredicate} returns {@code true} for the multiples of
+	 * its divisor.
+	 */
+	static class IsMultiplePredicate extends UnaryPredicate<Integer>
+			implements ITotalPredicate {
+
+		private final int divisor;
+
+		IsMultiplePredicate(int divisor) {
+			super();
+			this.divisor = divisor;
+		}
+
+		public boolean evaluate(Integer argument) {
+			return argument.intValue() % this.divisor == 0;
+		}
+
+	}
+
+}
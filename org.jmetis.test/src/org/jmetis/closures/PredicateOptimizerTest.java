@@ -0,0 +1,309 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.closures;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.jmetis.closures.composite.AdaptiveUnaryAllPredicate;
+import org.jmetis.closures.composite.AdaptiveUnaryAnyPredicate;
+import org.jmetis.closures.composite.BinaryAllPredicate;
+import org.jmetis.closures.composite.BinaryAndPredicate;
+import org.jmetis.closures.composite.PredicateOptimizer;
+import org.jmetis.closures.composite.TernaryAllPredicate;
+import org.jmetis.closures.composite.TernaryAnyPredicate;
+import org.jmetis.closures.composite.UnaryAllPredicate;
+import org.jmetis.closures.composite.UnaryAndPredicate;
+import org.jmetis.closures.composite.UnaryAnyPredicate;
+import org.jmetis.closures.composite.UnaryNonePredicate;
+import org.jmetis.closures.composite.UnaryOrPredicate;
+import org.jmetis.closures.core.FalsePredicate;
+import org.jmetis.closures.core.ITotalPredicate;
+import org.jmetis.closures.core.IsNotNullPredicate;
+import org.jmetis.closures.core.TruePredicate;
+import org.jmetis.closures.core.UnaryPredicate;
+import org.jmetis.closures.decorator.UnaryNotPredicate;
+import org.jmetis.kernel.closure.IBinaryPredicate;
+import org.jmetis.kernel.closure.ITernaryPredicate;
+import org.jmetis.kernel.closure.IUnaryPredicate;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * {@code PredicateOptimizerTest} checks the shape of optimized predicate trees
+ * and that they answer the same as the original ones.
+ * 
+ * @author era
+ */
+public class PredicateOptimizerTest {
+
+	private final IUnaryPredicate<Integer> truePredicate = TruePredicate
+			.getInstance();
+
+	private final IUnaryPredicate<Integer> falsePredicate = FalsePredicate
+			.getInstance();
+
+	/**
+	 * Constructs a new {@code PredicateOptimizerTest} instance.
+	 */
+	public PredicateOptimizerTest() {
+		super();
+	}
+
+	@Test
+	public void flattensNestedComposites() throws Exception {
+		IsMultiplePredicate p2 = new IsMultiplePredicate(2);
+		IsMultiplePredicate p3 = new IsMultiplePredicate(3);
+		IsMultiplePredicate p5 = new IsMultiplePredicate(5);
+		IsMultiplePredicate p7 = new IsMultiplePredicate(7);
+		IUnaryPredicate<Integer> optimized = PredicateOptimizer
+				.optimize(new UnaryOrPredicate<Integer>(
+						new UnaryAndPredicate<Integer>(p2.and(p3), p5), p7
+								.or(p3.and(p5))));
+		Assert.assertTrue(optimized instanceof UnaryAnyPredicate);
+		IUnaryPredicate<? super Integer>[] components = ((UnaryAnyPredicate<Integer>) optimized)
+				.getComponents();
+		Assert.assertEquals(3, components.length);
+		Assert.assertTrue(components[0] instanceof UnaryAllPredicate);
+		Assert.assertEquals(Arrays.asList(p2, p3, p5), Arrays
+				.asList(((UnaryAllPredicate<?>) components[0])
+						.getComponents()));
+		Assert.assertSame(p7, components[1]);
+		Assert.assertTrue(components[2] instanceof UnaryAndPredicate);
+	}
+
+	@Test
+	public void dropsDuplicateAndConstantComponents() throws Exception {
+		IsMultiplePredicate p2 = new IsMultiplePredicate(2);
+		IsMultiplePredicate p3 = new IsMultiplePredicate(3);
+		IUnaryPredicate<Integer> optimized = PredicateOptimizer
+				.optimize(new UnaryAllPredicate<Integer>(p2,
+						this.truePredicate, new IsMultiplePredicate(2), p2
+								.and(p3)));
+		Assert.assertTrue(optimized instanceof UnaryAndPredicate);
+		Assert.assertSame(p2, ((UnaryAndPredicate<Integer>) optimized)
+				.getFirstPredicate());
+		Assert.assertSame(p3, ((UnaryAndPredicate<Integer>) optimized)
+				.getSecondPredicate());
+		Assert.assertSame(this.falsePredicate, PredicateOptimizer
+				.optimize(new UnaryAndPredicate<Integer>(p2.and(p3),
+						this.falsePredicate)));
+		Assert.assertSame(this.truePredicate, PredicateOptimizer
+				.optimize(p2.or(this.truePredicate)));
+		Assert.assertSame(p2, PredicateOptimizer.optimize(p2
+				.or(this.falsePredicate)));
+		Assert.assertSame(this.truePredicate, PredicateOptimizer
+				.optimize(new UnaryAllPredicate<Integer>()));
+		Assert.assertSame(this.falsePredicate, PredicateOptimizer
+				.optimize(new UnaryAnyPredicate<Integer>()));
+	}
+
+	@Test
+	public void simplifiesNegations() throws Exception {
+		IsMultiplePredicate p2 = new IsMultiplePredicate(2);
+		IsMultiplePredicate p3 = new IsMultiplePredicate(3);
+		Assert.assertSame(p2, PredicateOptimizer
+				.optimize(new UnaryNotPredicate<Integer>(p2.not())));
+		IUnaryPredicate<Integer> optimized = PredicateOptimizer
+				.optimize(new UnaryNotPredicate<Integer>(p2.or(p3)));
+		Assert.assertTrue(optimized instanceof UnaryNonePredicate);
+		Assert.assertTrue(PredicateOptimizer
+				.optimize(new UnaryNotPredicate<Integer>(optimized)) instanceof UnaryOrPredicate);
+		Assert.assertSame(this.falsePredicate, PredicateOptimizer
+				.optimize(new UnaryNonePredicate<Integer>(p2,
+						this.truePredicate)));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void optimizesBinaryAndTernaryComposites() throws Exception {
+		IBinaryPredicate<Integer, Integer> less = new IBinaryPredicate<Integer, Integer>() {
+
+			public boolean evaluate(Integer first, Integer second) {
+				return first.intValue() < second.intValue();
+			}
+		};
+		IBinaryPredicate<Integer, Integer> even = new IBinaryPredicate<Integer, Integer>() {
+
+			public boolean evaluate(Integer first, Integer second) {
+				return (first.intValue() + second.intValue()) % 2 == 0;
+			}
+		};
+		IBinaryPredicate<Integer, Integer> always = TruePredicate
+				.getInstance();
+		IBinaryPredicate<Integer, Integer> optimized = PredicateOptimizer
+				.optimize(new BinaryAndPredicate<Integer, Integer>(
+						new BinaryAllPredicate<Integer, Integer>(less, always),
+						new BinaryAndPredicate<Integer, Integer>(even, less)));
+		Assert.assertTrue(optimized instanceof BinaryAndPredicate);
+		Assert.assertTrue(optimized.evaluate(Integer.valueOf(1), Integer
+				.valueOf(3)));
+		Assert.assertFalse(optimized.evaluate(Integer.valueOf(1), Integer
+				.valueOf(2)));
+		ITernaryPredicate<Integer, Integer, Integer> sum = new ITernaryPredicate<Integer, Integer, Integer>() {
+
+			public boolean evaluate(Integer first, Integer second,
+					Integer third) {
+				return first.intValue() + second.intValue() == third
+						.intValue();
+			}
+		};
+		ITernaryPredicate<Integer, Integer, Integer> never = FalsePredicate
+				.getInstance();
+		Assert.assertSame(sum, PredicateOptimizer
+				.optimize(new TernaryAllPredicate<Integer, Integer, Integer>(
+						new TernaryAnyPredicate<Integer, Integer, Integer>(
+								never, sum), sum)));
+	}
+
+	@Test
+	public void optimizedPredicatesAnswerAsTheOriginal() throws Exception {
+		Random random = new Random(41);
+		for (int tree = 0; tree < 200; tree++) {
+			IUnaryPredicate<Integer> predicate = this.randomTree(random, 4);
+			IUnaryPredicate<Integer> optimized = PredicateOptimizer
+					.optimize(predicate);
+			IUnaryPredicate<Integer> adaptive = PredicateOptimizer.optimize(
+					predicate, true);
+			for (int i = 0; i < 3000; i++) {
+				Integer argument = Integer.valueOf(i);
+				boolean expected = predicate.evaluate(argument);
+				Assert.assertEquals(expected, optimized.evaluate(argument));
+				Assert.assertEquals(expected, adaptive.evaluate(argument));
+			}
+		}
+	}
+
+	@Test
+	public void adaptiveCompositesEvaluateDecisiveComponentsFirst()
+			throws Exception {
+		IsMultiplePredicate p2 = new IsMultiplePredicate(2);
+		IsMultiplePredicate p97 = new IsMultiplePredicate(97);
+		AdaptiveUnaryAllPredicate<Integer> all = new AdaptiveUnaryAllPredicate<Integer>(
+				p2, p97);
+		AdaptiveUnaryAnyPredicate<Integer> any = new AdaptiveUnaryAnyPredicate<Integer>(
+				p97, p2);
+		for (int i = 0; i < 100000; i++) {
+			Integer argument = Integer.valueOf(i);
+			Assert.assertEquals(i % 194 == 0, all.evaluate(argument));
+			Assert.assertEquals(i % 2 == 0 || i % 97 == 0, any
+					.evaluate(argument));
+		}
+		Assert.assertSame(p97, all.getComponents()[0]);
+		Assert.assertSame(p2, any.getComponents()[0]);
+	}
+
+	@Test
+	public void adaptiveCompositesKeepGuardsAheadOfGuardedComponents()
+			throws Exception {
+		IUnaryPredicate<String> notNull = IsNotNullPredicate.getInstance();
+		IUnaryPredicate<String> longerThanThree = new UnaryPredicate<String>() {
+
+			public boolean evaluate(String argument) {
+				return argument.length() > 3;
+			}
+		};
+		IUnaryPredicate<String> all = PredicateOptimizer.optimize(
+				new UnaryAllPredicate<String>(notNull, longerThanThree), true);
+		IUnaryPredicate<String> any = PredicateOptimizer.optimize(
+				new UnaryAnyPredicate<String>(new UnaryNotPredicate<String>(
+						notNull), longerThanThree), true);
+		for (int i = 0; i < 100000; i++) {
+			String argument = i % 3 == 0 ? "abcd" : i % 3 == 1 ? "ab" : null;
+			Assert.assertEquals(argument != null && argument.length() > 3,
+					all.evaluate(argument));
+			Assert.assertEquals(argument == null || argument.length() > 3,
+					any.evaluate(argument));
+		}
+		Assert.assertSame(notNull, ((AdaptiveUnaryAllPredicate<String>) all)
+				.getComponents()[0]);
+	}
+
+	private IUnaryPredicate<Integer> randomTree(Random random, int depth) {
+		int kind = depth == 0 ? 0 : random.nextInt(8);
+		switch (kind) {
+		case 0:
+		case 1:
+			switch (random.nextInt(8)) {
+			case 0:
+				return this.truePredicate;
+			case 1:
+				return this.falsePredicate;
+			default:
+				return new IsMultiplePredicate(2 + random.nextInt(5));
+			}
+		case 2:
+			return new UnaryNotPredicate<Integer>(this.randomTree(random,
+					depth - 1));
+		case 3:
+			return new UnaryAndPredicate<Integer>(this.randomTree(random,
+					depth - 1), this.randomTree(random, depth - 1));
+		case 4:
+			return new UnaryOrPredicate<Integer>(this.randomTree(random,
+					depth - 1), this.randomTree(random, depth - 1));
+		default:
+			IUnaryPredicate<Integer>[] components = this.randomTrees(random,
+					depth - 1);
+			if (kind == 5) {
+				return new UnaryAllPredicate<Integer>(components);
+			}
+			if (kind == 6) {
+				return new UnaryAnyPredicate<Integer>(components);
+			}
+			return new UnaryNonePredicate<Integer>(components);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private IUnaryPredicate<Integer>[] randomTrees(Random random, int depth) {
+		IUnaryPredicate<Integer>[] trees = new IUnaryPredicate[random
+				.nextInt(4)];
+		for (int i = 0; i < trees.length; i++) {
+			trees[i] = this.randomTree(random, depth);
+		}
+		return trees;
+	}
+
+	/**
+	 * {@code IsMultiplePredicate} returns {@code true} for the multiples of
+	 * its divisor.
+	 */
+	static class IsMultiplePredicate extends UnaryPredicate<Integer>
+			implements ITotalPredicate {
+
+		private final int divisor;
+
+		IsMultiplePredicate(int divisor) {
+			super();
+			this.divisor = divisor;
+		}
+
+		public boolean evaluate(Integer argument) {
+			return argument.intValue() % this.divisor == 0;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			return object instanceof IsMultiplePredicate
+					&& ((IsMultiplePredicate) object).divisor == this.divisor;
+		}
+
+		@Override
+		public int hashCode() {
+			return this.divisor;
+		}
+
+	}
+
+}
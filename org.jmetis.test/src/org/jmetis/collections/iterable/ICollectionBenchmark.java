@@ -0,0 +1,130 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.collections.iterable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.jmetis.kernel.closure.IUnaryPredicate;
+import org.jmetis.test.BenchmarkReport;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@code ICollectionBenchmark} compares the bulk operations of
+ * {@link ArrayedList}, sequential and parallel, with hand-written loops over
+ * an {@link ArrayList}.
+ * 
+ * @author era
+ */
+public class ICollectionBenchmark {
+
+	private static final int ELEMENT_COUNT = 2000000;
+
+	private static final int ROUNDS = 10;
+
+	private static final IUnaryPredicate<Integer> PREDICATE = new IUnaryPredicate<Integer>() {
+
+		public boolean evaluate(Integer argument) {
+			int value = argument.intValue();
+			return (value ^ value >>> 7) % 3 == 0;
+		}
+	};
+
+	/**
+	 * Constructs a new {@code ICollectionBenchmark} instance.
+	 */
+	public ICollectionBenchmark() {
+		super();
+	}
+
+	@Before
+	public void assumeEnabled() {
+		BenchmarkReport.assumeEnabled();
+	}
+
+	protected long loop(List<Integer> elements) {
+		long start = System.nanoTime();
+		int checksum = 0;
+		for (int round = 0; round < ICollectionBenchmark.ROUNDS; round++) {
+			int count = 0;
+			for (Integer element : elements) {
+				if (ICollectionBenchmark.PREDICATE.evaluate(element)) {
+					count++;
+				}
+			}
+			List<Integer> selected = new ArrayList<Integer>();
+			for (Integer element : elements) {
+				if (ICollectionBenchmark.PREDICATE.evaluate(element)) {
+					selected.add(element);
+				}
+			}
+			checksum += count + selected.size();
+		}
+		Assert.assertTrue(checksum > 0);
+		return System.nanoTime() - start;
+	}
+
+	protected long bulk(ArrayedList<Integer> elements) {
+		long start = System.nanoTime();
+		int checksum = 0;
+		for (int round = 0; round < ICollectionBenchmark.ROUNDS; round++) {
+			checksum += elements.count(ICollectionBenchmark.PREDICATE)
+					+ elements.select(ICollectionBenchmark.PREDICATE).size();
+		}
+		Assert.assertTrue(checksum > 0);
+		return System.nanoTime() - start;
+	}
+
+	@Test
+	public void benchmarkBulkOperations() throws Exception {
+		Random random = new Random(13);
+		ArrayedList<Integer> elements = new ArrayedList<Integer>(
+				ICollectionBenchmark.ELEMENT_COUNT);
+		for (int i = 0; i < ICollectionBenchmark.ELEMENT_COUNT; i++) {
+			elements.add(Integer.valueOf(random.nextInt()));
+		}
+		List<Integer> arrayList = new ArrayList<Integer>(elements);
+		ExecutorService executorService = Executors.newCachedThreadPool();
+		try {
+			ParallelEvaluator parallelEvaluator = new ParallelEvaluator(
+					executorService);
+			for (int warmUp = 0; warmUp < 2; warmUp++) {
+				loop(arrayList);
+				bulk(elements);
+				elements.setParallelEvaluator(parallelEvaluator);
+				bulk(elements);
+				elements.setParallelEvaluator(null);
+			}
+			long loopTime = loop(arrayList);
+			long sequentialTime = bulk(elements);
+			elements.setParallelEvaluator(parallelEvaluator);
+			long parallelTime = bulk(elements);
+			BenchmarkReport.report(
+					"%,d elements, count and select: loop %,.1f ms, sequential %,.1f ms, parallel on %d threads %,.1f ms", //$NON-NLS-1$
+					ICollectionBenchmark.ELEMENT_COUNT, loopTime / 1e6
+							/ ICollectionBenchmark.ROUNDS, sequentialTime
+							/ 1e6 / ICollectionBenchmark.ROUNDS,
+					parallelEvaluator.getParallelism(), parallelTime / 1e6
+							/ ICollectionBenchmark.ROUNDS);
+		} finally {
+			executorService.shutdown();
+		}
+	}
+
+}
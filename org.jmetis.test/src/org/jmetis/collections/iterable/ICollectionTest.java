@@ -0,0 +1,248 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.collections.iterable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.jmetis.kernel.closure.IUnaryFunction;
+import org.jmetis.kernel.closure.IUnaryPredicate;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * {@code ICollectionTest} compares the bulk operations of the
+ * {@link ICollection} implementations, sequential and parallel, with plain
+ * loops over the same elements.
+ * 
+ * @author era
+ */
+public class ICollectionTest {
+
+	private static final IUnaryPredicate<Integer> EVEN_PREDICATE = new IUnaryPredicate<Integer>() {
+
+		public boolean evaluate(Integer argument) {
+			return argument.intValue() % 2 == 0;
+		}
+	};
+
+	/**
+	 * Constructs a new {@code ICollectionTest} instance.
+	 */
+	public ICollectionTest() {
+		super();
+	}
+
+	private static IUnaryPredicate<Integer> greaterThan(final int value) {
+		return new IUnaryPredicate<Integer>() {
+
+			public boolean evaluate(Integer argument) {
+				return argument.intValue() > value;
+			}
+		};
+	}
+
+	private static void assertContentEquals(List<Integer> expected,
+			Collection<Integer> actual, boolean ordered) {
+		if (ordered) {
+			Assert.assertEquals(expected, new ArrayList<Integer>(actual));
+		} else {
+			Assert.assertEquals(expected.size(), actual.size());
+			Assert.assertEquals(new HashSet<Integer>(expected),
+					new HashSet<Integer>(actual));
+		}
+	}
+
+	protected void validateBulkOperations(ICollection<Integer> collection,
+			List<Integer> elements, boolean ordered) {
+		List<Integer> even = new ArrayList<Integer>();
+		List<Integer> odd = new ArrayList<Integer>();
+		List<Integer> squares = new ArrayList<Integer>();
+		long sum = 0;
+		int max = Integer.MIN_VALUE;
+		for (Integer element : elements) {
+			(element.intValue() % 2 == 0 ? even : odd).add(element);
+			squares.add(Integer.valueOf(element.intValue() * element.intValue()));
+			sum += element.intValue();
+			max = Math.max(max, element.intValue());
+		}
+		assertContentEquals(even, collection
+				.select(ICollectionTest.EVEN_PREDICATE), ordered);
+		assertContentEquals(odd, collection
+				.reject(ICollectionTest.EVEN_PREDICATE), ordered);
+		Assert.assertEquals(even.size(), collection
+				.count(ICollectionTest.EVEN_PREDICATE));
+		assertContentEquals(squares, collection
+				.collect(new IUnaryFunction<Integer, Integer>() {
+
+					public Integer evaluate(Integer argument) {
+						return Integer.valueOf(argument.intValue()
+								* argument.intValue());
+					}
+				}), ordered);
+		Assert.assertEquals(Long.valueOf(sum), collection.injectInto(Long
+				.valueOf(0), new TwoArgumentObjectStrategy() {
+
+			public Object execute(Object argument1, Object argument2) {
+				return Long.valueOf(((Long) argument1).longValue()
+						+ ((Integer) argument2).intValue());
+			}
+		}));
+		Assert.assertTrue(collection.anySatisfy(greaterThan(max - 1)));
+		Assert.assertFalse(collection.anySatisfy(greaterThan(max)));
+		Assert.assertTrue(collection.noneSatisfy(greaterThan(max)));
+		Assert.assertTrue(collection.allSatisfy(greaterThan(Integer.MIN_VALUE)));
+		Assert.assertFalse(collection.allSatisfy(greaterThan(max - 1)));
+		Integer detected = null;
+		for (Integer element : elements) {
+			if (element.intValue() > max - 100) {
+				detected = element;
+				break;
+			}
+		}
+		if (ordered) {
+			Assert.assertEquals(detected, collection
+					.detect(greaterThan(max - 100)));
+		} else {
+			Assert.assertTrue(collection.detect(greaterThan(max - 100))
+					.intValue() > max - 100);
+		}
+		Assert.assertEquals(Integer.valueOf(-1), collection.detect(
+				greaterThan(max), Integer.valueOf(-1)));
+		Map<Integer, ICollection<Integer>> groups = collection.groupByIntegerHaving(
+				new OneArgumentIntegerStrategy() {
+
+					public int execute(Object argument) {
+						return ((Integer) argument).intValue() % 3;
+					}
+				}, ICollectionTest.EVEN_PREDICATE);
+		for (int key = 0; key < 3; key++) {
+			List<Integer> group = new ArrayList<Integer>();
+			for (Integer element : even) {
+				if (element.intValue() % 3 == key) {
+					group.add(element);
+				}
+			}
+			ICollection<Integer> actual = groups.get(Integer.valueOf(key));
+			assertContentEquals(group,
+					actual == null ? new ArrayList<Integer>() : actual, ordered);
+		}
+	}
+
+	@Test
+	public void validateArrayedList() throws Exception {
+		Random random = new Random(3);
+		List<Integer> elements = new ArrayList<Integer>();
+		for (int i = 0; i < 100000; i++) {
+			elements.add(Integer.valueOf(random.nextInt(1000000)));
+		}
+		ArrayedList<Integer> list = new ArrayedList<Integer>(elements);
+		Assert.assertEquals(elements, list);
+		validateBulkOperations(list, elements, true);
+		ExecutorService executorService = Executors.newFixedThreadPool(3);
+		try {
+			list.setParallelEvaluator(new ParallelEvaluator(executorService,
+					1000, 4));
+			validateBulkOperations(list, elements, true);
+			list.setParallelEvaluator(new ParallelEvaluator(executorService,
+					1000, 64));
+			validateBulkOperations(list, elements, true);
+		} finally {
+			executorService.shutdown();
+		}
+	}
+
+	@Test
+	public void validateHashedSet() throws Exception {
+		Random random = new Random(5);
+		HashedSet<Integer> set = new HashedSet<Integer>();
+		for (int i = 0; i < 100000; i++) {
+			set.add(Integer.valueOf(random.nextInt(1000000)));
+		}
+		List<Integer> elements = new ArrayList<Integer>(set);
+		validateBulkOperations(set, elements, false);
+		ExecutorService executorService = Executors.newFixedThreadPool(3);
+		try {
+			set.setParallelEvaluator(new ParallelEvaluator(executorService,
+					1000, 4));
+			validateBulkOperations(set, elements, false);
+		} finally {
+			executorService.shutdown();
+		}
+	}
+
+	@Test
+	public void validateHashedSetChanges() throws Exception {
+		Random random = new Random(11);
+		HashSet<Integer> expected = new HashSet<Integer>();
+		HashedSet<Integer> set = new HashedSet<Integer>();
+		for (int step = 0; step < 200; step++) {
+			for (int i = 0; i < 50; i++) {
+				Integer element = Integer.valueOf(random.nextInt(300));
+				Assert.assertEquals(expected.add(element), set.add(element));
+				element = Integer.valueOf(random.nextInt(300));
+				Assert.assertEquals(expected.remove(element), set
+						.remove(element));
+			}
+			HashSet<Integer> elements = new HashSet<Integer>(expected);
+			HashSet<Integer> visited = new HashSet<Integer>();
+			for (Iterator<Integer> iterator = set.iterator(); iterator
+					.hasNext();) {
+				Integer element = iterator.next();
+				Assert.assertTrue(visited.add(element));
+				if (random.nextInt(4) == 0) {
+					iterator.remove();
+					expected.remove(element);
+				}
+			}
+			Assert.assertEquals(elements, visited);
+			Assert.assertEquals(expected, set);
+			for (Integer element : expected) {
+				Assert.assertTrue(set.contains(element));
+			}
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void propagateFailures() throws Exception {
+		ArrayedList<Integer> list = new ArrayedList<Integer>();
+		for (int i = 0; i < 10000; i++) {
+			list.add(Integer.valueOf(i));
+		}
+		ExecutorService executorService = Executors.newFixedThreadPool(3);
+		try {
+			list.setParallelEvaluator(new ParallelEvaluator(executorService,
+					100, 4));
+			list.count(new IUnaryPredicate<Integer>() {
+
+				public boolean evaluate(Integer argument) {
+					if (argument.intValue() == 7777) {
+						throw new IllegalStateException();
+					}
+					return true;
+				}
+			});
+		} finally {
+			executorService.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,213 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.collections.list;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * {@code PagedLazyListTest} counts the range evaluations a
+ * {@link PagedLazyList} issues while it is scrolled.
+ * 
+ * @author era
+ */
+public class PagedLazyListTest {
+
+	private static final int SIZE = 10000;
+
+	/**
+	 * Constructs a new {@code PagedLazyListTest} instance.
+	 */
+	public PagedLazyListTest() {
+		super();
+	}
+
+	@Test
+	public void scrollingEvaluatesOneRangePerPage() throws Exception {
+		CountingProvisioner provisioner = new CountingProvisioner();
+		PagedLazyList<String> list = new PagedLazyList<String>(provisioner,
+				100, 4, null);
+		Assert.assertEquals(PagedLazyListTest.SIZE, list.size());
+		for (int i = 0; i < PagedLazyListTest.SIZE; i++) {
+			Assert.assertEquals(Integer.toString(i), list.get(i));
+		}
+		Assert.assertEquals(100, provisioner.ranges);
+		// the last four pages are kept, the first one has been discarded
+		list.get(PagedLazyListTest.SIZE - 400);
+		Assert.assertEquals(100, provisioner.ranges);
+		list.get(0);
+		Assert.assertEquals(101, provisioner.ranges);
+		list.discardPages();
+		list.get(0);
+		Assert.assertEquals(102, provisioner.ranges);
+		try {
+			list.get(PagedLazyListTest.SIZE);
+			Assert.fail();
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void prefetchesInDirectionOfAccess() throws Exception {
+		CountingProvisioner provisioner = new CountingProvisioner();
+		QueueingExecutor executor = new QueueingExecutor();
+		PagedLazyList<String> list = new PagedLazyList<String>(provisioner,
+				100, 4, executor);
+		list.get(0);
+		Assert.assertTrue(executor.tasks.isEmpty());
+		list.get(100);
+		Assert.assertEquals(1, executor.tasks.size());
+		executor.runAll();
+		Assert.assertEquals(3, provisioner.ranges);
+		Assert.assertEquals("200", list.get(200)); //$NON-NLS-1$
+		Assert.assertEquals(3, provisioner.ranges);
+		executor.runAll();
+		list.get(PagedLazyListTest.SIZE - 1);
+		list.get(PagedLazyListTest.SIZE - 101);
+		executor.runAll();
+		int ranges = provisioner.ranges;
+		Assert.assertEquals("9799", list.get(PagedLazyListTest.SIZE - 201)); //$NON-NLS-1$
+		Assert.assertEquals(ranges, provisioner.ranges);
+		// a prefetch which has not started yet is taken over by the reader
+		list.get(PagedLazyListTest.SIZE - 301);
+		Assert.assertEquals(ranges + 1, provisioner.ranges);
+		Assert.assertEquals(2, executor.tasks.size());
+		executor.runAll();
+		Assert.assertEquals(ranges + 2, provisioner.ranges);
+	}
+
+	@Test
+	public void prefetchesWithDefaultSizedProvisioner() throws Exception {
+		Provisioner<String> provisioner = new Provisioner<String>() {
+
+			public String evaluate(int index) {
+				return Integer.toString(index);
+			}
+		};
+		QueueingExecutor executor = new QueueingExecutor();
+		PagedLazyList<String> list = new PagedLazyList<String>(provisioner,
+				100, 4, executor);
+		Assert.assertEquals(Integer.MAX_VALUE, list.size());
+		list.get(0);
+		list.get(100);
+		Assert.assertEquals(1, executor.tasks.size());
+		executor.runAll();
+		Assert.assertEquals(Integer.toString(Integer.MAX_VALUE - 1), list
+				.get(Integer.MAX_VALUE - 1));
+		list.get(Integer.MAX_VALUE - 101);
+		Assert.assertEquals(1, executor.tasks.size());
+	}
+
+	@Test
+	public void loadsPagesOnRequestIfPrefetchIsRejected() throws Exception {
+		CountingProvisioner provisioner = new CountingProvisioner();
+		PagedLazyList<String> list = new PagedLazyList<String>(provisioner,
+				100, 2, new Executor() {
+
+					public void execute(Runnable command) {
+						throw new RejectedExecutionException();
+					}
+				});
+		for (int i = 0; i < PagedLazyListTest.SIZE; i += 50) {
+			Assert.assertEquals(Integer.toString(i), list.get(i));
+		}
+		Assert.assertEquals(100, provisioner.ranges);
+	}
+
+	@Test
+	public void failedPagesAreLoadedAgain() throws Exception {
+		CountingProvisioner provisioner = new CountingProvisioner();
+		PagedLazyList<String> list = new PagedLazyList<String>(provisioner);
+		provisioner.failing = true;
+		try {
+			list.get(0);
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		provisioner.failing = false;
+		Assert.assertEquals("0", list.get(0)); //$NON-NLS-1$
+	}
+
+	@Test
+	public void lazyListFillsGapsWithPlaceHolders() throws Exception {
+		List<String> component = new ArrayList<String>();
+		LazyList<CountingProvisioner, String> list = new LazyList<CountingProvisioner, String>(
+				component, new CountingProvisioner());
+		Assert.assertEquals("5", list.get(5)); //$NON-NLS-1$
+		Assert.assertEquals(6, component.size());
+		Assert.assertNull(component.get(2));
+		Assert.assertEquals("2", list.get(2)); //$NON-NLS-1$
+		Assert.assertEquals("5", component.get(5)); //$NON-NLS-1$
+		Assert.assertEquals(6, component.size());
+	}
+
+	/**
+	 * {@code CountingProvisioner} provisions the string of each index and
+	 * counts the ranges evaluated.
+	 */
+	static class CountingProvisioner extends Provisioner<String> {
+
+		volatile int ranges;
+
+		volatile boolean failing;
+
+		@Override
+		public int size() {
+			return PagedLazyListTest.SIZE;
+		}
+
+		public String evaluate(int index) {
+			return Integer.toString(index);
+		}
+
+		@Override
+		public List<String> evaluate(int fromIndex, int toIndex) {
+			if (this.failing) {
+				throw new IllegalStateException();
+			}
+			this.ranges++;
+			return super.evaluate(fromIndex, toIndex);
+		}
+
+	}
+
+	/**
+	 * {@code QueueingExecutor} keeps the submitted tasks until they are run
+	 * explicitly.
+	 */
+	static class QueueingExecutor implements Executor {
+
+		final LinkedList<Runnable> tasks = new LinkedList<Runnable>();
+
+		public void execute(Runnable command) {
+			this.tasks.add(command);
+		}
+
+		void runAll() {
+			while (!this.tasks.isEmpty()) {
+				this.tasks.removeFirst().run();
+			}
+		}
+
+	}
+
+}
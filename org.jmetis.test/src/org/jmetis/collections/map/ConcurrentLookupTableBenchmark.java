@@ -0,0 +1,159 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.collections.map;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import org.jmetis.kernel.closure.IUnaryFunction;
+import org.jmetis.test.BenchmarkReport;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@code ConcurrentLookupTableBenchmark} compares the throughput of a
+ * read-mostly cache, 95% hits and 5% {@code computeIfAbsent} of new keys, on
+ * a {@link ConcurrentLookupTable} and on a {@link LookupTable} guarded by a
+ * single monitor, with one thread up to twice the available processors.
+ * 
+ * @author era
+ */
+public class ConcurrentLookupTableBenchmark {
+
+	private static final int KEY_COUNT = 1 << 16;
+
+	private static final int OPERATION_COUNT = 2000000;
+
+	private static final IUnaryFunction<Object, Integer> FUNCTION = new IUnaryFunction<Object, Integer>() {
+
+		public Object evaluate(Integer key) {
+			return key;
+		}
+	};
+
+	private final Integer[] keys;
+
+	/**
+	 * Constructs a new {@code ConcurrentLookupTableBenchmark} instance.
+	 */
+	public ConcurrentLookupTableBenchmark() {
+		super();
+		Random random = new Random(37);
+		this.keys = new Integer[ConcurrentLookupTableBenchmark.KEY_COUNT * 2];
+		for (int i = 0; i < this.keys.length; i++) {
+			this.keys[i] = Integer.valueOf(random.nextInt());
+		}
+	}
+
+	@Before
+	public void assumeEnabled() {
+		BenchmarkReport.assumeEnabled();
+	}
+
+	/**
+	 * Fills the cache with the first half of the keys and lets each thread
+	 * run {@code OPERATION_COUNT} lookups.
+	 */
+	protected void measure(String name, final Cache cache, int threadCount)
+			throws Exception {
+		for (int i = 0; i < ConcurrentLookupTableBenchmark.KEY_COUNT; i++) {
+			cache.lookup(this.keys[i]);
+		}
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(threadCount);
+		for (int i = 0; i < threadCount; i++) {
+			final int seed = i;
+			new Thread() {
+
+				@Override
+				public void run() {
+					Random random = new Random(seed);
+					Integer[] keys = ConcurrentLookupTableBenchmark.this.keys;
+					try {
+						start.await();
+						for (int j = 0; j < ConcurrentLookupTableBenchmark.OPERATION_COUNT; j++) {
+							int index = random.nextInt(20) == 0 ? ConcurrentLookupTableBenchmark.KEY_COUNT
+									+ random
+											.nextInt(ConcurrentLookupTableBenchmark.KEY_COUNT)
+									: random
+											.nextInt(ConcurrentLookupTableBenchmark.KEY_COUNT);
+							cache.lookup(keys[index]);
+						}
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					} finally {
+						done.countDown();
+					}
+				}
+			}.start();
+		}
+		long startTime = System.nanoTime();
+		start.countDown();
+		done.await();
+		long time = System.nanoTime() - startTime;
+		BenchmarkReport.report(
+				"%s, %d threads: %,.1f million lookups per second", //$NON-NLS-1$
+				name, threadCount, (double) threadCount
+						* ConcurrentLookupTableBenchmark.OPERATION_COUNT * 1000
+						/ time);
+	}
+
+	protected void measureAll(int threadCount) throws Exception {
+		measure("synchronized LookupTable", new Cache() { //$NON-NLS-1$
+
+					private final LookupTable<Integer, Object> table = new LookupTable<Integer, Object>();
+
+					public Object lookup(Integer key) {
+						synchronized (this.table) {
+							Object value = this.table.get(key);
+							if (value == null) {
+								value = ConcurrentLookupTableBenchmark.FUNCTION
+										.evaluate(key);
+								this.table.put(key, value);
+							}
+							return value;
+						}
+					}
+				}, threadCount);
+		measure("ConcurrentLookupTable", new Cache() { //$NON-NLS-1$
+
+					private final ConcurrentLookupTable<Integer, Object> table = new ConcurrentLookupTable<Integer, Object>();
+
+					public Object lookup(Integer key) {
+						return this.table.computeIfAbsent(key,
+								ConcurrentLookupTableBenchmark.FUNCTION);
+					}
+				}, threadCount);
+	}
+
+	@Test
+	public void benchmarkReadMostlyCaches() throws Exception {
+		int processors = Runtime.getRuntime().availableProcessors();
+		// warms up both tables before the measured rounds
+		measureAll(1);
+		for (int threadCount = 1; threadCount <= processors * 2; threadCount <<= 1) {
+			measureAll(threadCount);
+		}
+	}
+
+	/**
+	 * {@code Cache} adapts the measured tables to a cache lookup.
+	 */
+	interface Cache {
+
+		Object lookup(Integer key);
+
+	}
+
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.collections.map;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jmetis.kernel.closure.IUnaryFunction;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * {@code ConcurrentLookupTableTest} modifies and reads a
+ * {@link ConcurrentLookupTable} from several threads at once.
+ * 
+ * @author era
+ */
+public class ConcurrentLookupTableTest {
+
+	private static final int THREAD_COUNT = 4;
+
+	private static final int KEY_COUNT = 20000;
+
+	/**
+	 * Constructs a new {@code ConcurrentLookupTableTest} instance.
+	 */
+	public ConcurrentLookupTableTest() {
+		super();
+	}
+
+	/**
+	 * Starts {@code THREAD_COUNT} threads running the given {@code task} with
+	 * their number at the same time and rethrows the first failure.
+	 */
+	protected void runConcurrently(final Task task) throws Throwable {
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		Thread[] threads = new Thread[ConcurrentLookupTableTest.THREAD_COUNT];
+		for (int i = 0; i < threads.length; i++) {
+			final int number = i;
+			threads[i] = new Thread() {
+
+				@Override
+				public void run() {
+					try {
+						start.await();
+						task.run(number);
+					} catch (Throwable throwable) {
+						failure.compareAndSet(null, throwable);
+					}
+				}
+			};
+			threads[i].start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		if (failure.get() != null) {
+			throw failure.get();
+		}
+	}
+
+	@Test
+	public void computeIfAbsentEvaluatesOncePerKey() throws Throwable {
+		final ConcurrentLookupTable<Integer, String> lookupTable = new ConcurrentLookupTable<Integer, String>(
+				2, 2);
+		final AtomicInteger evaluations = new AtomicInteger();
+		final IUnaryFunction<String, Integer> function = new IUnaryFunction<String, Integer>() {
+
+			public String evaluate(Integer key) {
+				evaluations.incrementAndGet();
+				return key.toString();
+			}
+		};
+		runConcurrently(new Task() {
+
+			public void run(int number) {
+				for (int i = 0; i < ConcurrentLookupTableTest.KEY_COUNT; i++) {
+					Integer key = Integer.valueOf(number % 2 == 0 ? i
+							: ConcurrentLookupTableTest.KEY_COUNT - 1 - i);
+					Assert.assertEquals(key.toString(), lookupTable
+							.computeIfAbsent(key, function));
+				}
+			}
+		});
+		Assert.assertEquals(ConcurrentLookupTableTest.KEY_COUNT, evaluations
+				.get());
+		Assert.assertEquals(ConcurrentLookupTableTest.KEY_COUNT, lookupTable
+				.size());
+		Assert.assertNull(lookupTable.computeIfAbsent(Integer.valueOf(-1),
+				new IUnaryFunction<String, Integer>() {
+
+					public String evaluate(Integer key) {
+						return null;
+					}
+				}));
+		Assert.assertFalse(lookupTable.containsKey(Integer.valueOf(-1)));
+	}
+
+	@Test
+	public void readersSeeConsistentValuesWhileWritersGrowAndShrink()
+			throws Throwable {
+		final ConcurrentLookupTable<Integer, String> lookupTable = new ConcurrentLookupTable<Integer, String>(
+				2, 2);
+		runConcurrently(new Task() {
+
+			public void run(int number) {
+				if (number % 2 == 0) {
+					for (int round = 0; round < 5; round++) {
+						for (int i = number; i < ConcurrentLookupTableTest.KEY_COUNT; i += ConcurrentLookupTableTest.THREAD_COUNT) {
+							Assert.assertNull(lookupTable.putIfAbsent(Integer
+									.valueOf(i), Integer.toString(i)));
+						}
+						for (int i = number; i < ConcurrentLookupTableTest.KEY_COUNT; i += ConcurrentLookupTableTest.THREAD_COUNT) {
+							if (round == 4 && i % 3 != 0) {
+								continue;
+							}
+							Assert.assertEquals(Integer.toString(i),
+									lookupTable.remove(Integer.valueOf(i)));
+						}
+					}
+				} else {
+					for (int round = 0; round < 20; round++) {
+						for (int i = 0; i < ConcurrentLookupTableTest.KEY_COUNT; i++) {
+							String value = lookupTable.get(Integer.valueOf(i));
+							if (value != null) {
+								Assert.assertEquals(Integer.toString(i), value);
+							}
+						}
+					}
+				}
+			}
+		});
+		for (int i = 0; i < ConcurrentLookupTableTest.KEY_COUNT; i++) {
+			boolean written = i % ConcurrentLookupTableTest.THREAD_COUNT % 2 == 0;
+			Assert.assertEquals(written && i % 3 != 0, lookupTable
+					.containsKey(Integer.valueOf(i)));
+		}
+	}
+
+	/**
+	 * {@code Task} is run by each of the concurrent threads.
+	 */
+	interface Task {
+
+		void run(int number);
+
+	}
+
+}
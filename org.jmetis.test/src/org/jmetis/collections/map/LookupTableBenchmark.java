@@ -0,0 +1,190 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.collections.map;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import org.jmetis.test.BenchmarkReport;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@code LookupTableBenchmark} compares the time of get, put and remove mixes
+ * and the memory per entry of the {@link ILookupTable} implementations with
+ * those of a {@link HashMap}. The keys are allocated up front, so the memory
+ * measured is that of the table structure alone.
+ * 
+ * @author era
+ */
+public class LookupTableBenchmark {
+
+	private static final int ENTRY_COUNT = 1000000;
+
+	private static final int OPERATION_COUNT = 4000000;
+
+	private static final Object VALUE = new Object();
+
+	private final int[] intKeys;
+
+	private final Integer[] keys;
+
+	/**
+	 * Constructs a new {@code LookupTableBenchmark} instance.
+	 */
+	public LookupTableBenchmark() {
+		super();
+		Random random = new Random(29);
+		this.intKeys = new int[LookupTableBenchmark.ENTRY_COUNT * 2];
+		this.keys = new Integer[this.intKeys.length];
+		for (int i = 0; i < this.intKeys.length; i++) {
+			this.intKeys[i] = random.nextInt();
+			this.keys[i] = Integer.valueOf(this.intKeys[i]);
+		}
+	}
+
+	@Before
+	public void assumeEnabled() {
+		BenchmarkReport.assumeEnabled();
+	}
+
+	protected long usedMemory() throws Exception {
+		Runtime runtime = Runtime.getRuntime();
+		long usedMemory = Long.MAX_VALUE;
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			Thread.sleep(20);
+			usedMemory = Math.min(usedMemory, runtime.totalMemory()
+					- runtime.freeMemory());
+		}
+		return usedMemory;
+	}
+
+	/**
+	 * Fills the table with the first half of the keys, then runs a mix of
+	 * gets (half of them misses), puts and removes.
+	 */
+	protected void measure(String name, Table table) throws Exception {
+		long usedMemory = usedMemory();
+		long start = System.nanoTime();
+		for (int i = 0; i < LookupTableBenchmark.ENTRY_COUNT; i++) {
+			table.put(i);
+		}
+		long putTime = System.nanoTime() - start;
+		double bytesPerEntry = (double) (usedMemory() - usedMemory)
+				/ LookupTableBenchmark.ENTRY_COUNT;
+		Random random = new Random(31);
+		int hits = 0;
+		start = System.nanoTime();
+		for (int i = 0; i < LookupTableBenchmark.OPERATION_COUNT; i++) {
+			int key = random.nextInt(this.keys.length);
+			switch (i & 7) {
+			case 0:
+				table.put(key);
+				break;
+			case 1:
+				table.remove(key);
+				break;
+			default:
+				if (table.get(key)) {
+					hits++;
+				}
+			}
+		}
+		long mixTime = System.nanoTime() - start;
+		Assert.assertTrue(hits > 0);
+		BenchmarkReport.report(
+				"%s: put %,.1f ns, 75%% get/12.5%% put/12.5%% remove %,.1f ns, %,.1f bytes per entry", //$NON-NLS-1$
+				name, (double) putTime / LookupTableBenchmark.ENTRY_COUNT,
+				(double) mixTime / LookupTableBenchmark.OPERATION_COUNT,
+				bytesPerEntry);
+	}
+
+	@Test
+	public void benchmarkLookupTables() throws Exception {
+		for (int round = 0; round < 2; round++) {
+			measure("HashMap<Integer, Object>", new Table() { //$NON-NLS-1$
+
+						private final HashMap<Integer, Object> map = new HashMap<Integer, Object>();
+
+						public void put(int index) {
+							this.map.put(LookupTableBenchmark.this.keys[index],
+									LookupTableBenchmark.VALUE);
+						}
+
+						public boolean get(int index) {
+							return this.map
+									.get(LookupTableBenchmark.this.keys[index]) != null;
+						}
+
+						public void remove(int index) {
+							this.map.remove(LookupTableBenchmark.this.keys[index]);
+						}
+					});
+			measure("LookupTable<Integer, Object>", new Table() { //$NON-NLS-1$
+
+						private final LookupTable<Integer, Object> map = new LookupTable<Integer, Object>();
+
+						public void put(int index) {
+							this.map.put(LookupTableBenchmark.this.keys[index],
+									LookupTableBenchmark.VALUE);
+						}
+
+						public boolean get(int index) {
+							return this.map
+									.get(LookupTableBenchmark.this.keys[index]) != null;
+						}
+
+						public void remove(int index) {
+							this.map.remove(LookupTableBenchmark.this.keys[index]);
+						}
+					});
+			measure("IntLookupTable<Object>", new Table() { //$NON-NLS-1$
+
+						private final IntLookupTable<Object> map = new IntLookupTable<Object>();
+
+						public void put(int index) {
+							this.map.put(
+									LookupTableBenchmark.this.intKeys[index],
+									LookupTableBenchmark.VALUE);
+						}
+
+						public boolean get(int index) {
+							return this.map
+									.get(LookupTableBenchmark.this.intKeys[index]) != null;
+						}
+
+						public void remove(int index) {
+							this.map.remove(LookupTableBenchmark.this.intKeys[index]);
+						}
+					});
+		}
+	}
+
+	/**
+	 * {@code Table} adapts the measured tables to the benchmark's operations
+	 * on the key at an index.
+	 */
+	interface Table {
+
+		void put(int index);
+
+		boolean get(int index);
+
+		void remove(int index);
+
+	}
+
+}
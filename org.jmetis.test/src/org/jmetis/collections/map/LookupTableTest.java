@@ -0,0 +1,158 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.collections.map;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * {@code LookupTableTest} compares the {@link ILookupTable} implementations
+ * with a {@link HashMap} after random changes.
+ * 
+ * @author era
+ */
+public class LookupTableTest {
+
+	/**
+	 * Constructs a new {@code LookupTableTest} instance.
+	 */
+	public LookupTableTest() {
+		super();
+	}
+
+	protected <K> void validate(ILookupTable<K, String> lookupTable,
+			KeyFactory<K> keyFactory) {
+		Random random = new Random(23);
+		Map<K, String> expected = new HashMap<K, String>();
+		for (int step = 0; step < 200000; step++) {
+			K key = keyFactory.create(random.nextInt(step % 20000 < 10000 ? 5000
+					: 200));
+			switch (random.nextInt(4)) {
+			case 0:
+			case 1:
+				String value = random.nextInt(10) == 0 ? null : Integer
+						.toString(step);
+				Assert.assertEquals(expected.put(key, value), lookupTable
+						.put(key, value));
+				break;
+			case 2:
+				Assert.assertEquals(expected.remove(key), lookupTable
+						.remove(key));
+				break;
+			default:
+				Assert.assertEquals(expected.containsKey(key), lookupTable
+						.containsKey(key));
+				Assert.assertEquals(expected.get(key), lookupTable.get(key));
+			}
+			Assert.assertEquals(expected.size(), lookupTable.size());
+			if (step % 50000 == 49999) {
+				for (Map.Entry<K, String> entry : expected.entrySet()) {
+					Assert.assertTrue(lookupTable.containsKey(entry.getKey()));
+					Assert.assertEquals(entry.getValue(), lookupTable
+							.get(entry.getKey()));
+				}
+			}
+		}
+		lookupTable.clear();
+		Assert.assertTrue(lookupTable.isEmpty());
+		Assert.assertFalse(lookupTable.containsKey(keyFactory.create(0)));
+	}
+
+	@Test
+	public void validateLookupTable() throws Exception {
+		validate(new LookupTable<String, String>(),
+				new KeyFactory<String>() {
+
+					public String create(int seed) {
+						return seed == 0 ? null : Integer.toString(seed * 7919);
+					}
+				});
+	}
+
+	@Test
+	public void validateCollidingKeys() throws Exception {
+		validate(new LookupTable<Object, String>(2, 0.9F),
+				new KeyFactory<Object>() {
+
+					public Object create(final int seed) {
+						return new Object() {
+
+							private final int value = seed;
+
+							@Override
+							public boolean equals(Object object) {
+								return object != null
+										&& object.getClass() == getClass()
+										&& object.toString().equals(toString());
+							}
+
+							@Override
+							public int hashCode() {
+								return value % 8;
+							}
+
+							@Override
+							public String toString() {
+								return Integer.toString(value);
+							}
+						};
+					}
+				});
+	}
+
+	@Test
+	public void validateConcurrentLookupTable() throws Exception {
+		validate(new ConcurrentLookupTable<String, String>(4, 4),
+				new KeyFactory<String>() {
+
+					public String create(int seed) {
+						return seed == 0 ? null : Integer.toString(seed * 7919);
+					}
+				});
+	}
+
+	@Test
+	public void validateIntLookupTable() throws Exception {
+		validate(new IntLookupTable<String>(), new KeyFactory<Integer>() {
+
+			public Integer create(int seed) {
+				return Integer.valueOf((seed - 100) << 16);
+			}
+		});
+	}
+
+	@Test
+	public void validateLongLookupTable() throws Exception {
+		validate(new LongLookupTable<String>(), new KeyFactory<Long>() {
+
+			public Long create(int seed) {
+				return Long.valueOf((long) (seed - 100) << 40);
+			}
+		});
+	}
+
+	/**
+	 * {@code KeyFactory} creates the key for a seed.
+	 */
+	interface KeyFactory<K> {
+
+		K create(int seed);
+
+	}
+
+}
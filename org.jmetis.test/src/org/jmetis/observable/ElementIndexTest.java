@@ -0,0 +1,251 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.observable;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.jmetis.kernel.closure.IUnaryFunction;
+import org.jmetis.observable.collection.ElementIndex;
+import org.jmetis.observable.collection.IndexedCollection;
+import org.jmetis.observable.collection.KeyedCollection;
+import org.jmetis.reflection.metadata.MetaDataRegistry;
+import org.jmetis.test.model.Person;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * {@code ElementIndexTest} checks that the secondary indexes of the
+ * observable collections agree with a scan of the collection after random
+ * changes.
+ * 
+ * @author era
+ */
+public class ElementIndexTest {
+
+	private static final IUnaryFunction<Integer, Integer> MODULO_FUNCTION = new IUnaryFunction<Integer, Integer>() {
+
+		public Integer evaluate(Integer argument) {
+			return Integer.valueOf(argument.intValue() % 7);
+		}
+	};
+
+	/**
+	 * Constructs a new {@code ElementIndexTest} instance.
+	 */
+	public ElementIndexTest() {
+		super();
+	}
+
+	private static void assertIndexed(ElementIndex<Integer, Integer> index,
+			Iterable<Integer> elements) {
+		for (int key = 0; key < 7; key++) {
+			List<Integer> expected = new ArrayList<Integer>();
+			for (Integer element : elements) {
+				if (element != null && element.intValue() % 7 == key) {
+					expected.add(element);
+				}
+			}
+			List<Integer> actual = new ArrayList<Integer>(index.getAll(Integer
+					.valueOf(key)));
+			Assert.assertEquals(expected.size(), actual.size());
+			for (Integer element : expected) {
+				Assert.assertTrue(actual.remove(element));
+			}
+			Assert.assertEquals(!expected.isEmpty(), index.containsKey(Integer
+					.valueOf(key)));
+		}
+	}
+
+	@Test
+	public void validateIndexedCollectionIndexes() throws Exception {
+		Random random = new Random(17);
+		List<Integer> expected = new ArrayList<Integer>();
+		for (int i = 0; i < 20; i++) {
+			expected.add(Integer.valueOf(random.nextInt(50)));
+		}
+		IndexedCollection<Integer> collection = new IndexedCollection<Integer>(
+				expected);
+		ElementIndex<Integer, Integer> index = collection
+				.addIndex(ElementIndexTest.MODULO_FUNCTION);
+		collection.addElementIndex();
+		for (int step = 0; step < 2000; step++) {
+			if (step % 100 == 0) {
+				collection.beginChanges();
+			}
+			Integer element = Integer.valueOf(random.nextInt(50));
+			int size = expected.size();
+			switch (random.nextInt(5)) {
+			case 0:
+				collection.add(element);
+				expected.add(element);
+				break;
+			case 1:
+				if (size > 0) {
+					int at = random.nextInt(size);
+					collection.set(at, element);
+					expected.set(at, element);
+				}
+				break;
+			case 2:
+				if (size > 0) {
+					int at = random.nextInt(size);
+					collection.remove(at);
+					expected.remove(at);
+				}
+				break;
+			case 3:
+				int from = random.nextInt(size + 1);
+				int to = from + random.nextInt(size - from + 1);
+				collection.subList(from, to).clear();
+				expected.subList(from, to).clear();
+				break;
+			default:
+				collection.remove(element);
+				expected.remove(element);
+				break;
+			}
+			if (step % 100 == 99) {
+				collection.endChanges();
+			}
+			Assert.assertEquals(expected, collection);
+			assertIndexed(index, expected);
+			Integer probe = Integer.valueOf(random.nextInt(60));
+			Assert.assertEquals(expected.contains(probe), collection
+					.contains(probe));
+			Assert.assertEquals(expected.indexOf(probe), collection
+					.indexOf(probe));
+			Assert.assertEquals(expected.lastIndexOf(probe), collection
+					.lastIndexOf(probe));
+		}
+		collection.clear();
+		Assert.assertEquals(0, index.size());
+		Assert.assertTrue(collection.removeIndex(index));
+		Assert.assertFalse(collection.removeIndex(index));
+	}
+
+	@Test
+	public void validateKeyedCollectionIndexes() throws Exception {
+		Random random = new Random(19);
+		HashMap<String, Integer> expected = new HashMap<String, Integer>();
+		KeyedCollection<String, Integer> collection = new KeyedCollection<String, Integer>(
+				new HashMap<String, Integer>());
+		ElementIndex<Integer, Integer> index = collection
+				.addIndex(ElementIndexTest.MODULO_FUNCTION);
+		collection.addValueIndex();
+		collection.addPropertyChangeListener(new PropertyChangeListener() {
+
+			public void propertyChange(PropertyChangeEvent event) {
+				// batches are only collected while listeners are registered
+			}
+		});
+		for (int step = 0; step < 2000; step++) {
+			if (step % 100 == 0) {
+				collection.beginChanges();
+			}
+			String key = String.valueOf(random.nextInt(30));
+			if (random.nextInt(3) == 0) {
+				collection.remove(key);
+				expected.remove(key);
+			} else {
+				Integer value = Integer.valueOf(random.nextInt(50));
+				collection.put(key, value);
+				expected.put(key, value);
+			}
+			if (step % 100 == 99) {
+				collection.endChanges();
+			}
+			Assert.assertEquals(expected, collection);
+			assertIndexed(index, expected.values());
+			Integer probe = Integer.valueOf(random.nextInt(60));
+			Assert.assertEquals(expected.containsValue(probe), collection
+					.containsValue(probe));
+		}
+	}
+
+	@Test
+	public void validatePropertyIndex() throws Exception {
+		Person smith = new Person();
+		smith.setLastName("Smith");
+		Person jones = new Person();
+		jones.setLastName("Jones");
+		IndexedCollection<Person> people = new IndexedCollection<Person>(
+				new ArrayList<Person>());
+		people.add(smith);
+		ElementIndex<Object, Person> byLastName = people
+				.addIndex(new MetaDataRegistry().classDescriptorOf(
+						Person.class).getPropertyDescriptorNamed("lastName"));
+		Assert.assertSame(smith, byLastName.get("Smith"));
+		Assert.assertNull(byLastName.get("Jones"));
+		people.add(jones);
+		Assert.assertSame(jones, byLastName.get("Jones"));
+		people.remove(smith);
+		Assert.assertFalse(byLastName.containsKey("Smith"));
+		Assert.assertEquals(1, byLastName.size());
+	}
+
+	@Test
+	public void reindexAfterKeyPropertyChange() throws Exception {
+		Person smith = new Person();
+		smith.setLastName("Smith");
+		Person jones = new Person();
+		jones.setLastName("Jones");
+		IndexedCollection<Person> people = new IndexedCollection<Person>(
+				new ArrayList<Person>());
+		ElementIndex<Object, Person> byLastName = people
+				.addIndex(new MetaDataRegistry().classDescriptorOf(
+						Person.class).getPropertyDescriptorNamed("lastName"));
+		people.add(smith);
+		people.add(jones);
+		jones.setLastName("Brown");
+		people.set(1, jones);
+		Assert.assertSame(jones, byLastName.get("Brown"));
+		Assert.assertFalse(byLastName.containsKey("Jones"));
+		people.remove(jones);
+		Assert.assertFalse(byLastName.containsKey("Brown"));
+		Assert.assertEquals(1, byLastName.size());
+	}
+
+	@Test
+	public void entrySetValueUpdatesIndexes() throws Exception {
+		KeyedCollection<String, Integer> collection = new KeyedCollection<String, Integer>(
+				new HashMap<String, Integer>());
+		ElementIndex<Integer, Integer> index = collection
+				.addIndex(ElementIndexTest.MODULO_FUNCTION);
+		collection.put("a", Integer.valueOf(1));
+		final List<PropertyChangeEvent> events = new ArrayList<PropertyChangeEvent>();
+		collection.addPropertyChangeListener(new PropertyChangeListener() {
+
+			public void propertyChange(PropertyChangeEvent event) {
+				events.add(event);
+			}
+		});
+		for (Map.Entry<String, Integer> entry : collection.entrySet()) {
+			Assert.assertEquals(Integer.valueOf(1), entry.setValue(Integer
+					.valueOf(2)));
+			Assert.assertEquals(Integer.valueOf(2), entry.getValue());
+		}
+		Assert.assertEquals(Integer.valueOf(2), collection.get("a"));
+		Assert.assertFalse(index.containsKey(Integer.valueOf(1)));
+		Assert.assertEquals(Integer.valueOf(2), index.get(Integer.valueOf(2)));
+		Assert.assertEquals(1, events.size());
+		Assert.assertEquals(Integer.valueOf(2), events.get(0).getNewValue());
+	}
+
+}
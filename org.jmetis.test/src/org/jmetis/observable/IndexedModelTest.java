@@ -106,4 +106,55 @@ public class IndexedModelTest {
 				new Object[0], new Object[] { zero, one, two });
 	}
 
+	@Test
+	public void validateBatchedChanges() throws Exception {
+		final IndexedCollection<Integer> observableList = new IndexedCollection<Integer>(
+				Arrays.asList(new Integer[] { 0, 1, 2, 3, 4, 5 }));
+		PropertyChangeCollector propertyChangeCollector = new PropertyChangeCollector();
+		observableList.addPropertyChangeListener(propertyChangeCollector);
+		observableList.runBatched(new Runnable() {
+
+			public void run() {
+				for (int i = 10; i < 15; i++) {
+					observableList.add(i);
+				}
+				observableList.add(8, 99);
+				observableList.remove(9);
+				observableList.set(6, 20);
+				Assert.assertTrue(observableList.isChanging());
+			}
+		});
+		Assert.assertFalse(observableList.isChanging());
+		Assert.assertEquals(1, propertyChangeCollector.numberOfEvents());
+		assertEventEquals(propertyChangeCollector.lastPropertyChangeEvent(), 6,
+				new Object[0], new Object[] { 20, 11, 99, 13, 14 });
+		observableList.beginChanges();
+		observableList.remove(3);
+		observableList.remove(3);
+		observableList.remove(2);
+		observableList.set(0, 7);
+		observableList.beginChanges();
+		observableList.add(1, 8);
+		observableList.remove(1);
+		observableList.endChanges();
+		Assert.assertEquals(1, propertyChangeCollector.numberOfEvents());
+		observableList.endChanges();
+		Assert.assertEquals(3, propertyChangeCollector.numberOfEvents());
+		assertEventEquals(propertyChangeCollector.propertyChangeEvents().get(1),
+				2, new Object[] { 2, 3, 4 }, new Object[0]);
+		assertEventEquals(propertyChangeCollector.lastPropertyChangeEvent(), 0,
+				new Object[] { 0 }, new Object[] { 7 });
+		Assert.assertEquals(Arrays.asList(new Integer[] { 7, 1, 5, 20, 11,
+				99, 13, 14 }), observableList);
+		observableList.subList(1, 3).clear();
+		Assert.assertEquals(4, propertyChangeCollector.numberOfEvents());
+		assertEventEquals(propertyChangeCollector.lastPropertyChangeEvent(), 1,
+				new Object[] { 1, 5 }, new Object[0]);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void rejectUnbalancedEndChanges() throws Exception {
+		new IndexedCollection<Integer>(new ArrayList<Integer>()).endChanges();
+	}
+
 }
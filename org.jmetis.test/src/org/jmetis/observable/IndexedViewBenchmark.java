@@ -0,0 +1,128 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.observable;
+
+import java.beans.PropertyChangeEvent;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.jmetis.kernel.closure.IUnaryPredicate;
+import org.jmetis.observable.collection.FilteredIndexedView;
+import org.jmetis.observable.collection.IndexedCollection;
+import org.jmetis.observable.collection.SortedIndexedView;
+import org.jmetis.test.BenchmarkReport;
+import org.jmetis.test.PropertyChangeCollector;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@code IndexedViewBenchmark} compares the cost of a change to a large
+ * source routed through a sorted, filtered view with the cost of building
+ * that view from scratch.
+ * 
+ * @author era
+ */
+public class IndexedViewBenchmark {
+
+	private static final int ROW_COUNT = 500000;
+
+	private static final int CHANGE_COUNT = 20000;
+
+	/**
+	 * Constructs a new {@code IndexedViewBenchmark} instance.
+	 */
+	public IndexedViewBenchmark() {
+		super();
+	}
+
+	@Before
+	public void assumeEnabled() {
+		BenchmarkReport.assumeEnabled();
+	}
+
+	protected long change(IndexedCollection<Integer> collection, Random random) {
+		long start = System.nanoTime();
+		for (int i = 0; i < IndexedViewBenchmark.CHANGE_COUNT; i++) {
+			int index = random.nextInt(collection.size());
+			switch (i % 3) {
+			case 0:
+				collection.set(index, random.nextInt());
+				break;
+			case 1:
+				collection.remove(index);
+				break;
+			default:
+				collection.add(index, random.nextInt());
+			}
+		}
+		return System.nanoTime() - start;
+	}
+
+	@Test
+	public void benchmarkChanges() throws Exception {
+		Random random = new Random(42);
+		List<Integer> rows = new ArrayList<Integer>();
+		for (int i = 0; i < IndexedViewBenchmark.ROW_COUNT; i++) {
+			rows.add(random.nextInt());
+		}
+		long sourceTime = change(new IndexedCollection<Integer>(rows),
+				new Random(7));
+		IndexedCollection<Integer> collection = new IndexedCollection<Integer>(
+				rows);
+		IUnaryPredicate<Integer> filter = new IUnaryPredicate<Integer>() {
+
+			public boolean evaluate(Integer argument) {
+				return (argument.intValue() & 3) != 0;
+			}
+		};
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+
+			public int compare(Integer first, Integer second) {
+				return first.compareTo(second);
+			}
+		};
+		long start = System.nanoTime();
+		SortedIndexedView<Integer> view = new SortedIndexedView<Integer>(
+				new FilteredIndexedView<Integer>(collection, filter),
+				comparator);
+		long buildTime = System.nanoTime() - start;
+		PropertyChangeCollector counter = new PropertyChangeCollector() {
+
+			private int numberOfEvents;
+
+			@Override
+			public void propertyChange(
+					PropertyChangeEvent propertyChangeEvent) {
+				numberOfEvents++;
+			}
+
+			@Override
+			public int numberOfEvents() {
+				return numberOfEvents;
+			}
+		};
+		view.addPropertyChangeListener(counter);
+		long changeTime = change(collection, new Random(7));
+		Assert.assertTrue(counter.numberOfEvents() > 0);
+		BenchmarkReport.report(
+				"%,d rows: build %,.1f ms, change %,.2f us, source alone %,.2f us", //$NON-NLS-1$
+				IndexedViewBenchmark.ROW_COUNT, buildTime / 1e6, changeTime
+						/ 1e3 / IndexedViewBenchmark.CHANGE_COUNT, sourceTime
+						/ 1e3 / IndexedViewBenchmark.CHANGE_COUNT);
+	}
+
+}
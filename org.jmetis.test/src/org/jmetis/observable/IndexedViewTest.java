@@ -0,0 +1,217 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.observable;
+
+import java.beans.IndexedPropertyChangeEvent;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.jmetis.kernel.closure.IUnaryFunction;
+import org.jmetis.kernel.closure.IUnaryPredicate;
+import org.jmetis.observable.collection.FilteredIndexedView;
+import org.jmetis.observable.collection.IndexedCollection;
+import org.jmetis.observable.collection.MappedIndexedView;
+import org.jmetis.observable.collection.SortedIndexedView;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * {@code IndexedViewTest}
+ * 
+ * @author era
+ */
+public class IndexedViewTest {
+
+	private static final IUnaryPredicate<Integer> EVEN = new IUnaryPredicate<Integer>() {
+
+		public boolean evaluate(Integer argument) {
+			return argument.intValue() % 2 == 0;
+		}
+	};
+
+	private static final Comparator<Integer> DESCENDING = new Comparator<Integer>() {
+
+		public int compare(Integer first, Integer second) {
+			return second.compareTo(first);
+		}
+	};
+
+	private static final IUnaryFunction<String, Integer> TO_STRING = new IUnaryFunction<String, Integer>() {
+
+		public String evaluate(Integer argument) {
+			return String.valueOf(argument);
+		}
+	};
+
+	/**
+	 * Constructs a new {@code IndexedViewTest} instance.
+	 */
+	public IndexedViewTest() {
+		super();
+	}
+
+	protected List<Integer> filtered(List<Integer> elements) {
+		List<Integer> filteredElements = new ArrayList<Integer>();
+		for (Integer element : elements) {
+			if (IndexedViewTest.EVEN.evaluate(element)) {
+				filteredElements.add(element);
+			}
+		}
+		return filteredElements;
+	}
+
+	protected List<Integer> sorted(List<Integer> elements) {
+		List<Integer> sortedElements = new ArrayList<Integer>(elements);
+		Collections.sort(sortedElements, IndexedViewTest.DESCENDING);
+		return sortedElements;
+	}
+
+	protected List<String> mapped(List<Integer> elements) {
+		List<String> mappedElements = new ArrayList<String>();
+		for (Integer element : elements) {
+			mappedElements.add(IndexedViewTest.TO_STRING.evaluate(element));
+		}
+		return mappedElements;
+	}
+
+	protected void change(Random random, IndexedCollection<Integer> collection) {
+		int size = collection.size();
+		switch (random.nextInt(size < 10 ? 3 : 6)) {
+		case 0:
+		case 1:
+			collection.add(random.nextInt(size + 1), random.nextInt(50));
+			break;
+		case 2:
+			collection.addAll(random.nextInt(size + 1), Arrays.asList(random
+					.nextInt(50), random.nextInt(50), random.nextInt(50)));
+			break;
+		case 3:
+			collection.remove(random.nextInt(size));
+			break;
+		case 4:
+			collection.set(random.nextInt(size), random.nextInt(50));
+			break;
+		default:
+			int fromIndex = random.nextInt(size - 3);
+			collection.subList(fromIndex, fromIndex + 3).clear();
+		}
+	}
+
+	@Test
+	public void validateViews() throws Exception {
+		Random random = new Random(17);
+		IndexedCollection<Integer> collection = new IndexedCollection<Integer>(
+				new ArrayList<Integer>());
+		FilteredIndexedView<Integer> filteredView = new FilteredIndexedView<Integer>(
+				collection, IndexedViewTest.EVEN);
+		SortedIndexedView<Integer> sortedView = new SortedIndexedView<Integer>(
+				collection, IndexedViewTest.DESCENDING);
+		SortedIndexedView<Integer> sortedFilteredView = new SortedIndexedView<Integer>(
+				filteredView, IndexedViewTest.DESCENDING);
+		MappedIndexedView<String, Integer> mappedView = new MappedIndexedView<String, Integer>(
+				collection, IndexedViewTest.TO_STRING);
+		Replica filteredReplica = new Replica(filteredView);
+		Replica sortedReplica = new Replica(sortedView);
+		Replica sortedFilteredReplica = new Replica(sortedFilteredView);
+		Replica mappedReplica = new Replica(mappedView);
+		for (int i = 0; i < 2000; i++) {
+			if (i % 200 == 100) {
+				collection.beginChanges();
+				change(random, collection);
+				change(random, collection);
+				collection.endChanges();
+			} else {
+				change(random, collection);
+			}
+			Assert.assertEquals(filtered(collection), filteredView);
+			Assert.assertEquals(sorted(collection), sortedView);
+			Assert.assertEquals(sorted(filtered(collection)),
+					sortedFilteredView);
+			Assert.assertEquals(mapped(collection), mappedView);
+			Assert.assertEquals(filteredView, filteredReplica.elements);
+			Assert.assertEquals(sortedView, sortedReplica.elements);
+			Assert.assertEquals(sortedFilteredView,
+					sortedFilteredReplica.elements);
+			Assert.assertEquals(mappedView, mappedReplica.elements);
+		}
+		for (int i = 0; i < filteredView.size(); i++) {
+			Assert.assertEquals(filteredView.get(i), collection
+					.get(filteredView.sourceIndexOf(i)));
+		}
+	}
+
+	@Test
+	public void validateRefresh() throws Exception {
+		IndexedCollection<Integer> collection = new IndexedCollection<Integer>(
+				Arrays.asList(3, 1, 2, 4));
+		FilteredIndexedView<Integer> filteredView = new FilteredIndexedView<Integer>(
+				collection, IndexedViewTest.EVEN);
+		SortedIndexedView<Integer> sortedView = new SortedIndexedView<Integer>(
+				collection, IndexedViewTest.DESCENDING);
+		Replica filteredReplica = new Replica(filteredView);
+		Replica sortedReplica = new Replica(sortedView);
+		Assert.assertEquals(Arrays.asList(2, 4), filteredView);
+		Assert.assertEquals(Arrays.asList(4, 3, 2, 1), sortedView);
+		filteredView.setFilter(new IUnaryPredicate<Integer>() {
+
+			public boolean evaluate(Integer argument) {
+				return argument.intValue() > 2;
+			}
+		});
+		sortedView.setComparator(Collections.<Integer> reverseOrder(IndexedViewTest.DESCENDING));
+		Assert.assertEquals(Arrays.asList(3, 4), filteredReplica.elements);
+		Assert.assertEquals(Arrays.asList(1, 2, 3, 4), sortedReplica.elements);
+		filteredView.dispose();
+		collection.add(5);
+		Assert.assertEquals(Arrays.asList(3, 4), filteredView);
+		Assert.assertEquals(Arrays.asList(1, 2, 3, 4, 5), sortedView);
+	}
+
+	/**
+	 * {@code Replica} applies the change events of a view to a list of its
+	 * own.
+	 */
+	static class Replica implements PropertyChangeListener {
+
+		final List<Object> elements;
+
+		Replica(IIndexedModel<?> indexedModel) {
+			super();
+			elements = new ArrayList<Object>(indexedModel);
+			indexedModel.addPropertyChangeListener(this);
+		}
+
+		public void propertyChange(PropertyChangeEvent propertyChangeEvent) {
+			int index = ((IndexedPropertyChangeEvent) propertyChangeEvent)
+					.getIndex();
+			Object[] oldElements = (Object[]) propertyChangeEvent
+					.getOldValue();
+			Object[] newElements = (Object[]) propertyChangeEvent
+					.getNewValue();
+			List<Object> range = elements.subList(index, index
+					+ oldElements.length);
+			Assert.assertEquals(Arrays.asList(oldElements), range);
+			range.clear();
+			range.addAll(Arrays.asList(newElements));
+		}
+
+	}
+
+}
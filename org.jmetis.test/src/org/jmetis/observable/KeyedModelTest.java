@@ -13,6 +13,13 @@
  */
 package org.jmetis.observable;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jmetis.observable.collection.EntriesChangeEvent;
+import org.jmetis.observable.collection.KeyedCollection;
+import org.jmetis.test.PropertyChangeCollector;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -35,4 +42,79 @@ public class KeyedModelTest {
 		Assert.fail("TODO");
 	}
 
+	@Test
+	public void validateBatchedChanges() throws Exception {
+		KeyedCollection<String, Integer> observableMap = new KeyedCollection<String, Integer>(
+				new LinkedHashMap<String, Integer>());
+		observableMap.put("a", 1);
+		PropertyChangeCollector propertyChangeCollector = new PropertyChangeCollector();
+		PropertyChangeCollector keyChangeCollector = new PropertyChangeCollector();
+		observableMap.addPropertyChangeListener(propertyChangeCollector);
+		observableMap.addPropertyChangeListener("b", keyChangeCollector);
+		observableMap.beginChanges();
+		observableMap.put("a", 2);
+		observableMap.put("b", 1);
+		observableMap.put("a", 1);
+		observableMap.put("b", 2);
+		Assert.assertEquals(0, propertyChangeCollector.numberOfEvents());
+		observableMap.endChanges();
+		Assert.assertEquals(1, propertyChangeCollector.numberOfEvents());
+		Assert.assertEquals(1, keyChangeCollector.numberOfEvents());
+		Assert.assertNull(keyChangeCollector.lastPropertyChangeEvent()
+				.getOldValue());
+		Assert.assertEquals(2, keyChangeCollector.lastPropertyChangeEvent()
+				.getNewValue());
+		EntriesChangeEvent entriesEvent = (EntriesChangeEvent) propertyChangeCollector
+				.lastPropertyChangeEvent();
+		Assert.assertEquals("entries", entriesEvent.getPropertyName());
+		Assert.assertEquals(Collections.singletonMap("b", null), entriesEvent
+				.getOldValues());
+		Assert.assertEquals(Collections.singletonMap("b", 2), entriesEvent
+				.getNewValues());
+		Map<String, Integer> map = new LinkedHashMap<String, Integer>();
+		for (int i = 0; i < 100; i++) {
+			map.put("c", i);
+			map.put("d" + i, i);
+		}
+		observableMap.putAll(map);
+		Assert.assertEquals(2, propertyChangeCollector.numberOfEvents());
+		Assert.assertEquals(1, keyChangeCollector.numberOfEvents());
+		entriesEvent = (EntriesChangeEvent) propertyChangeCollector
+				.lastPropertyChangeEvent();
+		Assert.assertEquals(101, entriesEvent.getNewValues().size());
+		Assert.assertEquals(99, entriesEvent.getNewValues().get("c"));
+		Assert.assertNull(entriesEvent.getOldValues().get("c"));
+	}
+
+	@Test
+	public void validateBatchedKeyListeners() throws Exception {
+		KeyedCollection<String, Integer> observableMap = new KeyedCollection<String, Integer>(
+				new LinkedHashMap<String, Integer>());
+		PropertyChangeCollector propertyChangeCollector = new PropertyChangeCollector();
+		PropertyChangeCollector keyChangeCollector = new PropertyChangeCollector();
+		observableMap.addPropertyChangeListener(propertyChangeCollector);
+		observableMap.addPropertyChangeListener("a", keyChangeCollector);
+		Map<String, Integer> map = new LinkedHashMap<String, Integer>();
+		map.put("a", 1);
+		map.put("b", 2);
+		observableMap.putAll(map);
+		Assert.assertEquals(1, propertyChangeCollector.numberOfEvents());
+		Assert.assertEquals(1, keyChangeCollector.numberOfEvents());
+		Assert.assertEquals("a", keyChangeCollector.lastPropertyChangeEvent()
+				.getPropertyName());
+		Assert.assertEquals(1, keyChangeCollector.lastPropertyChangeEvent()
+				.getNewValue());
+		observableMap.put("a", 2);
+		Assert.assertEquals(2, propertyChangeCollector.numberOfEvents());
+		Assert.assertEquals("a", propertyChangeCollector
+				.lastPropertyChangeEvent().getPropertyName());
+		Assert.assertEquals(2, keyChangeCollector.numberOfEvents());
+		observableMap.putAll(map);
+		Assert.assertEquals(3, propertyChangeCollector.numberOfEvents());
+		Assert.assertEquals(Collections.singletonMap("a", 1),
+				((EntriesChangeEvent) propertyChangeCollector
+						.lastPropertyChangeEvent()).getNewValues());
+		Assert.assertEquals(3, keyChangeCollector.numberOfEvents());
+	}
+
 }
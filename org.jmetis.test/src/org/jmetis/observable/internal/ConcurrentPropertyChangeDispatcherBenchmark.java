@@ -0,0 +1,229 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.observable.internal;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jmetis.observable.IPrimitivePropertyChangeListener;
+import org.jmetis.test.BenchmarkReport;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@code ConcurrentPropertyChangeDispatcherBenchmark} compares firing property
+ * changes through {@link ConcurrentPropertyChangeDispatcher},
+ * {@link PropertyChangeDispatcher} and {@link PropertyChangeSupport}, on a
+ * single thread and on several threads while another thread keeps adding and
+ * removing listeners, and firing to {@link IPrimitivePropertyChangeListener}s
+ * which need no event at all.
+ * 
+ * @author aerlach
+ */
+public class ConcurrentPropertyChangeDispatcherBenchmark {
+
+	private static final int WARMUP_COUNT = 200000;
+
+	private static final int FIRE_COUNT = 2000000;
+
+	private static final int NUMBER_OF_THREADS = 4;
+
+	/**
+	 * Constructs a new {@code ConcurrentPropertyChangeDispatcherBenchmark}
+	 * instance.
+	 */
+	public ConcurrentPropertyChangeDispatcherBenchmark() {
+		super();
+	}
+
+	@Before
+	public void assumeEnabled() {
+		BenchmarkReport.assumeEnabled();
+	}
+
+	protected PropertyChangeListener createListener() {
+		return new PropertyChangeListener() {
+
+			private int numberOfEvents;
+
+			public void propertyChange(PropertyChangeEvent propertyChangeEvent) {
+				numberOfEvents++;
+			}
+		};
+	}
+
+	protected PropertyChangeListener createPrimitiveListener() {
+		return new IPrimitivePropertyChangeListener() {
+
+			private long sum;
+
+			public void propertyChange(PropertyChangeEvent propertyChangeEvent) {
+				sum++;
+			}
+
+			public void propertyChange(Object source, String propertyName,
+					boolean oldValue, boolean newValue) {
+				sum++;
+			}
+
+			public void propertyChange(Object source, String propertyName,
+					int oldValue, int newValue) {
+				sum += newValue;
+			}
+
+			public void propertyChange(Object source, String propertyName,
+					long oldValue, long newValue) {
+				sum += newValue;
+			}
+
+			public void propertyChange(Object source, String propertyName,
+					double oldValue, double newValue) {
+				sum += (long) newValue;
+			}
+		};
+	}
+
+	protected Fireable createFireable(IPropertyChangeDispatcher dispatcher) {
+		return createFireable(dispatcher, createListener(), createListener());
+	}
+
+	protected Fireable createFireable(
+			final IPropertyChangeDispatcher dispatcher,
+			PropertyChangeListener generalListener,
+			PropertyChangeListener namedListener) {
+		dispatcher.addPropertyChangeListener(generalListener);
+		dispatcher.addPropertyChangeListener("count", namedListener);
+		return new Fireable() {
+
+			public void fire(int oldValue, int newValue) {
+				dispatcher.firePropertyChangeEvent("count", oldValue, newValue);
+			}
+
+			public void addAndRemoveListener(PropertyChangeListener listener) {
+				dispatcher.addPropertyChangeListener("count", listener);
+				dispatcher.removePropertyChangeListener("count", listener);
+			}
+		};
+	}
+
+	protected Fireable createFireable(final PropertyChangeSupport support) {
+		support.addPropertyChangeListener(createListener());
+		support.addPropertyChangeListener("count", createListener());
+		return new Fireable() {
+
+			public void fire(int oldValue, int newValue) {
+				support.firePropertyChange("count", oldValue, newValue);
+			}
+
+			public void addAndRemoveListener(PropertyChangeListener listener) {
+				support.addPropertyChangeListener("count", listener);
+				support.removePropertyChangeListener("count", listener);
+			}
+		};
+	}
+
+	protected void fire(Fireable fireable, int count) {
+		for (int i = 0; i < count; i++) {
+			fireable.fire(i, i + 1);
+		}
+	}
+
+	protected void report(String name, long start, int count) {
+		long elapsed = System.nanoTime() - start;
+		BenchmarkReport.report("%s: %,.1f ns/fire", name, //$NON-NLS-1$
+				(double) elapsed / count);
+	}
+
+	protected void benchmarkSingleThread(String name, Fireable fireable) {
+		fire(fireable, WARMUP_COUNT);
+		long start = System.nanoTime();
+		fire(fireable, FIRE_COUNT);
+		report(name + ", 1 thread", start, FIRE_COUNT);
+	}
+
+	protected void benchmarkConcurrent(String name, final Fireable fireable)
+			throws Exception {
+		final CountDownLatch startSignal = new CountDownLatch(1);
+		final CountDownLatch doneSignal = new CountDownLatch(NUMBER_OF_THREADS);
+		final AtomicBoolean running = new AtomicBoolean(true);
+		Thread registrar = new Thread() {
+
+			@Override
+			public void run() {
+				PropertyChangeListener listener = createListener();
+				while (running.get()) {
+					fireable.addAndRemoveListener(listener);
+					Thread.yield();
+				}
+			}
+		};
+		for (int i = 0; i < NUMBER_OF_THREADS; i++) {
+			new Thread() {
+
+				@Override
+				public void run() {
+					try {
+						startSignal.await();
+						fire(fireable, FIRE_COUNT);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					} finally {
+						doneSignal.countDown();
+					}
+				}
+			}.start();
+		}
+		registrar.start();
+		long start = System.nanoTime();
+		startSignal.countDown();
+		doneSignal.await();
+		report(name + ", " + NUMBER_OF_THREADS + " threads", start, FIRE_COUNT
+				* NUMBER_OF_THREADS);
+		running.set(false);
+		registrar.join();
+	}
+
+	@Test
+	public void benchmarkFirePropertyChangeEvent() throws Exception {
+		benchmarkSingleThread("PropertyChangeSupport",
+				createFireable(new PropertyChangeSupport(this)));
+		benchmarkSingleThread("PropertyChangeDispatcher",
+				createFireable(new PropertyChangeDispatcher(this)));
+		benchmarkSingleThread("ConcurrentPropertyChangeDispatcher",
+				createFireable(new ConcurrentPropertyChangeDispatcher(this)));
+		benchmarkSingleThread("ConcurrentPropertyChangeDispatcher, primitive",
+				createFireable(new ConcurrentPropertyChangeDispatcher(this),
+						createPrimitiveListener(), createPrimitiveListener()));
+		benchmarkConcurrent("PropertyChangeSupport",
+				createFireable(new PropertyChangeSupport(this)));
+		benchmarkConcurrent("ConcurrentPropertyChangeDispatcher",
+				createFireable(new ConcurrentPropertyChangeDispatcher(this)));
+	}
+
+	/**
+	 * {@code Fireable} hides the different APIs of the compared
+	 * implementations.
+	 */
+	protected interface Fireable {
+
+		void fire(int oldValue, int newValue);
+
+		void addAndRemoveListener(PropertyChangeListener listener);
+
+	}
+
+}
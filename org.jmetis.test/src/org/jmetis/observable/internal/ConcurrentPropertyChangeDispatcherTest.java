@@ -0,0 +1,181 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.observable.internal;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jmetis.test.PropertyChangeCollector;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@code ConcurrentPropertyChangeDispatcherTest}
+ * 
+ * @author aerlach
+ */
+public class ConcurrentPropertyChangeDispatcherTest {
+
+	private Object eventSource;
+
+	private ConcurrentPropertyChangeDispatcher propertyChangeDispatcher;
+
+	/**
+	 * Constructs a new {@code ConcurrentPropertyChangeDispatcherTest}
+	 * instance.
+	 */
+	public ConcurrentPropertyChangeDispatcherTest() {
+		super();
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		eventSource = new Object();
+		propertyChangeDispatcher = new ConcurrentPropertyChangeDispatcher(
+				eventSource);
+	}
+
+	@Test
+	public void notifyGeneralAndNamedListeners() throws Exception {
+		PropertyChangeCollector generalCollector = new PropertyChangeCollector();
+		PropertyChangeCollector namedCollector = new PropertyChangeCollector();
+		Assert.assertFalse(propertyChangeDispatcher
+				.hasPropertyChangeListeners("name"));
+		propertyChangeDispatcher.addPropertyChangeListener(generalCollector);
+		propertyChangeDispatcher.addPropertyChangeListener("name",
+				namedCollector);
+		Assert.assertTrue(propertyChangeDispatcher
+				.hasPropertyChangeListeners("name"));
+		propertyChangeDispatcher.firePropertyChangeEvent("name", "a", "b");
+		propertyChangeDispatcher.firePropertyChangeEvent("other", "a", "b");
+		propertyChangeDispatcher.firePropertyChangeEvent("name", "b", "b");
+		Assert.assertEquals(2, generalCollector.numberOfEvents());
+		Assert.assertEquals(1, namedCollector.numberOfEvents());
+		PropertyChangeEvent propertyChangeEvent = namedCollector
+				.lastPropertyChangeEvent();
+		Assert.assertSame(propertyChangeEvent, generalCollector
+				.propertyChangeEvents().get(0));
+		Assert.assertSame(eventSource, propertyChangeEvent.getSource());
+		Assert.assertEquals("b", propertyChangeEvent.getNewValue());
+	}
+
+	@Test
+	public void firePrimitiveValues() throws Exception {
+		PropertyChangeDispatcherTest.PrimitiveChangeCollector primitiveCollector = new PropertyChangeDispatcherTest.PrimitiveChangeCollector();
+		PropertyChangeCollector propertyChangeCollector = new PropertyChangeCollector();
+		propertyChangeDispatcher.addPropertyChangeListener("count",
+				primitiveCollector);
+		propertyChangeDispatcher.addPropertyChangeListener("count",
+				propertyChangeCollector);
+		propertyChangeDispatcher.firePropertyChangeEvent("count", 1, 2);
+		propertyChangeDispatcher.firePropertyChangeEvent("count", 2L, 2L);
+		propertyChangeDispatcher.firePropertyChangeEvent("count", 1.5, 2.5);
+		Assert.assertEquals(2, primitiveCollector.changes.size());
+		Assert.assertEquals("count:int:1:2", primitiveCollector.changes.get(0));
+		Assert.assertEquals(0, primitiveCollector.numberOfEvents);
+		Assert.assertEquals(2, propertyChangeCollector.numberOfEvents());
+		Assert.assertEquals(Double.valueOf(2.5), propertyChangeCollector
+				.lastPropertyChangeEvent().getNewValue());
+	}
+
+	@Test
+	public void removeListeners() throws Exception {
+		PropertyChangeCollector firstCollector = new PropertyChangeCollector();
+		PropertyChangeCollector secondCollector = new PropertyChangeCollector();
+		propertyChangeDispatcher.addPropertyChangeListener("name",
+				firstCollector);
+		propertyChangeDispatcher.addPropertyChangeListener("name",
+				secondCollector);
+		propertyChangeDispatcher.addPropertyChangeListener(firstCollector);
+		propertyChangeDispatcher.removePropertyChangeListener("name",
+				firstCollector);
+		propertyChangeDispatcher.firePropertyChangeEvent("name", 1, 2);
+		Assert.assertEquals(1, firstCollector.numberOfEvents());
+		Assert.assertEquals(1, secondCollector.numberOfEvents());
+		propertyChangeDispatcher.removePropertyChangeListener(firstCollector);
+		propertyChangeDispatcher.removePropertyChangeListener("name",
+				secondCollector);
+		propertyChangeDispatcher.removePropertyChangeListener("name",
+				secondCollector);
+		Assert.assertFalse(propertyChangeDispatcher
+				.hasPropertyChangeListeners("name"));
+		propertyChangeDispatcher.firePropertyChangeEvent("name", 2, 3);
+		Assert.assertEquals(1, firstCollector.numberOfEvents());
+		Assert.assertEquals(1, secondCollector.numberOfEvents());
+	}
+
+	@Test
+	public void registerListenersWhileFiring() throws Exception {
+		final int numberOfThreads = 4;
+		final int numberOfEvents = 20000;
+		final AtomicInteger counter = new AtomicInteger();
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		final CountDownLatch startSignal = new CountDownLatch(1);
+		final CountDownLatch doneSignal = new CountDownLatch(numberOfThreads);
+		PropertyChangeListener countingListener = new PropertyChangeListener() {
+
+			public void propertyChange(PropertyChangeEvent propertyChangeEvent) {
+				counter.incrementAndGet();
+			}
+		};
+		propertyChangeDispatcher.addPropertyChangeListener("count",
+				countingListener);
+		for (int i = 0; i < numberOfThreads; i++) {
+			new Thread() {
+
+				@Override
+				public void run() {
+					try {
+						startSignal.await();
+						for (int j = 0; j < numberOfEvents; j++) {
+							propertyChangeDispatcher.firePropertyChangeEvent(
+									"count", j, j + 1);
+						}
+					} catch (Throwable e) {
+						failure.set(e);
+					} finally {
+						doneSignal.countDown();
+					}
+				}
+			}.start();
+		}
+		startSignal.countDown();
+		while (doneSignal.getCount() > 0) {
+			PropertyChangeCollector propertyChangeCollector = new PropertyChangeCollector() {
+
+				@Override
+				public void propertyChange(
+						PropertyChangeEvent propertyChangeEvent) {
+					// do nothing
+				}
+			};
+			propertyChangeDispatcher.addPropertyChangeListener("count",
+					propertyChangeCollector);
+			propertyChangeDispatcher.addPropertyChangeListener(
+					propertyChangeCollector);
+			propertyChangeDispatcher.removePropertyChangeListener("count",
+					propertyChangeCollector);
+			propertyChangeDispatcher
+					.removePropertyChangeListener(propertyChangeCollector);
+		}
+		doneSignal.await();
+		Assert.assertNull(failure.get());
+		Assert.assertEquals(numberOfThreads * numberOfEvents, counter.get());
+	}
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.observable.internal;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+
+import org.jmetis.kernel.metadata.IClassDescription;
+import org.jmetis.observable.object.BeanAdapter;
+import org.jmetis.reflection.metadata.MetaDataRegistry;
+import org.jmetis.test.BenchmarkReport;
+import org.jmetis.test.model.Person;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@code PropertyChangeDispatcherMemoryBenchmark} measures the heap retained
+ * by idle {@link PropertyChangeDispatcher}s and property models.
+ * 
+ * @author aerlach
+ */
+public class PropertyChangeDispatcherMemoryBenchmark {
+
+	private static final int INSTANCE_COUNT = 200000;
+
+	private static final PropertyChangeListener LISTENER = new PropertyChangeListener() {
+
+		public void propertyChange(PropertyChangeEvent propertyChangeEvent) {
+			// do nothing
+		}
+	};
+
+	/**
+	 * Constructs a new {@code PropertyChangeDispatcherMemoryBenchmark}
+	 * instance.
+	 */
+	public PropertyChangeDispatcherMemoryBenchmark() {
+		super();
+	}
+
+	@Before
+	public void assumeEnabled() {
+		BenchmarkReport.assumeEnabled();
+	}
+
+	protected long usedMemory() throws Exception {
+		Runtime runtime = Runtime.getRuntime();
+		long usedMemory = Long.MAX_VALUE;
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			Thread.sleep(20);
+			usedMemory = Math.min(usedMemory, runtime.totalMemory()
+					- runtime.freeMemory());
+		}
+		return usedMemory;
+	}
+
+	protected void measure(String name, Factory factory) throws Exception {
+		Object[] instances = new Object[PropertyChangeDispatcherMemoryBenchmark.INSTANCE_COUNT];
+		long usedMemory = usedMemory();
+		for (int i = 0; i < instances.length; i++) {
+			instances[i] = factory.create();
+		}
+		double bytesPerInstance = (double) (usedMemory() - usedMemory)
+				/ instances.length;
+		Assert.assertNotNull(instances[instances.length - 1]);
+		BenchmarkReport.report("%s: %,.1f bytes", name, //$NON-NLS-1$
+				bytesPerInstance);
+	}
+
+	@Test
+	public void benchmarkMemory() throws Exception {
+		measure("idle dispatcher", new Factory() { //$NON-NLS-1$
+
+					public Object create() {
+						return new PropertyChangeDispatcher(this);
+					}
+				});
+		measure("dispatcher with one listener", new Factory() { //$NON-NLS-1$
+
+					public Object create() {
+						return new PropertyChangeDispatcher(this)
+								.addPropertyChangeListener("name", //$NON-NLS-1$
+										PropertyChangeDispatcherMemoryBenchmark.LISTENER);
+					}
+				});
+		measure("dispatcher with two properties", new Factory() { //$NON-NLS-1$
+
+					public Object create() {
+						return new PropertyChangeDispatcher(this)
+								.addPropertyChangeListener("name", //$NON-NLS-1$
+										PropertyChangeDispatcherMemoryBenchmark.LISTENER)
+								.addPropertyChangeListener(
+										PropertyChangeDispatcherMemoryBenchmark.LISTENER);
+					}
+				});
+		final IClassDescription classDescriptor = new MetaDataRegistry()
+				.classDescriptorOf(Person.class);
+		measure("idle bean adapter", new Factory() { //$NON-NLS-1$
+
+					public Object create() {
+						return new BeanAdapter(classDescriptor);
+					}
+				});
+		measure("bean adapter with one nested property", new Factory() { //$NON-NLS-1$
+
+					public Object create() {
+						BeanAdapter beanAdapter = new BeanAdapter(
+								classDescriptor);
+						beanAdapter.getPropertyNamed("firstName"); //$NON-NLS-1$
+						return beanAdapter;
+					}
+				});
+	}
+
+	/**
+	 * {@code Factory} creates the measured instances.
+	 */
+	interface Factory {
+
+		Object create();
+
+	}
+
+}
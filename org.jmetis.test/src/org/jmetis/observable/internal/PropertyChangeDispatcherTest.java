@@ -0,0 +1,363 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.observable.internal;
+
+import java.beans.PropertyChangeEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.jmetis.observable.IPrimitivePropertyChangeListener;
+import org.jmetis.test.PropertyChangeCollector;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@code PropertyChangeDispatcherTest}
+ * 
+ * @author aerlach
+ */
+public class PropertyChangeDispatcherTest {
+
+	private Object eventSource;
+
+	private PropertyChangeDispatcher propertyChangeDispatcher;
+
+	/**
+	 * Constructs a new {@code PropertyChangeDispatcherTest} instance.
+	 */
+	public PropertyChangeDispatcherTest() {
+		super();
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		eventSource = new Object();
+		propertyChangeDispatcher = new PropertyChangeDispatcher(eventSource);
+	}
+
+	@Test
+	public void deliverPrimitiveValuesWithoutEvents() throws Exception {
+		PrimitiveChangeCollector generalCollector = new PrimitiveChangeCollector();
+		PrimitiveChangeCollector namedCollector = new PrimitiveChangeCollector();
+		propertyChangeDispatcher.addPropertyChangeListener(generalCollector);
+		propertyChangeDispatcher.addPropertyChangeListener("count",
+				namedCollector);
+		propertyChangeDispatcher.firePropertyChangeEvent("count", 1, 2);
+		propertyChangeDispatcher.firePropertyChangeEvent("count", 2L, 3L);
+		propertyChangeDispatcher.firePropertyChangeEvent("count", 0.5, 1.5);
+		propertyChangeDispatcher.firePropertyChangeEvent("count", false, true);
+		propertyChangeDispatcher.firePropertyChangeEvent("count", 'a', 'b');
+		propertyChangeDispatcher.firePropertyChangeEvent("count", 1.5f, 2.5f);
+		Assert.assertEquals(0, namedCollector.numberOfEvents);
+		Assert.assertEquals("count:int:1:2", namedCollector.changes.get(0));
+		Assert.assertEquals("count:long:2:3", namedCollector.changes.get(1));
+		Assert.assertEquals("count:double:0.5:1.5", namedCollector.changes
+				.get(2));
+		Assert.assertEquals("count:boolean:false:true", namedCollector.changes
+				.get(3));
+		Assert.assertEquals("count:int:97:98", namedCollector.changes.get(4));
+		Assert.assertEquals("count:double:1.5:2.5", namedCollector.changes
+				.get(5));
+		Assert.assertEquals(namedCollector.changes, generalCollector.changes);
+		Assert.assertSame(eventSource, namedCollector.lastSource);
+	}
+
+	@Test
+	public void inflateAndDeflateListenerStorage() throws Exception {
+		PropertyChangeCollector firstCollector = new PropertyChangeCollector();
+		PropertyChangeCollector secondCollector = new PropertyChangeCollector();
+		propertyChangeDispatcher.addPropertyChangeListener("first",
+				firstCollector);
+		propertyChangeDispatcher.addPropertyChangeListener("first",
+				secondCollector);
+		propertyChangeDispatcher.firePropertyChangeEvent("first", 1, 2);
+		Assert.assertEquals(1, firstCollector.numberOfEvents());
+		Assert.assertEquals(1, secondCollector.numberOfEvents());
+		propertyChangeDispatcher.addPropertyChangeListener("second",
+				secondCollector);
+		propertyChangeDispatcher.firePropertyChangeEvent("first", 2, 3);
+		propertyChangeDispatcher.firePropertyChangeEvent("second", 2, 3);
+		Assert.assertEquals(2, firstCollector.numberOfEvents());
+		Assert.assertEquals(3, secondCollector.numberOfEvents());
+		propertyChangeDispatcher.removePropertyChangeListener("first",
+				firstCollector);
+		propertyChangeDispatcher.removePropertyChangeListener("first",
+				secondCollector);
+		propertyChangeDispatcher.removePropertyChangeListener("second",
+				secondCollector);
+		propertyChangeDispatcher.firePropertyChangeEvent("first", 3, 4);
+		propertyChangeDispatcher.firePropertyChangeEvent("second", 3, 4);
+		Assert.assertEquals(2, firstCollector.numberOfEvents());
+		Assert.assertEquals(3, secondCollector.numberOfEvents());
+		propertyChangeDispatcher.addPropertyChangeListener(firstCollector);
+		propertyChangeDispatcher.firePropertyChangeEvent("second", 4, 5);
+		Assert.assertEquals(3, firstCollector.numberOfEvents());
+		propertyChangeDispatcher.removePropertyChangeListener(firstCollector);
+		propertyChangeDispatcher.firePropertyChangeEvent("second", 5, 6);
+		Assert.assertEquals(3, firstCollector.numberOfEvents());
+	}
+
+	@Test
+	public void shareSingleEventBetweenListeners() throws Exception {
+		PropertyChangeCollector generalCollector = new PropertyChangeCollector();
+		PropertyChangeCollector namedCollector = new PropertyChangeCollector();
+		propertyChangeDispatcher.addPropertyChangeListener(generalCollector);
+		propertyChangeDispatcher.addPropertyChangeListener("count",
+				namedCollector);
+		propertyChangeDispatcher.firePropertyChangeEvent("count", 1, 2);
+		Assert.assertEquals(1, generalCollector.numberOfEvents());
+		Assert.assertEquals(1, namedCollector.numberOfEvents());
+		PropertyChangeEvent propertyChangeEvent = namedCollector
+				.lastPropertyChangeEvent();
+		Assert.assertSame(propertyChangeEvent, generalCollector
+				.lastPropertyChangeEvent());
+		Assert.assertSame(eventSource, propertyChangeEvent.getSource());
+		Assert.assertEquals("count", propertyChangeEvent.getPropertyName());
+		Assert.assertEquals(Integer.valueOf(1), propertyChangeEvent
+				.getOldValue());
+		Assert.assertEquals(Integer.valueOf(2), propertyChangeEvent
+				.getNewValue());
+		propertyChangeDispatcher.firePropertyChangeEvent("count", "a", "b");
+		Assert.assertSame(namedCollector.lastPropertyChangeEvent(),
+				generalCollector.lastPropertyChangeEvent());
+	}
+
+	@Test
+	public void boxValuesWithTheirOwnType() throws Exception {
+		PropertyChangeCollector propertyChangeCollector = new PropertyChangeCollector();
+		propertyChangeDispatcher
+				.addPropertyChangeListener(propertyChangeCollector);
+		propertyChangeDispatcher.firePropertyChangeEvent("value", (byte) 1,
+				(byte) 2);
+		Assert.assertEquals(Byte.valueOf((byte) 2), propertyChangeCollector
+				.lastPropertyChangeEvent().getNewValue());
+		propertyChangeDispatcher.firePropertyChangeEvent("value", (short) -1,
+				(short) 2);
+		Assert.assertEquals(Short.valueOf((short) -1), propertyChangeCollector
+				.lastPropertyChangeEvent().getOldValue());
+		propertyChangeDispatcher.firePropertyChangeEvent("value", 'x', 'y');
+		Assert.assertEquals(Character.valueOf('y'), propertyChangeCollector
+				.lastPropertyChangeEvent().getNewValue());
+		propertyChangeDispatcher.firePropertyChangeEvent("value", -1.5f, 2f);
+		Assert.assertEquals(Float.valueOf(-1.5f), propertyChangeCollector
+				.lastPropertyChangeEvent().getOldValue());
+		propertyChangeDispatcher.firePropertyChangeEvent("value", true, false);
+		Assert.assertEquals(Boolean.FALSE, propertyChangeCollector
+				.lastPropertyChangeEvent().getNewValue());
+		propertyChangeDispatcher.firePropertyChangeEvent("value",
+				Long.MIN_VALUE, Long.MAX_VALUE);
+		Assert.assertEquals(Long.valueOf(Long.MIN_VALUE),
+				propertyChangeCollector.lastPropertyChangeEvent()
+						.getOldValue());
+		Assert.assertEquals(6, propertyChangeCollector.numberOfEvents());
+	}
+
+	@Test
+	public void ignoreUnchangedValues() throws Exception {
+		PropertyChangeCollector propertyChangeCollector = new PropertyChangeCollector();
+		propertyChangeDispatcher
+				.addPropertyChangeListener(propertyChangeCollector);
+		propertyChangeDispatcher.firePropertyChangeEvent("value", 1, 1);
+		propertyChangeDispatcher.firePropertyChangeEvent("value", true, true);
+		propertyChangeDispatcher.firePropertyChangeEvent("value", Double.NaN,
+				Double.NaN);
+		propertyChangeDispatcher.firePropertyChangeEvent("value", Float.NaN,
+				Float.NaN);
+		Assert.assertEquals(0, propertyChangeCollector.numberOfEvents());
+		propertyChangeDispatcher.firePropertyChangeEvent("value", 0.0, -0.0);
+		Assert.assertEquals(1, propertyChangeCollector.numberOfEvents());
+	}
+
+	@Test
+	public void notifyMixedListenersOfTheSameProperty() throws Exception {
+		PrimitiveChangeCollector primitiveCollector = new PrimitiveChangeCollector();
+		PropertyChangeCollector firstCollector = new PropertyChangeCollector();
+		PropertyChangeCollector secondCollector = new PropertyChangeCollector();
+		propertyChangeDispatcher.addPropertyChangeListener("count",
+				firstCollector);
+		propertyChangeDispatcher.addPropertyChangeListener("count",
+				primitiveCollector);
+		propertyChangeDispatcher.addPropertyChangeListener("count",
+				secondCollector);
+		propertyChangeDispatcher.firePropertyChangeEvent("count", 1, 2);
+		Assert.assertEquals(1, primitiveCollector.changes.size());
+		Assert.assertEquals(1, firstCollector.numberOfEvents());
+		Assert.assertSame(firstCollector.lastPropertyChangeEvent(),
+				secondCollector.lastPropertyChangeEvent());
+		propertyChangeDispatcher.firePropertyChangeEvent("other", 1, 2);
+		Assert.assertEquals(1, firstCollector.numberOfEvents());
+		propertyChangeDispatcher.removePropertyChangeListener("count",
+				firstCollector);
+		propertyChangeDispatcher.firePropertyChangeEvent("count", 2, 3);
+		Assert.assertEquals(1, firstCollector.numberOfEvents());
+		Assert.assertEquals(2, secondCollector.numberOfEvents());
+		Assert.assertEquals(2, primitiveCollector.changes.size());
+	}
+
+	@Test
+	public void releaseTablesAfterRemovingSharedListeners() throws Exception {
+		PropertyChangeCollector firstCollector = new PropertyChangeCollector();
+		PropertyChangeCollector secondCollector = new PropertyChangeCollector();
+		propertyChangeDispatcher.addPropertyChangeListener("a", firstCollector);
+		propertyChangeDispatcher
+				.addPropertyChangeListener("a", secondCollector);
+		propertyChangeDispatcher.addPropertyChangeListener("b", firstCollector);
+		Assert.assertTrue(propertyChangeDispatcher.threshold() > 0);
+		propertyChangeDispatcher.removePropertyChangeListener("a",
+				firstCollector);
+		propertyChangeDispatcher.removePropertyChangeListener("a",
+				secondCollector);
+		propertyChangeDispatcher.removePropertyChangeListener("b",
+				firstCollector);
+		Assert.assertEquals(0, propertyChangeDispatcher.threshold());
+		propertyChangeDispatcher.addPropertyChangeListener("a", firstCollector);
+		propertyChangeDispatcher
+				.addPropertyChangeListener("a", secondCollector);
+		propertyChangeDispatcher.removePropertyChangeListener("a",
+				secondCollector);
+		propertyChangeDispatcher.removePropertyChangeListener("a",
+				firstCollector);
+		propertyChangeDispatcher.addPropertyChangeListener("b", firstCollector);
+		Assert.assertEquals(0, propertyChangeDispatcher.threshold());
+		propertyChangeDispatcher.firePropertyChangeEvent("a", 1, 2);
+		propertyChangeDispatcher.firePropertyChangeEvent("b", 1, 2);
+		Assert.assertEquals(1, firstCollector.numberOfEvents());
+		Assert.assertEquals(0, secondCollector.numberOfEvents());
+	}
+
+	@Test
+	public void removeSingleListener() throws Exception {
+		PropertyChangeCollector propertyChangeCollector = new PropertyChangeCollector();
+		propertyChangeDispatcher.addPropertyChangeListener("value",
+				propertyChangeCollector);
+		propertyChangeDispatcher.removePropertyChangeListener("value",
+				new PropertyChangeCollector());
+		propertyChangeDispatcher.firePropertyChangeEvent("value", 1, 2);
+		Assert.assertEquals(1, propertyChangeCollector.numberOfEvents());
+		propertyChangeDispatcher.removePropertyChangeListener("value",
+				propertyChangeCollector);
+		propertyChangeDispatcher.firePropertyChangeEvent("value", 2, 3);
+		Assert.assertEquals(1, propertyChangeCollector.numberOfEvents());
+	}
+
+	@Test
+	public void removeListenerInsideCollisionChain() throws Exception {
+		String[] propertyNames = { "p2", "p0", "p1", "p3" };
+		PropertyChangeCollector[] propertyChangeCollectors = new PropertyChangeCollector[propertyNames.length];
+		for (int i = 0; i < propertyNames.length; i++) {
+			propertyChangeCollectors[i] = new PropertyChangeCollector();
+			propertyChangeDispatcher.addPropertyChangeListener(
+					propertyNames[i], propertyChangeCollectors[i]);
+		}
+		propertyChangeDispatcher.removePropertyChangeListener("p0",
+				propertyChangeCollectors[1]);
+		for (int i = 0; i < propertyNames.length; i++) {
+			propertyChangeDispatcher.firePropertyChangeEvent(propertyNames[i],
+					1, 2);
+		}
+		Assert.assertEquals(1, propertyChangeCollectors[0].numberOfEvents());
+		Assert.assertEquals(0, propertyChangeCollectors[1].numberOfEvents());
+		Assert.assertEquals(1, propertyChangeCollectors[2].numberOfEvents());
+		Assert.assertEquals(1, propertyChangeCollectors[3].numberOfEvents());
+	}
+
+	@Test
+	public void deliverAfterCollidingAddsAndRemoves() throws Exception {
+		Random random = new Random(18);
+		String[] propertyNames = new String[24];
+		PrimitiveChangeCollector[] propertyChangeCollectors = new PrimitiveChangeCollector[propertyNames.length];
+		boolean[] registered = new boolean[propertyNames.length];
+		int[] expectedEvents = new int[propertyNames.length];
+		for (int i = 0; i < propertyNames.length; i++) {
+			propertyNames[i] = "p" + i;
+			propertyChangeCollectors[i] = new PrimitiveChangeCollector();
+		}
+		for (int round = 0; round < 2000; round++) {
+			int i = random.nextInt(propertyNames.length);
+			if (registered[i]) {
+				propertyChangeDispatcher.removePropertyChangeListener(
+						propertyNames[i], propertyChangeCollectors[i]);
+			} else {
+				propertyChangeDispatcher.addPropertyChangeListener(
+						propertyNames[i], propertyChangeCollectors[i]);
+			}
+			registered[i] = !registered[i];
+			for (int j = 0; j < propertyNames.length; j++) {
+				propertyChangeDispatcher.firePropertyChangeEvent(
+						propertyNames[j], Integer.valueOf(round),
+						Integer.valueOf(round + 1));
+				if (registered[j]) {
+					expectedEvents[j]++;
+				}
+				Assert.assertEquals(propertyNames[j], expectedEvents[j],
+						propertyChangeCollectors[j].numberOfEvents);
+			}
+		}
+		for (int i = 0; i < propertyNames.length; i++) {
+			if (registered[i]) {
+				propertyChangeDispatcher.removePropertyChangeListener(
+						propertyNames[i], propertyChangeCollectors[i]);
+			}
+		}
+		for (int i = 0; i < propertyNames.length; i++) {
+			propertyChangeDispatcher.firePropertyChangeEvent(propertyNames[i],
+					"a", "b");
+			Assert.assertEquals(expectedEvents[i],
+					propertyChangeCollectors[i].numberOfEvents);
+		}
+	}
+
+	static class PrimitiveChangeCollector implements
+			IPrimitivePropertyChangeListener {
+
+		List<String> changes = new ArrayList<String>();
+
+		int numberOfEvents;
+
+		Object lastSource;
+
+		public void propertyChange(PropertyChangeEvent propertyChangeEvent) {
+			numberOfEvents++;
+		}
+
+		public void propertyChange(Object source, String propertyName,
+				boolean oldValue, boolean newValue) {
+			add(source, propertyName + ":boolean:" + oldValue + ":" + newValue);
+		}
+
+		public void propertyChange(Object source, String propertyName,
+				int oldValue, int newValue) {
+			add(source, propertyName + ":int:" + oldValue + ":" + newValue);
+		}
+
+		public void propertyChange(Object source, String propertyName,
+				long oldValue, long newValue) {
+			add(source, propertyName + ":long:" + oldValue + ":" + newValue);
+		}
+
+		public void propertyChange(Object source, String propertyName,
+				double oldValue, double newValue) {
+			add(source, propertyName + ":double:" + oldValue + ":" + newValue);
+		}
+
+		private void add(Object source, String change) {
+			lastSource = source;
+			changes.add(change);
+		}
+
+	}
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.observable.internal;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.jmetis.observable.IPropertyModel;
+import org.jmetis.observable.collection.IndexedCollection;
+import org.jmetis.observable.collection.KeyedCollection;
+import org.jmetis.observable.object.BeanAdapter;
+import org.jmetis.observable.object.BeanModel;
+import org.jmetis.reflection.metadata.MetaDataRegistry;
+import org.jmetis.test.PropertyChangeCollector;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * {@code WeakPropertyChangeListenerTest}
+ * 
+ * @author aerlach
+ */
+public class WeakPropertyChangeListenerTest {
+
+	/**
+	 * Constructs a new {@code WeakPropertyChangeListenerTest} instance.
+	 */
+	public WeakPropertyChangeListenerTest() {
+		super();
+	}
+
+	protected void collectGarbage(Reference<?> reference) throws Exception {
+		for (int i = 0; i < 100 && reference.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		Assert.assertNull(reference.get());
+	}
+
+	@Test
+	public void validateEquality() throws Exception {
+		PropertyChangeCollector propertyChangeCollector = new PropertyChangeCollector();
+		WeakPropertyChangeListener weakListener = new WeakPropertyChangeListener(
+				propertyChangeCollector, "name");
+		Assert.assertEquals(weakListener, new WeakPropertyChangeListener(
+				propertyChangeCollector, "name"));
+		Assert.assertEquals(weakListener.hashCode(),
+				new WeakPropertyChangeListener(propertyChangeCollector, "name")
+						.hashCode());
+		Assert.assertFalse(weakListener.equals(new WeakPropertyChangeListener(
+				propertyChangeCollector, null)));
+		Assert.assertFalse(weakListener.equals(propertyChangeCollector));
+		Assert.assertSame(weakListener, WeakPropertyChangeListener
+				.weakListenerFor(weakListener, "name"));
+	}
+
+	@Test
+	public void validateBeanModelPurge() throws Exception {
+		Bean bean = new Bean();
+		bean.setWeakListeners(true);
+		PropertyChangeCollector propertyChangeCollector = new PropertyChangeCollector();
+		PropertyChangeCollector namedCollector = new PropertyChangeCollector();
+		bean.addPropertyChangeListener(propertyChangeCollector);
+		bean.addPropertyChangeListener("name", namedCollector);
+		bean.setName("first");
+		Assert.assertEquals(1, propertyChangeCollector.numberOfEvents());
+		Assert.assertEquals(1, namedCollector.numberOfEvents());
+		bean.removePropertyChangeListener(propertyChangeCollector);
+		Assert.assertEquals(1, bean.numberOfListeners());
+		Reference<?> reference = new WeakReference<Object>(namedCollector);
+		namedCollector = null;
+		collectGarbage(reference);
+		Assert.assertEquals(1, bean.numberOfListeners());
+		bean.setName("second");
+		Assert.assertEquals(0, bean.numberOfListeners());
+		Assert.assertEquals(1, propertyChangeCollector.numberOfEvents());
+	}
+
+	@Test
+	public void validateCollectionPurge() throws Exception {
+		IndexedCollection<String> indexedCollection = new IndexedCollection<String>(
+				new ArrayList<String>());
+		KeyedCollection<String, String> keyedCollection = new KeyedCollection<String, String>(
+				new HashMap<String, String>());
+		indexedCollection.setWeakListeners(true);
+		keyedCollection.setWeakListeners(true);
+		PropertyChangeCollector propertyChangeCollector = new PropertyChangeCollector();
+		indexedCollection.addPropertyChangeListener(propertyChangeCollector);
+		keyedCollection.addPropertyChangeListener("key",
+				propertyChangeCollector);
+		indexedCollection.add("element");
+		keyedCollection.put("key", "value");
+		Assert.assertEquals(2, propertyChangeCollector.numberOfEvents());
+		Reference<?> reference = new WeakReference<Object>(
+				propertyChangeCollector);
+		propertyChangeCollector = null;
+		collectGarbage(reference);
+		indexedCollection.add("element");
+		keyedCollection.put("key", "other value");
+		PropertyChangeCollector otherCollector = new PropertyChangeCollector();
+		indexedCollection.addPropertyChangeListener(otherCollector);
+		keyedCollection.addPropertyChangeListener("key", otherCollector);
+		indexedCollection.remove(0);
+		keyedCollection.remove("key");
+		Assert.assertEquals(2, otherCollector.numberOfEvents());
+	}
+
+	@Test
+	public void validatePropertyAdapterPurge() throws Exception {
+		Bean bean = new Bean();
+		BeanAdapter beanAdapter = new BeanAdapter(new MetaDataRegistry()
+				.classDescriptorOf(Bean.class));
+		beanAdapter.setWeakListeners(true);
+		IPropertyModel nameModel = beanAdapter.getPropertyNamed("name");
+		PropertyChangeCollector propertyChangeCollector = new PropertyChangeCollector();
+		nameModel.addPropertyChangeListener(propertyChangeCollector);
+		beanAdapter.setValue(bean);
+		bean.setName("first");
+		Assert.assertEquals(2, propertyChangeCollector.numberOfEvents());
+		Assert.assertEquals(1, bean.numberOfListeners());
+		Reference<?> reference = new WeakReference<Object>(beanAdapter);
+		beanAdapter = null;
+		nameModel = null;
+		propertyChangeCollector = null;
+		collectGarbage(reference);
+		bean.setName("second");
+		Assert.assertEquals(0, bean.numberOfListeners());
+	}
+
+	@Test
+	public void validatePropertyModelPurge() throws Exception {
+		Bean bean = new Bean();
+		BeanAdapter beanAdapter = new BeanAdapter(new MetaDataRegistry()
+				.classDescriptorOf(Bean.class));
+		beanAdapter.setWeakListeners(true);
+		IPropertyModel nameModel = beanAdapter.getPropertyNamed("name");
+		beanAdapter.setValue(bean);
+		PropertyChangeCollector propertyChangeCollector = new PropertyChangeCollector();
+		PropertyChangeCollector otherCollector = new PropertyChangeCollector();
+		nameModel.addPropertyChangeListener(propertyChangeCollector);
+		nameModel.addPropertyChangeListener(otherCollector);
+		Reference<?> reference = new WeakReference<Object>(
+				propertyChangeCollector);
+		propertyChangeCollector = null;
+		collectGarbage(reference);
+		bean.setName("first");
+		bean.setName("second");
+		Assert.assertEquals(2, otherCollector.numberOfEvents());
+		nameModel.removePropertyChangeListener(otherCollector);
+		bean.setName("third");
+		Assert.assertEquals(2, otherCollector.numberOfEvents());
+	}
+
+	/**
+	 * {@code Bean} is a {@link BeanModel} which exposes the number of its
+	 * listeners.
+	 */
+	public static class Bean extends BeanModel {
+
+		private String name;
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			String oldName = this.name;
+			this.name = name;
+			firePropertyChangeEvent("name", oldName, name);
+		}
+
+		public int numberOfListeners() {
+			return propertyChangeListeners().getPropertyChangeListeners().length;
+		}
+
+	}
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.observable.journal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.jmetis.observable.IPropertyModel;
+import org.jmetis.observable.collection.IndexedCollection;
+import org.jmetis.observable.collection.KeyedCollection;
+import org.jmetis.observable.object.BeanAdapter;
+import org.jmetis.reflection.metadata.MetaDataRegistry;
+import org.jmetis.test.model.Person;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * {@code ChangeJournalTest}
+ * 
+ * @author aerlach
+ */
+public class ChangeJournalTest {
+
+	/**
+	 * Constructs a new {@code ChangeJournalTest} instance.
+	 */
+	public ChangeJournalTest() {
+		super();
+	}
+
+	@Test
+	public void undoAndRedoIndexedChanges() throws Exception {
+		IndexedCollection<String> collection = new IndexedCollection<String>(
+				Arrays.asList("a", "b", "c"));
+		ChangeJournal changeJournal = new ChangeJournal();
+		changeJournal.attach(collection);
+		collection.add("d");
+		collection.set(0, "A");
+		collection.subList(1, 3).clear();
+		Assert.assertEquals(Arrays.asList("A", "d"), collection);
+		Assert.assertEquals(3, changeJournal.getVersion());
+		changeJournal.undo();
+		Assert.assertEquals(Arrays.asList("A", "b", "c", "d"), collection);
+		changeJournal.undo();
+		changeJournal.undo();
+		Assert.assertEquals(Arrays.asList("a", "b", "c"), collection);
+		Assert.assertFalse(changeJournal.canUndo());
+		changeJournal.redo();
+		changeJournal.redo();
+		Assert.assertEquals(Arrays.asList("A", "b", "c", "d"), collection);
+		collection.remove(3);
+		Assert.assertFalse(changeJournal.canRedo());
+		Assert.assertEquals(3, changeJournal.getLatestVersion());
+	}
+
+	@Test
+	public void undoGroupsAsOneStep() throws Exception {
+		IndexedCollection<String> collection = new IndexedCollection<String>(
+				new ArrayList<String>());
+		KeyedCollection<String, Integer> keyedCollection = new KeyedCollection<String, Integer>(
+				new HashMap<String, Integer>());
+		ChangeJournal changeJournal = new ChangeJournal();
+		changeJournal.attach(collection);
+		changeJournal.attach(keyedCollection);
+		changeJournal.beginChanges();
+		collection.add("a");
+		keyedCollection.put("a", 1);
+		changeJournal.endChanges();
+		keyedCollection.put("a", 2);
+		keyedCollection.put("b", 3);
+		changeJournal.undo();
+		changeJournal.undo();
+		Assert.assertEquals(Integer.valueOf(1), keyedCollection.get("a"));
+		Assert.assertFalse(keyedCollection.containsKey("b"));
+		changeJournal.undo();
+		Assert.assertTrue(collection.isEmpty());
+		Assert.assertTrue(keyedCollection.isEmpty());
+		changeJournal.redo();
+		Assert.assertEquals(Arrays.asList("a"), collection);
+		Assert.assertEquals(Integer.valueOf(1), keyedCollection.get("a"));
+		keyedCollection.remove("a");
+		changeJournal.undo();
+		Assert.assertEquals(Integer.valueOf(1), keyedCollection.get("a"));
+	}
+
+	@Test
+	public void restoreVersionOfPropertyModel() throws Exception {
+		BeanAdapter beanAdapter = new BeanAdapter(new MetaDataRegistry()
+				.classDescriptorOf(Person.class));
+		IPropertyModel firstNameModel = beanAdapter
+				.getPropertyNamed("firstName");
+		ChangeJournal changeJournal = new ChangeJournal();
+		changeJournal.attach(firstNameModel);
+		Person person = new Person();
+		beanAdapter.setValue(person);
+		long version = changeJournal.getVersion();
+		firstNameModel.setValue("first");
+		firstNameModel.setValue("second");
+		person.setFirstName("third");
+		changeJournal.restore(version + 1);
+		Assert.assertEquals("first", person.getFirstName());
+		changeJournal.restore(changeJournal.getLatestVersion());
+		Assert.assertEquals("third", person.getFirstName());
+		changeJournal.restore(version);
+		Assert.assertNull(person.getFirstName());
+	}
+
+	@Test
+	public void dropOldestChanges() throws Exception {
+		IndexedCollection<Integer> collection = new IndexedCollection<Integer>(
+				new ArrayList<Integer>());
+		ChangeJournal changeJournal = new ChangeJournal(8);
+		changeJournal.attach(collection);
+		Random random = new Random(3);
+		List<List<Integer>> snapshots = new ArrayList<List<Integer>>();
+		for (int i = 0; i < 20; i++) {
+			snapshots.add(new ArrayList<Integer>(collection));
+			if (collection.isEmpty() || random.nextBoolean()) {
+				collection.add(random.nextInt(collection.size() + 1), i);
+			} else {
+				collection.remove(random.nextInt(collection.size()));
+			}
+		}
+		snapshots.add(new ArrayList<Integer>(collection));
+		Assert.assertEquals(12, changeJournal.getOldestVersion());
+		Assert.assertEquals(20, changeJournal.getLatestVersion());
+		for (long version = 12; version <= 20; version++) {
+			changeJournal.restore(version);
+			Assert.assertEquals(snapshots.get((int) version), collection);
+		}
+		for (long version = 20; version >= 12; version--) {
+			changeJournal.restore(version);
+			Assert.assertEquals(snapshots.get((int) version), collection);
+		}
+		try {
+			changeJournal.restore(11);
+			Assert.fail();
+		} catch (IllegalArgumentException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void replayDoesNotRecord() throws Exception {
+		KeyedCollection<String, String> keyedCollection = new KeyedCollection<String, String>(
+				new HashMap<String, String>());
+		ChangeJournal changeJournal = new ChangeJournal();
+		changeJournal.attach(keyedCollection);
+		Map<String, String> values = new HashMap<String, String>();
+		values.put("x", "1");
+		values.put("y", "2");
+		keyedCollection.putAll(values);
+		Assert.assertEquals(2, changeJournal.getVersion());
+		changeJournal.undo();
+		changeJournal.undo();
+		Assert.assertTrue(keyedCollection.isEmpty());
+		Assert.assertEquals(0, changeJournal.getVersion());
+		Assert.assertEquals(2, changeJournal.getLatestVersion());
+	}
+
+}
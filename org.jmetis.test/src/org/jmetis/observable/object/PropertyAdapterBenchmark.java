@@ -0,0 +1,263 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.observable.object;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.jmetis.kernel.metadata.IClassDescription;
+import org.jmetis.kernel.metadata.IPropertyDescription;
+import org.jmetis.observable.IPropertyModel;
+import org.jmetis.reflection.metadata.MetaDataRegistry;
+import org.jmetis.test.BenchmarkReport;
+import org.jmetis.test.PropertyChangeCollector;
+import org.jmetis.test.model.Address;
+import org.jmetis.test.model.Person;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@code PropertyAdapterBenchmark} measures rebinding a chain of nested
+ * {@link PropertyAdapter}s by changing the value of its root, with the
+ * listener hookup resolved once per class, and with the hookup resolved by
+ * {@link Class#getMethod(String, Class...)} on every rebind.
+ * 
+ * @author aerlach
+ */
+public class PropertyAdapterBenchmark {
+
+	private static final int WARMUP_COUNT = 20000;
+
+	private static final int REBIND_COUNT = 200000;
+
+	/**
+	 * Constructs a new {@code PropertyAdapterBenchmark} instance.
+	 */
+	public PropertyAdapterBenchmark() {
+		super();
+	}
+
+	@Before
+	public void assumeEnabled() {
+		BenchmarkReport.assumeEnabled();
+	}
+
+	protected Object[] createValues(Class<?> valueClass) {
+		if (valueClass == Person.class) {
+			return Person.createSampleData("0").toArray();
+		}
+		Node[] nodes = { new Node(), new Node() };
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i].setChild(new Node());
+			nodes[i].getChild().setName("child" + i);
+		}
+		return nodes;
+	}
+
+	protected long rebind(BeanAdapter rootModel, Object[] values, int count) {
+		for (int i = 0; i < count; i++) {
+			rootModel.setValue(values[i & 1]);
+		}
+		return count;
+	}
+
+	protected void benchmark(String name, BeanAdapter rootModel,
+			String... propertyPath) {
+		IPropertyModel leafModel = rootModel;
+		for (String propertyName : propertyPath) {
+			leafModel = leafModel.getPropertyNamed(propertyName);
+			leafModel.addPropertyChangeListener(new PropertyChangeCollector() {
+
+				@Override
+				public void propertyChange(
+						PropertyChangeEvent propertyChangeEvent) {
+					// do nothing
+				}
+			});
+		}
+		Object[] values = createValues(rootModel.getValueType());
+		rebind(rootModel, values, PropertyAdapterBenchmark.WARMUP_COUNT);
+		long start = System.nanoTime();
+		rebind(rootModel, values, PropertyAdapterBenchmark.REBIND_COUNT);
+		long elapsed = System.nanoTime() - start;
+		BenchmarkReport.report("%s: %,.1f ns/rebind", name, //$NON-NLS-1$
+				(double) elapsed / PropertyAdapterBenchmark.REBIND_COUNT);
+	}
+
+	@Test
+	public void benchmarkRebind() throws Exception {
+		MetaDataRegistry metaDataRegistry = new MetaDataRegistry();
+		benchmark("IBeanModel chain, cached", new BeanAdapter(metaDataRegistry
+				.classDescriptorOf(Person.class)), "defaultAddress", "street");
+		benchmark("IBeanModel chain, getMethod per rebind",
+				new UncachedBeanAdapter(metaDataRegistry
+						.classDescriptorOf(Person.class)), "defaultAddress",
+				"street");
+		benchmark("plain bean chain, cached", new BeanAdapter(metaDataRegistry
+				.classDescriptorOf(Node.class)), "child", "name");
+		benchmark("plain bean chain, getMethod per rebind",
+				new UncachedBeanAdapter(metaDataRegistry
+						.classDescriptorOf(Node.class)), "child", "name");
+	}
+
+	@Test
+	public void validateRebind() throws Exception {
+		MetaDataRegistry metaDataRegistry = new MetaDataRegistry();
+		Object[] nodes = createValues(Node.class);
+		BeanAdapter rootModel = new BeanAdapter(metaDataRegistry
+				.classDescriptorOf(Node.class));
+		IPropertyModel nameModel = rootModel.getPropertyNamed("child")
+				.getPropertyNamed("name");
+		PropertyChangeCollector propertyChangeCollector = new PropertyChangeCollector();
+		nameModel.addPropertyChangeListener(propertyChangeCollector);
+		rootModel.setValue(nodes[0]);
+		rootModel.setValue(nodes[1]);
+		Assert.assertEquals(2, propertyChangeCollector.numberOfEvents());
+		((Node) nodes[1]).getChild().setName("renamed");
+		Assert.assertEquals(3, propertyChangeCollector.numberOfEvents());
+		((Node) nodes[0]).getChild().setName("ignored");
+		Assert.assertEquals(3, propertyChangeCollector.numberOfEvents());
+		Assert.assertEquals(1, ((Node) nodes[1]).getChild()
+				.numberOfListeners());
+		Assert.assertEquals(0, ((Node) nodes[0]).getChild()
+				.numberOfListeners());
+		Address address = new Address();
+		BeanAdapter addressModel = new BeanAdapter(metaDataRegistry
+				.classDescriptorOf(Address.class));
+		addressModel.getPropertyNamed("city").addPropertyChangeListener(
+				propertyChangeCollector);
+		addressModel.setValue(address);
+		address.setCity("Bern");
+		Assert.assertEquals(5, propertyChangeCollector.numberOfEvents());
+	}
+
+	/**
+	 * {@code Node} is an observable bean which does not implement
+	 * {@link org.jmetis.observable.IBeanModel}.
+	 */
+	public static class Node {
+
+		private final PropertyChangeSupport propertyChangeListeners = new PropertyChangeSupport(
+				this);
+
+		private String name;
+
+		private Node child;
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			String oldName = this.name;
+			this.name = name;
+			propertyChangeListeners.firePropertyChange("name", oldName, name);
+		}
+
+		public Node getChild() {
+			return child;
+		}
+
+		public void setChild(Node child) {
+			Node oldChild = this.child;
+			this.child = child;
+			propertyChangeListeners.firePropertyChange("child", oldChild,
+					child);
+		}
+
+		public int numberOfListeners() {
+			return propertyChangeListeners.getPropertyChangeListeners().length;
+		}
+
+		public void addPropertyChangeListener(String propertyName,
+				PropertyChangeListener propertyChangeListener) {
+			propertyChangeListeners.addPropertyChangeListener(propertyName,
+					propertyChangeListener);
+		}
+
+		public void removePropertyChangeListener(String propertyName,
+				PropertyChangeListener propertyChangeListener) {
+			propertyChangeListeners.removePropertyChangeListener(propertyName,
+					propertyChangeListener);
+		}
+
+	}
+
+	/**
+	 * {@code UncachedBeanAdapter} creates {@link UncachedPropertyAdapter}s.
+	 */
+	static class UncachedBeanAdapter extends BeanAdapter {
+
+		UncachedBeanAdapter(IClassDescription classDescriptor) {
+			super(classDescriptor);
+		}
+
+		@Override
+		protected PropertyAdapter createPropertyAdapterFor(
+				IPropertyDescription propertyDescriptor) {
+			return new UncachedPropertyAdapter(this, propertyDescriptor);
+		}
+
+	}
+
+	/**
+	 * {@code UncachedPropertyAdapter} looks up the listener methods on every
+	 * rebind, as {@link PropertyAdapter} used to.
+	 */
+	static class UncachedPropertyAdapter extends PropertyAdapter {
+
+		UncachedPropertyAdapter(PropertyModel propertyModel,
+				IPropertyDescription propertyDescriptor) {
+			super(propertyModel, propertyDescriptor);
+		}
+
+		@Override
+		protected PropertyAdapter createPropertyAdapterFor(
+				IPropertyDescription propertyDescriptor) {
+			return new UncachedPropertyAdapter(this, propertyDescriptor);
+		}
+
+		private void invoke(Object eventSource, String methodName) {
+			if (eventSource != null) {
+				try {
+					Method method = eventSource.getClass().getMethod(
+							methodName, String.class,
+							PropertyChangeListener.class);
+					method.invoke(eventSource, getPropertyDescriptor()
+							.getPropertyName(), this);
+				} catch (InvocationTargetException ex) {
+					throw new IllegalStateException(ex.getCause());
+				} catch (Exception ex) {
+					throw new IllegalStateException(ex);
+				}
+			}
+		}
+
+		@Override
+		protected void addPropertyChangeListenerTo(Object eventSource) {
+			invoke(eventSource, "addPropertyChangeListener");
+		}
+
+		@Override
+		protected void removePropertyChangeListenerFrom(Object eventSource) {
+			invoke(eventSource, "removePropertyChangeListener");
+		}
+
+	}
+
+}
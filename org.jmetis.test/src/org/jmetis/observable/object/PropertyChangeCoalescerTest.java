@@ -0,0 +1,231 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.observable.object;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.lang.reflect.AnnotatedElement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jmetis.kernel.metadata.IClassDescription;
+import org.jmetis.test.PropertyChangeCollector;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * {@code PropertyChangeCoalescerTest}
+ * 
+ * @author aerlach
+ */
+public class PropertyChangeCoalescerTest {
+
+	/**
+	 * Constructs a new {@code PropertyChangeCoalescerTest} instance.
+	 */
+	public PropertyChangeCoalescerTest() {
+		super();
+	}
+
+	@Test
+	public void coalesceChangesUntilFlushed() throws Exception {
+		PropertyChangeCoalescer propertyChangeCoalescer = new PropertyChangeCoalescer();
+		ValueModel firstModel = new ValueModel("a");
+		ValueModel secondModel = new ValueModel("x");
+		PropertyChangeCollector firstCollector = new PropertyChangeCollector();
+		PropertyChangeCollector secondCollector = new PropertyChangeCollector();
+		firstModel.addPropertyChangeListener(firstCollector);
+		secondModel.addPropertyChangeListener(secondCollector);
+		firstModel.setPropertyChangeCoalescer(propertyChangeCoalescer);
+		secondModel.setPropertyChangeCoalescer(propertyChangeCoalescer);
+		firstModel.setValue("b");
+		firstModel.setValue("c");
+		firstModel.setValue("d");
+		secondModel.setValue("y");
+		secondModel.setValue("x");
+		Assert.assertEquals(0, firstCollector.numberOfEvents());
+		Assert.assertEquals(2, propertyChangeCoalescer.getPendingChangeCount());
+		propertyChangeCoalescer.flush();
+		Assert.assertEquals(0, propertyChangeCoalescer.getPendingChangeCount());
+		Assert.assertEquals(1, firstCollector.numberOfEvents());
+		Assert.assertEquals("a", firstCollector.lastPropertyChangeEvent()
+				.getOldValue());
+		Assert.assertEquals("d", firstCollector.lastPropertyChangeEvent()
+				.getNewValue());
+		Assert.assertEquals(0, secondCollector.numberOfEvents());
+		firstModel.setPropertyChangeCoalescer(null);
+		firstModel.setValue("e");
+		Assert.assertEquals(2, firstCollector.numberOfEvents());
+	}
+
+	@Test
+	public void flushOnExecutor() throws Exception {
+		final int[] numberOfFlushes = new int[1];
+		final Runnable[] flushTask = new Runnable[1];
+		PropertyChangeCoalescer propertyChangeCoalescer = new PropertyChangeCoalescer(
+				new Executor() {
+
+					public void execute(Runnable command) {
+						numberOfFlushes[0]++;
+						flushTask[0] = command;
+					}
+				});
+		ValueModel valueModel = new ValueModel(Integer.valueOf(0));
+		PropertyChangeCollector propertyChangeCollector = new PropertyChangeCollector();
+		valueModel.addPropertyChangeListener(propertyChangeCollector);
+		valueModel.setPropertyChangeCoalescer(propertyChangeCoalescer);
+		for (int i = 1; i <= 100; i++) {
+			valueModel.setValue(Integer.valueOf(i));
+		}
+		Assert.assertEquals(1, numberOfFlushes[0]);
+		flushTask[0].run();
+		Assert.assertEquals(1, propertyChangeCollector.numberOfEvents());
+		Assert.assertEquals(Integer.valueOf(100), propertyChangeCollector
+				.lastPropertyChangeEvent().getNewValue());
+		valueModel.setValue(Integer.valueOf(101));
+		Assert.assertEquals(2, numberOfFlushes[0]);
+	}
+
+	@Test
+	public void flushPeriodically() throws Exception {
+		ScheduledExecutorService scheduler = Executors
+				.newSingleThreadScheduledExecutor();
+		try {
+			PropertyChangeCoalescer propertyChangeCoalescer = new PropertyChangeCoalescer(
+					scheduler, 10, TimeUnit.MILLISECONDS);
+			ValueModel valueModel = new ValueModel("a");
+			PropertyChangeCollector propertyChangeCollector = new PropertyChangeCollector();
+			valueModel.addPropertyChangeListener(propertyChangeCollector);
+			valueModel.setPropertyChangeCoalescer(propertyChangeCoalescer);
+			valueModel.setValue("b");
+			long deadline = System.currentTimeMillis() + 5000;
+			while (propertyChangeCollector.numberOfEvents() == 0
+					&& System.currentTimeMillis() < deadline) {
+				Thread.sleep(5);
+			}
+			propertyChangeCoalescer.close();
+			Assert.assertEquals(1, propertyChangeCollector.numberOfEvents());
+		} finally {
+			scheduler.shutdownNow();
+		}
+	}
+
+	@Test
+	public void keepFlushingPeriodicallyAfterListenerFailure()
+			throws Exception {
+		final List<Throwable> failures = new CopyOnWriteArrayList<Throwable>();
+		ScheduledExecutorService scheduler = Executors
+				.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable);
+						thread
+								.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+
+									public void uncaughtException(
+											Thread failedThread,
+											Throwable failure) {
+										failures.add(failure);
+									}
+								});
+						return thread;
+					}
+				});
+		try {
+			PropertyChangeCoalescer propertyChangeCoalescer = new PropertyChangeCoalescer(
+					scheduler, 10, TimeUnit.MILLISECONDS);
+			ValueModel valueModel = new ValueModel("a");
+			final AtomicInteger numberOfEvents = new AtomicInteger();
+			final RuntimeException failure = new IllegalStateException();
+			valueModel.addPropertyChangeListener(new PropertyChangeListener() {
+
+				public void propertyChange(PropertyChangeEvent evt) {
+					if (numberOfEvents.incrementAndGet() == 1) {
+						throw failure;
+					}
+				}
+			});
+			valueModel.setPropertyChangeCoalescer(propertyChangeCoalescer);
+			valueModel.setValue("b");
+			this.awaitEvents(numberOfEvents, 1);
+			valueModel.setValue("c");
+			this.awaitEvents(numberOfEvents, 2);
+			propertyChangeCoalescer.close();
+			Assert.assertEquals(2, numberOfEvents.get());
+			Assert.assertEquals(1, failures.size());
+			Assert.assertSame(failure, failures.get(0));
+		} finally {
+			scheduler.shutdownNow();
+		}
+	}
+
+	private void awaitEvents(AtomicInteger numberOfEvents, int expected)
+			throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (numberOfEvents.get() < expected
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+	}
+
+	static class ValueModel extends PropertyModel {
+
+		private Object value;
+
+		ValueModel(Object value) {
+			super();
+			this.value = value;
+		}
+
+		@Override
+		protected AnnotatedElement getAnnotatedElement() {
+			return Object.class;
+		}
+
+		@Override
+		protected IClassDescription getClassDescriptor() {
+			return null;
+		}
+
+		public Class<?> getValueType() {
+			return Object.class;
+		}
+
+		public Class<?>[] getElementTypes() {
+			return PropertyModel.EMPTY_CLASS_ARRAY;
+		}
+
+		public boolean isReadOnly() {
+			return false;
+		}
+
+		public Object getValue() {
+			return value;
+		}
+
+		public void setValue(Object value) {
+			Object oldValue = this.value;
+			this.value = value;
+			firePropertyChangeEvent(oldValue, value);
+		}
+
+	}
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jmetis.test;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import org.junit.Assume;
+
+/**
+ * {@code BenchmarkReport} collects the results of the benchmarks. The
+ * benchmarks only run if the system property {@value #REPORT_PROPERTY} names
+ * the file their results are appended to, so ordinary test runs skip them.
+ * 
+ * @author era
+ */
+public final class BenchmarkReport {
+
+	/**
+	 * The name of the system property holding the path of the report file.
+	 */
+	public static final String REPORT_PROPERTY = "org.jmetis.benchmarks.report"; //$NON-NLS-1$
+
+	private BenchmarkReport() {
+		super();
+	}
+
+	/**
+	 * Skips the calling benchmark unless a report file is configured.
+	 */
+	public static void assumeEnabled() {
+		Assume.assumeTrue(System
+				.getProperty(BenchmarkReport.REPORT_PROPERTY) != null);
+	}
+
+	/**
+	 * Appends a line formatted from the given {@code format} and
+	 * {@code arguments} to the report file.
+	 * 
+	 * @see String#format(String, Object...)
+	 */
+	public static synchronized void report(String format, Object... arguments) {
+		String fileName = System.getProperty(BenchmarkReport.REPORT_PROPERTY);
+		if (fileName != null) {
+			try {
+				PrintWriter writer = new PrintWriter(new FileWriter(fileName,
+						true));
+				try {
+					writer.println(String.format(format, arguments));
+				} finally {
+					writer.close();
+				}
+			} catch (IOException ex) {
+				throw new IllegalStateException(fileName, ex);
+			}
+		}
+	}
+
+}